@@ -0,0 +1,54 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hibernate.criterion.Restrictions.eq;
+
+import javax.annotation.Nonnull;
+
+import org.hibernate.criterion.DetachedCriteria;
+import org.hl7.fhir.r4.model.Condition;
+import org.openmrs.annotation.OpenmrsProfile;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allows patients to be searched for with {@code _has:Condition:patient:code} or
+ * {@code _has:Condition:subject:code}
+ */
+@Component
+@OpenmrsProfile(openmrsPlatformVersion = "2.2.* - 2.*")
+public class ConditionHasSearchTarget_2_2 implements HasSearchTarget {
+	
+	@Override
+	public String getResourceType() {
+		return FhirConstants.CONDITION;
+	}
+	
+	@Override
+	public DetachedCriteria createCriteria(@Nonnull String alias) {
+		return DetachedCriteria.forClass(org.openmrs.Condition.class, alias).add(eq(alias + ".voided", false));
+	}
+	
+	@Override
+	public String getReferencedIdProperty(@Nonnull String resourceType, @Nonnull String referenceFieldName) {
+		if (FhirConstants.PATIENT.equals(resourceType)
+		        && (Condition.SP_PATIENT.equals(referenceFieldName) || Condition.SP_SUBJECT.equals(referenceFieldName))) {
+			return "patient.personId";
+		}
+		
+		return null;
+	}
+	
+	@Override
+	public String getCodeProperty() {
+		return "condition.coded";
+	}
+}
@@ -28,6 +28,7 @@ import java.time.temporal.TemporalUnit;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.param.ParamPrefixEnum;
@@ -58,9 +59,16 @@ import org.springframework.stereotype.Component;
 @OpenmrsProfile(openmrsPlatformVersion = "2.2.* - 2.*")
 public class FhirConditionDaoImpl_2_2 extends BaseFhirDao<Condition> implements FhirConditionDao<Condition> {
 	
+	private static final Set<Class<?>> SEARCH_RESULT_DEPENDENCIES = withConceptDependencies(Condition.class);
+	
 	@Autowired
 	private LocalDateTimeFactory localDateTimeFactory;
 	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return SEARCH_RESULT_DEPENDENCIES;
+	}
+	
 	@Override
 	@Authorized(PrivilegeConstants.GET_CONDITIONS)
 	public Condition get(@Nonnull String uuid) {
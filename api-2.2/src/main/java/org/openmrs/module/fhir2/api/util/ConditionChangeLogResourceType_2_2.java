@@ -0,0 +1,35 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import org.openmrs.Condition;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.annotation.OpenmrsProfile;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirChangeLogResourceType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records changes to conditions in the change log
+ */
+@Component
+@OpenmrsProfile(openmrsPlatformVersion = "2.2.* - 2.*")
+public class ConditionChangeLogResourceType_2_2 implements FhirChangeLogResourceType {
+	
+	@Override
+	public String getResourceType() {
+		return FhirConstants.CONDITION;
+	}
+	
+	@Override
+	public Class<? extends OpenmrsObject> getEntityType() {
+		return Condition.class;
+	}
+}
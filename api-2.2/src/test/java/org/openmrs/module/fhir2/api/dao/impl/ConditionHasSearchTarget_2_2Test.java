@@ -0,0 +1,91 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+import java.util.List;
+
+import ca.uhn.fhir.rest.param.HasAndListParam;
+import ca.uhn.fhir.rest.param.HasOrListParam;
+import ca.uhn.fhir.rest.param.HasParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.hl7.fhir.r4.model.Condition;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.api.PatientService;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.dao.FhirPatientDao;
+import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class ConditionHasSearchTarget_2_2Test extends BaseModuleContextSensitiveTest {
+	
+	private static final String CONDITION_INITIAL_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirConditionDaoImplTest_initial_data.xml";
+	
+	private static final Integer PATIENT_ID = 6;
+	
+	private static final String CONDITION_CONCEPT_ID = "5497";
+	
+	private static final String CONDITION_CONCEPT_UUID = "c607c80f-1ea9-4da3-bb88-6276ce8868dd";
+	
+	private static final String UNKNOWN_CONCEPT_UUID = "0dd6bb55-97f4-4c28-a5a4-6ab6e2e4e4b4";
+	
+	@Autowired
+	private FhirPatientDao patientDao;
+	
+	@Autowired
+	private PatientService patientService;
+	
+	@Before
+	public void setup() throws Exception {
+		executeDataSet(CONDITION_INITIAL_DATA_XML);
+	}
+	
+	@Test
+	public void shouldReturnPatientsWithConditionsMatchingTheConceptId() {
+		List<String> uuids = patientDao.getSearchResultUuids(search(Condition.SP_PATIENT, CONDITION_CONCEPT_ID));
+		
+		assertThat(uuids, contains(patientService.getPatient(PATIENT_ID).getUuid()));
+	}
+	
+	@Test
+	public void shouldReturnPatientsWithConditionsMatchingTheConceptUuid() {
+		List<String> uuids = patientDao.getSearchResultUuids(search(Condition.SP_SUBJECT, CONDITION_CONCEPT_UUID));
+		
+		assertThat(uuids, contains(patientService.getPatient(PATIENT_ID).getUuid()));
+	}
+	
+	@Test
+	public void shouldReturnNoPatientsForAnUnknownConcept() {
+		List<String> uuids = patientDao.getSearchResultUuids(search(Condition.SP_PATIENT, UNKNOWN_CONCEPT_UUID));
+		
+		assertThat(uuids, empty());
+	}
+	
+	@Test(expected = InvalidRequestException.class)
+	public void shouldRejectSearchParametersOtherThanCode() {
+		patientDao.getSearchResultUuids(
+		    new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, new HasAndListParam().addAnd(
+		        new HasOrListParam().add(new HasParam(FhirConstants.CONDITION, Condition.SP_PATIENT,
+		            Condition.SP_CLINICAL_STATUS, "active")))));
+	}
+	
+	private static SearchParameterMap search(String referenceFieldName, String code) {
+		return new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, new HasAndListParam().addAnd(
+		    new HasOrListParam().add(new HasParam(FhirConstants.CONDITION, referenceFieldName, Condition.SP_CODE, code))));
+	}
+}
@@ -10,7 +10,10 @@
 package org.openmrs.module.fhir2;
 
 import lombok.extern.slf4j.Slf4j;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.BaseModuleActivator;
+import org.openmrs.module.fhir2.api.search.ParallelTranslation;
+import org.openmrs.module.fhir2.api.util.FhirContextWarmer;
 
 /**
  * This class contains the logic that is run every time this module is either started or shutdown
@@ -22,10 +25,15 @@ public class FhirActivator extends BaseModuleActivator {
 	@Override
 	public void started() {
 		log.info("Started FHIR");
+		
+		// build HAPI's model of the R4 resources now rather than on the first requests
+		Context.getRegisteredComponent("fhir2ContextWarmer", FhirContextWarmer.class).warmUpAsync();
 	}
 	
 	@Override
 	public void stopped() {
+		ParallelTranslation.shutdown();
+		
 		log.info("Shutdown FHIR");
 	}
 	
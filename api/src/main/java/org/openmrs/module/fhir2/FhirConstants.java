@@ -96,6 +96,54 @@ public class FhirConstants {
 	
 	public static final String OPENMRS_FHIR_MAXIMUM_PAGE_SIZE = "fhir2.paging.maximum";
 	
+	public static final String OPENMRS_FHIR_STREAMING_PAGE_SIZE = "fhir2.paging.streamingThreshold";
+	
+	public static final String OPENMRS_FHIR_STREAMING_BATCH_SIZE = "fhir2.paging.streamingBatchSize";
+	
+	public static final String OPENMRS_FHIR_PARALLEL_TRANSLATION_THRESHOLD = "fhir2.paging.parallelTranslationThreshold";
+	
+	public static final String OPENMRS_FHIR_CACHE_CORE_METADATA = "fhir2.cache.coreMetadata";
+	
+	public static final String OPENMRS_FHIR_CACHE_SEARCH_RESULTS = "fhir2.cache.searchResults";
+	
+	public static final String OPENMRS_FHIR_NORMALIZED_PERSON_SEARCH = "fhir2.search.normalizedPersonSearch";
+	
+	public static final String OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH = "fhir2.search.fullTextPersonSearch";
+	
+	public static final String OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH_PHONETIC = "fhir2.search.fullTextPersonSearch.phonetic";
+	
+	public static final String OPENMRS_FHIR_LAST_UPDATED_INDEX = "fhir2.search.lastUpdatedIndex";
+	
+	public static final String OPENMRS_FHIR_DISPLAY_NAME_SORT = "fhir2.search.displayNameSort";
+	
+	public static final String OPENMRS_FHIR_SEARCH_TIMEOUT = "fhir2.search.timeout";
+	
+	public static final String OPENMRS_FHIR_SEARCH_MAXIMUM_RESULTS = "fhir2.search.maximumResults";
+	
+	public static final String OPENMRS_FHIR_CHANGE_LOG = "fhir2.changeLog.enabled";
+	
+	public static final String OPENMRS_FHIR_CHANGE_LOG_RETENTION_DAYS = "fhir2.changeLog.retentionDays";
+	
+	public static final String OPENMRS_FHIR_CHANGE_LOG_PURGED_THROUGH = "fhir2.changeLog.purgedThrough";
+	
+	public static final String OPENMRS_FHIR_ASYNC_ENABLED = "fhir2.async.enabled";
+	
+	public static final String OPENMRS_FHIR_ASYNC_THREADS = "fhir2.async.threads";
+	
+	public static final String OPENMRS_FHIR_ASYNC_QUEUE_CAPACITY = "fhir2.async.queueCapacity";
+	
+	public static final String OPENMRS_FHIR_ASYNC_RETENTION = "fhir2.async.retentionMinutes";
+	
+	public static final String OPENMRS_FHIR_REPLICA_MAXIMUM_LAG = "fhir2.replica.maximumLag";
+	
+	public static final String CONCEPT_SOURCE_CACHE_REGION = "fhir2.conceptSource";
+	
+	public static final String OBSERVATION_CATEGORY_MAP_CACHE_REGION = "fhir2.observationCategoryMap";
+	
+	public static final String ENCOUNTER_CLASS_MAP_CACHE_REGION = "fhir2.encounterClassMap";
+	
+	public static final String METADATA_QUERY_CACHE_REGION = "fhir2.metadataQueries";
+	
 	public static final String ALLERGY_INTOLERANCE = "AllergyIntolerance";
 	
 	public static final String CONDITION = "Condition";
@@ -172,6 +220,8 @@ public class FhirConstants {
 	
 	public static final String HAS_MEMBER_SEARCH_HANDLER = "obs.has.member.search.handler";
 	
+	public static final String LASTN_OBSERVATION_SEARCH_HANDLER = "obs.lastn.search.handler";
+	
 	public static final String QUANTITY_SEARCH_HANDLER = "quantity.search.handler";
 	
 	public static final String VALUE_STRING_SEARCH_HANDLER = "value.string.search.handler";
@@ -240,6 +290,8 @@ public class FhirConstants {
 	
 	public static final String COMMON_SEARCH_HANDLER = "common.search.handler";
 	
+	public static final String HAS_SEARCH_HANDLER = "_has.search.handler";
+	
 	public static final String ID_PROPERTY = "_id.property";
 	
 	public static final String LAST_UPDATED_PROPERTY = "_lastUpdated.property";
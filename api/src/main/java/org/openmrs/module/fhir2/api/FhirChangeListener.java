@@ -0,0 +1,28 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api;
+
+import java.util.List;
+
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+
+/**
+ * Implemented by Spring beans which want to be told about changes to FHIR resources as soon as they
+ * have been recorded in the change log, rather than reading them back through
+ * {@link FhirChangeLogService}. Listeners are called on the thread that committed the changes, after
+ * the transaction has completed, so they should hand any lengthy work off to another thread.
+ */
+public interface FhirChangeListener {
+	
+	/**
+	 * @param changes the newly recorded changes, in the order of their sequence numbers
+	 */
+	void onChanges(List<FhirChangeLogEntry> changes);
+}
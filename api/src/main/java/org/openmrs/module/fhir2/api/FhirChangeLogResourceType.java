@@ -0,0 +1,31 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api;
+
+import org.openmrs.OpenmrsObject;
+
+/**
+ * Implemented by Spring beans which add a resource type to the change log, for resources backed by
+ * objects that are not available on every version of the platform this module runs on. Changes to
+ * objects of the {@link #getEntityType() entity type} are recorded against the
+ * {@link #getResourceType() resource type} with the uuid of the object.
+ */
+public interface FhirChangeLogResourceType {
+	
+	/**
+	 * @return the FHIR resource type, e.g. {@code Condition}
+	 */
+	String getResourceType();
+	
+	/**
+	 * @return the type of the objects backing resources of this type
+	 */
+	Class<? extends OpenmrsObject> getEntityType();
+}
@@ -0,0 +1,50 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api;
+
+import java.util.List;
+
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+
+public interface FhirChangeLogService {
+	
+	/**
+	 * Returns the changes recorded after the given sequence number, oldest first
+	 *
+	 * @param since the sequence number of the last change the caller has seen, or 0 to start from the
+	 *            beginning of the log
+	 * @param count the maximum number of changes to return
+	 * @return the changes recorded after {@code since}
+	 */
+	List<FhirChangeLogEntry> getChangesSince(long since, int count);
+	
+	/**
+	 * @return the sequence number of the latest change recorded, or 0 if the log is empty
+	 */
+	long getLatestSequence();
+	
+	/**
+	 * Returns the sequence number of the latest change deleted from the log. A client which has not
+	 * seen every change up to this one may have missed changes, and has to resynchronize rather than
+	 * carry on following the log.
+	 *
+	 * @return the sequence number of the latest change purged, or 0 if none have been
+	 */
+	long getPurgedThrough();
+	
+	/**
+	 * Deletes the changes recorded more than
+	 * {@link org.openmrs.module.fhir2.FhirConstants#OPENMRS_FHIR_CHANGE_LOG_RETENTION_DAYS} days ago and
+	 * records the latest of them as {@link #getPurgedThrough() purged}
+	 *
+	 * @return the number of changes deleted
+	 */
+	int purgeExpiredChanges();
+}
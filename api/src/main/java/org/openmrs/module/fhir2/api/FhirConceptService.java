@@ -9,6 +9,9 @@
  */
 package org.openmrs.module.fhir2.api;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.openmrs.Concept;
@@ -17,5 +20,9 @@ public interface FhirConceptService {
 	
 	Concept get(String uuid);
 	
+	List<Concept> get(Collection<String> uuids);
+	
 	Optional<Concept> getConceptBySourceNameAndCode(String sourceName, String code);
+	
+	Map<String, Concept> getConceptsBySourceNameAndCodes(String sourceName, Collection<String> codes);
 }
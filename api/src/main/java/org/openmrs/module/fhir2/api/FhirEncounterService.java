@@ -16,6 +16,7 @@ import java.util.HashSet;
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.HasAndListParam;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import org.hl7.fhir.r4.model.Encounter;
@@ -24,7 +25,13 @@ public interface FhirEncounterService extends FhirService<Encounter> {
 	
 	Encounter get(@Nonnull String uuid);
 	
+	default IBundleProvider searchForEncounters(DateRangeParam date, ReferenceAndListParam location,
+	        ReferenceAndListParam participant, ReferenceAndListParam subject, TokenAndListParam id,
+	        DateRangeParam lastUpdated, HashSet<Include> includes, HashSet<Include> revIncludes) {
+		return searchForEncounters(date, location, participant, subject, id, lastUpdated, null, includes, revIncludes);
+	}
+	
 	IBundleProvider searchForEncounters(DateRangeParam date, ReferenceAndListParam location,
 	        ReferenceAndListParam participant, ReferenceAndListParam subject, TokenAndListParam id,
-	        DateRangeParam lastUpdated, HashSet<Include> includes, HashSet<Include> revIncludes);
+	        DateRangeParam lastUpdated, HasAndListParam has, HashSet<Include> includes, HashSet<Include> revIncludes);
 }
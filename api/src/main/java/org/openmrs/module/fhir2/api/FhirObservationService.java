@@ -33,4 +33,18 @@ public interface FhirObservationService extends FhirService<Observation> {
 	        QuantityAndListParam valueQuantityParam, StringAndListParam valueStringParam, DateRangeParam date,
 	        TokenAndListParam code, TokenAndListParam category, TokenAndListParam id, DateRangeParam lastUpdated,
 	        SortSpec sort, HashSet<Include> includes, HashSet<Include> revIncludes);
+	
+	/**
+	 * Implements the Observation $lastn operation, returning the {@code max} most recent observations
+	 * for each code and patient. The operation must be restricted to a patient or a code, as it would
+	 * otherwise rank every observation in the database.
+	 *
+	 * @param max the number of observations to return per code and patient, defaults to 1
+	 * @param patientReference the patient or patients to return observations for
+	 * @param category the categories of the observations to return
+	 * @param code the codes of the observations to return
+	 * @return the matching observations, ordered from most to least recent
+	 */
+	IBundleProvider getLastnObservations(Integer max, ReferenceAndListParam patientReference,
+	        TokenAndListParam category, TokenAndListParam code);
 }
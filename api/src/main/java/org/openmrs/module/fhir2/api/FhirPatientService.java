@@ -17,6 +17,7 @@ import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.HasAndListParam;
 import ca.uhn.fhir.rest.param.StringAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import org.hl7.fhir.r4.model.Identifier;
@@ -30,9 +31,18 @@ public interface FhirPatientService extends FhirService<Patient> {
 	
 	PatientIdentifierType getPatientIdentifierTypeByIdentifier(Identifier identifier);
 	
-	IBundleProvider searchForPatients(StringAndListParam name, StringAndListParam given, StringAndListParam family,
+	default IBundleProvider searchForPatients(StringAndListParam name, StringAndListParam given, StringAndListParam family,
 	        TokenAndListParam identifier, TokenAndListParam gender, DateRangeParam birthDate, DateRangeParam deathDate,
 	        TokenAndListParam deceased, StringAndListParam city, StringAndListParam state, StringAndListParam postalCode,
 	        StringAndListParam country, TokenAndListParam id, DateRangeParam lastUpdated, SortSpec sort,
-	        HashSet<Include> revIncludes);
+	        HashSet<Include> revIncludes) {
+		return searchForPatients(name, given, family, identifier, gender, birthDate, deathDate, deceased, city, state,
+		    postalCode, country, id, lastUpdated, null, sort, revIncludes);
+	}
+	
+	IBundleProvider searchForPatients(StringAndListParam name, StringAndListParam given, StringAndListParam family,
+	        TokenAndListParam identifier, TokenAndListParam gender, DateRangeParam birthDate, DateRangeParam deathDate,
+	        TokenAndListParam deceased, StringAndListParam city, StringAndListParam state, StringAndListParam postalCode,
+	        StringAndListParam country, TokenAndListParam id, DateRangeParam lastUpdated, HasAndListParam has,
+	        SortSpec sort, HashSet<Include> revIncludes);
 }
@@ -9,12 +9,17 @@
  */
 package org.openmrs.module.fhir2.api;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import org.hl7.fhir.r4.model.Task;
+import org.openmrs.module.fhir2.model.FhirTask;
 
 /**
  * Contains methods pertaining to creating/updating/voiding/searching Tasks
@@ -34,4 +39,15 @@ public interface FhirTaskService extends FhirService<Task> {
 	 */
 	IBundleProvider searchForTasks(ReferenceAndListParam basedOnReference, ReferenceAndListParam ownerReference,
 	        TokenAndListParam status, TokenAndListParam id, DateRangeParam lastUpdated, SortSpec sort);
+	
+	/**
+	 * Gets the status and owner of the tasks based on each of the given resources, without loading or
+	 * translating the whole tasks
+	 *
+	 * @param basedOnType the type of the basedOn resources, e.g. ServiceRequest
+	 * @param basedOnUuids the uuids of the basedOn resources
+	 * @return a map from each basedOn uuid that has at least one task to its tasks, in which only the
+	 *         status and owner reference are populated
+	 */
+	Map<String, List<FhirTask>> getTaskStatesByBasedOn(String basedOnType, Collection<String> basedOnUuids);
 }
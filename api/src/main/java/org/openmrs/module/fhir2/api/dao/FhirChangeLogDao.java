@@ -0,0 +1,32 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import org.openmrs.annotation.Authorized;
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+import org.openmrs.util.PrivilegeConstants;
+
+public interface FhirChangeLogDao {
+	
+	@Authorized(value = { PrivilegeConstants.GET_PATIENTS, PrivilegeConstants.GET_ENCOUNTERS, PrivilegeConstants.GET_OBS,
+	        PrivilegeConstants.GET_ORDERS }, requireAll = true)
+	List<FhirChangeLogEntry> getChangesSince(long since, int count);
+	
+	@Authorized(value = { PrivilegeConstants.GET_PATIENTS, PrivilegeConstants.GET_ENCOUNTERS, PrivilegeConstants.GET_OBS,
+	        PrivilegeConstants.GET_ORDERS }, requireAll = true)
+	long getLatestSequence();
+	
+	Long getLatestSequenceBefore(Date dateChanged);
+	
+	int deleteChangesThrough(long sequence);
+}
@@ -11,7 +11,9 @@ package org.openmrs.module.fhir2.api.dao;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.openmrs.Concept;
@@ -28,6 +30,9 @@ public interface FhirConceptDao extends FhirDao<Concept> {
 	@Authorized(PrivilegeConstants.GET_CONCEPTS)
 	Optional<Concept> getConceptBySourceNameAndCode(String sourceName, String code);
 	
+	@Authorized(PrivilegeConstants.GET_CONCEPTS)
+	Map<String, Concept> getConceptsBySourceNameAndCodes(@Nonnull String sourceName, @Nonnull Collection<String> codes);
+	
 	@Override
 	@Authorized(PrivilegeConstants.MANAGE_CONCEPTS)
 	Concept createOrUpdate(@Nonnull Concept newEntry);
@@ -11,7 +11,9 @@ package org.openmrs.module.fhir2.api.dao;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.openmrs.Location;
 import org.openmrs.LocationAttribute;
@@ -29,6 +31,18 @@ public interface FhirLocationDao extends FhirDao<Location> {
 	List<LocationAttribute> getActiveAttributesByLocationAndAttributeTypeUuid(@Nonnull Location location,
 	        @Nonnull String locationAttributeTypeUuid);
 	
+	/**
+	 * Loads the active attributes of the given type for several locations using a single query
+	 *
+	 * @param locations the locations whose attributes should be loaded
+	 * @param locationAttributeTypeUuid the uuid of the attribute type
+	 * @return a map from the id of each of the locations that has at least one such attribute to its
+	 *         attributes
+	 */
+	@Authorized(PrivilegeConstants.GET_LOCATIONS)
+	Map<Integer, List<LocationAttribute>> getActiveAttributesByLocationsAndAttributeTypeUuid(
+	        @Nonnull Collection<? extends Location> locations, @Nonnull String locationAttributeTypeUuid);
+	
 	@Override
 	@Authorized(PrivilegeConstants.MANAGE_LOCATIONS)
 	Location createOrUpdate(@Nonnull Location newEntry);
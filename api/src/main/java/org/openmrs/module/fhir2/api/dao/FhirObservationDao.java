@@ -11,6 +11,7 @@ package org.openmrs.module.fhir2.api.dao;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.openmrs.Obs;
@@ -40,4 +41,14 @@ public interface FhirObservationDao extends FhirDao<Obs> {
 	@Authorized(PrivilegeConstants.GET_OBS)
 	List<Obs> getSearchResults(@Nonnull SearchParameterMap theParams, @Nonnull List<String> matchingResourceUuids,
 	        int firstResult, int lastResult);
+	
+	/**
+	 * Loads the encounters, orders, group members, people, concepts and users that translating the
+	 * given obs reads into the current session, using a few queries for all of the obs rather than
+	 * several for each of them
+	 *
+	 * @param observations the obs to load the associations of
+	 */
+	@Authorized(PrivilegeConstants.GET_OBS)
+	void fetchAssociations(@Nonnull Collection<Obs> observations);
 }
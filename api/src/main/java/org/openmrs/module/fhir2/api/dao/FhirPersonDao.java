@@ -11,7 +11,9 @@ package org.openmrs.module.fhir2.api.dao;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.openmrs.Person;
 import org.openmrs.PersonAttribute;
@@ -29,6 +31,18 @@ public interface FhirPersonDao extends FhirDao<Person> {
 	List<PersonAttribute> getActiveAttributesByPersonAndAttributeTypeUuid(@Nonnull Person person,
 	        @Nonnull String personAttributeTypeUuid);
 	
+	/**
+	 * Loads the active attributes of the given type for several people using a single query
+	 *
+	 * @param persons the people whose attributes should be loaded
+	 * @param personAttributeTypeUuid the uuid of the attribute type
+	 * @return a map from the id of each of the people that has at least one such attribute to its
+	 *         attributes
+	 */
+	@Authorized(PrivilegeConstants.GET_PERSONS)
+	Map<Integer, List<PersonAttribute>> getActiveAttributesByPersonsAndAttributeTypeUuid(
+	        @Nonnull Collection<? extends Person> persons, @Nonnull String personAttributeTypeUuid);
+	
 	@Override
 	@Authorized({ PrivilegeConstants.ADD_PERSONS, PrivilegeConstants.EDIT_PERSONS })
 	Person createOrUpdate(@Nonnull Person newEntry);
@@ -11,7 +11,9 @@ package org.openmrs.module.fhir2.api.dao;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.openmrs.Provider;
 import org.openmrs.ProviderAttribute;
@@ -28,6 +30,18 @@ public interface FhirPractitionerDao extends FhirDao<Provider> {
 	List<ProviderAttribute> getActiveAttributesByPractitionerAndAttributeTypeUuid(@Nonnull Provider provider,
 	        @Nonnull String providerAttributeTypeUuid);
 	
+	/**
+	 * Loads the active attributes of the given type for several providers using a single query
+	 *
+	 * @param providers the providers whose attributes should be loaded
+	 * @param providerAttributeTypeUuid the uuid of the attribute type
+	 * @return a map from the id of each of the providers that has at least one such attribute to its
+	 *         attributes
+	 */
+	@Authorized(PrivilegeConstants.GET_PROVIDERS)
+	Map<Integer, List<ProviderAttribute>> getActiveAttributesByPractitionersAndAttributeTypeUuid(
+	        @Nonnull Collection<? extends Provider> providers, @Nonnull String providerAttributeTypeUuid);
+	
 	@Override
 	@Authorized({ PrivilegeConstants.MANAGE_PROVIDERS })
 	Provider createOrUpdate(@Nonnull Provider newEntry);
@@ -9,8 +9,25 @@
  */
 package org.openmrs.module.fhir2.api.dao;
 
+import javax.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import org.openmrs.module.fhir2.model.FhirTask;
 
 public interface FhirTaskDao extends FhirDao<FhirTask> {
 	
+	/**
+	 * Loads the status and owner of every non-retired task based on any of the given resources using a
+	 * single query. The returned tasks are not attached to the session and only their status and
+	 * owner reference are populated.
+	 *
+	 * @param basedOnType the type of the basedOn resources, e.g. ServiceRequest
+	 * @param basedOnUuids the uuids of the basedOn resources
+	 * @return a map from each basedOn uuid that has at least one task to its tasks
+	 */
+	Map<String, List<FhirTask>> getTaskStatesByBasedOn(@Nonnull String basedOnType,
+	        @Nonnull Collection<String> basedOnUuids);
 }
@@ -13,6 +13,7 @@ import static org.hibernate.criterion.Projections.property;
 import static org.hibernate.criterion.Restrictions.and;
 import static org.hibernate.criterion.Restrictions.between;
 import static org.hibernate.criterion.Restrictions.eq;
+import static org.hibernate.criterion.Restrictions.eqProperty;
 import static org.hibernate.criterion.Restrictions.ge;
 import static org.hibernate.criterion.Restrictions.gt;
 import static org.hibernate.criterion.Restrictions.ilike;
@@ -23,7 +24,10 @@ import static org.hibernate.criterion.Restrictions.lt;
 import static org.hibernate.criterion.Restrictions.ne;
 import static org.hibernate.criterion.Restrictions.not;
 import static org.hibernate.criterion.Restrictions.or;
+import static org.hibernate.criterion.Restrictions.sqlRestriction;
+import static org.hibernate.criterion.Subqueries.exists;
 import static org.hibernate.criterion.Subqueries.propertyEq;
+import static org.hibernate.criterion.Subqueries.propertyIn;
 
 import javax.annotation.Nonnull;
 
@@ -37,6 +41,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.function.BiFunction;
@@ -52,6 +57,7 @@ import ca.uhn.fhir.rest.api.SortOrderEnum;
 import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.HasAndListParam;
 import ca.uhn.fhir.rest.param.ParamPrefixEnum;
 import ca.uhn.fhir.rest.param.QuantityAndListParam;
 import ca.uhn.fhir.rest.param.QuantityParam;
@@ -61,9 +67,13 @@ import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import ca.uhn.fhir.rest.param.TokenOrListParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import com.google.common.primitives.Ints;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.lang3.time.DateUtils;
@@ -73,14 +83,20 @@ import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Order;
 import org.hibernate.internal.CriteriaImpl;
+import org.hibernate.sql.JoinType;
 import org.hl7.fhir.exceptions.FHIRException;
+import org.hl7.fhir.r4.model.Encounter;
 import org.hl7.fhir.r4.model.Location;
+import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Practitioner;
 import org.hl7.fhir.r4.model.codesystems.AdministrativeGender;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonName;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.search.param.PropParam;
 import org.openmrs.module.fhir2.model.FhirConceptSource;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * <p>
@@ -159,6 +175,48 @@ public abstract class BaseDao {
 	
 	private static final BigDecimal APPROX_RANGE = new BigDecimal("0.1");
 	
+	private static final String LOCATION_BELOW_MODIFIER = "below";
+	
+	private static final String LOCATION_ABOVE_MODIFIER = "above";
+	
+	/**
+	 * The number of levels of the location hierarchy that are searched by the {@code :below} and
+	 * {@code :above} modifiers when there is no {@link LocationHierarchyResolver}
+	 */
+	protected static final int MAX_LOCATION_HIERARCHY_DEPTH = 9;
+	
+	/**
+	 * Used to resolve {@code system|code} tokens to concept ids before the search query is built. If
+	 * this is not set, coded searches fall back to joining through the concept mappings.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private ConceptCodeResolver conceptCodeResolver;
+	
+	/**
+	 * Used to resolve the {@code :below} and {@code :above} modifiers of location references to the ids
+	 * of the locations they match. If this is not set, they fall back to joining a limited number of
+	 * parent locations.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private LocationHierarchyResolver locationHierarchyResolver;
+	
+	/**
+	 * Used to search names and addresses using their normalized copies. If this is not set, names and
+	 * addresses are compared case-insensitively against the person tables.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private NormalizedPersonSearch normalizedPersonSearch;
+	
+	/**
+	 * The resource types which can be named as the target of a {@code _has} parameter
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private List<HasSearchTarget> hasSearchTargets = Collections.emptyList();
+	
 	/**
 	 * Converts an {@link Iterable} to a {@link Stream}
 	 *
@@ -487,8 +545,90 @@ public abstract class BaseDao {
 			return Optional.empty();
 		}
 		
-		return handleAndListParam(encounterReference,
-		    token -> Optional.of(eq(String.format("%s.uuid", encounterAlias), token.getIdPart())));
+		return handleAndListParam(encounterReference, token -> {
+			if (token.getChain() != null) {
+				if (Encounter.SP_LOCATION.equals(token.getChain())) {
+					// the location is matched in a subquery so that it is not joined into the search
+					DetachedCriteria locations = DetachedCriteria.forClass(org.openmrs.Location.class, "chainedLocation")
+					        .add(eq("chainedLocation.uuid", token.getValue()))
+					        .setProjection(property("chainedLocation.locationId"));
+					return Optional.of(propertyIn(String.format("%s.location.locationId", encounterAlias), locations));
+				}
+				
+				return Optional.empty();
+			}
+			
+			return Optional.of(eq(String.format("%s.uuid", encounterAlias), token.getIdPart()));
+		});
+	}
+	
+	/**
+	 * Handles the {@code _has} parameter, e.g. {@code _has:Observation:patient:code} when searching for
+	 * patients or {@code _has:Observation:encounter:code} when searching for encounters. The resources
+	 * referring to those searched for are matched by their {@code code} in a subquery, so the database
+	 * evaluates the reverse chain as a semi-join. The resource types which can be referred to are given
+	 * by the {@link HasSearchTarget}s available.
+	 *
+	 * @param idProperty the id property of the resource being searched for
+	 * @param resourceType the FHIR resource type being searched for
+	 * @param hasAndListParam the {@code _has} parameter to handle
+	 * @return a criterion matching the resources referred to by the matching resources, if any
+	 * @throws InvalidRequestException if the target resource type, the reference or the search
+	 *             parameter is not supported
+	 */
+	protected Optional<Criterion> handleHas(@Nonnull String idProperty, @Nonnull String resourceType,
+	        HasAndListParam hasAndListParam) {
+		if (hasAndListParam == null) {
+			return Optional.empty();
+		}
+		
+		return handleAndListParam(hasAndListParam, hasParam -> {
+			HasSearchTarget target = hasSearchTargets.stream()
+			        .filter(t -> t.getResourceType().equals(hasParam.getTargetResourceType())).findFirst()
+			        .orElseThrow(() -> new InvalidRequestException(
+			                String.format("_has is not supported for %s resources", hasParam.getTargetResourceType())));
+			
+			String referencedIdProperty = target.getReferencedIdProperty(resourceType, hasParam.getReferenceFieldName());
+			if (referencedIdProperty == null) {
+				throw new InvalidRequestException(String.format("%s:%s is not a reference to %s resources supported by _has",
+				    hasParam.getTargetResourceType(), hasParam.getReferenceFieldName(), resourceType));
+			}
+			
+			if (!Observation.SP_CODE.equals(hasParam.getParameterName())) {
+				throw new InvalidRequestException(String.format("_has:%s only supports searching by code, not by %s",
+				    hasParam.getTargetResourceType(), hasParam.getParameterName()));
+			}
+			
+			TokenParam code = new TokenParam();
+			code.setValueAsQueryToken(null, Observation.SP_CODE, null, hasParam.getParameterValue());
+			if (StringUtils.isBlank(code.getValue())) {
+				throw new InvalidRequestException("_has:" + hasParam.getTargetResourceType() + " requires a code");
+			}
+			
+			DetachedCriteria targets = target.createCriteria("hasTarget")
+			        .createAlias("hasTarget." + target.getCodeProperty(), "hasConcept");
+			
+			if (StringUtils.isBlank(code.getSystem())) {
+				// codes without a system are concept ids or uuids
+				Integer conceptId = Ints.tryParse(code.getValue());
+				targets.add(conceptId == null ? eq("hasConcept.uuid", code.getValue())
+				        : or(eq("hasConcept.conceptId", conceptId), eq("hasConcept.uuid", code.getValue())));
+			} else if (conceptCodeResolver != null) {
+				Set<Integer> conceptIds = conceptCodeResolver.resolveConceptIds(code.getSystem(),
+				    Collections.singletonList(code.getValue()));
+				if (conceptIds.isEmpty()) {
+					return Optional.of(sqlRestriction("1=0"));
+				}
+				
+				targets.add(in("hasConcept.conceptId", conceptIds));
+			} else {
+				targets.createAlias("hasConcept.conceptMappings", "hasConceptMap")
+				        .createAlias("hasConceptMap.conceptReferenceTerm", "hasTerm")
+				        .add(generateSystemQuery(code.getSystem(), Collections.singletonList(code.getValue()), "hasTerm"));
+			}
+			
+			return Optional.of(propertyIn(idProperty, targets.setProjection(property("hasTarget." + referencedIdProperty))));
+		});
 	}
 	
 	protected Optional<Criterion> handleGender(@Nonnull String propertyName, TokenAndListParam gender) {
@@ -521,12 +661,30 @@ public abstract class BaseDao {
 		});
 	}
 	
-	protected Optional<Criterion> handleLocationReference(@Nonnull String locationAlias,
-	        ReferenceAndListParam locationReference) {
+	/**
+	 * Handles a reference to a location, which may be qualified with the {@code :below} or
+	 * {@code :above} modifiers. A {@code :below} reference matches the referenced location and any
+	 * location that is part of it, while an {@code :above} reference matches the referenced location
+	 * and any location it is part of. Both are resolved to the ids of the matching locations before
+	 * the search is run, rather than by requiring the client to walk the hierarchy one level at a
+	 * time.
+	 *
+	 * @param criteria the criteria object representing this search
+	 * @param locationAlias the alias to use for the referenced location
+	 * @param associationPath the path from the root of the criteria to the referenced location
+	 * @param locationReference the reference parameter to handle
+	 * @return a criterion matching the reference, if any
+	 */
+	protected Optional<Criterion> handleLocationReference(@Nonnull Criteria criteria, @Nonnull String locationAlias,
+	        @Nonnull String associationPath, ReferenceAndListParam locationReference) {
 		if (locationReference == null) {
 			return Optional.empty();
 		}
 		
+		if (lacksAlias(criteria, locationAlias)) {
+			criteria.createAlias(associationPath, locationAlias);
+		}
+		
 		return handleAndListParam(locationReference, token -> {
 			if (token.getChain() != null) {
 				switch (token.getChain()) {
@@ -541,13 +699,70 @@ public abstract class BaseDao {
 					case Location.SP_ADDRESS_COUNTRY:
 						return propertyLike(String.format("%s.country", locationAlias), token.getValue());
 				}
+			} else if (LOCATION_BELOW_MODIFIER.equalsIgnoreCase(token.getResourceType())) {
+				return Optional.of(handleLocationBelow(criteria, locationAlias, token.getIdPart()));
+			} else if (LOCATION_ABOVE_MODIFIER.equalsIgnoreCase(token.getResourceType())) {
+				return Optional.of(handleLocationAbove(locationAlias, token.getIdPart()));
 			} else {
 				return Optional.of(eq(String.format("%s.uuid", locationAlias), token.getValue()));
 			}
 			
 			return Optional.empty();
 		});
+	}
+	
+	private Criterion handleLocationBelow(Criteria criteria, String locationAlias, String uuid) {
+		if (locationHierarchyResolver != null) {
+			return locationIn(locationAlias, locationHierarchyResolver.getDescendantIds(uuid));
+		}
+		
+		List<Criterion> criterionList = new ArrayList<>(MAX_LOCATION_HIERARCHY_DEPTH + 1);
+		criterionList.add(eq(String.format("%s.uuid", locationAlias), uuid));
+		
+		String alias = locationAlias;
+		for (int depth = 1; depth <= MAX_LOCATION_HIERARCHY_DEPTH; depth++) {
+			String ancestorAlias = String.format("%sAncestor%d", locationAlias, depth);
+			if (lacksAlias(criteria, ancestorAlias)) {
+				criteria.createAlias(String.format("%s.parentLocation", alias), ancestorAlias, JoinType.LEFT_OUTER_JOIN);
+			}
+			
+			criterionList.add(eq(String.format("%s.uuid", ancestorAlias), uuid));
+			alias = ancestorAlias;
+		}
+		
+		return or(criterionList.toArray(new Criterion[0]));
+	}
+	
+	private Criterion handleLocationAbove(String locationAlias, String uuid) {
+		if (locationHierarchyResolver != null) {
+			return locationIn(locationAlias, locationHierarchyResolver.getAncestorIds(uuid));
+		}
+		
+		// matches if the referenced location, or one of its ancestors, is the location being searched for
+		DetachedCriteria descendant = DetachedCriteria.forClass(org.openmrs.Location.class, "dsc")
+		        .add(eq("dsc.uuid", uuid));
+		
+		List<Criterion> criterionList = new ArrayList<>(MAX_LOCATION_HIERARCHY_DEPTH + 1);
+		criterionList.add(eqProperty("dsc.locationId", String.format("%s.locationId", locationAlias)));
+		
+		String alias = "dsc";
+		for (int depth = 1; depth <= MAX_LOCATION_HIERARCHY_DEPTH; depth++) {
+			String ancestorAlias = "dsc" + depth;
+			descendant.createAlias(String.format("%s.parentLocation", alias), ancestorAlias, JoinType.LEFT_OUTER_JOIN);
+			criterionList.add(eqProperty(String.format("%s.locationId", ancestorAlias),
+			    String.format("%s.locationId", locationAlias)));
+			alias = ancestorAlias;
+		}
+		
+		return exists(descendant.add(or(criterionList.toArray(new Criterion[0]))).setProjection(property("dsc.locationId")));
+	}
+	
+	private static Criterion locationIn(String locationAlias, Set<Integer> locationIds) {
+		if (locationIds.isEmpty()) {
+			return sqlRestriction("1=0");
+		}
 		
+		return in(String.format("%s.locationId", locationAlias), locationIds);
 	}
 	
 	protected void handleParticipantReference(Criteria criteria, ReferenceAndListParam participantReference) {
@@ -663,6 +878,15 @@ public abstract class BaseDao {
 				        tokensToParams(tokens).map(NumberUtils::toInt).collect(Collectors.toList())),
 				    in(String.format("%s.uuid", conceptAlias), tokensToList(tokens))));
 			} else {
+				if (conceptCodeResolver != null) {
+					Set<Integer> conceptIds = conceptCodeResolver.resolveConceptIds(system, tokensToList(tokens));
+					if (conceptIds.isEmpty()) {
+						return Optional.of(sqlRestriction("1=0"));
+					}
+					
+					return Optional.of(in(String.format("%s.conceptId", conceptAlias), conceptIds));
+				}
+				
 				if (lacksAlias(criteria, conceptMapAlias)) {
 					criteria.createAlias(String.format("%s.conceptMappings", conceptAlias), conceptMapAlias).createAlias(
 					    String.format("%s.conceptReferenceTerm", conceptMapAlias), conceptReferenceTermAlias);
@@ -692,23 +916,49 @@ public abstract class BaseDao {
 			}
 		}
 		
+		boolean normalized = isNormalizedPersonSearchEnabled();
+		
 		if (name != null) {
 			handleAndListParamAsStream(name,
 			    (nameParam) -> Arrays.stream(StringUtils.split(nameParam.getValue(), " \t,"))
 			            .map(token -> new StringParam().setValue(token).setExact(nameParam.isExact())
 			                    .setContains(nameParam.isContains()))
-			            .map(tokenParam -> Arrays.asList(propertyLike("pn.givenName", tokenParam),
-			                propertyLike("pn.middleName", tokenParam), propertyLike("pn.familyName", tokenParam)))
-			            .flatMap(Collection::stream)).ifPresent(criteria::add);
+			            .map(tokenParam -> personNameLike(normalized, tokenParam, "givenName", "middleName",
+			                "familyName"))).ifPresent(criteria::add);
 		}
 		
 		if (given != null) {
-			handleAndListParam(given, (givenName) -> propertyLike("pn.givenName", givenName)).ifPresent(criteria::add);
+			handleAndListParam(given, (givenName) -> personNameLike(normalized, givenName, "givenName"))
+			        .ifPresent(criteria::add);
 		}
 		
 		if (family != null) {
-			handleAndListParam(family, (familyName) -> propertyLike("pn.familyName", familyName)).ifPresent(criteria::add);
+			handleAndListParam(family, (familyName) -> personNameLike(normalized, familyName, "familyName"))
+			        .ifPresent(criteria::add);
+		}
+	}
+	
+	private Optional<Criterion> personNameLike(boolean normalized, StringParam param, String... properties) {
+		// :exact must still distinguish case and accents, so it is always matched against the original values
+		if (normalized && !param.isExact()) {
+			return Optional.of(normalizedPersonSearch.nameMatches("pn.personNameId", param, properties));
 		}
+		
+		return Optional.of(or(toCriteriaArray(Arrays.stream(properties).map(p -> propertyLike("pn." + p, param)))));
+	}
+	
+	private Optional<Criterion> personAddressLike(boolean normalized, String aliasPrefix, StringParam param,
+	        String property) {
+		if (normalized && !param.isExact()) {
+			return Optional.of(normalizedPersonSearch.addressMatches(String.format("%s.personAddressId", aliasPrefix),
+			    param, property));
+		}
+		
+		return propertyLike(String.format("%s.%s", aliasPrefix, property), param);
+	}
+	
+	private boolean isNormalizedPersonSearchEnabled() {
+		return normalizedPersonSearch != null && normalizedPersonSearch.isEnabled();
 	}
 	
 	protected void handlePatientReference(Criteria criteria, ReferenceAndListParam patientReference) {
@@ -724,33 +974,26 @@ public abstract class BaseDao {
 				if (patientToken.getChain() != null) {
 					switch (patientToken.getChain()) {
 						case Patient.SP_IDENTIFIER:
-							if (lacksAlias(criteria, "pi")) {
-								criteria.createAlias("p.identifiers", "pi");
-							}
-							return Optional.of(ilike("pi.identifier", patientToken.getValue()));
+							return Optional.of(propertyIn("p.personId",
+							    DetachedCriteria.forClass(PatientIdentifier.class, "chainedIdentifier")
+							            .add(ilike("chainedIdentifier.identifier", patientToken.getValue()))
+							            .setProjection(property("chainedIdentifier.patient.personId"))));
 						case Patient.SP_GIVEN:
-							if (lacksAlias(criteria, "pn")) {
-								criteria.createAlias("p.names", "pn");
-							}
-							return Optional.of(ilike("pn.givenName", patientToken.getValue(), MatchMode.START));
+							return Optional.of(handleChainedPersonName(
+							    ilike("chainedName.givenName", patientToken.getValue(), MatchMode.START)));
 						case Patient.SP_FAMILY:
-							if (lacksAlias(criteria, "pn")) {
-								criteria.createAlias("p.names", "pn");
-							}
-							return Optional.of(ilike("pn.familyName", patientToken.getValue(), MatchMode.START));
+							return Optional.of(handleChainedPersonName(
+							    ilike("chainedName.familyName", patientToken.getValue(), MatchMode.START)));
 						case Patient.SP_NAME:
-							if (lacksAlias(criteria, "pn")) {
-								criteria.createAlias("p.names", "pn");
-							}
 							List<Optional<Criterion>> criterionList = new ArrayList<>();
 							
 							for (String token : StringUtils.split(patientToken.getValue(), " \t,")) {
-								criterionList.add(propertyLike("pn.givenName", token));
-								criterionList.add(propertyLike("pn.middleName", token));
-								criterionList.add(propertyLike("pn.familyName", token));
+								criterionList.add(propertyLike("chainedName.givenName", token));
+								criterionList.add(propertyLike("chainedName.middleName", token));
+								criterionList.add(propertyLike("chainedName.familyName", token));
 							}
 							
-							return Optional.of(or(toCriteriaArray(criterionList)));
+							return Optional.of(handleChainedPersonName(or(toCriteriaArray(criterionList))));
 					}
 				} else {
 					return Optional.of(eq("p.uuid", patientToken.getValue()));
@@ -761,6 +1004,12 @@ public abstract class BaseDao {
 		}
 	}
 	
+	// chained names are matched in a subquery so that people with several names are not returned more than once
+	private Criterion handleChainedPersonName(Criterion nameCriterion) {
+		return propertyIn("p.personId", DetachedCriteria.forClass(PersonName.class, "chainedName").add(nameCriterion)
+		        .setProjection(property("chainedName.person.personId")));
+	}
+	
 	protected Optional<Criterion> handleCommonSearchParameters(List<PropParam<?>> theCommonParams) {
 		List<Optional<Criterion>> criterionList = new ArrayList<>();
 		
@@ -794,24 +1043,25 @@ public abstract class BaseDao {
 			return Optional.empty();
 		}
 		
+		boolean normalized = isNormalizedPersonSearchEnabled();
 		List<Optional<Criterion>> criterionList = new ArrayList<>();
 		
 		if (city != null) {
-			criterionList.add(handleAndListParam(city, c -> propertyLike(String.format("%s.cityVillage", aliasPrefix), c)));
+			criterionList.add(handleAndListParam(city, c -> personAddressLike(normalized, aliasPrefix, c, "cityVillage")));
 		}
 		
 		if (state != null) {
 			criterionList
-			        .add(handleAndListParam(state, c -> propertyLike(String.format("%s.stateProvince", aliasPrefix), c)));
+			        .add(handleAndListParam(state, c -> personAddressLike(normalized, aliasPrefix, c, "stateProvince")));
 		}
 		
 		if (postalCode != null) {
 			criterionList
-			        .add(handleAndListParam(postalCode, c -> propertyLike(String.format("%s.postalCode", aliasPrefix), c)));
+			        .add(handleAndListParam(postalCode, c -> personAddressLike(normalized, aliasPrefix, c, "postalCode")));
 		}
 		
 		if (country != null) {
-			criterionList.add(handleAndListParam(country, c -> propertyLike(String.format("%s.country", aliasPrefix), c)));
+			criterionList.add(handleAndListParam(country, c -> personAddressLike(normalized, aliasPrefix, c, "country")));
 		}
 		
 		if (criterionList.size() == 0) {
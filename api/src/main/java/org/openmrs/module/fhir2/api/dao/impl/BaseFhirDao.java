@@ -17,15 +17,20 @@ import static org.hibernate.criterion.Restrictions.or;
 
 import javax.annotation.Nonnull;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import com.google.common.reflect.TypeToken;
 import lombok.AccessLevel;
@@ -33,12 +38,18 @@ import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.Criteria;
 import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Projections;
 import org.hibernate.proxy.HibernateProxy;
 import org.hl7.fhir.r4.model.DomainResource;
 import org.openmrs.Auditable;
+import org.openmrs.Concept;
+import org.openmrs.ConceptMap;
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.ConceptSource;
 import org.openmrs.Obs;
 import org.openmrs.OpenmrsObject;
 import org.openmrs.Order;
@@ -46,8 +57,10 @@ import org.openmrs.Retireable;
 import org.openmrs.Voidable;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.dao.FhirDao;
+import org.openmrs.module.fhir2.api.search.TruncatedSearchResultUuids;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
 import org.openmrs.module.fhir2.api.util.FhirUtils;
+import org.openmrs.module.fhir2.model.FhirConceptSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.transaction.annotation.Transactional;
@@ -78,6 +91,46 @@ public abstract class BaseFhirDao<T extends OpenmrsObject & Auditable> extends B
 	@Qualifier("sessionFactory")
 	private SessionFactory sessionFactory;
 	
+	/**
+	 * Used to cache the results of repeated searches. If this is not set, every search is run against
+	 * the database.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private SearchResultCache searchResultCache;
+	
+	/**
+	 * Used to search and sort on {@code _lastUpdated} through the indexed last updated table. If this
+	 * is not set, {@code date_changed} and {@code date_created} are compared directly.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private LastUpdatedIndex lastUpdatedIndex;
+	
+	/**
+	 * Used to sort people by name through the display name table. If this is not set, each person's
+	 * preferred name is picked out of their names while searching.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private PersonDisplayNameIndex personDisplayNameIndex;
+	
+	/**
+	 * Used to limit the time and number of results of search queries. If this is not set, search
+	 * queries are neither timed out nor limited.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private SearchGovernor searchGovernor;
+	
+	/**
+	 * Used to run search queries in read-only transactions against a read replica. If this is not set,
+	 * every search query is run against the primary database.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private ReadReplicaRouter readReplicaRouter;
+	
 	@SuppressWarnings("UnstableApiUsage")
 	protected BaseFhirDao() {
 		// @formatter:off
@@ -129,6 +182,7 @@ public abstract class BaseFhirDao<T extends OpenmrsObject & Auditable> extends B
 		}
 		
 		sessionFactory.getCurrentSession().saveOrUpdate(newEntry);
+		recordWrite();
 		
 		return newEntry;
 	}
@@ -148,13 +202,141 @@ public abstract class BaseFhirDao<T extends OpenmrsObject & Auditable> extends B
 		}
 		
 		sessionFactory.getCurrentSession().saveOrUpdate(existing);
+		recordWrite();
 		
 		return existing;
 	}
 	
 	@Override
+	@Transactional(readOnly = true)
 	public List<String> getSearchResultUuids(@Nonnull SearchParameterMap theParams) {
-		Criteria criteria = sessionFactory.getCurrentSession().createCriteria(typeToken.getRawType());
+		if (searchResultCache != null && searchResultCache.isEnabled()) {
+			return searchResultCache.getSearchResultUuids(typeToken.getRawType(), getSearchResultDependencies(), theParams,
+			    () -> loadSearchResultUuids(theParams));
+		}
+		
+		return loadSearchResultUuids(theParams);
+	}
+	
+	/**
+	 * Returns the entity types whose changes may change the results of searches handled by this Dao.
+	 * Cached search results are discarded whenever an entity of one of these types is changed. This
+	 * should be overridden by subclasses whose searches depend on other entities than the one they
+	 * manage.
+	 *
+	 * @return the types the search results depend on
+	 */
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return Collections.singleton(typeToken.getRawType());
+	}
+	
+	/**
+	 * Returns the given types together with those that searches by code depend on, as codes are
+	 * resolved to concepts through concept mappings, reference terms and the FHIR concept sources. This
+	 * is intended for Daos whose searches are restricted by a coded property.
+	 *
+	 * @param dependencies the other types the search results depend on
+	 * @return the types the search results depend on
+	 */
+	protected static Set<Class<?>> withConceptDependencies(Class<?>... dependencies) {
+		Set<Class<?>> result = new HashSet<>(Arrays.asList(dependencies));
+		result.addAll(Arrays.asList(Concept.class, ConceptMap.class, ConceptReferenceTerm.class, ConceptSource.class,
+		    FhirConceptSource.class));
+		return Collections.unmodifiableSet(result);
+	}
+	
+	/**
+	 * Records a write through the FHIR API, so that the current user's searches are not run against a
+	 * read replica which may not have received it yet. This should be called by subclasses which
+	 * override {@link #createOrUpdate(OpenmrsObject)} without calling it.
+	 */
+	protected void recordWrite() {
+		if (readReplicaRouter != null) {
+			readReplicaRouter.recordWrite();
+		}
+	}
+	
+	private List<String> loadSearchResultUuids(SearchParameterMap theParams) {
+		Session session = readReplicaRouter != null ? readReplicaRouter.getSearchSession()
+		        : sessionFactory.getCurrentSession();
+		if (isSortedByIndexedLastUpdated(theParams.getSortSpec())) {
+			return loadSearchResultUuidsByLastUpdated(session, theParams);
+		}
+		
+		Criteria criteria = createSearchCriteria(session, theParams);
+		
+		int maximumResults = 0;
+		if (searchGovernor != null) {
+			searchGovernor.apply(criteria, typeToken.getRawType(), theParams);
+			maximumResults = searchGovernor.getMaximumResults(theParams);
+		}
+		
+		if (maximumResults <= 0) {
+			return listDistinctUuids(criteria);
+		}
+		
+		// searches joining to collections may return the same uuid more than once, so the limit is applied to the
+		// distinct uuids, re-reading with a higher row limit while duplicates may have hidden further matches
+		for (int rowLimit = maximumResults + 1;; rowLimit = (int) Math.min(2L * rowLimit, Integer.MAX_VALUE)) {
+			criteria.setMaxResults(rowLimit);
+			
+			@SuppressWarnings("unchecked")
+			List<String> results = criteria.list();
+			
+			List<String> uuids = results.stream().distinct().collect(Collectors.toList());
+			if (uuids.size() > maximumResults) {
+				return new TruncatedSearchResultUuids(uuids, maximumResults);
+			} else if (results.size() < rowLimit || rowLimit == Integer.MAX_VALUE) {
+				return uuids;
+			}
+		}
+	}
+	
+	private boolean isSortedByIndexedLastUpdated(SortSpec sort) {
+		return sort != null && sort.getChain() == null && FhirConstants.SP_LAST_UPDATED.equalsIgnoreCase(sort.getParamName())
+		        && isLastUpdatedIndexed();
+	}
+	
+	// the matches are read in the order of the index on the last updated table, so they need not all be sorted
+	private List<String> loadSearchResultUuidsByLastUpdated(Session session, SearchParameterMap theParams) {
+		Class<? super T> rawType = typeToken.getRawType();
+		
+		DetachedCriteria matchingIds = DetachedCriteria.forClass(rawType);
+		Criteria matchCriteria = matchingIds.getExecutableCriteria(session);
+		if (isVoidable) {
+			handleVoidable(matchCriteria);
+		} else if (isRetireable) {
+			handleRetireable(matchCriteria);
+		}
+		
+		setupSearchParams(matchCriteria, theParams);
+		matchingIds.setProjection(Projections.id());
+		
+		Criteria criteria = lastUpdatedIndex.orderByLastUpdated(session, lastUpdatedIndex.getIndexedTable(rawType).get(),
+		    matchingIds, theParams.getSortSpec().getOrder() != SortOrderEnum.DESC);
+		
+		int maximumResults = 0;
+		if (searchGovernor != null) {
+			searchGovernor.apply(criteria, rawType, theParams);
+			maximumResults = searchGovernor.getMaximumResults(theParams);
+		}
+		
+		@SuppressWarnings("unchecked")
+		List<String> uuids = lastUpdatedIndex.getUuids(session, rawType, (List<Integer>) criteria.list());
+		if (maximumResults > 0 && uuids.size() > maximumResults) {
+			return new TruncatedSearchResultUuids(uuids, maximumResults);
+		}
+		
+		return uuids;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static List<String> listDistinctUuids(Criteria criteria) {
+		return ((List<String>) criteria.list()).stream().distinct().collect(Collectors.toList());
+	}
+	
+	private Criteria createSearchCriteria(Session session, SearchParameterMap theParams) {
+		Criteria criteria = session.createCriteria(typeToken.getRawType());
 		
 		if (isVoidable) {
 			handleVoidable(criteria);
@@ -165,15 +347,11 @@ public abstract class BaseFhirDao<T extends OpenmrsObject & Auditable> extends B
 		setupSearchParams(criteria, theParams);
 		handleSort(criteria, theParams.getSortSpec());
 		
-		criteria.setProjection(Projections.property("uuid"));
-		
-		@SuppressWarnings("unchecked")
-		List<String> results = criteria.list();
-		
-		return results.stream().distinct().collect(Collectors.toList());
+		return criteria.setProjection(Projections.property("uuid"));
 	}
 	
 	@Override
+	@Transactional(readOnly = true)
 	public List<T> getSearchResults(@Nonnull SearchParameterMap theParams, @Nonnull List<String> matchingResourceUuids,
 	        int firstResult, int lastResult) {
 		List<String> selectedResources = matchingResourceUuids.subList(firstResult, lastResult);
@@ -197,12 +375,53 @@ public abstract class BaseFhirDao<T extends OpenmrsObject & Auditable> extends B
 	}
 	
 	protected Optional<Criterion> handleLastUpdatedMutable(DateRangeParam param) {
+		if (isLastUpdatedIndexed()) {
+			return handleIndexedLastUpdated(param);
+		}
+		
 		// @formatter:off
 		return Optional.of(or(toCriteriaArray(handleDateRange("dateChanged", param), Optional.of(
 		    and(toCriteriaArray(Stream.of(Optional.of(isNull("dateChanged")), handleDateRange("dateCreated", param))))))));
 		// @formatter:on
 	}
 	
+	/**
+	 * Orders people by the display name kept for them, if sorting by name through the display name
+	 * table is enabled
+	 *
+	 * @param nameAlias the alias of the person names already joined to the criteria
+	 * @param sortState the sort state
+	 * @return the orders or empty if they should be worked out from the person's names instead
+	 */
+	protected Optional<Collection<org.hibernate.criterion.Order>> handleDisplayNameSort(@Nonnull String nameAlias,
+	        @Nonnull SortState sortState) {
+		if (personDisplayNameIndex == null || !personDisplayNameIndex.isEnabled()) {
+			return Optional.empty();
+		}
+		
+		return personDisplayNameIndex.orderByDisplayName(sortState.getCriteria(), nameAlias, sortState.getParameter(),
+		    sortState.getSortOrder() == SortOrderEnum.ASC);
+	}
+	
+	/**
+	 * @return true if {@code _lastUpdated} searches for this type should use the last updated table
+	 */
+	protected boolean isLastUpdatedIndexed() {
+		return !isImmutable && lastUpdatedIndex != null && lastUpdatedIndex.isEnabled()
+		        && lastUpdatedIndex.getIndexedTable(typeToken.getRawType()).isPresent();
+	}
+	
+	/**
+	 * Implementation of handleLastUpdated using the last updated table, which should only be used if
+	 * {@link #isLastUpdatedIndexed()} is true
+	 */
+	protected Optional<Criterion> handleIndexedLastUpdated(DateRangeParam param) {
+		Class<? super T> rawType = typeToken.getRawType();
+		return handleDateRange("lastUpdated", param)
+		        .map(lastUpdated -> lastUpdatedIndex.lastUpdatedMatches(lastUpdatedIndex.getIdProperty(rawType),
+		            lastUpdatedIndex.getIndexedTable(rawType).get(), lastUpdated));
+	}
+	
 	// Implementation of handleLastUpdated for "immutable" types, that is, those that cannot be changed
 	protected Optional<Criterion> handleLastUpdatedImmutable(DateRangeParam param) {
 		return handleDateRange("dateCreated", param);
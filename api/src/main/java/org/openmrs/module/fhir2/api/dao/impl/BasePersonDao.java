@@ -27,12 +27,19 @@ import javax.annotation.Nonnull;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import ca.uhn.fhir.rest.param.StringAndListParam;
+import ca.uhn.fhir.rest.param.TokenAndListParam;
+import lombok.AccessLevel;
+import lombok.Setter;
 import org.hibernate.Criteria;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
@@ -41,10 +48,14 @@ import org.hibernate.sql.JoinType;
 import org.openmrs.Auditable;
 import org.openmrs.OpenmrsObject;
 import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
 import org.openmrs.Person;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonAttribute;
 import org.openmrs.PersonName;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.search.param.PropParam;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Base class for Person-related DAO objects. This helps standardise the logic used to search for
@@ -55,6 +66,14 @@ import org.openmrs.module.fhir2.api.search.param.PropParam;
  */
 public abstract class BasePersonDao<T extends OpenmrsObject & Auditable> extends BaseFhirDao<T> {
 	
+	/**
+	 * Used to resolve name, address and identifier searches to person ids through the full-text person
+	 * index. If this is not set, those searches are always handled by the criteria query.
+	 */
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private PersonFullTextSearch personFullTextSearch;
+	
 	/**
 	 * Returns the sqlAlias of the Person class for queries from this class
 	 *
@@ -78,6 +97,14 @@ public abstract class BasePersonDao<T extends OpenmrsObject & Auditable> extends
 		return "person";
 	}
 	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		Set<Class<?>> dependencies = new HashSet<>(super.getSearchResultDependencies());
+		dependencies.addAll(Arrays.asList(Person.class, PersonName.class, PersonAddress.class, PersonAttribute.class,
+		    PatientIdentifier.class));
+		return dependencies;
+	}
+	
 	@Override
 	protected Collection<Order> paramToProps(@Nonnull SortState sortState) {
 		String param = sortState.getParameter();
@@ -94,6 +121,11 @@ public abstract class BasePersonDao<T extends OpenmrsObject & Auditable> extends
 				criteria.createAlias(getAssociationPath("names"), "pn", JoinType.LEFT_OUTER_JOIN);
 			}
 			
+			Optional<Collection<Order>> displayNameOrders = handleDisplayNameSort("pn", sortState);
+			if (displayNameOrders.isPresent()) {
+				return displayNameOrders.get();
+			}
+			
 			String sqlAlias = getSqlAlias();
 			
 			criteria.add(and(eq("pn.voided", false), or(
@@ -178,6 +210,17 @@ public abstract class BasePersonDao<T extends OpenmrsObject & Auditable> extends
 			}
 		}
 		
+		if (isFullTextSearchEnabled()) {
+			Optional<Criterion> fullTextMatch = personFullTextSearch.addressMatches(getAssociationPath("personId"), city,
+			    state, postalCode, country);
+			if (fullTextMatch.isPresent()) {
+				criteria.add(fullTextMatch.get());
+				if (personFullTextSearch.isSingleTokenSearch(city, state, postalCode, country)) {
+					return;
+				}
+			}
+		}
+		
 		handlePersonAddress("pad", city, state, postalCode, country).ifPresent(c -> {
 			criteria.createAlias(getAssociationPath("addresses"), "pad");
 			criteria.add(c);
@@ -203,9 +246,40 @@ public abstract class BasePersonDao<T extends OpenmrsObject & Auditable> extends
 			}
 		}
 		
+		if (isFullTextSearchEnabled()) {
+			Optional<Criterion> fullTextMatch = personFullTextSearch.nameMatches(getAssociationPath("personId"), name,
+			    given, family);
+			if (fullTextMatch.isPresent()) {
+				criteria.add(fullTextMatch.get());
+				// otherwise the index may have matched the criteria against different names of the same person
+				if (personFullTextSearch.isSingleTokenSearch(name, given, family)) {
+					return;
+				}
+			}
+		}
+		
 		handleNames(criteria, name, given, family, getPersonProperty());
 	}
 	
+	/**
+	 * Resolves an identifier search through the full-text person index, if it is enabled
+	 *
+	 * @param identifier the identifier search
+	 * @return a restriction on the person id or an empty optional if the identifier search must be
+	 *         handled by the criteria query
+	 */
+	protected Optional<Criterion> handleIdentifierFromFullTextIndex(TokenAndListParam identifier) {
+		if (!isFullTextSearchEnabled()) {
+			return Optional.empty();
+		}
+		
+		return personFullTextSearch.identifierMatches(getAssociationPath("personId"), identifier);
+	}
+	
+	private boolean isFullTextSearchEnabled() {
+		return personFullTextSearch != null && personFullTextSearch.isEnabled();
+	}
+	
 	private String getAssociationPath(String property) {
 		String personProperty = getPersonProperty();
 		return personProperty == null ? property : personProperty + "." + property;
@@ -0,0 +1,131 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves {@code system|code} search tokens to the ids of the concepts mapped to them, so that
+ * searches on coded properties can be expressed as a simple {@code concept_id IN (...)} restriction
+ * instead of joining through the concept mappings and reference terms.
+ * <p/>
+ * When {@link FhirConstants#OPENMRS_FHIR_CACHE_CORE_METADATA} is {@code true}, resolved codes,
+ * including codes which do not map to any concept, are cached. The cache is bounded in size, entries
+ * expire after {@link #EXPIRE_AFTER_WRITE_MINUTES} minutes and the whole cache is cleared by
+ * {@link org.openmrs.module.fhir2.api.util.ConceptCodeCacheInvalidationAdvice} whenever concepts,
+ * mappings, reference terms or sources are changed and by
+ * {@link org.openmrs.module.fhir2.api.util.ConceptSourceCacheInvalidationInterceptor} whenever the url
+ * of a concept source is changed.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class ConceptCodeResolver {
+	
+	private static final long MAXIMUM_SIZE = 10_000;
+	
+	private static final long EXPIRE_AFTER_WRITE_MINUTES = 30;
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	private final Cache<String, List<Integer>> cache = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE)
+	        .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES).build();
+	
+	/**
+	 * Finds the ids of the concepts mapped to any of the given codes in the concept source identified
+	 * by the given system url
+	 *
+	 * @param system the url of the concept source
+	 * @param codes the codes to resolve
+	 * @return the ids of all concepts mapped to at least one of the codes, which may be empty
+	 */
+	public Set<Integer> resolveConceptIds(@Nonnull String system, @Nonnull Collection<String> codes) {
+		if (!Boolean.parseBoolean(
+		    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false"))) {
+			Set<Integer> result = new LinkedHashSet<>();
+			loadConceptIds(system, codes).values().forEach(result::addAll);
+			return result;
+		}
+		
+		Set<Integer> result = new LinkedHashSet<>();
+		List<String> unresolvedCodes = new ArrayList<>();
+		
+		for (String code : codes) {
+			List<Integer> conceptIds = cache.getIfPresent(cacheKey(system, code));
+			if (conceptIds == null) {
+				unresolvedCodes.add(code);
+			} else {
+				result.addAll(conceptIds);
+			}
+		}
+		
+		if (!unresolvedCodes.isEmpty()) {
+			Map<String, List<Integer>> resolved = loadConceptIds(system, unresolvedCodes);
+			for (String code : unresolvedCodes) {
+				List<Integer> conceptIds = resolved.getOrDefault(code, new ArrayList<>());
+				cache.put(cacheKey(system, code), conceptIds);
+				result.addAll(conceptIds);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Discards all resolved codes
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Map<String, List<Integer>> loadConceptIds(String system, Collection<String> codes) {
+		List<Object[]> rows = sessionFactory.getCurrentSession()
+		        .createQuery("select crt.code, cm.concept.conceptId from ConceptMap cm join cm.conceptReferenceTerm crt, "
+		                + "FhirConceptSource fcs where fcs.conceptSource = crt.conceptSource and fcs.url = :system "
+		                + "and crt.code in (:codes)")
+		        .setParameter("system", system).setParameterList("codes", codes).list();
+		
+		Map<String, List<Integer>> result = new HashMap<>();
+		for (Object[] row : rows) {
+			result.computeIfAbsent((String) row[0], k -> new ArrayList<>()).add((Integer) row[1]);
+		}
+		
+		return result;
+	}
+	
+	private static String cacheKey(String system, String code) {
+		return system + "|" + code;
+	}
+}
@@ -15,6 +15,7 @@ import javax.annotation.Nonnull;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
@@ -38,9 +39,17 @@ import org.springframework.stereotype.Component;
 @Setter(AccessLevel.PROTECTED)
 public class FhirAllergyIntoleranceDaoImpl extends BaseFhirDao<Allergy> implements FhirAllergyIntoleranceDao {
 	
+	private static final Set<Class<?>> SEARCH_RESULT_DEPENDENCIES = withConceptDependencies(Allergy.class,
+	    AllergyReaction.class);
+	
 	@Autowired
 	private FhirGlobalPropertyService globalPropertyService;
 	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return SEARCH_RESULT_DEPENDENCIES;
+	}
+	
 	@Override
 	public Allergy createOrUpdate(@Nonnull Allergy allergy) {
 		Allergy savedAllergy = super.createOrUpdate(allergy);
@@ -0,0 +1,63 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hibernate.criterion.Restrictions.gt;
+import static org.hibernate.criterion.Restrictions.lt;
+
+import java.util.Date;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.openmrs.module.fhir2.api.dao.FhirChangeLogDao;
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class FhirChangeLogDaoImpl implements FhirChangeLogDao {
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<FhirChangeLogEntry> getChangesSince(long since, int count) {
+		return sessionFactory.getCurrentSession().createCriteria(FhirChangeLogEntry.class).add(gt("changeLogId", since))
+		        .addOrder(Order.asc("changeLogId")).setMaxResults(count).list();
+	}
+	
+	@Override
+	public long getLatestSequence() {
+		Long latest = (Long) sessionFactory.getCurrentSession().createCriteria(FhirChangeLogEntry.class)
+		        .setProjection(Projections.max("changeLogId")).uniqueResult();
+		return latest == null ? 0L : latest;
+	}
+	
+	@Override
+	public Long getLatestSequenceBefore(Date dateChanged) {
+		return (Long) sessionFactory.getCurrentSession().createCriteria(FhirChangeLogEntry.class)
+		        .add(lt("dateChanged", dateChanged)).setProjection(Projections.max("changeLogId")).uniqueResult();
+	}
+	
+	@Override
+	public int deleteChangesThrough(long sequence) {
+		return sessionFactory.getCurrentSession()
+		        .createQuery("delete from FhirChangeLogEntry e where e.changeLogId <= :sequence")
+		        .setParameter("sequence", sequence).executeUpdate();
+	}
+}
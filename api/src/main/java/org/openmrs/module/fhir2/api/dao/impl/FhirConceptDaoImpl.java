@@ -11,7 +11,14 @@ package org.openmrs.module.fhir2.api.dao.impl;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import lombok.AccessLevel;
 import lombok.Setter;
@@ -37,4 +44,34 @@ public class FhirConceptDaoImpl extends BaseFhirDao<Concept> implements FhirConc
 	public Optional<Concept> getConceptBySourceNameAndCode(String sourceName, String code) {
 		return Optional.ofNullable(conceptService.getConceptByMapping(code, sourceName, false));
 	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<String, Concept> getConceptsBySourceNameAndCodes(@Nonnull String sourceName,
+	        @Nonnull Collection<String> codes) {
+		if (codes.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		
+		List<Object[]> rows = getSessionFactory().getCurrentSession()
+		        .createQuery("select crt.code, cm.concept from ConceptMap cm join cm.conceptReferenceTerm crt "
+		                + "join crt.conceptSource cs where cs.name = :sourceName and crt.code in (:codes) "
+		                + "and cm.concept.retired = false")
+		        .setParameter("sourceName", sourceName).setParameterList("codes", codes).list();
+		
+		Map<String, Set<Concept>> conceptsByCode = new HashMap<>();
+		for (Object[] row : rows) {
+			conceptsByCode.computeIfAbsent((String) row[0], k -> new HashSet<>()).add((Concept) row[1]);
+		}
+		
+		// codes mapped to more than one concept are left to getConceptBySourceNameAndCode() to handle
+		Map<String, Concept> result = new HashMap<>();
+		conceptsByCode.forEach((code, concepts) -> {
+			if (concepts.size() == 1) {
+				result.put(code, deproxyObject(concepts.iterator().next()));
+			}
+		});
+		
+		return result;
+	}
 }
@@ -19,6 +19,7 @@ import java.util.Optional;
 import lombok.AccessLevel;
 import lombok.Setter;
 import org.hibernate.SessionFactory;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.dao.FhirConceptSourceDao;
 import org.openmrs.module.fhir2.model.FhirConceptSource;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,13 +39,15 @@ public class FhirConceptSourceDaoImpl implements FhirConceptSourceDao {
 	@Transactional(readOnly = true)
 	@SuppressWarnings("unchecked")
 	public Collection<FhirConceptSource> getFhirConceptSources() {
-		return sessionFactory.getCurrentSession().createCriteria(FhirConceptSource.class).list();
+		return sessionFactory.getCurrentSession().createCriteria(FhirConceptSource.class).setCacheable(true)
+		        .setCacheRegion(FhirConstants.METADATA_QUERY_CACHE_REGION).list();
 	}
 	
 	@Override
 	public Optional<FhirConceptSource> getFhirConceptSourceByUrl(@Nonnull String url) {
 		return Optional.ofNullable((FhirConceptSource) sessionFactory.getCurrentSession()
-		        .createCriteria(FhirConceptSource.class).add(eq("url", url)).add(eq("retired", false)).uniqueResult());
+		        .createCriteria(FhirConceptSource.class).add(eq("url", url)).add(eq("retired", false)).setCacheable(true)
+		        .setCacheRegion(FhirConstants.METADATA_QUERY_CACHE_REGION).uniqueResult());
 	}
 	
 	@Override
@@ -52,6 +55,7 @@ public class FhirConceptSourceDaoImpl implements FhirConceptSourceDao {
 		return Optional
 		        .ofNullable((FhirConceptSource) sessionFactory.getCurrentSession().createCriteria(FhirConceptSource.class)
 		                .createAlias("conceptSource", "conceptSource").add(eq("conceptSource.name", sourceName))
-		                .add(eq("conceptSource.retired", false)).add(eq("retired", false)).uniqueResult());
+		                .add(eq("conceptSource.retired", false)).add(eq("retired", false)).setCacheable(true)
+		                .setCacheRegion(FhirConstants.METADATA_QUERY_CACHE_REGION).uniqueResult());
 	}
 }
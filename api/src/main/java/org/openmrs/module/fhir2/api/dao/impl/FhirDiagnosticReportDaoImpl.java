@@ -14,6 +14,7 @@ import static org.hibernate.criterion.Restrictions.eq;
 import javax.annotation.Nonnull;
 
 import java.util.Optional;
+import java.util.Set;
 
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
@@ -32,6 +33,13 @@ import org.springframework.stereotype.Component;
 @Setter(AccessLevel.PACKAGE)
 public class FhirDiagnosticReportDaoImpl extends BaseFhirDao<FhirDiagnosticReport> implements FhirDiagnosticReportDao {
 	
+	private static final Set<Class<?>> SEARCH_RESULT_DEPENDENCIES = withConceptDependencies(FhirDiagnosticReport.class);
+	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return SEARCH_RESULT_DEPENDENCIES;
+	}
+	
 	@Override
 	protected void setupSearchParams(Criteria criteria, SearchParameterMap theParams) {
 		theParams.getParameters().forEach(entry -> {
@@ -9,12 +9,22 @@
  */
 package org.openmrs.module.fhir2.api.dao.impl;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.HasAndListParam;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import lombok.AccessLevel;
 import lombok.Setter;
 import org.hibernate.Criteria;
 import org.openmrs.Encounter;
+import org.openmrs.EncounterProvider;
+import org.openmrs.EncounterType;
+import org.openmrs.Location;
+import org.openmrs.Provider;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.dao.FhirEncounterDao;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
@@ -24,6 +34,15 @@ import org.springframework.stereotype.Component;
 @Setter(AccessLevel.PACKAGE)
 public class FhirEncounterDaoImpl extends BaseFhirDao<Encounter> implements FhirEncounterDao {
 	
+	// locations are searched with their hierarchy and participants through the encounter's providers
+	private static final Set<Class<?>> SEARCH_RESULT_DEPENDENCIES = Collections.unmodifiableSet(new HashSet<>(
+	        Arrays.asList(Encounter.class, EncounterType.class, EncounterProvider.class, Provider.class, Location.class)));
+	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return SEARCH_RESULT_DEPENDENCIES;
+	}
+	
 	@Override
 	protected void setupSearchParams(Criteria criteria, SearchParameterMap theParams) {
 		theParams.getParameters().forEach(entry -> {
@@ -33,8 +52,9 @@ public class FhirEncounterDaoImpl extends BaseFhirDao<Encounter> implements Fhir
 					        .ifPresent(criteria::add));
 					break;
 				case FhirConstants.LOCATION_REFERENCE_SEARCH_HANDLER:
-					entry.getValue().forEach(param -> handleLocationReference("l", (ReferenceAndListParam) param.getParam())
-					        .ifPresent(l -> criteria.createAlias("location", "l").add(l)));
+					entry.getValue().forEach(
+					    param -> handleLocationReference(criteria, "l", "location", (ReferenceAndListParam) param.getParam())
+					            .ifPresent(criteria::add));
 					break;
 				case FhirConstants.PARTICIPANT_REFERENCE_SEARCH_HANDLER:
 					entry.getValue().forEach(
@@ -47,6 +67,11 @@ public class FhirEncounterDaoImpl extends BaseFhirDao<Encounter> implements Fhir
 				case FhirConstants.COMMON_SEARCH_HANDLER:
 					handleCommonSearchParameters(entry.getValue()).ifPresent(criteria::add);
 					break;
+				case FhirConstants.HAS_SEARCH_HANDLER:
+					entry.getValue().forEach(
+					    param -> handleHas("encounterId", FhirConstants.ENCOUNTER, (HasAndListParam) param.getParam())
+					            .ifPresent(criteria::add));
+					break;
 			}
 		});
 	}
@@ -10,11 +10,20 @@
 package org.openmrs.module.fhir2.api.dao.impl;
 
 import static org.hibernate.criterion.Restrictions.eq;
+import static org.hibernate.criterion.Restrictions.in;
 
 import javax.annotation.Nonnull;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.StringAndListParam;
@@ -25,6 +34,7 @@ import org.hibernate.Criteria;
 import org.hibernate.sql.JoinType;
 import org.openmrs.Location;
 import org.openmrs.LocationAttribute;
+import org.openmrs.LocationTag;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.dao.FhirLocationDao;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
@@ -34,6 +44,14 @@ import org.springframework.stereotype.Component;
 @Setter(AccessLevel.PACKAGE)
 public class FhirLocationDaoImpl extends BaseFhirDao<Location> implements FhirLocationDao {
 	
+	private static final Set<Class<?>> SEARCH_RESULT_DEPENDENCIES = Collections.unmodifiableSet(
+	    new HashSet<>(Arrays.asList(Location.class, LocationTag.class, LocationAttribute.class)));
+	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return SEARCH_RESULT_DEPENDENCIES;
+	}
+	
 	@Override
 	protected void setupSearchParams(Criteria criteria, SearchParameterMap theParams) {
 		theParams.getParameters().forEach(entry -> {
@@ -77,6 +95,23 @@ public class FhirLocationDaoImpl extends BaseFhirDao<Location> implements FhirLo
 		        .list();
 	}
 	
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<Integer, List<LocationAttribute>> getActiveAttributesByLocationsAndAttributeTypeUuid(
+	        @Nonnull Collection<? extends Location> locations, @Nonnull String locationAttributeTypeUuid) {
+		List<Integer> locationIds = locations.stream().map(Location::getId).filter(Objects::nonNull).distinct()
+		        .collect(Collectors.toList());
+		if (locationIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		
+		List<LocationAttribute> attributes = getSessionFactory().getCurrentSession().createCriteria(LocationAttribute.class)
+		        .createAlias("location", "l").add(in("l.id", locationIds)).createAlias("attributeType", "lat")
+		        .add(eq("lat.uuid", locationAttributeTypeUuid)).add(eq("voided", false)).list();
+		
+		return attributes.stream().collect(Collectors.groupingBy(attribute -> attribute.getLocation().getId()));
+	}
+	
 	private void handleName(Criteria criteria, StringAndListParam namePattern) {
 		handleAndListParam(namePattern, (name) -> propertyLike("name", name)).ifPresent(criteria::add);
 	}
@@ -106,7 +141,7 @@ public class FhirLocationDaoImpl extends BaseFhirDao<Location> implements FhirLo
 	}
 	
 	private void handleParentLocation(Criteria criteria, ReferenceAndListParam parent) {
-		handleLocationReference("loc", parent).ifPresent(loc -> criteria.createAlias("parentLocation", "loc").add(loc));
+		handleLocationReference(criteria, "loc", "parentLocation", parent).ifPresent(criteria::add);
 	}
 	
 	@Override
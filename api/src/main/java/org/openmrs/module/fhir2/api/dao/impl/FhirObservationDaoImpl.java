@@ -10,10 +10,16 @@
 package org.openmrs.module.fhir2.api.dao.impl;
 
 import static org.hibernate.criterion.Restrictions.eq;
+import static org.hibernate.criterion.Restrictions.sqlRestriction;
 
 import javax.annotation.Nonnull;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.param.QuantityAndListParam;
@@ -21,9 +27,11 @@ import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.StringAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Criteria;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.type.StandardBasicTypes;
 import org.hl7.fhir.r4.model.Observation;
 import org.openmrs.Obs;
 import org.openmrs.module.fhir2.FhirConstants;
@@ -36,9 +44,67 @@ import org.springframework.stereotype.Component;
 @Component
 public class FhirObservationDaoImpl extends BaseFhirDao<Obs> implements FhirObservationDao {
 	
+	private static final Set<Class<?>> SEARCH_RESULT_DEPENDENCIES = withConceptDependencies(Obs.class);
+	
+	private static final int FETCH_BATCH_SIZE = 1000;
+	
 	@Autowired
 	private ObservationCategoryMap categoryMap;
 	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return SEARCH_RESULT_DEPENDENCIES;
+	}
+	
+	@Override
+	public void fetchAssociations(@Nonnull Collection<Obs> observations) {
+		Set<Integer> obsIds = new HashSet<>();
+		Set<Integer> personIds = new HashSet<>();
+		Set<Integer> conceptIds = new HashSet<>();
+		Set<Integer> userIds = new HashSet<>();
+		for (Obs observation : observations) {
+			obsIds.add(observation.getObsId());
+			if (observation.getPerson() != null) {
+				personIds.add(observation.getPerson().getPersonId());
+			}
+			if (observation.getConcept() != null) {
+				conceptIds.add(observation.getConcept().getConceptId());
+			}
+			if (observation.getValueCoded() != null) {
+				conceptIds.add(observation.getValueCoded().getConceptId());
+			}
+			if (observation.getCreator() != null) {
+				userIds.add(observation.getCreator().getUserId());
+			}
+			if (observation.getChangedBy() != null) {
+				userIds.add(observation.getChangedBy().getUserId());
+			}
+		}
+		
+		// the collections and proxies of entities already in the session are filled in by these queries
+		fetch("select distinct o from Obs o left join fetch o.encounter left join fetch o.order "
+		        + "left join fetch o.groupMembers where o.obsId in (:ids)",
+		    obsIds);
+		fetch("select distinct u from User u left join fetch u.person p left join fetch p.names where u.userId in (:ids)",
+		    userIds);
+		fetch("select distinct p from Person p left join fetch p.names where p.personId in (:ids)", personIds);
+		fetch("select distinct p from Patient p left join fetch p.identifiers i left join fetch i.identifierType "
+		        + "where p.personId in (:ids)",
+		    personIds);
+		fetch("select distinct c from Concept c join fetch c.conceptClass join fetch c.datatype "
+		        + "left join fetch c.names where c.conceptId in (:ids)",
+		    conceptIds);
+		fetch("select distinct c from Concept c left join fetch c.conceptMappings m "
+		        + "left join fetch m.conceptReferenceTerm t left join fetch t.conceptSource where c.conceptId in (:ids)",
+		    conceptIds);
+	}
+	
+	private void fetch(String hql, Set<Integer> ids) {
+		for (List<Integer> batch : Lists.partition(new ArrayList<>(ids), FETCH_BATCH_SIZE)) {
+			getSessionFactory().getCurrentSession().createQuery(hql).setParameterList("ids", batch).list();
+		}
+	}
+	
 	@Override
 	protected void setupSearchParams(Criteria criteria, SearchParameterMap theParams) {
 		theParams.getParameters().forEach(entry -> {
@@ -80,6 +146,9 @@ public class FhirObservationDaoImpl extends BaseFhirDao<Obs> implements FhirObse
 					    string -> handleValueStringParam(string.getPropertyName(), (StringAndListParam) string.getParam())
 					            .ifPresent(criteria::add));
 					break;
+				case FhirConstants.LASTN_OBSERVATION_SEARCH_HANDLER:
+					entry.getValue().forEach(max -> handleLastn(criteria, (Integer) max.getParam()));
+					break;
 				case FhirConstants.COMMON_SEARCH_HANDLER:
 					handleCommonSearchParameters(entry.getValue()).ifPresent(criteria::add);
 					break;
@@ -87,6 +156,33 @@ public class FhirObservationDaoImpl extends BaseFhirDao<Obs> implements FhirObse
 		});
 	}
 	
+	/**
+	 * Restricts the search to the {@code max} most recent obs for each person and concept. An obs is
+	 * dropped if the {@code max}th most recent obs of its person and concept is newer than it. That obs
+	 * is found with {@code order by ... limit 1 offset max - 1}, which all databases supported by
+	 * OpenMRS accept in a scalar subquery, unlike window functions, which older MySQL versions lack.
+	 * Each lookup reads at most {@code max} entries of the {@code fhir_obs_person_concept_datetime}
+	 * index, so the work grows linearly with the number of matching obs rather than with the square of
+	 * the number of obs each person has for a concept.
+	 *
+	 * @param criteria the criteria object representing this search
+	 * @param max the number of obs to keep per person and concept
+	 */
+	private void handleLastn(Criteria criteria, Integer max) {
+		if (max == null) {
+			return;
+		}
+		
+		// WARNING this is fragile as it depends on the SQL aliases Hibernate generates
+		criteria.add(sqlRestriction("not exists (select 1 from obs lastn_ where lastn_.obs_id = "
+		        + "(select nth_.obs_id from obs nth_ where nth_.person_id = this_.person_id "
+		        + "and nth_.concept_id = this_.concept_id and nth_.voided = ? "
+		        + "order by nth_.obs_datetime desc, nth_.obs_id desc limit 1 offset " + (max - 1) + ") "
+		        + "and (lastn_.obs_datetime > this_.obs_datetime or "
+		        + "(lastn_.obs_datetime = this_.obs_datetime and lastn_.obs_id > this_.obs_id)))",
+		    false, StandardBasicTypes.BOOLEAN));
+	}
+	
 	private void handleHasMemberReference(Criteria criteria, ReferenceAndListParam hasMemberReference) {
 		if (hasMemberReference != null) {
 			if (lacksAlias(criteria, "gm")) {
@@ -22,22 +22,29 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.HasAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import lombok.AccessLevel;
 import lombok.Setter;
 import org.hibernate.Criteria;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.sql.JoinType;
 import org.openmrs.Patient;
 import org.openmrs.PatientIdentifierType;
 import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirPatientDao;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 @Setter(AccessLevel.PACKAGE)
 public class FhirPatientDaoImpl extends BasePersonDao<Patient> implements FhirPatientDao {
 	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
 	@Override
 	public Patient getPatientById(@Nonnull Integer id) {
 		return (Patient) getSessionFactory().getCurrentSession().createCriteria(Patient.class).add(eq("patientId", id))
@@ -49,7 +56,10 @@ public class FhirPatientDaoImpl extends BasePersonDao<Patient> implements FhirPa
 	public PatientIdentifierType getPatientIdentifierTypeByNameOrUuid(String name, String uuid) {
 		List<PatientIdentifierType> identifierTypes = (List<PatientIdentifierType>) getSessionFactory().getCurrentSession()
 		        .createCriteria(PatientIdentifierType.class)
-		        .add(or(and(eq("name", name), eq("retired", false)), eq("uuid", uuid))).list();
+		        .add(or(and(eq("name", name), eq("retired", false)), eq("uuid", uuid)))
+		        .setCacheable(Boolean.parseBoolean(
+		            globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false")))
+		        .setCacheRegion(FhirConstants.METADATA_QUERY_CACHE_REGION).list();
 		
 		if (identifierTypes.isEmpty()) {
 			return null;
@@ -96,6 +106,11 @@ public class FhirPatientDaoImpl extends BasePersonDao<Patient> implements FhirPa
 				case FhirConstants.COMMON_SEARCH_HANDLER:
 					handleCommonSearchParameters(entry.getValue()).ifPresent(criteria::add);
 					break;
+				case FhirConstants.HAS_SEARCH_HANDLER:
+					entry.getValue().forEach(
+					    param -> handleHas("personId", FhirConstants.PATIENT, (HasAndListParam) param.getParam())
+					            .ifPresent(criteria::add));
+					break;
 			}
 		});
 	}
@@ -105,6 +120,12 @@ public class FhirPatientDaoImpl extends BasePersonDao<Patient> implements FhirPa
 			return;
 		}
 		
+		Optional<Criterion> fullTextMatch = handleIdentifierFromFullTextIndex(identifier);
+		if (fullTextMatch.isPresent()) {
+			criteria.add(fullTextMatch.get());
+			return;
+		}
+		
 		criteria.createAlias("identifiers", "pi", JoinType.INNER_JOIN, eq("pi.voided", false));
 		
 		handleAndListParamBySystem(identifier, (system, tokens) -> {
@@ -11,13 +11,19 @@ package org.openmrs.module.fhir2.api.dao.impl;
 
 import static org.hibernate.criterion.Restrictions.and;
 import static org.hibernate.criterion.Restrictions.eq;
+import static org.hibernate.criterion.Restrictions.in;
 import static org.hibernate.criterion.Restrictions.isNull;
 import static org.hibernate.criterion.Restrictions.or;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import ca.uhn.fhir.rest.param.DateRangeParam;
@@ -48,6 +54,23 @@ public class FhirPersonDaoImpl extends BasePersonDao<Person> implements FhirPers
 		        .list();
 	}
 	
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<Integer, List<PersonAttribute>> getActiveAttributesByPersonsAndAttributeTypeUuid(
+	        @Nonnull Collection<? extends Person> persons, @Nonnull String personAttributeTypeUuid) {
+		List<Integer> personIds = persons.stream().map(Person::getId).filter(Objects::nonNull).distinct()
+		        .collect(Collectors.toList());
+		if (personIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		
+		List<PersonAttribute> attributes = getSessionFactory().getCurrentSession().createCriteria(PersonAttribute.class)
+		        .createAlias("person", "p").add(in("p.id", personIds)).createAlias("attributeType", "pat")
+		        .add(eq("pat.uuid", personAttributeTypeUuid)).add(eq("voided", false)).list();
+		
+		return attributes.stream().collect(Collectors.groupingBy(attribute -> attribute.getPerson().getId()));
+	}
+	
 	@Override
 	protected void setupSearchParams(Criteria criteria, SearchParameterMap theParams) {
 		theParams.getParameters().forEach(entry -> {
@@ -75,6 +98,10 @@ public class FhirPersonDaoImpl extends BasePersonDao<Person> implements FhirPers
 	
 	@Override
 	protected Optional<Criterion> handleLastUpdated(DateRangeParam param) {
+		if (isLastUpdatedIndexed()) {
+			return handleIndexedLastUpdated(param);
+		}
+		
 		return Optional.of(or(toCriteriaArray(handleDateRange("personDateChanged", param), Optional.of(and(toCriteriaArray(
 		    Stream.of(Optional.of(isNull("personDateChanged")), handleDateRange("personDateCreated", param))))))));
 	}
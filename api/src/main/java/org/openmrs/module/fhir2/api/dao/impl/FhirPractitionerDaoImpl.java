@@ -10,11 +10,17 @@
 package org.openmrs.module.fhir2.api.dao.impl;
 
 import static org.hibernate.criterion.Restrictions.eq;
+import static org.hibernate.criterion.Restrictions.in;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import lombok.AccessLevel;
@@ -44,4 +50,21 @@ public class FhirPractitionerDaoImpl extends BasePractitionerDao<Provider> imple
 		        .createAlias("attributeType", "pat").add(eq("pat.uuid", providerAttributeTypeUuid)).add(eq("voided", false))
 		        .list();
 	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<Integer, List<ProviderAttribute>> getActiveAttributesByPractitionersAndAttributeTypeUuid(
+	        @Nonnull Collection<? extends Provider> providers, @Nonnull String providerAttributeTypeUuid) {
+		List<Integer> providerIds = providers.stream().map(Provider::getId).filter(Objects::nonNull).distinct()
+		        .collect(Collectors.toList());
+		if (providerIds.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		
+		List<ProviderAttribute> attributes = getSessionFactory().getCurrentSession().createCriteria(ProviderAttribute.class)
+		        .createAlias("provider", "p").add(in("p.id", providerIds)).createAlias("attributeType", "pat")
+		        .add(eq("pat.uuid", providerAttributeTypeUuid)).add(eq("voided", false)).list();
+		
+		return attributes.stream().collect(Collectors.groupingBy(attribute -> attribute.getProvider().getId()));
+	}
 }
@@ -27,8 +27,12 @@ import javax.annotation.Nonnull;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import ca.uhn.fhir.rest.param.DateRangeParam;
@@ -42,6 +46,8 @@ import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Subqueries;
 import org.hibernate.sql.JoinType;
+import org.openmrs.Person;
+import org.openmrs.PersonAddress;
 import org.openmrs.PersonName;
 import org.openmrs.Relationship;
 import org.openmrs.module.fhir2.FhirConstants;
@@ -54,6 +60,15 @@ import org.springframework.stereotype.Component;
 @Setter(AccessLevel.PACKAGE)
 public class FhirRelatedPersonDaoImpl extends BaseFhirDao<Relationship> implements FhirRelatedPersonDao {
 	
+	// searches are on the names, addresses, gender and birthdate of the related person
+	private static final Set<Class<?>> SEARCH_RESULT_DEPENDENCIES = Collections.unmodifiableSet(
+	    new HashSet<>(Arrays.asList(Relationship.class, Person.class, PersonName.class, PersonAddress.class)));
+	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return SEARCH_RESULT_DEPENDENCIES;
+	}
+	
 	@Override
 	protected void setupSearchParams(Criteria criteria, SearchParameterMap theParams) {
 		criteria.createAlias("personA", "m"); //inner join with person table
@@ -97,6 +112,11 @@ public class FhirRelatedPersonDaoImpl extends BaseFhirDao<Relationship> implemen
 				criteria.createAlias("m.names", "pn", JoinType.LEFT_OUTER_JOIN);
 			}
 			
+			Optional<Collection<Order>> displayNameOrders = handleDisplayNameSort("pn", sortState);
+			if (displayNameOrders.isPresent()) {
+				return displayNameOrders.get();
+			}
+			
 			criteria.add(and(eq("pn.voided", false), or(
 			    and(eq("pn.preferred", true),
 			        Subqueries.propertyEq("pn.personNameId",
@@ -11,12 +11,20 @@ package org.openmrs.module.fhir2.api.dao.impl;
 
 import static org.hibernate.criterion.Restrictions.and;
 import static org.hibernate.criterion.Restrictions.eq;
+import static org.hibernate.criterion.Restrictions.in;
 
 import javax.annotation.Nonnull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.ReferenceParam;
@@ -26,10 +34,13 @@ import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.Criteria;
 import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Projections;
+import org.hibernate.sql.JoinType;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.dao.FhirTaskDao;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.openmrs.module.fhir2.model.FhirReference;
 import org.openmrs.module.fhir2.model.FhirTask;
 import org.springframework.stereotype.Component;
 
@@ -38,6 +49,14 @@ import org.springframework.stereotype.Component;
 @Setter(AccessLevel.PACKAGE)
 public class FhirTaskDaoImpl extends BaseFhirDao<FhirTask> implements FhirTaskDao {
 	
+	private static final Set<Class<?>> SEARCH_RESULT_DEPENDENCIES = Collections
+	        .unmodifiableSet(new HashSet<>(Arrays.asList(FhirTask.class, FhirReference.class)));
+	
+	@Override
+	protected Set<Class<?>> getSearchResultDependencies() {
+		return SEARCH_RESULT_DEPENDENCIES;
+	}
+	
 	@Override
 	protected void setupSearchParams(Criteria criteria, SearchParameterMap theParams) {
 		theParams.getParameters().forEach(entry -> {
@@ -69,10 +88,46 @@ public class FhirTaskDaoImpl extends BaseFhirDao<FhirTask> implements FhirTaskDa
 		}
 		
 		getSessionFactory().getCurrentSession().saveOrUpdate(task);
+		recordWrite();
 		
 		return task;
 	}
 	
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<String, List<FhirTask>> getTaskStatesByBasedOn(@Nonnull String basedOnType,
+	        @Nonnull Collection<String> basedOnUuids) {
+		if (basedOnUuids.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		
+		Criteria criteria = getSessionFactory().getCurrentSession().createCriteria(FhirTask.class)
+		        .createAlias("basedOnReferences", "bo").createAlias("ownerReference", "o", JoinType.LEFT_OUTER_JOIN)
+		        .add(eq("bo.type", basedOnType)).add(in("bo.reference", basedOnUuids));
+		handleRetireable(criteria);
+		
+		criteria.setProjection(Projections.projectionList().add(Projections.property("bo.reference"))
+		        .add(Projections.property("status")).add(Projections.property("o.type"))
+		        .add(Projections.property("o.reference")));
+		
+		Map<String, List<FhirTask>> result = new HashMap<>();
+		for (Object[] row : (List<Object[]>) criteria.list()) {
+			FhirTask task = new FhirTask();
+			task.setStatus((FhirTask.TaskStatus) row[1]);
+			
+			if (row[3] != null) {
+				FhirReference owner = new FhirReference();
+				owner.setType((String) row[2]);
+				owner.setReference((String) row[3]);
+				task.setOwnerReference(owner);
+			}
+			
+			result.computeIfAbsent((String) row[0], k -> new ArrayList<>()).add(task);
+		}
+		
+		return result;
+	}
+	
 	private Boolean validReferenceParam(ReferenceParam ref) {
 		return (ref != null && ref.getIdPart() != null && ref.getResourceType() != null);
 	}
@@ -0,0 +1,51 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import javax.annotation.Nonnull;
+
+import org.hibernate.criterion.DetachedCriteria;
+
+/**
+ * A resource type which can be named as the target of a {@code _has} parameter, i.e. whose
+ * resources refer to the resources being searched for. Searches are restricted to the resources
+ * referred to by the target resources matching the parameter's {@code code}, which
+ * {@link BaseDao#handleHas(String, String, ca.uhn.fhir.rest.param.HasAndListParam)} finds in a
+ * subquery built from the criteria and properties given here.
+ */
+public interface HasSearchTarget {
+	
+	/**
+	 * @return the FHIR resource type, e.g. {@code Observation}
+	 */
+	String getResourceType();
+	
+	/**
+	 * Creates a criteria matching the entities of this resource type which have not been deleted
+	 *
+	 * @param alias the alias of the root of the criteria
+	 * @return the criteria
+	 */
+	DetachedCriteria createCriteria(@Nonnull String alias);
+	
+	/**
+	 * @param resourceType the type of the resources being searched for
+	 * @param referenceFieldName the search parameter of this resource type naming the reference
+	 * @return the path from the root of the criteria to the id of the referenced resource, or
+	 *         {@code null} if the search parameter does not refer to resources of the given type
+	 */
+	String getReferencedIdProperty(@Nonnull String resourceType, @Nonnull String referenceFieldName);
+	
+	/**
+	 * @return the path from the root of the criteria to the concept matched by the {@code code}
+	 *         search parameter
+	 */
+	String getCodeProperty();
+}
@@ -0,0 +1,172 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hibernate.criterion.Projections.property;
+import static org.hibernate.criterion.Restrictions.eq;
+import static org.hibernate.criterion.Restrictions.in;
+
+import javax.annotation.Nonnull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.Criteria;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Subqueries;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.util.LastUpdatedIndexUtils;
+import org.openmrs.module.fhir2.model.FhirLastUpdated;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Builds {@code _lastUpdated} restrictions against the {@code fhir_last_updated} table maintained by
+ * {@link org.openmrs.module.fhir2.api.util.LastUpdatedIndexInterceptor}. A date range becomes a range
+ * over the index on that table, joined back to the searched table by primary key, in place of
+ * {@code date_changed} and {@code date_created} comparisons that cannot use an index. The Criteria
+ * API cannot join the searched table to this one, so a search sorted by {@code _lastUpdated} is run
+ * the other way around: the index is read in order and only the rows matched by the search are kept.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class LastUpdatedIndex {
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	private static final int UUID_BATCH_SIZE = 1000;
+	
+	private final Map<Class<?>, Optional<String>> indexedTables = new ConcurrentHashMap<>();
+	
+	/**
+	 * @return true if {@code _lastUpdated} searches should use the last updated table
+	 */
+	public boolean isEnabled() {
+		return Boolean.parseBoolean(
+		    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_LAST_UPDATED_INDEX, "false"));
+	}
+	
+	/**
+	 * Returns the table the given entity type is mapped to, if the last updated time of its rows is
+	 * kept
+	 *
+	 * @param entityType the entity type
+	 * @return the table or empty if the rows of this type are not covered
+	 */
+	public Optional<String> getIndexedTable(@Nonnull Class<?> entityType) {
+		return indexedTables.computeIfAbsent(entityType, type -> {
+			ClassMetadata metadata = sessionFactory.getClassMetadata(type);
+			if (!(metadata instanceof AbstractEntityPersister)) {
+				return Optional.empty();
+			}
+			
+			String table = ((AbstractEntityPersister) metadata).getTableName();
+			return LastUpdatedIndexUtils.TABLES.containsKey(table) ? Optional.of(table) : Optional.empty();
+		});
+	}
+	
+	/**
+	 * @param entityType the entity type
+	 * @return the name of the identifier property of the entity type
+	 */
+	public String getIdProperty(@Nonnull Class<?> entityType) {
+		return sessionFactory.getClassMetadata(entityType).getIdentifierPropertyName();
+	}
+	
+	/**
+	 * Restricts the rows to those whose last updated time matches the given restriction
+	 *
+	 * @param idProperty the identifier property of the searched entity
+	 * @param table the table of the searched entity
+	 * @param lastUpdated the restriction on the {@code lastUpdated} property of {@link FhirLastUpdated}
+	 * @return the restriction
+	 */
+	public Criterion lastUpdatedMatches(@Nonnull String idProperty, @Nonnull String table,
+	        @Nonnull Criterion lastUpdated) {
+		return Subqueries.propertyIn(idProperty, DetachedCriteria.forClass(FhirLastUpdated.class)
+		        .add(eq("resourceTable", table)).add(lastUpdated).setProjection(property("resourceId")));
+	}
+	
+	/**
+	 * Creates a query for the ids of the rows of a table matched by a search, in order of their last
+	 * updated time. The query reads the index on the last updated table in order and keeps the rows
+	 * matched by the search, rather than sorting every match. Rows missing from the last updated table
+	 * are not found, so the table must have been rebuilt since it was enabled.
+	 *
+	 * @param session the session to create the query in
+	 * @param table the table of the searched entity
+	 * @param matchingIds the search, projected to the identifier of the searched entity
+	 * @param ascending whether to return the least recently updated rows first
+	 * @return the query for the ids of the matching rows
+	 */
+	public Criteria orderByLastUpdated(@Nonnull Session session, @Nonnull String table,
+	        @Nonnull DetachedCriteria matchingIds, boolean ascending) {
+		return session.createCriteria(FhirLastUpdated.class).add(eq("resourceTable", table))
+		        .add(Subqueries.propertyIn("resourceId", matchingIds))
+		        .addOrder(ascending ? Order.asc("lastUpdated") : Order.desc("lastUpdated"))
+		        .addOrder(ascending ? Order.asc("resourceId") : Order.desc("resourceId"))
+		        .setProjection(property("resourceId"));
+	}
+	
+	/**
+	 * Looks up the uuids of the entities with the given ids
+	 *
+	 * @param session the session to use
+	 * @param entityType the entity type
+	 * @param ids the ids of the entities
+	 * @return the uuids of the entities, in the order of their ids
+	 */
+	public List<String> getUuids(@Nonnull Session session, @Nonnull Class<?> entityType, @Nonnull List<Integer> ids) {
+		Map<Integer, String> uuids = new HashMap<>();
+		for (List<Integer> batch : Lists.partition(ids, UUID_BATCH_SIZE)) {
+			@SuppressWarnings("unchecked")
+			List<Object[]> rows = session.createCriteria(entityType).add(in(getIdProperty(entityType), batch))
+			        .setProjection(Projections.projectionList().add(Projections.id()).add(property("uuid"))).list();
+			for (Object[] row : rows) {
+				uuids.put((Integer) row[0], (String) row[1]);
+			}
+		}
+		
+		return ids.stream().map(uuids::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Discards and regenerates the last updated time of every row. This should be run after
+	 * {@link FhirConstants#OPENMRS_FHIR_LAST_UPDATED_INDEX} is enabled, as the table is not kept
+	 * up-to-date while it is disabled.
+	 */
+	@Transactional
+	public void rebuild() {
+		sessionFactory.getCurrentSession().doWork(LastUpdatedIndexUtils::rebuild);
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import javax.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the {@code :below} and {@code :above} modifiers of location references to the ids of the
+ * locations they match, so that they can be searched for with a simple {@code location_id IN (...)}
+ * restriction. The hierarchy is walked one level at a time, with one query per level, so there is
+ * no limit on its depth. Locations which are reached twice, as happens if the hierarchy contains a
+ * cycle, are only visited once.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class LocationHierarchyResolver {
+	
+	private static final int BATCH_SIZE = 1000;
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	/**
+	 * Finds the location with the given uuid and every location that is part of it, at any depth
+	 *
+	 * @param uuid the uuid of the location
+	 * @return the ids of the location and its descendants, or an empty set if there is no such location
+	 */
+	public Set<Integer> getDescendantIds(@Nonnull String uuid) {
+		Session session = sessionFactory.getCurrentSession();
+		
+		Set<Integer> result = new LinkedHashSet<>(getLocationIds(session, uuid));
+		Collection<Integer> level = result;
+		while (!level.isEmpty()) {
+			Set<Integer> children = new LinkedHashSet<>();
+			for (List<Integer> batch : Lists.partition(Lists.newArrayList(level), BATCH_SIZE)) {
+				children.addAll(list(session.createQuery(
+				    "select l.locationId from Location l where l.parentLocation.locationId in (:parentIds)")
+				        .setParameterList("parentIds", batch)));
+			}
+			
+			children.removeAll(result);
+			result.addAll(children);
+			level = children;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the location with the given uuid and every location it is part of, at any depth
+	 *
+	 * @param uuid the uuid of the location
+	 * @return the ids of the location and its ancestors, or an empty set if there is no such location
+	 */
+	public Set<Integer> getAncestorIds(@Nonnull String uuid) {
+		Session session = sessionFactory.getCurrentSession();
+		
+		Set<Integer> result = new LinkedHashSet<>();
+		List<Integer> level = getLocationIds(session, uuid);
+		while (!level.isEmpty() && result.add(level.get(0))) {
+			level = list(session
+			        .createQuery("select l.parentLocation.locationId from Location l where l.locationId = :locationId")
+			        .setParameter("locationId", level.get(0)));
+		}
+		
+		return result;
+	}
+	
+	private static List<Integer> getLocationIds(Session session, String uuid) {
+		return list(
+		    session.createQuery("select l.locationId from Location l where l.uuid = :uuid").setParameter("uuid", uuid));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static List<Integer> list(Query query) {
+		return (List<Integer>) query.list();
+	}
+}
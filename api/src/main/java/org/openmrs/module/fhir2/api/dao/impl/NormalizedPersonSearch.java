@@ -0,0 +1,103 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hibernate.criterion.Projections.property;
+import static org.hibernate.criterion.Restrictions.like;
+import static org.hibernate.criterion.Restrictions.or;
+
+import javax.annotation.Nonnull;
+
+import java.util.Arrays;
+
+import ca.uhn.fhir.rest.param.StringParam;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.MatchMode;
+import org.hibernate.criterion.Subqueries;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.util.PersonSearchIndexUtils;
+import org.openmrs.module.fhir2.model.FhirPersonAddressSearch;
+import org.openmrs.module.fhir2.model.FhirPersonNameSearch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds name and address restrictions against the normalized search tables maintained by
+ * {@link org.openmrs.module.fhir2.api.util.PersonSearchIndexInterceptor}. Because the stored
+ * values are already lower-cased and accent-folded, the search value is normalized in the same way
+ * and compared without any function applied to the column:
+ * <ul>
+ * <li>the default prefix match becomes {@code column LIKE 'value%'}, which can use the index</li>
+ * <li>{@code :contains} becomes {@code column LIKE '%value%'}, which still requires a scan, but of the
+ * narrow search table rather than the name or address table</li>
+ * </ul>
+ * {@code :exact} searches are case- and accent-sensitive, so they are never routed through these
+ * tables. Voided names and addresses are not held in the tables.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class NormalizedPersonSearch {
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	/**
+	 * @return true if name and address searches should use the normalized search tables
+	 */
+	public boolean isEnabled() {
+		return Boolean.parseBoolean(
+		    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_NORMALIZED_PERSON_SEARCH, "false"));
+	}
+	
+	/**
+	 * Restricts the person names to those where any of the given properties matches the parameter
+	 *
+	 * @param personNameIdProperty the property holding the id of the {@link org.openmrs.PersonName}
+	 * @param param the value to search for
+	 * @param properties the {@link FhirPersonNameSearch} properties to match
+	 * @return the restriction
+	 */
+	public Criterion nameMatches(@Nonnull String personNameIdProperty, @Nonnull StringParam param,
+	        @Nonnull String... properties) {
+		return Subqueries.propertyIn(personNameIdProperty, DetachedCriteria.forClass(FhirPersonNameSearch.class)
+		        .add(matchesAny(param, properties)).setProjection(property("personNameId")));
+	}
+	
+	/**
+	 * Restricts the person addresses to those where the given property matches the parameter
+	 *
+	 * @param personAddressIdProperty the property holding the id of the
+	 *            {@link org.openmrs.PersonAddress}
+	 * @param param the value to search for
+	 * @param addressProperty the {@link FhirPersonAddressSearch} property to match
+	 * @return the restriction
+	 */
+	public Criterion addressMatches(@Nonnull String personAddressIdProperty, @Nonnull StringParam param,
+	        @Nonnull String addressProperty) {
+		return Subqueries.propertyIn(personAddressIdProperty, DetachedCriteria.forClass(FhirPersonAddressSearch.class)
+		        .add(matchesAny(param, addressProperty)).setProjection(property("personAddressId")));
+	}
+	
+	private Criterion matchesAny(StringParam param, String... properties) {
+		String value = PersonSearchIndexUtils.normalize(param.getValue());
+		
+		return or(Arrays.stream(properties).map(property -> {
+			if (param.isContains()) {
+				return like(property, value, MatchMode.ANYWHERE);
+			}
+			
+			return like(property, value, MatchMode.START);
+		}).toArray(Criterion[]::new));
+	}
+}
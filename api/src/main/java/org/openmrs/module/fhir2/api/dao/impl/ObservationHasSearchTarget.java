@@ -0,0 +1,55 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hibernate.criterion.Restrictions.eq;
+
+import javax.annotation.Nonnull;
+
+import org.hibernate.criterion.DetachedCriteria;
+import org.hl7.fhir.r4.model.Observation;
+import org.openmrs.Obs;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allows patients to be searched for with {@code _has:Observation:patient:code} or
+ * {@code _has:Observation:subject:code} and encounters with {@code _has:Observation:encounter:code}
+ */
+@Component
+public class ObservationHasSearchTarget implements HasSearchTarget {
+	
+	@Override
+	public String getResourceType() {
+		return FhirConstants.OBSERVATION;
+	}
+	
+	@Override
+	public DetachedCriteria createCriteria(@Nonnull String alias) {
+		return DetachedCriteria.forClass(Obs.class, alias).add(eq(alias + ".voided", false));
+	}
+	
+	@Override
+	public String getReferencedIdProperty(@Nonnull String resourceType, @Nonnull String referenceFieldName) {
+		if (FhirConstants.PATIENT.equals(resourceType) && (Observation.SP_PATIENT.equals(referenceFieldName)
+		        || Observation.SP_SUBJECT.equals(referenceFieldName))) {
+			return "person.personId";
+		} else if (FhirConstants.ENCOUNTER.equals(resourceType) && Observation.SP_ENCOUNTER.equals(referenceFieldName)) {
+			return "encounter.encounterId";
+		}
+		
+		return null;
+	}
+	
+	@Override
+	public String getCodeProperty() {
+		return "concept";
+	}
+}
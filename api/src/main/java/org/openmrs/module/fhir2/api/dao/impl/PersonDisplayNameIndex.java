@@ -0,0 +1,97 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hibernate.criterion.Restrictions.isNull;
+import static org.hibernate.criterion.Restrictions.or;
+import static org.hl7.fhir.r4.model.Patient.SP_FAMILY;
+import static org.hl7.fhir.r4.model.Patient.SP_GIVEN;
+import static org.hl7.fhir.r4.model.Person.SP_NAME;
+
+import javax.annotation.Nonnull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.Criteria;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Subqueries;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.model.FhirPersonDisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sorts people by the name recorded for each of them in the {@code fhir_person_display_name} table
+ * maintained by {@link org.openmrs.module.fhir2.api.util.PersonDisplayNameInterceptor}. The names of
+ * each person are joined as usual, but only the one recorded in that table is kept, so there is no
+ * need to pick out the preferred name with correlated subqueries.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class PersonDisplayNameIndex {
+	
+	private static final Map<String, List<String>> PROPERTIES = new HashMap<>();
+	
+	static {
+		PROPERTIES.put(SP_NAME, Arrays.asList("familyName", "familyName2", "givenName", "middleName", "familyNamePrefix",
+		    "familyNameSuffix"));
+		PROPERTIES.put(SP_GIVEN, Collections.singletonList("givenName"));
+		PROPERTIES.put(SP_FAMILY, Collections.singletonList("familyName"));
+	}
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	/**
+	 * @return true if people should be sorted by name through the display name table
+	 */
+	public boolean isEnabled() {
+		return Boolean.parseBoolean(
+		    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_DISPLAY_NAME_SORT, "false"));
+	}
+	
+	/**
+	 * Restricts the names joined to each person to their display name and orders people by it
+	 *
+	 * @param criteria the criteria the person names are joined to
+	 * @param nameAlias the alias of the joined person names
+	 * @param param the sort parameter, one of {@code name}, {@code given} or {@code family}
+	 * @param ascending whether to sort in ascending order
+	 * @return the orders or empty if the parameter is not a name parameter
+	 */
+	public Optional<Collection<Order>> orderByDisplayName(@Nonnull Criteria criteria, @Nonnull String nameAlias,
+	        @Nonnull String param, boolean ascending) {
+		List<String> properties = PROPERTIES.get(param);
+		if (properties == null) {
+			return Optional.empty();
+		}
+		
+		// people without any names are kept and sorted as if their names were empty
+		criteria.add(or(
+		    Subqueries.propertyIn(nameAlias + ".personNameId",
+		        DetachedCriteria.forClass(FhirPersonDisplayName.class).setProjection(Projections.property("personNameId"))),
+		    isNull(nameAlias + ".personNameId")));
+		
+		return Optional.of(properties.stream().map(property -> nameAlias + "." + property)
+		        .map(property -> ascending ? Order.asc(property) : Order.desc(property)).collect(Collectors.toList()));
+	}
+}
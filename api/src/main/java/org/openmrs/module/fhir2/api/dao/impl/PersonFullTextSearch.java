@@ -0,0 +1,294 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hibernate.criterion.Projections.property;
+import static org.hibernate.criterion.Restrictions.eq;
+import static org.hibernate.criterion.Restrictions.in;
+import static org.hibernate.criterion.Restrictions.sqlRestriction;
+
+import javax.annotation.Nonnull;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import ca.uhn.fhir.rest.param.StringAndListParam;
+import ca.uhn.fhir.rest.param.StringOrListParam;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenAndListParam;
+import ca.uhn.fhir.rest.param.TokenOrListParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.search.FullTextQuery;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.hibernate.search.query.dsl.BooleanJunction;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.util.PersonFullTextIndexBridge;
+import org.openmrs.module.fhir2.model.FhirIndexedPerson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the name, address and identifier parts of a person search to the ids of the matching
+ * people using the full-text person index, so that the rest of the search only needs to restrict
+ * the person id rather than join to and scan the name, address and identifier tables.
+ * <p/>
+ * Each search value is normalized and split into tokens in the same way as the indexed values; every
+ * token must then match, by prefix by default or anywhere in the indexed token for {@code :contains}.
+ * When phonetic matching is enabled, name tokens also match names with the same Double Metaphone
+ * code. Searches the index cannot answer, i.e. {@code :exact} searches and searches matching more
+ * than {@link #MAX_CANDIDATES} people, are left to the regular criteria path.
+ * <p/>
+ * The index holds one document per person, so a search with several criteria may be satisfied by
+ * different names or addresses of the same person; see {@link #isSingleTokenSearch} for when the
+ * regular criteria must still be applied to the people the index returns.
+ * <p/>
+ * The index is updated in the background once the transaction changing a person commits, so
+ * searches may briefly miss or still return people whose names, addresses or identifiers have just
+ * changed.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class PersonFullTextSearch {
+	
+	static final int MAX_CANDIDATES = 1000;
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	/**
+	 * @return true if person searches should be resolved through the full-text person index
+	 */
+	public boolean isEnabled() {
+		return Boolean.parseBoolean(
+		    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH, "false"));
+	}
+	
+	/**
+	 * Restricts the results to the people whose names match all of the given parameters
+	 *
+	 * @param personIdProperty the property holding the person id
+	 * @return the restriction or an empty optional if the index cannot be used for this search
+	 */
+	public Optional<Criterion> nameMatches(@Nonnull String personIdProperty, StringAndListParam name,
+	        StringAndListParam given, StringAndListParam family) {
+		boolean phonetic = Boolean.parseBoolean(globalPropertyService
+		        .getGlobalProperty(FhirConstants.OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH_PHONETIC, "false"));
+		
+		Map<String, StringAndListParam> params = new LinkedHashMap<>();
+		params.put(PersonFullTextIndexBridge.NAME, name);
+		params.put(PersonFullTextIndexBridge.GIVEN, given);
+		params.put(PersonFullTextIndexBridge.FAMILY, family);
+		
+		return stringMatches(personIdProperty, params, phonetic);
+	}
+	
+	/**
+	 * Restricts the results to the people whose addresses match all of the given parameters
+	 *
+	 * @param personIdProperty the property holding the person id
+	 * @return the restriction or an empty optional if the index cannot be used for this search
+	 */
+	public Optional<Criterion> addressMatches(@Nonnull String personIdProperty, StringAndListParam city,
+	        StringAndListParam state, StringAndListParam postalCode, StringAndListParam country) {
+		Map<String, StringAndListParam> params = new LinkedHashMap<>();
+		params.put(PersonFullTextIndexBridge.CITY, city);
+		params.put(PersonFullTextIndexBridge.STATE, state);
+		params.put(PersonFullTextIndexBridge.POSTAL_CODE, postalCode);
+		params.put(PersonFullTextIndexBridge.COUNTRY, country);
+		
+		return stringMatches(personIdProperty, params, false);
+	}
+	
+	/**
+	 * Whether the given parameters amount to a single token that only needs to match one name or
+	 * address of a person. If not, the index may match each token against a different name or address,
+	 * so its results should be further restricted by the regular criteria.
+	 *
+	 * @param params the parameters being searched
+	 * @return true if the results of the index need no further restriction
+	 */
+	public boolean isSingleTokenSearch(StringAndListParam... params) {
+		List<StringOrListParam> andParams = Arrays.stream(params).filter(Objects::nonNull)
+		        .flatMap(param -> param.getValuesAsQueryTokens().stream()).collect(Collectors.toList());
+		
+		return andParams.size() == 1 && andParams.get(0).getValuesAsQueryTokens().stream()
+		        .allMatch(param -> PersonFullTextIndexBridge.tokenize(param.getValue()).size() == 1);
+	}
+	
+	/**
+	 * Restricts the results to the patients with identifiers matching the given parameter, where the
+	 * system of each token, if any, is the name of the identifier type
+	 *
+	 * @param personIdProperty the property holding the person id
+	 * @return the restriction or an empty optional if the index cannot be used for this search
+	 */
+	public Optional<Criterion> identifierMatches(@Nonnull String personIdProperty, TokenAndListParam identifier) {
+		if (identifier == null) {
+			return Optional.empty();
+		}
+		
+		QueryBuilder queryBuilder = getQueryBuilder();
+		BooleanJunction<?> query = queryBuilder.bool();
+		for (TokenOrListParam orParam : identifier.getValuesAsQueryTokens()) {
+			BooleanJunction<?> anyOf = queryBuilder.bool();
+			for (TokenParam token : orParam.getValuesAsQueryTokens()) {
+				if (StringUtils.isBlank(token.getValue())) {
+					return Optional.empty();
+				}
+				
+				if (StringUtils.isBlank(token.getSystem())) {
+					anyOf.should(new TermQuery(new Term(PersonFullTextIndexBridge.IDENTIFIER, token.getValue())));
+					continue;
+				}
+				
+				// typed identifiers are indexed by the uuid of the identifier type
+				List<String> identifierTypeUuids = getIdentifierTypeUuids(token.getSystem());
+				if (identifierTypeUuids.isEmpty()) {
+					return Optional.empty();
+				}
+				
+				for (String identifierTypeUuid : identifierTypeUuids) {
+					anyOf.should(new TermQuery(new Term(PersonFullTextIndexBridge.TYPED_IDENTIFIER,
+					        PersonFullTextIndexBridge.typedIdentifier(identifierTypeUuid, token.getValue()))));
+				}
+			}
+			
+			if (!anyOf.isEmpty()) {
+				query.must(anyOf.createQuery());
+			}
+		}
+		
+		return toCriterion(personIdProperty, query);
+	}
+	
+	private Optional<Criterion> stringMatches(String personIdProperty, Map<String, StringAndListParam> params,
+	        boolean phonetic) {
+		QueryBuilder queryBuilder = getQueryBuilder();
+		BooleanJunction<?> query = queryBuilder.bool();
+		
+		for (Map.Entry<String, StringAndListParam> entry : params.entrySet()) {
+			if (entry.getValue() == null) {
+				continue;
+			}
+			
+			for (StringOrListParam orParam : entry.getValue().getValuesAsQueryTokens()) {
+				BooleanJunction<?> anyOf = queryBuilder.bool();
+				for (StringParam param : orParam.getValuesAsQueryTokens()) {
+					Optional<Query> match = stringMatch(queryBuilder, entry.getKey(), param, phonetic);
+					if (!match.isPresent()) {
+						return Optional.empty();
+					}
+					
+					anyOf.should(match.get());
+				}
+				
+				if (!anyOf.isEmpty()) {
+					query.must(anyOf.createQuery());
+				}
+			}
+		}
+		
+		return toCriterion(personIdProperty, query);
+	}
+	
+	private Optional<Query> stringMatch(QueryBuilder queryBuilder, String field, StringParam param, boolean phonetic) {
+		// the indexed values are normalized, so exact matches need the original value
+		if (param.isExact()) {
+			return Optional.empty();
+		}
+		
+		List<String> tokens = PersonFullTextIndexBridge.tokenize(param.getValue());
+		if (tokens.isEmpty()) {
+			return Optional.empty();
+		}
+		
+		Function<String, Query> tokenMatch = param.isContains()
+		        ? token -> new WildcardQuery(new Term(field, "*" + token + "*"))
+		        : token -> new PrefixQuery(new Term(field, token));
+		
+		BooleanJunction<?> allOf = queryBuilder.bool();
+		for (String token : tokens) {
+			Query match = tokenMatch.apply(token);
+			
+			Set<String> codes = phonetic ? PersonFullTextIndexBridge.phoneticCodes(token) : null;
+			if (codes != null && !codes.isEmpty()) {
+				BooleanJunction<?> soundsLike = queryBuilder.bool().should(match);
+				codes.forEach(code -> soundsLike
+				        .should(new TermQuery(new Term(field + PersonFullTextIndexBridge.PHONETIC_SUFFIX, code))));
+				match = soundsLike.createQuery();
+			}
+			
+			allOf.must(match);
+		}
+		
+		return Optional.of(allOf.createQuery());
+	}
+	
+	private Optional<Criterion> toCriterion(String personIdProperty, BooleanJunction<?> query) {
+		if (query.isEmpty()) {
+			return Optional.empty();
+		}
+		
+		FullTextQuery fullTextQuery = getFullTextSession().createFullTextQuery(query.createQuery(), FhirIndexedPerson.class)
+		        .setProjection(FullTextQuery.ID).setMaxResults(MAX_CANDIDATES + 1);
+		
+		@SuppressWarnings("unchecked")
+		List<Object[]> results = fullTextQuery.list();
+		if (results.size() > MAX_CANDIDATES) {
+			return Optional.empty();
+		}
+		
+		if (results.isEmpty()) {
+			return Optional.of(sqlRestriction("1=0"));
+		}
+		
+		return Optional.of(in(personIdProperty, results.stream().map(row -> row[0]).collect(Collectors.toSet())));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<String> getIdentifierTypeUuids(String identifierTypeName) {
+		return sessionFactory.getCurrentSession().createCriteria(PatientIdentifierType.class)
+		        .add(eq("name", identifierTypeName)).setProjection(property("uuid")).list();
+	}
+	
+	private QueryBuilder getQueryBuilder() {
+		return getFullTextSession().getSearchFactory().buildQueryBuilder().forEntity(FhirIndexedPerson.class).get();
+	}
+	
+	private FullTextSession getFullTextSession() {
+		return Search.getFullTextSession(sessionFactory.getCurrentSession());
+	}
+}
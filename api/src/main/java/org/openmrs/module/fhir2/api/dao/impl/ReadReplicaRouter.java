@@ -0,0 +1,331 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.lookup.DataSourceLookupFailureException;
+import org.springframework.jdbc.datasource.lookup.JndiDataSourceLookup;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the queries run by {@link BaseFhirDao#getSearchResultUuids} in read-only transactions to a
+ * read replica of the OpenMRS database, so that expensive searches do not compete with clinical
+ * writes on the primary database.
+ * <p/>
+ * The replica is configured through runtime properties, either as a container-managed data source
+ * with {@code fhir2.replica.jndi_name} or as a plain JDBC connection with
+ * {@code fhir2.replica.connection.url}, {@code fhir2.replica.connection.username} and
+ * {@code fhir2.replica.connection.password}. The latter does not pool connections and is intended for
+ * development. Replica sessions are opened on the module's session factory with a connection to the
+ * replica, are read only, do not populate the second-level cache and are closed when the transaction
+ * completes.
+ * <p/>
+ * Once a second, a heartbeat is written to the {@code fhir_replica_heartbeat} table on the primary
+ * database and read back from the replica, the difference being the replication lag. Queries fall
+ * back to the primary database whenever the lag exceeds
+ * {@link FhirConstants#OPENMRS_FHIR_REPLICA_MAXIMUM_LAG} seconds or the replica cannot be reached,
+ * and, so that users see their own changes, for a user who has written through the FHIR API until
+ * the replica has caught up with that write.
+ */
+@Slf4j
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class ReadReplicaRouter {
+	
+	private static final String JNDI_NAME_PROPERTY = "fhir2.replica.jndi_name";
+	
+	private static final String URL_PROPERTY = "fhir2.replica.connection.url";
+	
+	private static final String USERNAME_PROPERTY = "fhir2.replica.connection.username";
+	
+	private static final String PASSWORD_PROPERTY = "fhir2.replica.connection.password";
+	
+	private static final long HEARTBEAT_INTERVAL_MILLIS = 1000;
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	// the time of the last write through the FHIR API by each user
+	private final Cache<String, Long> lastWrites = CacheBuilder.newBuilder().expireAfterWrite(10, TimeUnit.MINUTES)
+	        .build();
+	
+	private volatile DataSource replicaDataSource;
+	
+	private volatile boolean initialized;
+	
+	private volatile long replicaLagMillis = Long.MAX_VALUE;
+	
+	private ScheduledExecutorService heartbeatExecutor;
+	
+	/**
+	 * Returns the session search queries should be run in. This is a session on the replica if one is
+	 * configured, the current transaction is read only and the replica is up to date enough for the
+	 * current user, and the current session otherwise.
+	 *
+	 * @return the session to run search queries in
+	 */
+	public Session getSearchSession() {
+		if (!shouldUseReplica()) {
+			return sessionFactory.getCurrentSession();
+		}
+		
+		ReplicaSession replicaSession = (ReplicaSession) TransactionSynchronizationManager.getResource(this);
+		if (replicaSession == null) {
+			try {
+				replicaSession = openReplicaSession();
+			}
+			catch (SQLException e) {
+				log.warn("Unable to connect to the read replica, using the primary database", e);
+				replicaLagMillis = Long.MAX_VALUE;
+				return sessionFactory.getCurrentSession();
+			}
+			
+			TransactionSynchronizationManager.bindResource(this, replicaSession);
+			TransactionSynchronizationManager.registerSynchronization(replicaSession);
+		}
+		
+		return replicaSession.session;
+	}
+	
+	/**
+	 * Records that the current user has written through the FHIR API, so that their searches are run
+	 * against the primary database until the replica has caught up. The replica can only catch up with
+	 * the write once it is committed, so within a transaction the write is recorded when it commits.
+	 */
+	public void recordWrite() {
+		if (getReplicaDataSource() == null) {
+			return;
+		}
+		
+		String userKey = getUserKey();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				
+				@Override
+				public void afterCommit() {
+					lastWrites.put(userKey, System.currentTimeMillis());
+				}
+			});
+		} else {
+			lastWrites.put(userKey, System.currentTimeMillis());
+		}
+	}
+	
+	boolean shouldUseReplica() {
+		if (getReplicaDataSource() == null || !TransactionSynchronizationManager.isSynchronizationActive()
+		        || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return false;
+		}
+		
+		long lag = replicaLagMillis;
+		long maximumLagMillis = TimeUnit.SECONDS
+		        .toMillis(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_REPLICA_MAXIMUM_LAG, 5));
+		if (lag > maximumLagMillis) {
+			return false;
+		}
+		
+		// the replica has only caught up with a write once it has applied a heartbeat written after it
+		Long lastWrite = lastWrites.getIfPresent(getUserKey());
+		return lastWrite == null || System.currentTimeMillis() - lastWrite > lag + HEARTBEAT_INTERVAL_MILLIS;
+	}
+	
+	/**
+	 * Measures the replication lag from the last heartbeat the replica has received
+	 */
+	void checkReplicaLag() {
+		DataSource dataSource = getReplicaDataSource();
+		if (dataSource == null) {
+			return;
+		}
+		
+		try (Connection connection = dataSource.getConnection();
+		        PreparedStatement statement = connection
+		                .prepareStatement("select heartbeat from fhir_replica_heartbeat where heartbeat_id = 1");
+		        ResultSet results = statement.executeQuery()) {
+			Timestamp heartbeat = results.next() ? results.getTimestamp(1) : null;
+			replicaLagMillis = heartbeat == null ? Long.MAX_VALUE
+			        : Math.max(0, System.currentTimeMillis() - heartbeat.getTime());
+		}
+		catch (SQLException e) {
+			log.warn("Unable to read the heartbeat from the read replica", e);
+			replicaLagMillis = Long.MAX_VALUE;
+		}
+	}
+	
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (heartbeatExecutor != null) {
+			heartbeatExecutor.shutdownNow();
+			heartbeatExecutor = null;
+		}
+	}
+	
+	private DataSource getReplicaDataSource() {
+		if (replicaDataSource == null && !initialized) {
+			initialize();
+		}
+		
+		return replicaDataSource;
+	}
+	
+	private synchronized void initialize() {
+		if (initialized) {
+			return;
+		}
+		
+		initialized = true;
+		replicaDataSource = createReplicaDataSource(Context.getRuntimeProperties());
+		if (replicaDataSource != null) {
+			heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "fhir2-read-replica-heartbeat");
+				thread.setDaemon(true);
+				return thread;
+			});
+			heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0, HEARTBEAT_INTERVAL_MILLIS,
+			    TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	private void heartbeat() {
+		try {
+			writeHeartbeat();
+		}
+		catch (RuntimeException e) {
+			log.warn("Unable to write the read replica heartbeat to the primary database", e);
+		}
+		
+		checkReplicaLag();
+	}
+	
+	private void writeHeartbeat() {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			Transaction tx = session.beginTransaction();
+			session.createSQLQuery("update fhir_replica_heartbeat set heartbeat = :heartbeat where heartbeat_id = 1")
+			        .setTimestamp("heartbeat", new Date()).executeUpdate();
+			tx.commit();
+		}
+		finally {
+			session.close();
+		}
+	}
+	
+	private ReplicaSession openReplicaSession() throws SQLException {
+		Connection connection = getReplicaDataSource().getConnection();
+		try {
+			connection.setReadOnly(true);
+			
+			Session session = sessionFactory.withOptions().connection(connection).noInterceptor().openSession();
+			session.setDefaultReadOnly(true);
+			session.setFlushMode(FlushMode.MANUAL);
+			session.setCacheMode(CacheMode.GET);
+			
+			return new ReplicaSession(session, connection);
+		}
+		catch (SQLException | RuntimeException e) {
+			connection.close();
+			throw e;
+		}
+	}
+	
+	private static DataSource createReplicaDataSource(Properties runtimeProperties) {
+		String jndiName = runtimeProperties.getProperty(JNDI_NAME_PROPERTY);
+		if (StringUtils.isNotBlank(jndiName)) {
+			try {
+				return new JndiDataSourceLookup().getDataSource(jndiName);
+			}
+			catch (DataSourceLookupFailureException e) {
+				log.error("Unable to find the read replica data source {}, using the primary database only", jndiName, e);
+				return null;
+			}
+		}
+		
+		String url = runtimeProperties.getProperty(URL_PROPERTY);
+		if (StringUtils.isBlank(url)) {
+			return null;
+		}
+		
+		return new DriverManagerDataSource(url,
+		        runtimeProperties.getProperty(USERNAME_PROPERTY, runtimeProperties.getProperty("connection.username")),
+		        runtimeProperties.getProperty(PASSWORD_PROPERTY, runtimeProperties.getProperty("connection.password")));
+	}
+	
+	private static String getUserKey() {
+		User user = Context.getAuthenticatedUser();
+		return user == null ? "" : user.getUuid();
+	}
+	
+	private class ReplicaSession extends TransactionSynchronizationAdapter {
+		
+		private final Session session;
+		
+		private final Connection connection;
+		
+		private ReplicaSession(Session session, Connection connection) {
+			this.session = session;
+			this.connection = connection;
+		}
+		
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(ReadReplicaRouter.this);
+			
+			try {
+				session.close();
+			}
+			finally {
+				try {
+					connection.close();
+				}
+				catch (SQLException e) {
+					log.warn("Unable to close the connection to the read replica", e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import javax.annotation.Nonnull;
+
+import java.util.List;
+
+import ca.uhn.fhir.rest.param.ReferenceAndListParam;
+import ca.uhn.fhir.rest.param.ReferenceOrListParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Criteria;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the cost of the query run by {@link BaseFhirDao#getSearchResultUuids(SearchParameterMap)}.
+ * Both limits are off unless their global properties are set. Search queries are given a statement
+ * timeout taken from {@link FhirConstants#OPENMRS_FHIR_SEARCH_TIMEOUT} or, where set, from that
+ * property suffixed with the simple name of the searched entity, e.g. {@code fhir2.search.timeout.Obs}.
+ * <p/>
+ * A search is treated as selective if it is restricted to specific patients or encounters by id, to
+ * identifiers or to resource ids, as these bound the number of matching rows whatever else is searched
+ * for. Chained references, such as {@code Observation?patient.name=smith}, are not selective. Other
+ * searches, such as {@code Observation?category=laboratory}, may match a large part of a table, so
+ * no more than {@link FhirConstants#OPENMRS_FHIR_SEARCH_MAXIMUM_RESULTS} of their matches are read.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class SearchGovernor {
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	/**
+	 * @param theParams the search parameters
+	 * @return true if the search parameters bound the number of matching rows
+	 */
+	public boolean isSelective(@Nonnull SearchParameterMap theParams) {
+		return theParams.getParameters().stream().anyMatch(entry -> {
+			switch (entry.getKey()) {
+				case FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER:
+				case FhirConstants.ENCOUNTER_REFERENCE_SEARCH_HANDLER:
+					return entry.getValue().stream().anyMatch(param -> isDirectReference(param.getParam()));
+				case FhirConstants.IDENTIFIER_SEARCH_HANDLER:
+					return true;
+				case FhirConstants.COMMON_SEARCH_HANDLER:
+					return entry.getValue().stream()
+					        .anyMatch(param -> FhirConstants.ID_PROPERTY.equals(param.getPropertyName()));
+				default:
+					return false;
+			}
+		});
+	}
+	
+	/**
+	 * A reference parameter bounds the matching rows only if one of its and-clauses consists solely of
+	 * references by id; a chained reference, e.g. {@code patient.name=smith}, may match any number of
+	 * rows.
+	 */
+	private static boolean isDirectReference(Object param) {
+		if (param instanceof ReferenceAndListParam) {
+			return ((ReferenceAndListParam) param).getValuesAsQueryTokens().stream()
+			        .anyMatch(SearchGovernor::isDirectReference);
+		} else if (param instanceof ReferenceOrListParam) {
+			List<ReferenceParam> references = ((ReferenceOrListParam) param).getValuesAsQueryTokens();
+			return !references.isEmpty() && references.stream().allMatch(SearchGovernor::isDirectReference);
+		} else if (param instanceof ReferenceParam) {
+			ReferenceParam reference = (ReferenceParam) param;
+			return StringUtils.isBlank(reference.getChain()) && StringUtils.isNotBlank(reference.getIdPart());
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Returns the number of matches that will be read for a search
+	 *
+	 * @param theParams the search parameters
+	 * @return the maximum number of matches or 0 if all matches will be read
+	 */
+	public int getMaximumResults(@Nonnull SearchParameterMap theParams) {
+		if (isSelective(theParams)) {
+			return 0;
+		}
+		
+		return Math.max(0,
+		    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_SEARCH_MAXIMUM_RESULTS, 0));
+	}
+	
+	/**
+	 * Returns the statement timeout for searches of the given entity type
+	 *
+	 * @param entityType the entity type being searched
+	 * @return the timeout in seconds or 0 if searches are not timed out
+	 */
+	public int getTimeout(@Nonnull Class<?> entityType) {
+		int timeout = globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_SEARCH_TIMEOUT, 0);
+		int entityTimeout = globalPropertyService.getGlobalProperty(
+		    FhirConstants.OPENMRS_FHIR_SEARCH_TIMEOUT + "." + entityType.getSimpleName(), timeout);
+		
+		return Math.max(0, entityTimeout);
+	}
+	
+	/**
+	 * Applies the timeout and result limit for a search to its query. One row more than the limit is
+	 * requested, so that the caller can tell whether the matches were cut off.
+	 *
+	 * @param criteria the search query
+	 * @param entityType the entity type being searched
+	 * @param theParams the search parameters
+	 */
+	public void apply(@Nonnull Criteria criteria, @Nonnull Class<?> entityType, @Nonnull SearchParameterMap theParams) {
+		int timeout = getTimeout(entityType);
+		if (timeout > 0) {
+			criteria.setTimeout(timeout);
+		}
+		
+		int maximumResults = getMaximumResults(theParams);
+		if (maximumResults > 0) {
+			criteria.setMaxResults(maximumResults + 1);
+		}
+	}
+}
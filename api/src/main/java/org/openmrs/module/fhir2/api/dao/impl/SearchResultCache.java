@@ -0,0 +1,295 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.model.api.IQueryParameterAnd;
+import ca.uhn.fhir.model.api.IQueryParameterOr;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.param.ReferenceAndListParam;
+import ca.uhn.fhir.rest.param.ReferenceOrListParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.Privilege;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.search.TruncatedSearchResultUuids;
+import org.openmrs.module.fhir2.api.search.param.PropParam;
+import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.openmrs.module.fhir2.api.util.SearchResultCacheInvalidationInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the uuids matched by {@link BaseFhirDao#getSearchResultUuids(SearchParameterMap)}, so that
+ * identical searches repeated within a short time do not rebuild and re-run the search query.
+ * <p/>
+ * Entries are keyed by the resource type, a canonical form of the search parameters and sort and the
+ * privileges of the current user. Each entry records the entity types its results depend on and, for
+ * searches restricted to specific patients, the uuids of those patients.
+ * {@link org.openmrs.module.fhir2.api.util.SearchResultCacheInvalidationInterceptor} reports every
+ * committed change, and the entries that depend on the changed type are then discarded, unless they
+ * are restricted to other patients than the one the change belongs to. The cache is bounded by the
+ * approximate memory used by its entries, which also expire after
+ * {@link #EXPIRE_AFTER_WRITE_SECONDS} seconds as a backstop for changes made outside of Hibernate.
+ * Results loaded by a transaction which has changes of its own that are not yet committed are not
+ * cached, as they may include those changes and the transaction may still roll back.
+ * <p/>
+ * Caching is only done when {@link FhirConstants#OPENMRS_FHIR_CACHE_SEARCH_RESULTS} is {@code true}.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class SearchResultCache {
+	
+	private static final long MAXIMUM_WEIGHT_BYTES = 32L * 1024 * 1024;
+	
+	private static final long EXPIRE_AFTER_WRITE_SECONDS = 60;
+	
+	// approximate size of a uuid string and its reference in the list
+	private static final int BYTES_PER_UUID = 96;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	// only used to write search parameters as they would appear in a URL
+	@Autowired
+	@Qualifier("fhirR4")
+	private FhirContext fhirContext;
+	
+	private final Cache<String, CachedSearch> cache = CacheBuilder.newBuilder().maximumWeight(MAXIMUM_WEIGHT_BYTES)
+	        .weigher((String key, CachedSearch value) -> 2 * key.length() + BYTES_PER_UUID * value.uuids.size())
+	        .expireAfterWrite(EXPIRE_AFTER_WRITE_SECONDS, TimeUnit.SECONDS).recordStats().build();
+	
+	// incremented on every invalidation so that results loaded while a change was committed are not cached
+	private final AtomicLong generation = new AtomicLong();
+	
+	/**
+	 * @return true if search results should be cached
+	 */
+	public boolean isEnabled() {
+		return Boolean.parseBoolean(
+		    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_SEARCH_RESULTS, "false"));
+	}
+	
+	/**
+	 * Returns the cached results of a search, loading and caching them if necessary
+	 *
+	 * @param resourceType the entity type being searched for
+	 * @param dependencies the entity types a change to which may change the results of this search
+	 * @param theParams the search parameters
+	 * @param loader loads the results of the search
+	 * @return the uuids matched by the search
+	 */
+	public List<String> getSearchResultUuids(@Nonnull Class<?> resourceType, @Nonnull Set<Class<?>> dependencies,
+	        @Nonnull SearchParameterMap theParams, @Nonnull Supplier<List<String>> loader) {
+		String key = toKey(resourceType, theParams);
+		
+		CachedSearch cachedSearch = cache.getIfPresent(key);
+		if (cachedSearch != null) {
+			return cachedSearch.uuids;
+		}
+		
+		long loadedGeneration = generation.get();
+		List<String> uuids = loader.get();
+		if (!(uuids instanceof TruncatedSearchResultUuids)) {
+			uuids = Collections.unmodifiableList(new ArrayList<>(uuids));
+		}
+		
+		if (generation.get() == loadedGeneration && !SearchResultCacheInvalidationInterceptor.hasUncommittedChanges()) {
+			cache.put(key, new CachedSearch(hasChainedReference(theParams) ? null : dependencies,
+			        getPatientCompartment(theParams), uuids));
+		}
+		
+		return uuids;
+	}
+	
+	/**
+	 * Discards the cached searches that may be affected by a change to an entity
+	 *
+	 * @param entityType the type of the changed entity
+	 * @param patientUuid the uuid of the patient the changed entity belongs to or null if it does not
+	 *            belong to a single patient
+	 */
+	public void invalidate(@Nonnull Class<?> entityType, String patientUuid) {
+		generation.incrementAndGet();
+		cache.asMap().values().removeIf(cachedSearch -> cachedSearch.isAffectedBy(entityType, patientUuid));
+	}
+	
+	/**
+	 * Discards all cached searches
+	 */
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+	
+	/**
+	 * @return the hit, miss and eviction counts and the hit ratio of this cache
+	 */
+	public Map<String, Number> getStatistics() {
+		CacheStats stats = cache.stats();
+		
+		Map<String, Number> result = new LinkedHashMap<>();
+		result.put("hits", stats.hitCount());
+		result.put("misses", stats.missCount());
+		result.put("hitRatio", stats.hitRate());
+		result.put("evictions", stats.evictionCount());
+		result.put("entries", cache.size());
+		return result;
+	}
+	
+	private String toKey(Class<?> resourceType, SearchParameterMap theParams) {
+		StringBuilder key = new StringBuilder(resourceType.getName());
+		
+		Set<String> params = new TreeSet<>();
+		for (Map.Entry<String, List<PropParam<?>>> entry : theParams.getParameters()) {
+			for (PropParam<?> propParam : entry.getValue()) {
+				params.add(entry.getKey().toLowerCase() + ":" + propParam.getPropertyName() + "="
+				        + canonicalize(propParam.getParam()));
+			}
+		}
+		
+		key.append('?').append(String.join("&", params));
+		
+		for (SortSpec sortSpec = theParams.getSortSpec(); sortSpec != null; sortSpec = sortSpec.getChain()) {
+			key.append(";sort=").append(sortSpec.getParamName()).append(':').append(sortSpec.getOrder());
+		}
+		
+		return key.append(";privileges=").append(getPrivilegeKey()).toString();
+	}
+	
+	private String canonicalize(Object param) {
+		if (param instanceof IQueryParameterAnd) {
+			return canonicalizeAll(((IQueryParameterAnd<?>) param).getValuesAsQueryTokens(), "&");
+		} else if (param instanceof IQueryParameterOr) {
+			return canonicalizeAll(((IQueryParameterOr<?>) param).getValuesAsQueryTokens(), ",");
+		} else if (param instanceof IQueryParameterType) {
+			IQueryParameterType type = (IQueryParameterType) param;
+			return StringUtils.defaultString(type.getQueryParameterQualifier()) + "="
+			        + type.getValueAsQueryToken(fhirContext);
+		} else if (param instanceof Include) {
+			Include include = (Include) param;
+			return include.getValue() + (include.isRecurse() ? ":iterate" : "");
+		} else if (param instanceof Collection) {
+			return canonicalizeAll((Collection<?>) param, ",");
+		}
+		
+		return String.valueOf(param);
+	}
+	
+	// the order of AND and OR clauses does not change the results, so they are sorted
+	private String canonicalizeAll(Collection<?> params, String separator) {
+		return params.stream().map(this::canonicalize).sorted()
+		        .collect(Collectors.joining(separator, "(", ")"));
+	}
+	
+	private static String getPrivilegeKey() {
+		User user = Context.getAuthenticatedUser();
+		if (user == null) {
+			return "";
+		} else if (user.isSuperUser()) {
+			return "*";
+		}
+		
+		return user.getPrivileges().stream().map(Privilege::getPrivilege).sorted().collect(Collectors.joining(","));
+	}
+	
+	private static boolean hasChainedReference(SearchParameterMap theParams) {
+		// _has searches also depend on the observations they match
+		if (!theParams.getParameters(FhirConstants.HAS_SEARCH_HANDLER).isEmpty()) {
+			return true;
+		}
+		
+		return theParams.getParameters().stream().flatMap(entry -> entry.getValue().stream())
+		        .map(PropParam::getParam).filter(param -> param instanceof ReferenceAndListParam)
+		        .flatMap(param -> ((ReferenceAndListParam) param).getValuesAsQueryTokens().stream())
+		        .flatMap(orParam -> orParam.getValuesAsQueryTokens().stream())
+		        .anyMatch(referenceParam -> StringUtils.isNotBlank(referenceParam.getChain()));
+	}
+	
+	private static Set<String> getPatientCompartment(SearchParameterMap theParams) {
+		List<PropParam<?>> patientReferences = theParams.getParameters(FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER);
+		if (patientReferences.isEmpty()) {
+			return null;
+		}
+		
+		Set<String> patientUuids = new HashSet<>();
+		for (PropParam<?> propParam : patientReferences) {
+			if (!(propParam.getParam() instanceof ReferenceAndListParam)) {
+				return null;
+			}
+			
+			for (ReferenceOrListParam orParam : ((ReferenceAndListParam) propParam.getParam()).getValuesAsQueryTokens()) {
+				for (ReferenceParam referenceParam : orParam.getValuesAsQueryTokens()) {
+					if (StringUtils.isNotBlank(referenceParam.getChain())
+					        || StringUtils.isBlank(referenceParam.getIdPart())) {
+						return null;
+					}
+					
+					patientUuids.add(referenceParam.getIdPart());
+				}
+			}
+		}
+		
+		return patientUuids;
+	}
+	
+	private static class CachedSearch {
+		
+		// null if any change may affect this search
+		private final Set<Class<?>> dependencies;
+		
+		// null if this search is not restricted to specific patients
+		private final Set<String> patientUuids;
+		
+		private final List<String> uuids;
+		
+		private CachedSearch(Set<Class<?>> dependencies, Set<String> patientUuids, List<String> uuids) {
+			this.dependencies = dependencies;
+			this.patientUuids = patientUuids;
+			this.uuids = uuids;
+		}
+		
+		private boolean isAffectedBy(Class<?> entityType, String patientUuid) {
+			if (patientUuids != null && patientUuid != null && !patientUuids.contains(patientUuid)) {
+				return false;
+			}
+			
+			return dependencies == null || dependencies.stream()
+			        .anyMatch(type -> type.isAssignableFrom(entityType) || entityType.isAssignableFrom(type));
+		}
+	}
+}
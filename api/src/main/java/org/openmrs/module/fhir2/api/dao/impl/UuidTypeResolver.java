@@ -0,0 +1,181 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.openmrs.Encounter;
+import org.openmrs.Provider;
+import org.openmrs.User;
+import org.openmrs.Visit;
+import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.util.PrivilegeConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds which of the OpenMRS tables backing a FHIR resource type holds a given uuid. Encounters may be
+ * either OpenMRS encounters or visits and practitioners may be either providers or users, so instead
+ * of looking for the uuid in one table and then the other, all tables are checked with a single
+ * {@code UNION ALL} query.
+ * <p/>
+ * As the query bypasses the {@link org.openmrs.annotation.Authorized} checks of the DAOs, only the
+ * tables the authenticated user has the privilege to read are searched, and a user who may read
+ * none of them is refused as the DAOs would refuse them.
+ * <p/>
+ * Since a uuid never moves between tables, resolved uuids are kept in a cache bounded to
+ * {@link #MAXIMUM_SIZE} entries. Uuids which are not found are not cached, as they may be created
+ * later.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class UuidTypeResolver {
+	
+	private static final long MAXIMUM_SIZE = 10_000;
+	
+	private static final Map<String, List<BackingTable>> TABLES;
+	
+	static {
+		Map<String, List<BackingTable>> tables = new HashMap<>();
+		tables.put(FhirConstants.ENCOUNTER,
+		    Arrays.asList(new BackingTable("encounter", Encounter.class, PrivilegeConstants.GET_ENCOUNTERS),
+		        new BackingTable("visit", Visit.class, PrivilegeConstants.GET_VISITS)));
+		tables.put(FhirConstants.PRACTITIONER,
+		    Arrays.asList(new BackingTable("provider", Provider.class, PrivilegeConstants.GET_PROVIDERS),
+		        new BackingTable("users", User.class, PrivilegeConstants.GET_USERS)));
+		TABLES = Collections.unmodifiableMap(tables);
+	}
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	private final Cache<String, Class<?>> cache = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+	
+	/**
+	 * Finds the OpenMRS type of the object with the given uuid
+	 *
+	 * @param resourceType the FHIR resource type, either {@link FhirConstants#ENCOUNTER} or
+	 *            {@link FhirConstants#PRACTITIONER}
+	 * @param uuid the uuid to resolve
+	 * @return the OpenMRS type holding the uuid or an empty optional if no table the user may read holds
+	 *         it
+	 * @throws APIAuthenticationException if the user may read none of the tables
+	 */
+	public Optional<Class<?>> resolve(@Nonnull String resourceType, @Nonnull String uuid) {
+		return Optional.ofNullable(resolve(resourceType, Collections.singleton(uuid)).get(uuid));
+	}
+	
+	/**
+	 * Finds the OpenMRS types of the objects with the given uuids
+	 *
+	 * @param resourceType the FHIR resource type, either {@link FhirConstants#ENCOUNTER} or
+	 *            {@link FhirConstants#PRACTITIONER}
+	 * @param uuids the uuids to resolve
+	 * @return the OpenMRS type of each uuid that was found in a table the user may read
+	 * @throws APIAuthenticationException if the user may read none of the tables
+	 */
+	public Map<String, Class<?>> resolve(@Nonnull String resourceType, @Nonnull Collection<String> uuids) {
+		List<BackingTable> backingTables = TABLES.get(resourceType);
+		if (backingTables == null) {
+			throw new IllegalArgumentException("Resources of type " + resourceType + " are backed by a single table");
+		}
+		
+		List<BackingTable> tables = backingTables.stream().filter(table -> Context.hasPrivilege(table.privilege))
+		        .collect(Collectors.toList());
+		if (tables.isEmpty()) {
+			throw new APIAuthenticationException("Privileges required: " + backingTables.stream()
+			        .map(table -> table.privilege).collect(Collectors.joining(" or ")));
+		}
+		
+		Set<Class<?>> readableTypes = tables.stream().map(table -> table.type).collect(Collectors.toSet());
+		Map<String, Class<?>> result = new HashMap<>();
+		List<String> unresolvedUuids = new ArrayList<>();
+		for (String uuid : uuids) {
+			Class<?> type = cache.getIfPresent(cacheKey(resourceType, uuid));
+			if (type == null || !readableTypes.contains(type)) {
+				unresolvedUuids.add(uuid);
+			} else {
+				result.put(uuid, type);
+			}
+		}
+		
+		if (!unresolvedUuids.isEmpty()) {
+			loadTypes(tables, unresolvedUuids).forEach((uuid, type) -> {
+				cache.put(cacheKey(resourceType, uuid), type);
+				result.put(uuid, type);
+			});
+		}
+		
+		return result;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private Map<String, Class<?>> loadTypes(List<BackingTable> tables, Collection<String> uuids) {
+		StringJoiner sql = new StringJoiner(" union all ");
+		tables.forEach(table -> sql
+		        .add("select uuid, '" + table.name + "' from " + table.name + " where uuid in (:uuids)"));
+		
+		List<Object[]> rows = sessionFactory.getCurrentSession().createSQLQuery(sql.toString())
+		        .setParameterList("uuids", uuids).list();
+		
+		Map<String, Set<String>> tablesByUuid = new HashMap<>();
+		for (Object[] row : rows) {
+			tablesByUuid.computeIfAbsent((String) row[0], k -> new HashSet<>()).add(String.valueOf(row[1]));
+		}
+		
+		// should the same uuid appear in more than one table, the first table listed wins
+		Map<String, Class<?>> result = new HashMap<>();
+		tablesByUuid.forEach((uuid, uuidTables) -> tables.stream().filter(table -> uuidTables.contains(table.name))
+		        .findFirst().ifPresent(table -> result.put(uuid, table.type)));
+		
+		return result;
+	}
+	
+	private static String cacheKey(String resourceType, String uuid) {
+		return resourceType + ":" + uuid;
+	}
+	
+	private static final class BackingTable {
+		
+		private final String name;
+		
+		private final Class<?> type;
+		
+		private final String privilege;
+		
+		private BackingTable(String name, Class<?> type, String privilege) {
+			this.name = name;
+			this.type = type;
+			this.privilege = privilege;
+		}
+	}
+}
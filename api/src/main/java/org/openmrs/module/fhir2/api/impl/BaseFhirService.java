@@ -12,7 +12,11 @@ package org.openmrs.module.fhir2.api.impl;
 import javax.annotation.Nonnull;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
@@ -20,6 +24,8 @@ import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import com.google.common.reflect.TypeToken;
+import lombok.AccessLevel;
+import lombok.Setter;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.openmrs.Auditable;
 import org.openmrs.OpenmrsObject;
@@ -30,13 +36,19 @@ import org.openmrs.module.fhir2.api.FhirService;
 import org.openmrs.module.fhir2.api.dao.FhirDao;
 import org.openmrs.module.fhir2.api.translators.OpenmrsFhirTranslator;
 import org.openmrs.module.fhir2.api.translators.UpdatableOpenmrsTranslator;
+import org.openmrs.module.fhir2.api.translators.impl.ReferencePreResolver;
 import org.openmrs.validator.ValidateUtil;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @SuppressWarnings("UnstableApiUsage")
 public abstract class BaseFhirService<T extends IAnyResource, U extends OpenmrsObject & Auditable> implements FhirService<T> {
 	
 	protected final Class<? super T> resourceClass;
 	
+	@Autowired(required = false)
+	@Setter(AccessLevel.PUBLIC)
+	private ReferencePreResolver referencePreResolver;
+	
 	protected BaseFhirService() {
 		// @formatter:off
 		TypeToken<T> resourceTypeToken = new TypeToken<T>(getClass()) {};
@@ -75,7 +87,7 @@ public abstract class BaseFhirService<T extends IAnyResource, U extends OpenmrsO
 			throw new InvalidRequestException("A resource of type " + resourceClass.getSimpleName() + " must be supplied");
 		}
 		
-		U openmrsObj = getTranslator().toOpenmrsType(newResource);
+		U openmrsObj = withPreResolvedReferences(newResource, () -> getTranslator().toOpenmrsType(newResource));
 		
 		validateObject(openmrsObj);
 		
@@ -111,13 +123,14 @@ public abstract class BaseFhirService<T extends IAnyResource, U extends OpenmrsO
 		
 		OpenmrsFhirTranslator<U, T> translator = getTranslator();
 		
-		U updatedObject;
-		if (translator instanceof UpdatableOpenmrsTranslator) {
-			UpdatableOpenmrsTranslator<U, T> updatableOpenmrsTranslator = (UpdatableOpenmrsTranslator<U, T>) translator;
-			updatedObject = updatableOpenmrsTranslator.toOpenmrsType(existingObject, updatedResource);
-		} else {
-			updatedObject = translator.toOpenmrsType(updatedResource);
-		}
+		U updatedObject = withPreResolvedReferences(updatedResource, () -> {
+			if (translator instanceof UpdatableOpenmrsTranslator) {
+				UpdatableOpenmrsTranslator<U, T> updatableOpenmrsTranslator = (UpdatableOpenmrsTranslator<U, T>) translator;
+				return updatableOpenmrsTranslator.toOpenmrsType(existingObject, updatedResource);
+			}
+			
+			return translator.toOpenmrsType(updatedResource);
+		});
 		
 		validateObject(updatedObject);
 		
@@ -175,6 +188,35 @@ public abstract class BaseFhirService<T extends IAnyResource, U extends OpenmrsO
 		return object instanceof Retireable && ((Retireable) object).getRetired();
 	}
 	
+	/**
+	 * Orders resources loaded from more than one source as their ids were requested
+	 *
+	 * @param uuids the requested ids
+	 * @param resources the resources found
+	 * @return the resources found, in the order of the requested ids
+	 */
+	protected List<T> inRequestedOrder(Collection<String> uuids, Collection<T> resources) {
+		Map<String, T> resourcesById = new HashMap<>();
+		resources.forEach(resource -> resourcesById.put(resource.getIdElement().getIdPart(), resource));
+		return uuids.stream().distinct().map(resourcesById::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Runs a translation of an incoming resource with the objects it refers to loaded up front, if
+	 * {@link ReferencePreResolver} is available
+	 *
+	 * @param resource the resource about to be translated
+	 * @param translation translates the resource
+	 * @return the result of the translation
+	 */
+	protected <R> R withPreResolvedReferences(T resource, Supplier<R> translation) {
+		if (referencePreResolver == null) {
+			return translation.get();
+		}
+		
+		return referencePreResolver.withPreResolvedReferences(resource, translation);
+	}
+	
 	/**
 	 * Run before creates or updates to validate that the object meets OpenMRS's business rules and
 	 * attempts to provide an appropriate error when it cannot
@@ -191,7 +233,7 @@ public abstract class BaseFhirService<T extends IAnyResource, U extends OpenmrsO
 		}
 	}
 	
-	private ResourceNotFoundException resourceNotFound(String uuid) {
+	protected ResourceNotFoundException resourceNotFound(String uuid) {
 		return new ResourceNotFoundException(
 		        "Resource of type " + resourceClass.getSimpleName() + " with ID " + uuid + " is not known");
 	}
@@ -0,0 +1,83 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.impl;
+
+import java.util.Date;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.lang3.time.DateUtils;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirChangeLogService;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.dao.FhirChangeLogDao;
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+@Transactional
+@Setter(AccessLevel.PACKAGE)
+public class FhirChangeLogServiceImpl implements FhirChangeLogService {
+	
+	private static final int DEFAULT_RETENTION_DAYS = 30;
+	
+	@Autowired
+	private FhirChangeLogDao dao;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	@Autowired
+	private AdministrationService adminService;
+	
+	@Override
+	@Transactional(readOnly = true)
+	public List<FhirChangeLogEntry> getChangesSince(long since, int count) {
+		return dao.getChangesSince(since, count);
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public long getLatestSequence() {
+		return dao.getLatestSequence();
+	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public long getPurgedThrough() {
+		return NumberUtils.toLong(
+		    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CHANGE_LOG_PURGED_THROUGH, "0"));
+	}
+	
+	@Override
+	public int purgeExpiredChanges() {
+		int retentionDays = globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CHANGE_LOG_RETENTION_DAYS,
+		    DEFAULT_RETENTION_DAYS);
+		if (retentionDays <= 0) {
+			return 0;
+		}
+		
+		Long purgeThrough = dao.getLatestSequenceBefore(DateUtils.addDays(new Date(), -retentionDays));
+		if (purgeThrough == null) {
+			return 0;
+		}
+		
+		if (purgeThrough > getPurgedThrough()) {
+			adminService.setGlobalProperty(FhirConstants.OPENMRS_FHIR_CHANGE_LOG_PURGED_THROUGH, purgeThrough.toString());
+		}
+		
+		return dao.deleteChangesThrough(purgeThrough);
+	}
+}
@@ -9,6 +9,9 @@
  */
 package org.openmrs.module.fhir2.api.impl;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import lombok.AccessLevel;
@@ -34,9 +37,21 @@ public class FhirConceptServiceImpl implements FhirConceptService {
 		return dao.get(uuid);
 	}
 	
+	@Override
+	@Transactional(readOnly = true)
+	public List<Concept> get(Collection<String> uuids) {
+		return dao.get(uuids);
+	}
+	
 	@Override
 	@Transactional(readOnly = true)
 	public Optional<Concept> getConceptBySourceNameAndCode(String sourceName, String code) {
 		return dao.getConceptBySourceNameAndCode(sourceName, code);
 	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public Map<String, Concept> getConceptsBySourceNameAndCodes(String sourceName, Collection<String> codes) {
+		return dao.getConceptsBySourceNameAndCodes(sourceName, codes);
+	}
 }
@@ -11,22 +11,28 @@ package org.openmrs.module.fhir2.api.impl;
 
 import javax.annotation.Nonnull;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.HasAndListParam;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
-import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hl7.fhir.r4.model.Encounter;
+import org.openmrs.Visit;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirEncounterService;
 import org.openmrs.module.fhir2.api.dao.FhirEncounterDao;
+import org.openmrs.module.fhir2.api.dao.impl.UuidTypeResolver;
 import org.openmrs.module.fhir2.api.search.SearchQuery;
 import org.openmrs.module.fhir2.api.search.SearchQueryInclude;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
@@ -53,6 +59,9 @@ public class FhirEncounterServiceImpl extends BaseFhirService<Encounter, org.ope
 	@Autowired
 	private SearchQueryInclude<Encounter> searchQueryInclude;
 	
+	@Autowired
+	private UuidTypeResolver uuidTypeResolver;
+	
 	@Autowired
 	private SearchQuery<org.openmrs.Encounter, Encounter, FhirEncounterDao, EncounterTranslator<org.openmrs.Encounter>, SearchQueryInclude<Encounter>> searchQuery;
 	
@@ -62,28 +71,42 @@ public class FhirEncounterServiceImpl extends BaseFhirService<Encounter, org.ope
 			throw new InvalidRequestException("Uuid cannot be null.");
 		}
 		
-		Encounter result;
-		try {
-			result = super.get(uuid);
+		Class<?> type = uuidTypeResolver.resolve(FhirConstants.ENCOUNTER, uuid).orElseThrow(() -> resourceNotFound(uuid));
+		return Visit.class.equals(type) ? visitService.get(uuid) : super.get(uuid);
+	}
+	
+	@Override
+	public List<Encounter> get(Collection<String> uuids) {
+		Map<String, Class<?>> types = uuidTypeResolver.resolve(FhirConstants.ENCOUNTER, uuids);
+		
+		List<String> encounterUuids = new ArrayList<>();
+		List<String> visitUuids = new ArrayList<>();
+		types.forEach((uuid, type) -> (Visit.class.equals(type) ? visitUuids : encounterUuids).add(uuid));
+		
+		List<Encounter> result = new ArrayList<>();
+		if (!encounterUuids.isEmpty()) {
+			result.addAll(super.get(encounterUuids));
 		}
-		catch (ResourceNotFoundException e) {
-			result = visitService.get(uuid);
+		
+		if (!visitUuids.isEmpty()) {
+			result.addAll(visitService.get(visitUuids));
 		}
 		
-		return result;
+		return inRequestedOrder(uuids, result);
 	}
 	
 	@Override
 	@Transactional(readOnly = true)
 	public IBundleProvider searchForEncounters(DateRangeParam date, ReferenceAndListParam location,
 	        ReferenceAndListParam participant, ReferenceAndListParam subject, TokenAndListParam id,
-	        DateRangeParam lastUpdated, HashSet<Include> includes, HashSet<Include> revIncludes) {
+	        DateRangeParam lastUpdated, HasAndListParam has, HashSet<Include> includes, HashSet<Include> revIncludes) {
 		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.DATE_RANGE_SEARCH_HANDLER, date)
 		        .addParameter(FhirConstants.LOCATION_REFERENCE_SEARCH_HANDLER, location)
 		        .addParameter(FhirConstants.PARTICIPANT_REFERENCE_SEARCH_HANDLER, participant)
 		        .addParameter(FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER, subject)
 		        .addParameter(FhirConstants.COMMON_SEARCH_HANDLER, FhirConstants.ID_PROPERTY, id)
 		        .addParameter(FhirConstants.COMMON_SEARCH_HANDLER, FhirConstants.LAST_UPDATED_PROPERTY, lastUpdated)
+		        .addParameter(FhirConstants.HAS_SEARCH_HANDLER, has)
 		        .addParameter(FhirConstants.INCLUDE_SEARCH_HANDLER, includes)
 		        .addParameter(FhirConstants.REVERSE_INCLUDE_SEARCH_HANDLER, revIncludes);
 		return searchQuery.getQueryResults(theParams, dao, translator, searchQueryInclude);
@@ -12,6 +12,7 @@ package org.openmrs.module.fhir2.api.impl;
 import java.util.HashSet;
 
 import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
 import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateRangeParam;
@@ -19,6 +20,7 @@ import ca.uhn.fhir.rest.param.QuantityAndListParam;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.StringAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -79,4 +81,28 @@ public class FhirObservationServiceImpl extends BaseFhirService<Observation, org
 		
 		return searchQuery.getQueryResults(theParams, dao, translator, searchQueryInclude);
 	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public IBundleProvider getLastnObservations(Integer max, ReferenceAndListParam patientReference,
+	        TokenAndListParam category, TokenAndListParam code) {
+		if (max == null) {
+			max = 1;
+		} else if (max < 1) {
+			throw new InvalidRequestException("The max parameter for $lastn must be a positive integer");
+		}
+		
+		if (patientReference == null && code == null) {
+			throw new InvalidRequestException("$lastn must be restricted to a patient or a code");
+		}
+		
+		SearchParameterMap theParams = new SearchParameterMap()
+		        .addParameter(FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER, patientReference)
+		        .addParameter(FhirConstants.CATEGORY_SEARCH_HANDLER, category)
+		        .addParameter(FhirConstants.CODED_SEARCH_HANDLER, code)
+		        .addParameter(FhirConstants.LASTN_OBSERVATION_SEARCH_HANDLER, max)
+		        .setSortSpec(new SortSpec(Observation.SP_DATE, SortOrderEnum.DESC));
+		
+		return searchQuery.getQueryResults(theParams, dao, translator, searchQueryInclude);
+	}
 }
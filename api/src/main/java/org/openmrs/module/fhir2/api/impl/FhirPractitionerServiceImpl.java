@@ -11,7 +11,11 @@ package org.openmrs.module.fhir2.api.impl;
 
 import javax.annotation.Nonnull;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
@@ -19,7 +23,6 @@ import ca.uhn.fhir.rest.param.DateRangeParam;
 import ca.uhn.fhir.rest.param.StringAndListParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
-import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
@@ -32,6 +35,7 @@ import org.openmrs.module.fhir2.api.FhirPractitionerService;
 import org.openmrs.module.fhir2.api.FhirUserService;
 import org.openmrs.module.fhir2.api.dao.FhirPractitionerDao;
 import org.openmrs.module.fhir2.api.dao.FhirUserDao;
+import org.openmrs.module.fhir2.api.dao.impl.UuidTypeResolver;
 import org.openmrs.module.fhir2.api.search.SearchQuery;
 import org.openmrs.module.fhir2.api.search.SearchQueryInclude;
 import org.openmrs.module.fhir2.api.search.TwoSearchQueryBundleProvider;
@@ -68,21 +72,38 @@ public class FhirPractitionerServiceImpl extends BaseFhirService<Practitioner, P
 	@Autowired
 	private FhirUserService userService;
 	
+	@Autowired
+	private UuidTypeResolver uuidTypeResolver;
+	
 	@Override
 	public Practitioner get(@Nonnull String uuid) {
 		if (uuid == null) {
 			throw new InvalidRequestException("Uuid cannot be null.");
 		}
 		
-		Practitioner result;
-		try {
-			result = super.get(uuid);
+		Class<?> type = uuidTypeResolver.resolve(FhirConstants.PRACTITIONER, uuid)
+		        .orElseThrow(() -> resourceNotFound(uuid));
+		return User.class.equals(type) ? userService.get(uuid) : super.get(uuid);
+	}
+	
+	@Override
+	public List<Practitioner> get(Collection<String> uuids) {
+		Map<String, Class<?>> types = uuidTypeResolver.resolve(FhirConstants.PRACTITIONER, uuids);
+		
+		List<String> providerUuids = new ArrayList<>();
+		List<String> userUuids = new ArrayList<>();
+		types.forEach((uuid, type) -> (User.class.equals(type) ? userUuids : providerUuids).add(uuid));
+		
+		List<Practitioner> result = new ArrayList<>();
+		if (!providerUuids.isEmpty()) {
+			result.addAll(super.get(providerUuids));
 		}
-		catch (ResourceNotFoundException e) {
-			result = userService.get(uuid);
+		
+		if (!userUuids.isEmpty()) {
+			result.addAll(userService.get(userUuids));
 		}
 		
-		return result;
+		return inRequestedOrder(uuids, result);
 	}
 	
 	@Override
@@ -9,6 +9,10 @@
  */
 package org.openmrs.module.fhir2.api.impl;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateRangeParam;
@@ -74,4 +78,10 @@ public class FhirTaskServiceImpl extends BaseFhirService<Task, FhirTask> impleme
 		
 		return searchQuery.getQueryResults(theParams, dao, translator, searchQueryInclude);
 	}
+	
+	@Override
+	@Transactional(readOnly = true)
+	public Map<String, List<FhirTask>> getTaskStatesByBasedOn(String basedOnType, Collection<String> basedOnUuids) {
+		return dao.getTaskStatesByBasedOn(basedOnType, basedOnUuids);
+	}
 }
@@ -17,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.hibernate.HibernateException;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Projections;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.model.FhirEncounterClassMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -35,7 +36,8 @@ public class EncounterClassMap {
 		try {
 			return (String) sessionFactory.getCurrentSession().createCriteria(FhirEncounterClassMap.class)
 			        .createAlias("location", "l").add(eq("l.uuid", locationUuid))
-			        .setProjection(Projections.property("encounterClass")).uniqueResult();
+			        .setProjection(Projections.property("encounterClass")).setCacheable(true)
+			        .setCacheRegion(FhirConstants.METADATA_QUERY_CACHE_REGION).uniqueResult();
 		}
 		catch (HibernateException e) {
 			log.error("Exception caught while trying to load encounter type for location '{}'", locationUuid);
@@ -17,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.hibernate.HibernateException;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Projections;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.model.FhirObservationCategoryMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -34,7 +35,8 @@ public class ObservationCategoryMap {
 		try {
 			return (String) sessionFactory.getCurrentSession().createCriteria(FhirObservationCategoryMap.class)
 			        .createAlias("conceptClass", "cc").add(eq("cc.uuid", conceptClassUuid))
-			        .setProjection(Projections.property("observationCategory")).uniqueResult();
+			        .setProjection(Projections.property("observationCategory")).setCacheable(true)
+			        .setCacheRegion(FhirConstants.METADATA_QUERY_CACHE_REGION).uniqueResult();
 		}
 		catch (HibernateException e) {
 			log.error("Exception caught while trying to load category for concept class '{}'", conceptClassUuid, e);
@@ -47,7 +49,8 @@ public class ObservationCategoryMap {
 		try {
 			return (String) sessionFactory.getCurrentSession().createCriteria(FhirObservationCategoryMap.class)
 			        .createAlias("conceptClass", "cc").add(eq("observationCategory", category))
-			        .setProjection(Projections.property("cc.uuid")).uniqueResult();
+			        .setProjection(Projections.property("cc.uuid")).setCacheable(true)
+			        .setCacheRegion(FhirConstants.METADATA_QUERY_CACHE_REGION).uniqueResult();
 		}
 		catch (HibernateException e) {
 			log.error("Exception caught while trying to load concept class for category '{}'", category, e);
@@ -0,0 +1,39 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.api.FhirChangeLogService;
+import org.openmrs.scheduler.tasks.AbstractTask;
+
+/**
+ * Scheduler task which deletes the changes recorded in the {@code fhir_change_log} table more than
+ * {@link org.openmrs.module.fhir2.FhirConstants#OPENMRS_FHIR_CHANGE_LOG_RETENTION_DAYS} days ago. It
+ * is registered to run once a day when the module is installed.
+ */
+@Slf4j
+public class PurgeChangeLogTask extends AbstractTask {
+	
+	@Override
+	public void execute() {
+		if (!isExecuting) {
+			startExecuting();
+			try {
+				int purged = Context.getRegisteredComponent("fhirChangeLogServiceImpl", FhirChangeLogService.class)
+				        .purgeExpiredChanges();
+				log.debug("Purged {} changes from the FHIR change log", purged);
+			}
+			finally {
+				stopExecuting();
+			}
+		}
+	}
+}
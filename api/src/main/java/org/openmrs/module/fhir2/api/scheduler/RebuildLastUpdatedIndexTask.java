@@ -0,0 +1,34 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.scheduler;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.api.dao.impl.LastUpdatedIndex;
+import org.openmrs.scheduler.tasks.AbstractTask;
+
+/**
+ * Scheduler task which rebuilds the {@code fhir_last_updated} table. This should be run once after
+ * the last updated index is enabled, as the table is not kept up-to-date while it is disabled.
+ */
+public class RebuildLastUpdatedIndexTask extends AbstractTask {
+	
+	@Override
+	public void execute() {
+		if (!isExecuting) {
+			startExecuting();
+			try {
+				Context.getRegisteredComponent("lastUpdatedIndex", LastUpdatedIndex.class).rebuild();
+			}
+			finally {
+				stopExecuting();
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.scheduler;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.api.util.PersonFullTextIndexer;
+import org.openmrs.scheduler.tasks.AbstractTask;
+
+/**
+ * Scheduler task which rebuilds the full-text person index. This should be run once after the
+ * full-text person search is enabled, and can be re-run at any time should the index be lost or
+ * fall out of step with the database.
+ */
+public class RebuildPersonFullTextIndexTask extends AbstractTask {
+	
+	@Override
+	public void execute() {
+		if (!isExecuting) {
+			startExecuting();
+			try {
+				Context.getRegisteredComponent("fhir2PersonFullTextIndexer", PersonFullTextIndexer.class).rebuild();
+			}
+			finally {
+				stopExecuting();
+			}
+		}
+	}
+}
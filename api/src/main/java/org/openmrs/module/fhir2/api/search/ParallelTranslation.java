@@ -0,0 +1,122 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.module.fhir2.api.util.WorkerSessionGuard;
+import org.openmrs.module.fhir2.api.util.WorkerUserContext;
+
+/**
+ * Translates a page of search results on a pool of worker threads shared by all searches. The pool
+ * is bounded by the number of processors, and each page is split into one chunk per worker so that
+ * concurrent searches share the workers rather than each claiming all of them. Each chunk runs with
+ * its own {@link WorkerUserContext} for the user who made the search, so that translations see the
+ * same locale and privileges, and under {@link WorkerSessionGuard}, so that any data the translator
+ * failed to initialize in the search's session fails to load rather than being loaded through that
+ * session from the worker.
+ */
+public final class ParallelTranslation {
+	
+	private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+	
+	private static ForkJoinPool pool;
+	
+	private ParallelTranslation() {
+	}
+	
+	/**
+	 * Stops the worker threads once the translations already submitted have completed. A later
+	 * translation starts a new pool.
+	 */
+	public static synchronized void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+	
+	/**
+	 * Translates each of the given data elements
+	 *
+	 * @param data the data elements to translate
+	 * @param translator the translation to apply to each data element
+	 * @return the translated data elements, in the same order as the data elements
+	 */
+	static <T, U> List<U> translate(List<T> data, Function<T, U> translator) {
+		UserContext userContext = Context.isSessionOpen() ? Context.getUserContext() : null;
+		Thread owner = Thread.currentThread();
+		int chunkSize = (data.size() + PARALLELISM - 1) / PARALLELISM;
+		
+		ForkJoinPool workers = getPool();
+		List<ForkJoinTask<List<U>>> tasks = new ArrayList<>();
+		for (int start = 0; start < data.size(); start += chunkSize) {
+			List<T> chunk = data.subList(start, Math.min(start + chunkSize, data.size()));
+			tasks.add(workers.submit(() -> translate(chunk, translator, owner, userContext)));
+		}
+		
+		List<U> results = new ArrayList<>(data.size());
+		for (ForkJoinTask<List<U>> task : tasks) {
+			results.addAll(task.join());
+		}
+		
+		return results;
+	}
+	
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(PARALLELISM, forkJoinPool -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+				thread.setName("fhir2-translation-" + thread.getPoolIndex());
+				thread.setContextClassLoader(ParallelTranslation.class.getClassLoader());
+				return thread;
+			}, null, false);
+		}
+		
+		return pool;
+	}
+	
+	private static <T, U> List<U> translate(List<T> chunk, Function<T, U> translator, Thread owner,
+	        UserContext userContext) {
+		// a task may also be run by the thread waiting for it, which owns the session and its user context
+		if (Thread.currentThread() == owner) {
+			return translate(chunk, translator);
+		}
+		
+		if (userContext != null) {
+			Context.setUserContext(new WorkerUserContext(userContext.getAuthenticatedUser(), userContext));
+		}
+		
+		try {
+			return WorkerSessionGuard.runAsWorker(() -> translate(chunk, translator));
+		}
+		finally {
+			if (userContext != null) {
+				Context.clearUserContext();
+			}
+		}
+	}
+	
+	private static <T, U> List<U> translate(List<T> chunk, Function<T, U> translator) {
+		List<U> results = new ArrayList<>(chunk.size());
+		for (T item : chunk) {
+			results.add(translator.apply(item));
+		}
+		
+		return results;
+	}
+}
@@ -19,19 +19,30 @@ import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
 import ca.uhn.fhir.model.primitive.InstantDt;
+import ca.uhn.fhir.model.valueset.BundleEntrySearchModeEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.QueryTimeoutException;
+import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
+import org.hl7.fhir.r4.model.OperationOutcome;
 import org.openmrs.Auditable;
 import org.openmrs.OpenmrsObject;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirDao;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.openmrs.module.fhir2.api.translators.BatchToFhirTranslator;
+import org.openmrs.module.fhir2.api.translators.ParallelToFhirTranslator;
 import org.openmrs.module.fhir2.api.translators.ToFhirTranslator;
 import org.openmrs.module.fhir2.api.util.FhirUtils;
 import org.springframework.transaction.annotation.Transactional;
@@ -58,10 +69,19 @@ public class SearchQueryBundleProvider<T extends OpenmrsObject & Auditable, U ex
 	
 	private transient Integer pageSize;
 	
+	private transient Integer parallelTranslationThreshold;
+	
 	private transient List<String> matchingResourceUuids;
 	
 	private final SearchQueryInclude<U> searchQueryInclude;
 	
+	/**
+	 * The FHIR version of the resources served from this provider, which determines the version of
+	 * the OperationOutcome added when the matches were truncated
+	 */
+	@Setter
+	private FhirVersionEnum fhirVersion = FhirVersionEnum.R4;
+	
 	public SearchQueryBundleProvider(SearchParameterMap searchParameterMap, FhirDao<T> dao,
 	    ToFhirTranslator<T, U> translator, FhirGlobalPropertyService globalPropertyService,
 	    SearchQueryInclude<U> searchQueryInclude) {
@@ -78,11 +98,7 @@ public class SearchQueryBundleProvider<T extends OpenmrsObject & Auditable, U ex
 	@Override
 	@Nonnull
 	public List<IBaseResource> getResources(int fromIndex, int toIndex) {
-		if (matchingResourceUuids == null) {
-			matchingResourceUuids = dao.getSearchResultUuids(searchParameterMap);
-		}
-		
-		if (matchingResourceUuids.isEmpty()) {
+		if (getMatchingResourceUuids().isEmpty()) {
 			return Collections.emptyList();
 		}
 		
@@ -91,18 +107,21 @@ public class SearchQueryBundleProvider<T extends OpenmrsObject & Auditable, U ex
 			firstResult = fromIndex;
 		}
 		
-		// NPE-safe unboxing
-		int lastResult = Integer.MAX_VALUE;
-		Integer lastResultHolder = size();
-		lastResult = lastResultHolder == null ? lastResult : lastResultHolder;
+		int lastResult = matchingResourceUuids.size();
 		
 		if (toIndex - firstResult > 0) {
 			lastResult = Math.min(lastResult, toIndex);
 		}
 		
-		List<U> returnedResourceList = dao
-		        .getSearchResults(searchParameterMap, matchingResourceUuids, firstResult, lastResult).stream()
-		        .map(translator::toFhirResource).filter(Objects::nonNull).collect(Collectors.toList());
+		final int pageStart = firstResult;
+		final int pageEnd = lastResult;
+		if (isStreamable() && StreamingSearchContext
+		        .offer((batchSize, consumer) -> streamResources(pageStart, pageEnd, batchSize, consumer))) {
+			return Collections.emptyList();
+		}
+		
+		List<U> returnedResourceList = translate(
+		    dao.getSearchResults(searchParameterMap, matchingResourceUuids, firstResult, lastResult));
 		
 		Set<IBaseResource> includedResources = searchQueryInclude.getIncludedResources(returnedResourceList,
 		    this.searchParameterMap);
@@ -110,9 +129,88 @@ public class SearchQueryBundleProvider<T extends OpenmrsObject & Auditable, U ex
 		List<IBaseResource> resultList = new ArrayList<>(returnedResourceList);
 		resultList.addAll(includedResources);
 		
+		if (firstResult == 0 && matchingResourceUuids instanceof TruncatedSearchResultUuids) {
+			resultList.add(createTruncationOutcome((TruncatedSearchResultUuids) matchingResourceUuids));
+		}
+		
 		return resultList;
 	}
 	
+	private List<String> getMatchingResourceUuids() {
+		if (matchingResourceUuids == null) {
+			try {
+				matchingResourceUuids = dao.getSearchResultUuids(searchParameterMap);
+			}
+			catch (QueryTimeoutException e) {
+				throw new InvalidRequestException(
+				        "The search took too long to run. Restrict it to specific patients or encounters and try again.");
+			}
+		}
+		
+		return matchingResourceUuids;
+	}
+	
+	private IAnyResource createTruncationOutcome(TruncatedSearchResultUuids uuids) {
+		String diagnostics = String.format("This search matched more than %d resources, so only the first %d are "
+		        + "returned. Restrict it to specific patients or encounters to see all of its matches.",
+		    uuids.getMaximumResults(), uuids.getMaximumResults());
+		
+		IAnyResource outcome;
+		if (fhirVersion == FhirVersionEnum.DSTU3) {
+			org.hl7.fhir.dstu3.model.OperationOutcome r3Outcome = new org.hl7.fhir.dstu3.model.OperationOutcome();
+			r3Outcome.addIssue().setSeverity(org.hl7.fhir.dstu3.model.OperationOutcome.IssueSeverity.WARNING)
+			        .setCode(org.hl7.fhir.dstu3.model.OperationOutcome.IssueType.TOOCOSTLY).setDiagnostics(diagnostics);
+			outcome = r3Outcome;
+		} else {
+			OperationOutcome r4Outcome = new OperationOutcome();
+			r4Outcome.addIssue().setSeverity(OperationOutcome.IssueSeverity.WARNING)
+			        .setCode(OperationOutcome.IssueType.TOOCOSTLY).setDiagnostics(diagnostics);
+			outcome = r4Outcome;
+		}
+		
+		ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.put(outcome, BundleEntrySearchModeEnum.OUTCOME);
+		return outcome;
+	}
+	
+	// included resources and the truncation warning are only added to pages that are built in full
+	private boolean isStreamable() {
+		return searchParameterMap.getParameters(FhirConstants.INCLUDE_SEARCH_HANDLER).isEmpty()
+		        && searchParameterMap.getParameters(FhirConstants.REVERSE_INCLUDE_SEARCH_HANDLER).isEmpty()
+		        && !(matchingResourceUuids instanceof TruncatedSearchResultUuids);
+	}
+	
+	private void streamResources(int firstResult, int lastResult, int batchSize, Consumer<IBaseResource> consumer) {
+		for (int batchStart = firstResult; batchStart < lastResult; batchStart += batchSize) {
+			translate(dao.getSearchResults(searchParameterMap, matchingResourceUuids, batchStart,
+			    Math.min(batchStart + batchSize, lastResult))).forEach(consumer);
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<U> translate(List<T> data) {
+		if (translator instanceof ParallelToFhirTranslator && isParallelTranslationEnabled(data.size())) {
+			((ParallelToFhirTranslator<T, U>) translator).initialize(data);
+			return ParallelTranslation.translate(data, translator::toFhirResource).stream().filter(Objects::nonNull)
+			        .collect(Collectors.toList());
+		}
+		
+		if (translator instanceof BatchToFhirTranslator) {
+			return ((BatchToFhirTranslator<T, U>) translator).toFhirResources(data).stream().filter(Objects::nonNull)
+			        .collect(Collectors.toList());
+		}
+		
+		return data.stream().map(translator::toFhirResource).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+	
+	private boolean isParallelTranslationEnabled(int resourceCount) {
+		if (parallelTranslationThreshold == null) {
+			parallelTranslationThreshold = globalPropertyService
+			        .getGlobalProperty(FhirConstants.OPENMRS_FHIR_PARALLEL_TRANSLATION_THRESHOLD, 0);
+		}
+		
+		return parallelTranslationThreshold > 0 && resourceCount >= parallelTranslationThreshold;
+	}
+	
 	@Override
 	public Integer preferredPageSize() {
 		if (pageSize == null) {
@@ -122,11 +220,15 @@ public class SearchQueryBundleProvider<T extends OpenmrsObject & Auditable, U ex
 		return pageSize;
 	}
 	
+	/**
+	 * @return the number of matching resources or null if the matches were truncated, as their number
+	 *         is then unknown
+	 */
 	@Override
 	@Nullable
 	public Integer size() {
-		if (matchingResourceUuids == null) {
-			matchingResourceUuids = dao.getSearchResultUuids(searchParameterMap);
+		if (getMatchingResourceUuids() instanceof TruncatedSearchResultUuids) {
+			return null;
 		}
 		
 		if (count == null) {
@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
+import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import org.hl7.fhir.convertors.VersionConvertor_30_40;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -34,6 +35,10 @@ public class SearchQueryBundleProviderR3Wrapper implements IBundleProvider, Seri
 	
 	public SearchQueryBundleProviderR3Wrapper(IBundleProvider bundleProvider) {
 		this.bundleProvider = bundleProvider;
+		
+		if (bundleProvider instanceof SearchQueryBundleProvider) {
+			((SearchQueryBundleProvider<?, ?>) bundleProvider).setFhirVersion(FhirVersionEnum.DSTU3);
+		}
 	}
 	
 	@Override
@@ -0,0 +1,107 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.search;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+/**
+ * Per-thread handshake between the web layer and {@link SearchQueryBundleProvider} used to stream
+ * large search pages.
+ * <p/>
+ * When the web layer decides a request's response can be streamed, it calls
+ * {@link #request(int)}. The first {@link SearchQueryBundleProvider} asked for a page on that thread
+ * then registers a {@link SearchResultCursor} via {@link #offer(SearchResultCursor)} instead of
+ * translating the page, and HAPI builds the bundle envelope without any entries. The web layer
+ * then writes the envelope and pulls the entries from the cursor a batch at a time.
+ */
+public final class StreamingSearchContext {
+	
+	private static final ThreadLocal<StreamingSearchContext> CONTEXT = new ThreadLocal<>();
+	
+	private final int batchSize;
+	
+	private SearchResultCursor cursor;
+	
+	private StreamingSearchContext(int batchSize) {
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Requests that the next search page produced on this thread be streamed
+	 *
+	 * @param batchSize the number of resources to load and translate at a time
+	 */
+	public static void request(int batchSize) {
+		CONTEXT.set(new StreamingSearchContext(Math.max(1, batchSize)));
+	}
+	
+	/**
+	 * @return true if streaming has been requested on this thread and no cursor has yet been offered
+	 */
+	public static boolean isRequested() {
+		StreamingSearchContext context = CONTEXT.get();
+		return context != null && context.cursor == null;
+	}
+	
+	/**
+	 * Registers the cursor for the current page if streaming was requested on this thread
+	 *
+	 * @param cursor the cursor to read the page from
+	 * @return true if the cursor was accepted, in which case the caller should not return any
+	 *         resources itself
+	 */
+	public static boolean offer(SearchResultCursor cursor) {
+		if (!isRequested()) {
+			return false;
+		}
+		
+		CONTEXT.get().cursor = cursor;
+		return true;
+	}
+	
+	/**
+	 * @return the cursor registered for this thread, if any
+	 */
+	public static Optional<SearchResultCursor> getCursor() {
+		return Optional.ofNullable(CONTEXT.get()).map(context -> context.cursor);
+	}
+	
+	/**
+	 * @return the batch size requested for this thread or 1 if streaming was not requested
+	 */
+	public static int getBatchSize() {
+		return Optional.ofNullable(CONTEXT.get()).map(context -> context.batchSize).orElse(1);
+	}
+	
+	/**
+	 * Cancels any streaming request and discards any cursor registered for this thread
+	 */
+	public static void cancel() {
+		CONTEXT.remove();
+	}
+	
+	/**
+	 * A forward-only view of one page of search results
+	 */
+	@FunctionalInterface
+	public interface SearchResultCursor {
+		
+		/**
+		 * Loads and translates the page in batches, passing each resource to the consumer in order
+		 *
+		 * @param batchSize the number of resources to load and translate at a time
+		 * @param consumer the consumer for each translated resource
+		 */
+		void forEachResource(int batchSize, Consumer<IBaseResource> consumer);
+	}
+}
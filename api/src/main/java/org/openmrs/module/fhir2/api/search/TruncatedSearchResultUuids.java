@@ -0,0 +1,48 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.search;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import lombok.Getter;
+
+/**
+ * The uuids matched by a search whose matches were cut off at a maximum number of results, as
+ * returned by {@link org.openmrs.module.fhir2.api.dao.FhirDao#getSearchResultUuids(
+ * org.openmrs.module.fhir2.api.search.param.SearchParameterMap)}. The list is immutable.
+ */
+public class TruncatedSearchResultUuids extends AbstractList<String> implements RandomAccess, Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final List<String> uuids;
+	
+	@Getter
+	private final int maximumResults;
+	
+	public TruncatedSearchResultUuids(List<String> uuids, int maximumResults) {
+		this.uuids = new ArrayList<>(uuids.subList(0, Math.min(uuids.size(), maximumResults)));
+		this.maximumResults = maximumResults;
+	}
+	
+	@Override
+	public String get(int index) {
+		return uuids.get(index);
+	}
+	
+	@Override
+	public int size() {
+		return uuids.size();
+	}
+}
@@ -64,6 +64,9 @@ public class TwoSearchQueryBundleProvider implements IBundleProvider {
 	@Nonnull
 	@Override
 	public List<IBaseResource> getResources(int fromIndex, int toIndex) {
+		// pages spanning two providers are always assembled in memory
+		StreamingSearchContext.cancel();
+		
 		int firstResult = 0;
 		if (fromIndex >= 0) {
 			firstResult = fromIndex;
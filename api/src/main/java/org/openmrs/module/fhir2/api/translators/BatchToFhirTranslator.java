@@ -0,0 +1,33 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.translators;
+
+import javax.annotation.Nonnull;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link ToFhirTranslator} that can translate a whole page of OpenMRS data at once, so that data
+ * from other tables needed by the translation can be loaded for the page in a single query
+ *
+ * @param <T> OpenMRS data type
+ * @param <U> FHIR resource type
+ */
+public interface BatchToFhirTranslator<T, U> extends ToFhirTranslator<T, U> {
+	
+	/**
+	 * Maps a collection of OpenMRS data elements to FHIR resources
+	 *
+	 * @param data the OpenMRS data elements to translate
+	 * @return the corresponding FHIR resources, in the same order as the data elements
+	 */
+	List<U> toFhirResources(@Nonnull Collection<T> data);
+}
@@ -0,0 +1,35 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.translators;
+
+import javax.annotation.Nonnull;
+
+import java.util.Collection;
+
+/**
+ * A {@link ToFhirTranslator} whose translations can be run on several threads at once. Once
+ * {@link #initialize(Collection)} has been called for some data in the session that loaded it,
+ * {@link #toFhirResource(Object)} must not load anything more through that session for that data, so
+ * that it can be called from threads which do not own the session. Any other data it needs must be
+ * read through services, which run in their own transactions. Loads through the owning session
+ * from those threads fail with a {@link org.hibernate.LazyInitializationException}.
+ *
+ * @param <T> OpenMRS data type
+ * @param <U> FHIR resource type
+ */
+public interface ParallelToFhirTranslator<T, U> extends ToFhirTranslator<T, U> {
+	
+	/**
+	 * Loads every lazy association of the given data read by {@link #toFhirResource(Object)}
+	 *
+	 * @param data the OpenMRS data elements which are about to be translated
+	 */
+	void initialize(@Nonnull Collection<T> data);
+}
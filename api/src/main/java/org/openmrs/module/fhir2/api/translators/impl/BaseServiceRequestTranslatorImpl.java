@@ -10,48 +10,50 @@
 package org.openmrs.module.fhir2.api.translators.impl;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
-import ca.uhn.fhir.rest.api.server.IBundleProvider;
-import ca.uhn.fhir.rest.param.ReferenceAndListParam;
-import ca.uhn.fhir.rest.param.ReferenceOrListParam;
-import ca.uhn.fhir.rest.param.ReferenceParam;
 import lombok.AccessLevel;
 import lombok.Setter;
 import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.ServiceRequest;
-import org.hl7.fhir.r4.model.Task;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirTaskService;
+import org.openmrs.module.fhir2.model.FhirReference;
+import org.openmrs.module.fhir2.model.FhirTask;
 import org.springframework.beans.factory.annotation.Autowired;
 
 @Setter(AccessLevel.PROTECTED)
 public abstract class BaseServiceRequestTranslatorImpl extends BaseReferenceHandlingTranslator {
 	
-	private static final int START_INDEX = 0;
-	
-	private static final int END_INDEX = 10;
-	
 	@Autowired
 	private FhirTaskService taskService;
 	
+	/**
+	 * Loads the status and owner of the tasks for each of the given orders with a single query
+	 *
+	 * @param orderUuids the uuids of the orders being translated
+	 * @return a map from order uuid to the tasks based on that order
+	 */
+	protected Map<String, List<FhirTask>> getServiceRequestTasks(Collection<String> orderUuids) {
+		return taskService.getTaskStatesByBasedOn(FhirConstants.SERVICE_REQUEST, orderUuids);
+	}
+	
 	protected ServiceRequest.ServiceRequestStatus determineServiceRequestStatus(String orderUuid) {
-		IBundleProvider results = taskService.searchForTasks(
-		    new ReferenceAndListParam()
-		            .addAnd(new ReferenceOrListParam().add(new ReferenceParam("ServiceRequest", null, orderUuid))),
-		    null, null, null, null, null);
-		
-		Collection<Task> serviceRequestTasks = results.getResources(START_INDEX, END_INDEX).stream().map(p -> (Task) p)
-		        .collect(Collectors.toList());
-		
+		return determineServiceRequestStatus(getServiceRequestTasks(Collections.singleton(orderUuid)).get(orderUuid));
+	}
+	
+	protected ServiceRequest.ServiceRequestStatus determineServiceRequestStatus(List<FhirTask> serviceRequestTasks) {
 		ServiceRequest.ServiceRequestStatus serviceRequestStatus = ServiceRequest.ServiceRequestStatus.UNKNOWN;
 		
-		if (serviceRequestTasks.size() != 1) {
+		if (serviceRequestTasks == null || serviceRequestTasks.size() != 1) {
 			return serviceRequestStatus;
 		}
 		
-		Task serviceRequestTask = serviceRequestTasks.iterator().next();
+		FhirTask serviceRequestTask = serviceRequestTasks.get(0);
 		
-		if (serviceRequestTask.hasStatus()) {
+		if (serviceRequestTask.getStatus() != null) {
 			switch (serviceRequestTask.getStatus()) {
 				case ACCEPTED:
 				case REQUESTED:
@@ -69,18 +71,19 @@ public abstract class BaseServiceRequestTranslatorImpl extends BaseReferenceHand
 	}
 	
 	protected Reference determineServiceRequestPerformer(String orderUuid) {
-		IBundleProvider results = taskService.searchForTasks(
-		    new ReferenceAndListParam()
-		            .addAnd(new ReferenceOrListParam().add(new ReferenceParam("ServiceRequest", null, orderUuid))),
-		    null, null, null, null, null);
-		
-		Collection<Task> serviceRequestTasks = results.getResources(START_INDEX, END_INDEX).stream().map(p -> (Task) p)
-		        .collect(Collectors.toList());
+		return determineServiceRequestPerformer(getServiceRequestTasks(Collections.singleton(orderUuid)).get(orderUuid));
+	}
+	
+	protected Reference determineServiceRequestPerformer(List<FhirTask> serviceRequestTasks) {
+		if (serviceRequestTasks == null || serviceRequestTasks.size() != 1) {
+			return null;
+		}
 		
-		if (serviceRequestTasks.size() != 1) {
+		FhirReference owner = serviceRequestTasks.get(0).getOwnerReference();
+		if (owner == null) {
 			return null;
 		}
 		
-		return serviceRequestTasks.iterator().next().getOwner();
+		return new Reference().setType(owner.getType()).setReference(owner.getReference());
 	}
 }
@@ -10,7 +10,17 @@
 package org.openmrs.module.fhir2.api.translators.impl;
 
 import javax.annotation.Nonnull;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.AccessLevel;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -20,18 +30,38 @@ import org.openmrs.Concept;
 import org.openmrs.ConceptMap;
 import org.openmrs.ConceptName;
 import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.GlobalPropertyListener;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirConceptService;
 import org.openmrs.module.fhir2.api.FhirConceptSourceService;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.FhirUserDefaultProperties;
 import org.openmrs.module.fhir2.api.translators.ConceptTranslator;
 import org.openmrs.module.fhir2.model.FhirConceptSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**
+ * Translates between OpenMRS concepts and FHIR CodeableConcepts.
+ * <p/>
+ * When {@link FhirConstants#OPENMRS_FHIR_CACHE_CORE_METADATA} is {@code true}, the codings each
+ * concept is translated to are cached per locale, so that concepts repeated across a page of results
+ * are only translated once. Entries are keyed by the date the concept was last changed, expire after
+ * {@link #EXPIRE_AFTER_WRITE_MINUTES} minutes and are all discarded by
+ * {@link org.openmrs.module.fhir2.api.util.ConceptCodeCacheInvalidationAdvice} whenever concepts are
+ * changed and by {@link org.openmrs.module.fhir2.api.util.ConceptSourceCacheInvalidationInterceptor}
+ * whenever the url of a concept source is changed. The global property is kept until it is changed.
+ */
 @Slf4j
 @Component
 @Setter(AccessLevel.PACKAGE)
-public class ConceptTranslatorImpl implements ConceptTranslator {
+public class ConceptTranslatorImpl implements ConceptTranslator, GlobalPropertyListener {
+	
+	private static final long MAXIMUM_SIZE = 10_000;
+	
+	private static final long EXPIRE_AFTER_WRITE_MINUTES = 30;
 	
 	@Autowired
 	private FhirConceptService conceptService;
@@ -42,28 +72,83 @@ public class ConceptTranslatorImpl implements ConceptTranslator {
 	@Autowired
 	private FhirUserDefaultProperties userDefaultProperties;
 	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	@Autowired
+	private AdministrationService adminService;
+	
+	private volatile Boolean cacheEnabled;
+	
+	// the codings of each concept in each locale, keyed by the concept's id, locale and date last changed
+	private final Cache<String, List<ConceptCoding>> codings = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE)
+	        .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES).build();
+	
 	@Override
 	public CodeableConcept toFhirResource(@Nonnull Concept concept) {
 		if (concept == null) {
 			return null;
 		}
 		
-		CodeableConcept codeableConcept = new CodeableConcept();
-		addConceptCoding(codeableConcept.addCoding(), null, concept.getUuid(), concept);
+		Locale locale = userDefaultProperties.getDefaultLocale();
 		
-		for (ConceptMap mapping : concept.getConceptMappings()) {
-			ConceptReferenceTerm crt = mapping.getConceptReferenceTerm();
-			String sourceUrl = conceptSourceToURL(crt.getConceptSource().getName());
-			if (sourceUrl == null) {
-				continue;
+		List<ConceptCoding> conceptCodings;
+		if (concept.getConceptId() == null || !isCacheEnabled()) {
+			conceptCodings = getConceptCodings(concept, locale);
+		} else {
+			String key = concept.getConceptId() + ":" + locale + ":"
+			        + (concept.getDateChanged() == null ? "" : concept.getDateChanged().getTime());
+			conceptCodings = codings.getIfPresent(key);
+			if (conceptCodings == null) {
+				conceptCodings = getConceptCodings(concept, locale);
+				codings.put(key, conceptCodings);
 			}
-			
-			addConceptCoding(codeableConcept.addCoding(), sourceUrl, crt.getCode(), concept);
+		}
+		
+		// each caller gets its own codings, as HAPI's model objects are mutable
+		CodeableConcept codeableConcept = new CodeableConcept();
+		for (ConceptCoding conceptCoding : conceptCodings) {
+			codeableConcept.addCoding().setSystem(conceptCoding.system).setCode(conceptCoding.code)
+			        .setDisplay(conceptCoding.display);
 		}
 		
 		return codeableConcept;
 	}
 	
+	/**
+	 * Discards all translated concepts
+	 */
+	public void invalidateAll() {
+		codings.invalidateAll();
+	}
+	
+	@PostConstruct
+	public void registerGlobalPropertyListener() {
+		adminService.addGlobalPropertyListener(this);
+	}
+	
+	@PreDestroy
+	public void unregisterGlobalPropertyListener() {
+		adminService.removeGlobalPropertyListener(this);
+	}
+	
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA.equals(propertyName);
+	}
+	
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		cacheEnabled = null;
+		invalidateAll();
+	}
+	
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		cacheEnabled = null;
+		invalidateAll();
+	}
+	
 	@Override
 	public Concept toOpenmrsType(@Nonnull CodeableConcept concept) {
 		if (concept == null) {
@@ -74,7 +159,8 @@ public class ConceptTranslatorImpl implements ConceptTranslator {
 		
 		for (Coding coding : concept.getCoding()) {
 			if (!coding.hasSystem()) {
-				concept_ = coding.getCode() != null ? conceptService.get(coding.getCode()) : null;
+				concept_ = coding.getCode() != null ? ReferenceResolutionContext.resolve(ReferenceResolutionContext.CONCEPT,
+				    coding.getCode(), Concept.class, conceptService::get) : null;
 				continue;
 			}
 			
@@ -84,7 +170,9 @@ public class ConceptTranslatorImpl implements ConceptTranslator {
 			}
 			
 			Concept codedConcept = coding.getCode() != null
-			        ? conceptService.getConceptBySourceNameAndCode(codingSource, coding.getCode()).orElse(null)
+			        ? ReferenceResolutionContext.resolve(ReferenceResolutionContext.CONCEPT,
+			            codingSource + "|" + coding.getCode(), Concept.class,
+			            key -> conceptService.getConceptBySourceNameAndCode(codingSource, coding.getCode()).orElse(null))
 			        : null;
 			
 			if (codedConcept != null) {
@@ -96,16 +184,39 @@ public class ConceptTranslatorImpl implements ConceptTranslator {
 		return concept_;
 	}
 	
-	private void addConceptCoding(Coding coding, String system, String code, Concept concept) {
-		coding.setSystem(system);
-		coding.setCode(code);
-		ConceptName conceptName = concept.getName(userDefaultProperties.getDefaultLocale());
+	private boolean isCacheEnabled() {
+		Boolean enabled = cacheEnabled;
+		if (enabled == null) {
+			enabled = Boolean.parseBoolean(
+			    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false"));
+			cacheEnabled = enabled;
+		}
+		
+		return enabled;
+	}
+	
+	private List<ConceptCoding> getConceptCodings(Concept concept, Locale locale) {
+		ConceptName conceptName = concept.getName(locale);
 		if (conceptName == null || conceptName.getName() == null) {
 			conceptName = concept.getName();
 		}
 		
 		String display = (conceptName == null || conceptName.getName() == null) ? "" : conceptName.getName();
-		coding.setDisplay(display);
+		
+		List<ConceptCoding> conceptCodings = new ArrayList<>();
+		conceptCodings.add(new ConceptCoding(null, concept.getUuid(), display));
+		
+		for (ConceptMap mapping : concept.getConceptMappings()) {
+			ConceptReferenceTerm crt = mapping.getConceptReferenceTerm();
+			String sourceUrl = conceptSourceToURL(crt.getConceptSource().getName());
+			if (sourceUrl == null) {
+				continue;
+			}
+			
+			conceptCodings.add(new ConceptCoding(sourceUrl, crt.getCode(), display));
+		}
+		
+		return Collections.unmodifiableList(conceptCodings);
 	}
 	
 	private String conceptSourceToURL(String conceptSourceName) {
@@ -116,4 +227,19 @@ public class ConceptTranslatorImpl implements ConceptTranslator {
 	private String conceptURLToSource(String url) {
 		return conceptSourceService.getFhirConceptSourceByUrl(url).map(cs -> cs.getConceptSource().getName()).orElse(null);
 	}
+	
+	private static final class ConceptCoding {
+		
+		private final String system;
+		
+		private final String code;
+		
+		private final String display;
+		
+		private ConceptCoding(String system, String code, String display) {
+			this.system = system;
+			this.code = code;
+			this.display = display;
+		}
+	}
 }
@@ -17,6 +17,7 @@ import lombok.AccessLevel;
 import lombok.Setter;
 import org.hl7.fhir.r4.model.Encounter;
 import org.openmrs.Location;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.dao.FhirLocationDao;
 import org.openmrs.module.fhir2.api.translators.EncounterLocationTranslator;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,7 +43,7 @@ public class EncounterLocationTranslatorImpl extends BaseReferenceHandlingTransl
 	public Location toOpenmrsType(@Nonnull Encounter.EncounterLocationComponent encounterLocationComponent) {
 		notNull(encounterLocationComponent, "The EncounterLocationComponent object should not be null");
 		
-		return getReferenceId(encounterLocationComponent.getLocation()).map(locationUuid -> locationDao.get(locationUuid))
-		        .orElse(null);
+		return getReferenceId(encounterLocationComponent.getLocation()).map(locationUuid -> ReferenceResolutionContext
+		        .resolve(FhirConstants.LOCATION, locationUuid, Location.class, locationDao::get)).orElse(null);
 	}
 }
@@ -17,6 +17,8 @@ import lombok.AccessLevel;
 import lombok.Setter;
 import org.hl7.fhir.r4.model.Encounter;
 import org.openmrs.EncounterProvider;
+import org.openmrs.Provider;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.dao.FhirPractitionerDao;
 import org.openmrs.module.fhir2.api.translators.EncounterParticipantTranslator;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,7 +49,8 @@ public class EncounterParticipantTranslatorImpl extends BaseReferenceHandlingTra
 		notNull(encounterParticipantComponent, "The EncounterParticipantComponent object should not be null");
 		
 		getReferenceId(encounterParticipantComponent.getIndividual())
-		        .map(practitionerUuid -> practitionerDao.get(practitionerUuid)).ifPresent(encounterProvider::setProvider);
+		        .map(practitionerUuid -> ReferenceResolutionContext.resolve(FhirConstants.PRACTITIONER, practitionerUuid,
+		            Provider.class, practitionerDao::get)).ifPresent(encounterProvider::setProvider);
 		
 		return encounterProvider;
 	}
@@ -48,6 +48,8 @@ public class EncounterReferenceTranslatorImpl extends BaseReferenceHandlingTrans
 			        "Reference must be to an Encounter not a " + getReferenceType(encounter).orElse(""));
 		}
 		
-		return getReferenceId(encounter).map(uuid -> encounterDao.get(uuid)).orElse(null);
+		return getReferenceId(encounter)
+		        .map(uuid -> ReferenceResolutionContext.resolve(FhirConstants.ENCOUNTER, uuid, Encounter.class, encounterDao::get))
+		        .orElse(null);
 	}
 }
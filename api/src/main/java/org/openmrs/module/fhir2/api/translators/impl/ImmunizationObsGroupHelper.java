@@ -15,12 +15,18 @@ import static org.openmrs.module.fhir2.api.translators.impl.ImmunizationTranslat
 import static org.openmrs.module.fhir2.api.translators.impl.ImmunizationTranslatorImpl.immunizationGroupingConcept;
 import static org.openmrs.module.fhir2.api.util.FhirUtils.createExceptionErrorOperationOutcome;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
@@ -30,17 +36,31 @@ import org.apache.commons.lang.Validate;
 import org.openmrs.Concept;
 import org.openmrs.EncounterRole;
 import org.openmrs.EncounterType;
+import org.openmrs.GlobalProperty;
 import org.openmrs.Obs;
 import org.openmrs.Provider;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.ConceptService;
 import org.openmrs.api.EncounterService;
+import org.openmrs.api.GlobalPropertyListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**
+ * Resolves the concepts, encounter type and encounter role which make up an immunization obs group.
+ * <p/>
+ * The ids of the immunization concepts are resolved from their mappings once and kept in an
+ * immutable snapshot, so that classifying the members of an obs group is a lookup by concept id. The
+ * snapshot expires after {@link #EXPIRE_AFTER_WRITE_MINUTES} minutes and is discarded by
+ * {@link org.openmrs.module.fhir2.api.util.ConceptCodeCacheInvalidationAdvice} whenever concepts are
+ * changed. The encounter type and encounter role ids are likewise kept until
+ * the global property naming them is changed.
+ */
 @Component
 @Setter(AccessLevel.PACKAGE)
-public class ImmunizationObsGroupHelper {
+public class ImmunizationObsGroupHelper implements GlobalPropertyListener {
+	
+	private static final long EXPIRE_AFTER_WRITE_MINUTES = 30;
 	
 	@Autowired
 	private ConceptService conceptService;
@@ -51,30 +71,91 @@ public class ImmunizationObsGroupHelper {
 	@Autowired
 	private AdministrationService adminService;
 	
+	private volatile ConceptSnapshot conceptSnapshot;
+	
+	private volatile Integer encounterTypeId;
+	
+	private volatile Integer encounterRoleId;
+	
+	@PostConstruct
+	public void registerGlobalPropertyListener() {
+		adminService.addGlobalPropertyListener(this);
+	}
+	
+	@PreDestroy
+	public void unregisterGlobalPropertyListener() {
+		adminService.removeGlobalPropertyListener(this);
+	}
+	
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return IMMUNIZATIONS_ENCOUNTER_TYPE_PROPERTY.equals(propertyName)
+		        || ADMINISTERING_ENCOUNTER_ROLE_PROPERTY.equals(propertyName);
+	}
+	
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		invalidateMetadata();
+	}
+	
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		invalidateMetadata();
+	}
+	
+	/**
+	 * Discards the resolved immunization concepts, so that they are resolved again on next use
+	 */
+	public void invalidateConcepts() {
+		conceptSnapshot = null;
+	}
+	
 	public EncounterType getImmunizationsEncounterType() throws InvalidRequestException {
+		Integer id = encounterTypeId;
+		if (id != null) {
+			EncounterType encounterType = encounterService.getEncounterType(id);
+			if (encounterType != null) {
+				return encounterType;
+			}
+		}
+		
 		String errMsg = "The Immunization resource requires an immunizations encounter type to be defined in the global property '"
 		        + IMMUNIZATIONS_ENCOUNTER_TYPE_PROPERTY
 		        + "', but no immunizations encounter type is defined for this instance.";
 		String uuid = adminService.getGlobalProperty(IMMUNIZATIONS_ENCOUNTER_TYPE_PROPERTY);
-		return Optional.of(encounterService.getEncounterTypeByUuid(uuid))
+		EncounterType encounterType = Optional.ofNullable(encounterService.getEncounterTypeByUuid(uuid))
 		        .orElseThrow(() -> new InvalidRequestException(errMsg, createExceptionErrorOperationOutcome(errMsg)));
+		encounterTypeId = encounterType.getId();
+		return encounterType;
 	}
 	
 	public EncounterRole getAdministeringEncounterRole() throws InvalidRequestException {
+		Integer id = encounterRoleId;
+		if (id != null) {
+			EncounterRole encounterRole = encounterService.getEncounterRole(id);
+			if (encounterRole != null) {
+				return encounterRole;
+			}
+		}
+		
 		String errMsg = "The Immunization resource requires an administering encounter role to be defined in the global property '"
 		        + ADMINISTERING_ENCOUNTER_ROLE_PROPERTY
 		        + "', but no administering encounter role is defined for this instance.";
 		String uuid = adminService.getGlobalProperty(ADMINISTERING_ENCOUNTER_ROLE_PROPERTY);
-		return Optional.of(encounterService.getEncounterRoleByUuid(uuid))
+		EncounterRole encounterRole = Optional.ofNullable(encounterService.getEncounterRoleByUuid(uuid))
 		        .orElseThrow(() -> new InvalidRequestException(errMsg, createExceptionErrorOperationOutcome(errMsg)));
+		encounterRoleId = encounterRole.getId();
+		return encounterRole;
 	}
 	
 	public Concept concept(String refTerm) throws InvalidRequestException {
-		String errMsg = "The Immunization resource requires a concept mapped to '" + refTerm
-		        + "', however either multiple concepts are mapped to that term or not concepts are mapped to that term.";
-		String[] mapping = refTerm.split(":");
-		return Optional.of(conceptService.getConceptByMapping(mapping[1], mapping[0]))
-		        .orElseThrow(() -> new InvalidRequestException(errMsg, createExceptionErrorOperationOutcome(errMsg)));
+		Integer conceptId = getConceptSnapshot().conceptIdsByRefTerm.get(refTerm);
+		Concept concept = conceptId == null ? null : conceptService.getConcept(conceptId);
+		if (concept != null) {
+			return concept;
+		}
+		
+		return resolveConcept(refTerm);
 	}
 	
 	public Obs newImmunizationObsGroup() {
@@ -102,29 +183,26 @@ public class ImmunizationObsGroupHelper {
 	}
 	
 	public void validateImmunizationObsGroup(Obs obs) throws InvalidRequestException {
+		ConceptSnapshot snapshot = getConceptSnapshot();
 		
-		if (!concept(immunizationGroupingConcept).equals(obs.getConcept())) {
+		if (!snapshot.conceptIdsByRefTerm.get(immunizationGroupingConcept).equals(obs.getConcept().getConceptId())) {
 			String errMsg = "The Immunization resource requires the underlying OpenMRS immunization obs group to be defined by a concept mapped as same as "
 			        + immunizationGroupingConcept + ". That is not the case for obs '" + obs.getUuid()
 			        + "' that is defined by the concept named '" + obs.getConcept().getName().toString() + "'.";
 			throw new InvalidRequestException(errMsg, createExceptionErrorOperationOutcome(errMsg));
 		}
 		
-		final Set<String> refConcepts = immunizationConcepts.stream()
-		        .map(m -> conceptService.getConceptByMapping(m.split(":")[1], m.split(":")[0])).map(c -> c.getUuid())
-		        .collect(Collectors.toSet());
+		final Set<Integer> refConcepts = new HashSet<>(snapshot.refTermsByConceptId.keySet());
 		
 		// filtering the obs' concepts that are immunization concepts (but there could be others)
-		List<String> obsConcepts = obs.getGroupMembers().stream().map(o -> o.getConcept().getUuid())
-		        .filter(uuid -> refConcepts.contains(uuid)).collect(Collectors.toList());
+		List<Concept> obsConcepts = obs.getGroupMembers().stream().map(Obs::getConcept)
+		        .filter(concept -> refConcepts.contains(concept.getConceptId())).collect(Collectors.toList());
 		
 		Validate.notEmpty(obsConcepts);
 		// each immunization concept should define only one obs of the group
-		obsConcepts.stream().forEach(uuid -> {
-			if (refConcepts.contains(uuid)) {
-				refConcepts.remove(uuid);
-			} else {
-				String errMsg = "The immunization obs member defined by concept with UUID '" + uuid
+		obsConcepts.stream().forEach(concept -> {
+			if (!refConcepts.remove(concept.getConceptId())) {
+				String errMsg = "The immunization obs member defined by concept with UUID '" + concept.getUuid()
 				        + "' is found multiple times in the immunization obs group.";
 				throw new InvalidRequestException(errMsg, createExceptionErrorOperationOutcome(errMsg));
 			}
@@ -137,16 +215,65 @@ public class ImmunizationObsGroupHelper {
 	 * @return A mapping from CIEL reference terms to obs of all obs group members
 	 */
 	public Map<String, Obs> getObsMembersMap(Obs obs) {
+		Map<Integer, String> refTermsByConceptId = getConceptSnapshot().refTermsByConceptId;
+		
 		Map<String, Obs> members = new HashMap<String, Obs>();
 		obs.getGroupMembers().stream().forEach(o -> {
-			immunizationConcepts.stream().forEach(refTerm -> {
-				if (o.getConcept().equals(concept(refTerm))) {
-					members.put(refTerm, o);
-					
-				}
-			});
+			String refTerm = refTermsByConceptId.get(o.getConcept().getConceptId());
+			if (refTerm != null) {
+				members.put(refTerm, o);
+			}
 		});
 		return members;
 	}
 	
+	private void invalidateMetadata() {
+		encounterTypeId = null;
+		encounterRoleId = null;
+	}
+	
+	private ConceptSnapshot getConceptSnapshot() {
+		ConceptSnapshot snapshot = conceptSnapshot;
+		if (snapshot == null || snapshot.isExpired()) {
+			Map<String, Integer> conceptIdsByRefTerm = new HashMap<>();
+			conceptIdsByRefTerm.put(immunizationGroupingConcept, resolveConcept(immunizationGroupingConcept).getConceptId());
+			immunizationConcepts
+			        .forEach(refTerm -> conceptIdsByRefTerm.put(refTerm, resolveConcept(refTerm).getConceptId()));
+			
+			snapshot = new ConceptSnapshot(conceptIdsByRefTerm);
+			conceptSnapshot = snapshot;
+		}
+		
+		return snapshot;
+	}
+	
+	private Concept resolveConcept(String refTerm) throws InvalidRequestException {
+		String errMsg = "The Immunization resource requires a concept mapped to '" + refTerm
+		        + "', however either multiple concepts are mapped to that term or not concepts are mapped to that term.";
+		String[] mapping = refTerm.split(":");
+		return Optional.ofNullable(conceptService.getConceptByMapping(mapping[1], mapping[0]))
+		        .orElseThrow(() -> new InvalidRequestException(errMsg, createExceptionErrorOperationOutcome(errMsg)));
+	}
+	
+	private static final class ConceptSnapshot {
+		
+		private final Map<String, Integer> conceptIdsByRefTerm;
+		
+		// only the members of the obs group, not the grouping concept
+		private final Map<Integer, String> refTermsByConceptId;
+		
+		private final long expiresAt = System.nanoTime() + TimeUnit.MINUTES.toNanos(EXPIRE_AFTER_WRITE_MINUTES);
+		
+		private ConceptSnapshot(Map<String, Integer> conceptIdsByRefTerm) {
+			this.conceptIdsByRefTerm = Collections.unmodifiableMap(conceptIdsByRefTerm);
+			
+			Map<Integer, String> refTermsByConceptId = new HashMap<>();
+			immunizationConcepts.forEach(refTerm -> refTermsByConceptId.put(conceptIdsByRefTerm.get(refTerm), refTerm));
+			this.refTermsByConceptId = Collections.unmodifiableMap(refTermsByConceptId);
+		}
+		
+		private boolean isExpired() {
+			return System.nanoTime() - expiresAt >= 0;
+		}
+	}
 }
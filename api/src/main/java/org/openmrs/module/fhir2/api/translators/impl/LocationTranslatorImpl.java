@@ -13,13 +13,17 @@ import static org.apache.commons.lang3.Validate.notNull;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 import lombok.AccessLevel;
 import lombok.Setter;
 import org.apache.commons.lang.math.NumberUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.ContactPoint;
 import org.hl7.fhir.r4.model.Location;
@@ -30,6 +34,7 @@ import org.openmrs.LocationTag;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirLocationDao;
+import org.openmrs.module.fhir2.api.translators.BatchToFhirTranslator;
 import org.openmrs.module.fhir2.api.translators.LocationAddressTranslator;
 import org.openmrs.module.fhir2.api.translators.LocationTranslator;
 import org.openmrs.module.fhir2.api.translators.ProvenanceTranslator;
@@ -39,7 +44,8 @@ import org.springframework.stereotype.Component;
 
 @Component
 @Setter(AccessLevel.PACKAGE)
-public class LocationTranslatorImpl extends BaseReferenceHandlingTranslator implements LocationTranslator {
+public class LocationTranslatorImpl extends BaseReferenceHandlingTranslator
+		implements LocationTranslator, BatchToFhirTranslator<org.openmrs.Location, Location> {
 	
 	@Autowired
 	private LocationAddressTranslator locationAddressTranslator;
@@ -63,6 +69,26 @@ public class LocationTranslatorImpl extends BaseReferenceHandlingTranslator impl
 	public Location toFhirResource(@Nonnull org.openmrs.Location openmrsLocation) {
 		notNull(openmrsLocation, "The Openmrs Location object should not be null");
 		
+		return toFhirResource(openmrsLocation, getLocationContactDetails(openmrsLocation));
+	}
+	
+	@Override
+	public List<Location> toFhirResources(@Nonnull Collection<org.openmrs.Location> openmrsLocations) {
+		String contactPointAttributeTypeUuid = propertyService
+		        .getGlobalProperty(FhirConstants.LOCATION_CONTACT_POINT_ATTRIBUTE_TYPE);
+		Map<Integer, List<LocationAttribute>> contactPointAttributes = StringUtils.isBlank(contactPointAttributeTypeUuid)
+		        ? Collections.emptyMap()
+		        : fhirLocationDao.getActiveAttributesByLocationsAndAttributeTypeUuid(openmrsLocations,
+		            contactPointAttributeTypeUuid);
+		
+		return openmrsLocations.stream()
+		        .map(openmrsLocation -> toFhirResource(openmrsLocation,
+		            contactPointAttributes.getOrDefault(openmrsLocation.getId(), Collections.emptyList()).stream()
+		                    .map(telecomTranslator::toFhirResource).collect(Collectors.toList())))
+		        .collect(Collectors.toList());
+	}
+	
+	private Location toFhirResource(org.openmrs.Location openmrsLocation, List<ContactPoint> contactPoints) {
 		Location fhirLocation = new Location();
 		Location.LocationPositionComponent position = new Location.LocationPositionComponent();
 		fhirLocation.setId(openmrsLocation.getUuid());
@@ -90,7 +116,7 @@ public class LocationTranslatorImpl extends BaseReferenceHandlingTranslator impl
 			fhirLocation.setStatus(Location.LocationStatus.INACTIVE);
 		}
 		
-		fhirLocation.setTelecom(getLocationContactDetails(openmrsLocation));
+		fhirLocation.setTelecom(contactPoints);
 		
 		if (openmrsLocation.getTags() != null) {
 			for (LocationTag tag : openmrsLocation.getTags()) {
@@ -177,6 +203,7 @@ public class LocationTranslatorImpl extends BaseReferenceHandlingTranslator impl
 			throw new IllegalArgumentException("Reference must be to a Location not a " + location.getType());
 		}
 		
-		return getReferenceId(location).map(uuid -> fhirLocationDao.get(uuid)).orElse(null);
+		return getReferenceId(location).map(uuid -> ReferenceResolutionContext.resolve(FhirConstants.LOCATION, uuid,
+		    org.openmrs.Location.class, fhirLocationDao::get)).orElse(null);
 	}
 }
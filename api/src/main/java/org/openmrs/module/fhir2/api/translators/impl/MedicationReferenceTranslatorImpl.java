@@ -47,6 +47,8 @@ public class MedicationReferenceTranslatorImpl extends BaseReferenceHandlingTran
 			        "Reference must be a Medication not a " + getReferenceType(reference).orElse(""));
 		}
 		
-		return getReferenceId(reference).map(uuid -> medicationDao.get(uuid)).orElse(null);
+		return getReferenceId(reference)
+		        .map(uuid -> ReferenceResolutionContext.resolve(FhirConstants.MEDICATION, uuid, Drug.class, medicationDao::get))
+		        .orElse(null);
 	}
 }
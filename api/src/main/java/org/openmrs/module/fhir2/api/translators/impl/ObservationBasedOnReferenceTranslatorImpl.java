@@ -14,6 +14,7 @@ import javax.annotation.Nonnull;
 import lombok.AccessLevel;
 import lombok.Setter;
 import org.hl7.fhir.r4.model.Reference;
+import org.openmrs.DrugOrder;
 import org.openmrs.Order;
 import org.openmrs.TestOrder;
 import org.openmrs.module.fhir2.FhirConstants;
@@ -57,9 +58,10 @@ public class ObservationBasedOnReferenceTranslatorImpl extends BaseReferenceHand
 		return getReferenceId(reference).map(uuid -> {
 			switch (reference.getType()) {
 				case FhirConstants.MEDICATION_REQUEST:
-					return medicationRequestDao.get(uuid);
+					return ReferenceResolutionContext.resolve(FhirConstants.MEDICATION_REQUEST, uuid, DrugOrder.class,
+					    medicationRequestDao::get);
 				case FhirConstants.SERVICE_REQUEST:
-					return serviceRequestDao.get(uuid);
+					return ReferenceResolutionContext.resolve(FhirConstants.SERVICE_REQUEST, uuid, TestOrder.class, serviceRequestDao::get);
 				default:
 					return null;
 			}
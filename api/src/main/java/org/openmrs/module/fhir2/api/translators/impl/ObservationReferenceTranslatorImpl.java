@@ -48,6 +48,8 @@ public class ObservationReferenceTranslatorImpl extends BaseReferenceHandlingTra
 			        "Reference must be to an Observation not a " + getReferenceType(obsReference).orElse(""));
 		}
 		
-		return getReferenceId(obsReference).map(uuid -> observationDao.get(uuid)).orElse(null);
+		return getReferenceId(obsReference)
+		        .map(uuid -> ReferenceResolutionContext.resolve(FhirConstants.OBSERVATION, uuid, Obs.class, observationDao::get))
+		        .orElse(null);
 	}
 }
@@ -13,20 +13,26 @@ import static org.apache.commons.lang3.Validate.notNull;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
 import java.util.function.Supplier;
 
 import lombok.AccessLevel;
 import lombok.Setter;
+import org.hibernate.Hibernate;
 import org.hibernate.proxy.HibernateProxy;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Reference;
 import org.openmrs.Concept;
+import org.openmrs.ConceptMap;
 import org.openmrs.ConceptNumeric;
 import org.openmrs.Encounter;
 import org.openmrs.Obs;
 import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
 import org.openmrs.Person;
+import org.openmrs.User;
 import org.openmrs.api.db.hibernate.HibernateUtil;
+import org.openmrs.module.fhir2.api.dao.FhirObservationDao;
 import org.openmrs.module.fhir2.api.translators.ConceptTranslator;
 import org.openmrs.module.fhir2.api.translators.EncounterReferenceTranslator;
 import org.openmrs.module.fhir2.api.translators.ObservationBasedOnReferenceTranslator;
@@ -38,6 +44,7 @@ import org.openmrs.module.fhir2.api.translators.ObservationReferenceTranslator;
 import org.openmrs.module.fhir2.api.translators.ObservationStatusTranslator;
 import org.openmrs.module.fhir2.api.translators.ObservationTranslator;
 import org.openmrs.module.fhir2.api.translators.ObservationValueTranslator;
+import org.openmrs.module.fhir2.api.translators.ParallelToFhirTranslator;
 import org.openmrs.module.fhir2.api.translators.PatientReferenceTranslator;
 import org.openmrs.module.fhir2.api.translators.ProvenanceTranslator;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,7 +52,7 @@ import org.springframework.stereotype.Component;
 
 @Component
 @Setter(AccessLevel.PACKAGE)
-public class ObservationTranslatorImpl implements ObservationTranslator {
+public class ObservationTranslatorImpl implements ObservationTranslator, ParallelToFhirTranslator<Obs, Observation> {
 	
 	@Autowired
 	private ObservationStatusTranslator observationStatusTranslator;
@@ -83,6 +90,9 @@ public class ObservationTranslatorImpl implements ObservationTranslator {
 	@Autowired
 	private ObservationEffectiveDatetimeTranslator datetimeTranslator;
 	
+	@Autowired
+	private FhirObservationDao observationDao;
+	
 	@Override
 	public Observation toFhirResource(@Nonnull Obs observation) {
 		notNull(observation, "The Obs object should not be null");
@@ -137,6 +147,54 @@ public class ObservationTranslatorImpl implements ObservationTranslator {
 		return obs;
 	}
 	
+	@Override
+	public void initialize(@Nonnull Collection<Obs> observations) {
+		observationDao.fetchAssociations(observations);
+		
+		// everything is now in the session, so this only unwraps the proxies without querying
+		for (Obs observation : observations) {
+			Hibernate.initialize(observation.getEncounter());
+			Hibernate.initialize(observation.getOrder());
+			Hibernate.initialize(observation.getGroupMembers(true));
+			
+			Person person = observation.getPerson();
+			if (person != null) {
+				person = HibernateUtil.getRealObjectFromProxy(person);
+				Hibernate.initialize(person.getNames());
+				if (person instanceof Patient) {
+					for (PatientIdentifier identifier : ((Patient) person).getIdentifiers()) {
+						Hibernate.initialize(identifier.getIdentifierType());
+					}
+				}
+			}
+			
+			initializeConcept(observation.getConcept());
+			initializeConcept(observation.getValueCoded());
+			initializeUser(observation.getCreator());
+			initializeUser(observation.getChangedBy());
+		}
+	}
+	
+	private static void initializeConcept(Concept concept) {
+		if (concept == null) {
+			return;
+		}
+		
+		Hibernate.initialize(concept);
+		Hibernate.initialize(concept.getConceptClass());
+		Hibernate.initialize(concept.getDatatype());
+		Hibernate.initialize(concept.getNames());
+		for (ConceptMap mapping : concept.getConceptMappings()) {
+			Hibernate.initialize(mapping.getConceptReferenceTerm().getConceptSource());
+		}
+	}
+	
+	private static void initializeUser(User user) {
+		if (user != null && user.getPerson() != null) {
+			Hibernate.initialize(user.getPerson().getNames());
+		}
+	}
+	
 	@Override
 	public Obs toOpenmrsType(@Nonnull Observation fhirObservation) {
 		notNull(fhirObservation, "The Observation object should not be null");
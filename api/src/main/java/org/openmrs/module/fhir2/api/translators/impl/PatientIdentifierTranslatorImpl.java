@@ -17,6 +17,7 @@ import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Identifier;
 import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.Type;
+import org.openmrs.Location;
 import org.openmrs.PatientIdentifier;
 import org.openmrs.PatientIdentifierType;
 import org.openmrs.module.fhir2.FhirConstants;
@@ -100,7 +101,8 @@ public class PatientIdentifierTranslatorImpl extends BaseReferenceHandlingTransl
 			        .getExtensionByUrl(FhirConstants.OPENMRS_FHIR_EXT_PATIENT_IDENTIFIER_LOCATION).getValue();
 			
 			if (identifierLocationType instanceof Reference) {
-				getReferenceId((Reference) identifierLocationType).map(uuid -> locationDao.get(uuid))
+				getReferenceId((Reference) identifierLocationType).map(
+				    uuid -> ReferenceResolutionContext.resolve(FhirConstants.LOCATION, uuid, Location.class, locationDao::get))
 				        .ifPresent(patientIdentifier::setLocation);
 			}
 		}
@@ -48,6 +48,8 @@ public class PatientReferenceTranslatorImpl extends BaseReferenceHandlingTransla
 			        "Reference must be to an Patient not a " + getReferenceType(patient).orElse(""));
 		}
 		
-		return getReferenceId(patient).map(uuid -> patientDao.get(uuid)).orElse(null);
+		return getReferenceId(patient)
+		        .map(uuid -> ReferenceResolutionContext.resolve(FhirConstants.PATIENT, uuid, Patient.class, patientDao::get))
+		        .orElse(null);
 	}
 }
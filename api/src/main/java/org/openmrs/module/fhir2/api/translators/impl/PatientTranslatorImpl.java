@@ -15,13 +15,17 @@ import javax.annotation.Nonnull;
 
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
 import lombok.AccessLevel;
 import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.r4.model.Address;
 import org.hl7.fhir.r4.model.BooleanType;
@@ -39,6 +43,7 @@ import org.openmrs.PersonName;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirPersonDao;
+import org.openmrs.module.fhir2.api.translators.BatchToFhirTranslator;
 import org.openmrs.module.fhir2.api.translators.GenderTranslator;
 import org.openmrs.module.fhir2.api.translators.PatientIdentifierTranslator;
 import org.openmrs.module.fhir2.api.translators.PatientTranslator;
@@ -51,7 +56,7 @@ import org.springframework.stereotype.Component;
 
 @Component
 @Setter(AccessLevel.PACKAGE)
-public class PatientTranslatorImpl implements PatientTranslator {
+public class PatientTranslatorImpl implements PatientTranslator, BatchToFhirTranslator<org.openmrs.Patient, Patient> {
 	
 	@Autowired
 	private PatientIdentifierTranslator identifierTranslator;
@@ -81,6 +86,26 @@ public class PatientTranslatorImpl implements PatientTranslator {
 	public Patient toFhirResource(@Nonnull org.openmrs.Patient openmrsPatient) {
 		notNull(openmrsPatient, "The Openmrs Patient object should not be null");
 		
+		return toFhirResource(openmrsPatient, getPatientContactDetails(openmrsPatient));
+	}
+	
+	@Override
+	public List<Patient> toFhirResources(@Nonnull Collection<org.openmrs.Patient> openmrsPatients) {
+		String contactPointAttributeTypeUuid = globalPropertyService
+		        .getGlobalProperty(FhirConstants.PERSON_CONTACT_POINT_ATTRIBUTE_TYPE);
+		Map<Integer, List<PersonAttribute>> contactPointAttributes = StringUtils.isBlank(contactPointAttributeTypeUuid)
+		        ? Collections.emptyMap()
+		        : fhirPersonDao.getActiveAttributesByPersonsAndAttributeTypeUuid(openmrsPatients,
+		            contactPointAttributeTypeUuid);
+		
+		return openmrsPatients.stream()
+		        .map(openmrsPatient -> toFhirResource(openmrsPatient,
+		            contactPointAttributes.getOrDefault(openmrsPatient.getId(), Collections.emptyList()).stream()
+		                    .map(telecomTranslator::toFhirResource).collect(Collectors.toList())))
+		        .collect(Collectors.toList());
+	}
+	
+	private Patient toFhirResource(org.openmrs.Patient openmrsPatient, List<ContactPoint> contactPoints) {
 		Patient patient = new Patient();
 		patient.setId(openmrsPatient.getUuid());
 		patient.setActive(!openmrsPatient.getVoided());
@@ -131,7 +156,7 @@ public class PatientTranslatorImpl implements PatientTranslator {
 		for (PersonAddress address : openmrsPatient.getAddresses()) {
 			patient.addAddress(addressTranslator.toFhirResource(address));
 		}
-		patient.setTelecom(getPatientContactDetails(openmrsPatient));
+		patient.setTelecom(contactPoints);
 		patient.getMeta().setLastUpdated(openmrsPatient.getDateChanged());
 		patient.addContained(provenanceTranslator.getCreateProvenance(openmrsPatient));
 		patient.addContained(provenanceTranslator.getUpdateProvenance(openmrsPatient));
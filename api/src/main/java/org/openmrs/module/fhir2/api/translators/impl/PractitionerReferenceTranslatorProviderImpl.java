@@ -46,6 +46,7 @@ public class PractitionerReferenceTranslatorProviderImpl extends BaseReferenceHa
 			throw new IllegalArgumentException("Reference must be to an Provider not a " + getReferenceType(reference));
 		}
 		
-		return getReferenceId(reference).map(uuid -> practitionerDao.get(uuid)).orElse(null);
+		return getReferenceId(reference).map(uuid -> ReferenceResolutionContext.resolve(FhirConstants.PRACTITIONER, uuid,
+		    Provider.class, practitionerDao::get)).orElse(null);
 	}
 }
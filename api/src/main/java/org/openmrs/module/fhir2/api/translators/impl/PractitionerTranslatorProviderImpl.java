@@ -14,12 +14,16 @@ import static org.apache.commons.lang3.Validate.notNull;
 
 import javax.annotation.Nonnull;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 import lombok.AccessLevel;
 import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
 import org.hl7.fhir.r4.model.Address;
 import org.hl7.fhir.r4.model.ContactPoint;
 import org.hl7.fhir.r4.model.HumanName;
@@ -34,6 +38,7 @@ import org.openmrs.ProviderAttribute;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirPractitionerDao;
+import org.openmrs.module.fhir2.api.translators.BatchToFhirTranslator;
 import org.openmrs.module.fhir2.api.translators.GenderTranslator;
 import org.openmrs.module.fhir2.api.translators.PersonAddressTranslator;
 import org.openmrs.module.fhir2.api.translators.PersonNameTranslator;
@@ -45,7 +50,8 @@ import org.springframework.stereotype.Component;
 
 @Component
 @Setter(AccessLevel.PACKAGE)
-public class PractitionerTranslatorProviderImpl implements PractitionerTranslator<Provider> {
+public class PractitionerTranslatorProviderImpl
+		implements PractitionerTranslator<Provider>, BatchToFhirTranslator<Provider, Practitioner> {
 	
 	@Autowired
 	private PersonNameTranslator nameTranslator;
@@ -105,6 +111,26 @@ public class PractitionerTranslatorProviderImpl implements PractitionerTranslato
 	public Practitioner toFhirResource(@Nonnull Provider provider) {
 		notNull(provider, "The Provider object should not be null");
 		
+		return toFhirResource(provider, getProviderContactDetails(provider));
+	}
+	
+	@Override
+	public List<Practitioner> toFhirResources(@Nonnull Collection<Provider> providers) {
+		String contactPointAttributeTypeUuid = globalPropertyService
+		        .getGlobalProperty(FhirConstants.PROVIDER_CONTACT_POINT_ATTRIBUTE_TYPE);
+		Map<Integer, List<ProviderAttribute>> contactPointAttributes = StringUtils.isBlank(contactPointAttributeTypeUuid)
+		        ? Collections.emptyMap()
+		        : fhirPractitionerDao.getActiveAttributesByPractitionersAndAttributeTypeUuid(providers,
+		            contactPointAttributeTypeUuid);
+		
+		return providers.stream()
+		        .map(provider -> toFhirResource(provider,
+		            contactPointAttributes.getOrDefault(provider.getId(), Collections.emptyList()).stream()
+		                    .map(telecomTranslator::toFhirResource).collect(Collectors.toList())))
+		        .collect(Collectors.toList());
+	}
+	
+	private Practitioner toFhirResource(Provider provider, List<ContactPoint> contactPoints) {
 		Practitioner practitioner = new Practitioner();
 		Identifier identifier = new Identifier();
 		identifier.setSystem(FhirConstants.OPENMRS_FHIR_EXT_PROVIDER_IDENTIFIER);
@@ -113,7 +139,7 @@ public class PractitionerTranslatorProviderImpl implements PractitionerTranslato
 		
 		practitioner.setId(provider.getUuid());
 		practitioner.setActive(provider.getRetired());
-		practitioner.setTelecom(getProviderContactDetails(provider));
+		practitioner.setTelecom(contactPoints);
 		
 		if (provider.getPerson() != null) {
 			practitioner.setBirthDate(provider.getPerson().getBirthdate());
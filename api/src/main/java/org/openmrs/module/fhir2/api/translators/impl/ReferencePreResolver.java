@@ -0,0 +1,244 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.translators.impl;
+
+import javax.annotation.Nonnull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.AllergyIntolerance;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.DiagnosticReport;
+import org.hl7.fhir.r4.model.Encounter;
+import org.hl7.fhir.r4.model.Medication;
+import org.hl7.fhir.r4.model.MedicationRequest;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Reference;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.TestOrder;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirConceptService;
+import org.openmrs.module.fhir2.api.FhirConceptSourceService;
+import org.openmrs.module.fhir2.api.dao.FhirDao;
+import org.openmrs.module.fhir2.api.dao.FhirEncounterDao;
+import org.openmrs.module.fhir2.api.dao.FhirLocationDao;
+import org.openmrs.module.fhir2.api.dao.FhirMedicationDao;
+import org.openmrs.module.fhir2.api.dao.FhirMedicationRequestDao;
+import org.openmrs.module.fhir2.api.dao.FhirObservationDao;
+import org.openmrs.module.fhir2.api.dao.FhirPatientDao;
+import org.openmrs.module.fhir2.api.dao.FhirPractitionerDao;
+import org.openmrs.module.fhir2.api.dao.FhirServiceRequestDao;
+import org.openmrs.module.fhir2.api.util.FhirUtils;
+import org.openmrs.module.fhir2.model.FhirConceptSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the OpenMRS objects referred to by an incoming FHIR resource before it is translated. The
+ * references and codings in the elements the translator of the resource reads are collected and
+ * loaded with one query per referenced type, concept source and for concepts referred to by uuid, so
+ * that translators do not look each reference up separately. Other elements, such as contained
+ * resources, are left alone, so nothing is loaded that the translation would not load itself.
+ * Resources of types not listed in {@link #READ_ELEMENTS} are translated without pre-resolution.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class ReferencePreResolver {
+	
+	// the elements holding the references and codings each resource translator reads
+	private static final Map<Class<?>, Function<IBaseResource, List<Object>>> READ_ELEMENTS = new HashMap<>();
+	
+	static {
+		readElements(Observation.class, observation -> Arrays.asList(observation.getSubject(), observation.getEncounter(),
+		    observation.getCode(), observation.getValue(), observation.getHasMember(), observation.getBasedOn()));
+		readElements(DiagnosticReport.class, diagnosticReport -> Arrays.asList(diagnosticReport.getSubject(),
+		    diagnosticReport.getEncounter(), diagnosticReport.getCode(), diagnosticReport.getResult()));
+		readElements(Encounter.class, encounter -> Arrays.asList(encounter.getSubject(), encounter.getPartOf(),
+		    encounter.getLocation().stream().limit(1).map(Encounter.EncounterLocationComponent::getLocation)
+		            .collect(Collectors.toList()),
+		    encounter.getParticipant().stream().map(Encounter.EncounterParticipantComponent::getIndividual)
+		            .collect(Collectors.toList())));
+		readElements(MedicationRequest.class,
+		    medicationRequest -> Arrays.asList(medicationRequest.getSubject(), medicationRequest.getEncounter(),
+		        medicationRequest.getMedication(), medicationRequest.getRequester(),
+		        medicationRequest.getReasonCode().stream().limit(1).collect(Collectors.toList())));
+		readElements(Medication.class, medication -> Arrays.asList(medication.getCode(), medication.getForm(),
+		    medication.getIngredient().stream().map(Medication.MedicationIngredientComponent::getItem)
+		            .collect(Collectors.toList())));
+		readElements(AllergyIntolerance.class, allergy -> Arrays.asList(allergy.getPatient(), allergy.getRecorder(),
+		    allergy.getCode(), allergy.getReaction().stream()
+		            .map(AllergyIntolerance.AllergyIntoleranceReactionComponent::getManifestation)
+		            .collect(Collectors.toList())));
+	}
+	
+	@Autowired
+	private FhirPatientDao patientDao;
+	
+	@Autowired
+	private FhirEncounterDao encounterDao;
+	
+	@Autowired
+	private FhirPractitionerDao practitionerDao;
+	
+	@Autowired
+	private FhirObservationDao observationDao;
+	
+	@Autowired
+	private FhirLocationDao locationDao;
+	
+	@Autowired
+	private FhirMedicationDao medicationDao;
+	
+	@Autowired
+	private FhirMedicationRequestDao medicationRequestDao;
+	
+	@Autowired
+	private FhirServiceRequestDao<TestOrder> serviceRequestDao;
+	
+	@Autowired
+	private FhirConceptService conceptService;
+	
+	@Autowired
+	private FhirConceptSourceService conceptSourceService;
+	
+	/**
+	 * Translates a FHIR resource with the objects it refers to loaded up front. Calls may be nested,
+	 * in which case the objects referred to by all resources remain available until the outermost call
+	 * returns.
+	 *
+	 * @param resource the resource about to be translated
+	 * @param translation translates the resource
+	 * @return the result of the translation
+	 */
+	public <R> R withPreResolvedReferences(@Nonnull IBaseResource resource, @Nonnull Supplier<R> translation) {
+		ReferenceResolutionContext context = ReferenceResolutionContext.current();
+		boolean opened = context == null;
+		if (opened) {
+			context = ReferenceResolutionContext.open();
+		}
+		
+		try {
+			preResolve(resource, context);
+			return translation.get();
+		}
+		finally {
+			if (opened) {
+				context.close();
+			}
+		}
+	}
+	
+	private static <T extends IBaseResource> void readElements(Class<T> resourceType,
+	        Function<T, List<Object>> elements) {
+		READ_ELEMENTS.put(resourceType, resource -> elements.apply(resourceType.cast(resource)));
+	}
+	
+	private void preResolve(IBaseResource resource, ReferenceResolutionContext context) {
+		Function<IBaseResource, List<Object>> readElements = READ_ELEMENTS.get(resource.getClass());
+		if (readElements == null) {
+			return;
+		}
+		
+		List<Reference> references = new ArrayList<>();
+		List<Coding> codings = new ArrayList<>();
+		collect(readElements.apply(resource), references, codings);
+		
+		Map<String, Set<String>> idsByType = new HashMap<>();
+		for (Reference reference : references) {
+			Optional<String> type = FhirUtils.getReferenceType(reference);
+			Optional<String> id = FhirUtils.referenceToId(reference.getReference());
+			if (type.isPresent() && id.isPresent()) {
+				idsByType.computeIfAbsent(type.get(), k -> new HashSet<>()).add(id.get());
+			}
+		}
+		
+		idsByType.forEach((type, ids) -> getDao(type).ifPresent(dao -> {
+			for (OpenmrsObject object : dao.get(ids)) {
+				context.put(type, object.getUuid(), object);
+			}
+		}));
+		
+		Set<String> conceptUuids = new HashSet<>();
+		Map<String, Set<String>> codesBySystem = new HashMap<>();
+		for (Coding coding : codings) {
+			if (!coding.hasCode()) {
+				continue;
+			}
+			
+			if (coding.hasSystem()) {
+				codesBySystem.computeIfAbsent(coding.getSystem(), k -> new HashSet<>()).add(coding.getCode());
+			} else {
+				conceptUuids.add(coding.getCode());
+			}
+		}
+		
+		if (!conceptUuids.isEmpty()) {
+			conceptService.get(conceptUuids)
+			        .forEach(concept -> context.put(ReferenceResolutionContext.CONCEPT, concept.getUuid(), concept));
+		}
+		
+		codesBySystem.forEach((system, codes) -> conceptSourceService.getFhirConceptSourceByUrl(system)
+		        .map(FhirConceptSource::getConceptSource).ifPresent(conceptSource -> {
+			        String sourceName = conceptSource.getName();
+			        conceptService.getConceptsBySourceNameAndCodes(sourceName, codes).forEach((code,
+			                concept) -> context.put(ReferenceResolutionContext.CONCEPT, sourceName + "|" + code, concept));
+		        }));
+	}
+	
+	private static void collect(Collection<?> elements, List<Reference> references, List<Coding> codings) {
+		for (Object element : elements) {
+			if (element instanceof Collection) {
+				collect((Collection<?>) element, references, codings);
+			} else if (element instanceof Reference && ((Reference) element).hasReference()) {
+				references.add((Reference) element);
+			} else if (element instanceof CodeableConcept) {
+				codings.addAll(((CodeableConcept) element).getCoding());
+			}
+		}
+	}
+	
+	private Optional<FhirDao<? extends OpenmrsObject>> getDao(String type) {
+		switch (type) {
+			case FhirConstants.PATIENT:
+				return Optional.of(patientDao);
+			case FhirConstants.ENCOUNTER:
+				return Optional.of(encounterDao);
+			case FhirConstants.PRACTITIONER:
+				return Optional.of(practitionerDao);
+			case FhirConstants.OBSERVATION:
+				return Optional.of(observationDao);
+			case FhirConstants.LOCATION:
+				return Optional.of(locationDao);
+			case FhirConstants.MEDICATION:
+				return Optional.of(medicationDao);
+			case FhirConstants.MEDICATION_REQUEST:
+				return Optional.of(medicationRequestDao);
+			case FhirConstants.SERVICE_REQUEST:
+				return Optional.of(serviceRequestDao);
+			default:
+				return Optional.empty();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.translators.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Holds the OpenMRS objects referred to by the FHIR resource currently being translated, as loaded in
+ * bulk by {@link ReferencePreResolver}. Translators look references up here first and only query for
+ * references which were not loaded up front.
+ */
+final class ReferenceResolutionContext {
+	
+	static final String CONCEPT = "Concept";
+	
+	private static final ThreadLocal<ReferenceResolutionContext> CURRENT = new ThreadLocal<>();
+	
+	private final Map<String, Object> resolved = new HashMap<>();
+	
+	private ReferenceResolutionContext() {
+	}
+	
+	static ReferenceResolutionContext current() {
+		return CURRENT.get();
+	}
+	
+	static ReferenceResolutionContext open() {
+		ReferenceResolutionContext context = new ReferenceResolutionContext();
+		CURRENT.set(context);
+		return context;
+	}
+	
+	void close() {
+		CURRENT.remove();
+	}
+	
+	void put(String type, String id, Object value) {
+		resolved.put(key(type, id), value);
+	}
+	
+	/**
+	 * Returns the object loaded up front for the given reference if there is one of the expected type,
+	 * otherwise loads it with the given loader
+	 *
+	 * @param type the FHIR resource type of the reference, or {@link #CONCEPT} for codings
+	 * @param id the id of the reference
+	 * @param expectedType the OpenMRS type the reference should resolve to
+	 * @param loader loads the object when it was not loaded up front
+	 * @return the referenced object or null if it does not exist
+	 */
+	static <T> T resolve(String type, String id, Class<T> expectedType, Function<String, T> loader) {
+		ReferenceResolutionContext context = CURRENT.get();
+		if (context != null) {
+			Object value = context.resolved.get(key(type, id));
+			if (expectedType.isInstance(value)) {
+				return expectedType.cast(value);
+			}
+		}
+		
+		return loader.apply(id);
+	}
+	
+	private static String key(String type, String id) {
+		return type + "/" + id;
+	}
+}
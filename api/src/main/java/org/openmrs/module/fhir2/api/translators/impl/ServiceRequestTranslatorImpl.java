@@ -15,42 +15,33 @@ import javax.annotation.Nonnull;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
-import ca.uhn.fhir.rest.api.server.IBundleProvider;
-import ca.uhn.fhir.rest.param.ReferenceAndListParam;
-import ca.uhn.fhir.rest.param.ReferenceOrListParam;
-import ca.uhn.fhir.rest.param.ReferenceParam;
 import lombok.AccessLevel;
 import lombok.Setter;
 import org.hl7.fhir.r4.model.Period;
-import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.ServiceRequest;
-import org.hl7.fhir.r4.model.Task;
 import org.openmrs.Encounter;
 import org.openmrs.Order;
 import org.openmrs.Provider;
 import org.openmrs.TestOrder;
-import org.openmrs.module.fhir2.api.FhirTaskService;
+import org.openmrs.module.fhir2.api.translators.BatchToFhirTranslator;
 import org.openmrs.module.fhir2.api.translators.ConceptTranslator;
 import org.openmrs.module.fhir2.api.translators.EncounterReferenceTranslator;
 import org.openmrs.module.fhir2.api.translators.OrderIdentifierTranslator;
 import org.openmrs.module.fhir2.api.translators.PatientReferenceTranslator;
 import org.openmrs.module.fhir2.api.translators.PractitionerReferenceTranslator;
 import org.openmrs.module.fhir2.api.translators.ServiceRequestTranslator;
+import org.openmrs.module.fhir2.model.FhirTask;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 @Setter(AccessLevel.PACKAGE)
-public class ServiceRequestTranslatorImpl extends BaseReferenceHandlingTranslator implements ServiceRequestTranslator<TestOrder> {
-	
-	private static final int START_INDEX = 0;
-	
-	private static final int END_INDEX = 10;
-	
-	@Autowired
-	private FhirTaskService taskService;
+public class ServiceRequestTranslatorImpl extends BaseServiceRequestTranslatorImpl
+		implements ServiceRequestTranslator<TestOrder>, BatchToFhirTranslator<TestOrder, ServiceRequest> {
 	
 	@Autowired
 	private ConceptTranslator conceptTranslator;
@@ -71,11 +62,24 @@ public class ServiceRequestTranslatorImpl extends BaseReferenceHandlingTranslato
 	public ServiceRequest toFhirResource(@Nonnull TestOrder order) {
 		notNull(order, "The TestOrder object should not be null");
 		
+		return toFhirResource(order, getServiceRequestTasks(Collections.singleton(order.getUuid())).get(order.getUuid()));
+	}
+	
+	@Override
+	public List<ServiceRequest> toFhirResources(@Nonnull Collection<TestOrder> orders) {
+		Map<String, List<FhirTask>> tasks = getServiceRequestTasks(
+		    orders.stream().map(TestOrder::getUuid).collect(Collectors.toList()));
+		
+		return orders.stream().map(order -> toFhirResource(order, tasks.get(order.getUuid())))
+		        .collect(Collectors.toList());
+	}
+	
+	private ServiceRequest toFhirResource(TestOrder order, List<FhirTask> tasks) {
 		ServiceRequest serviceRequest = new ServiceRequest();
 		
 		serviceRequest.setId(order.getUuid());
 		
-		serviceRequest.setStatus(determineServiceRequestStatus(order.getUuid()));
+		serviceRequest.setStatus(determineServiceRequestStatus(tasks));
 		
 		serviceRequest.setCode(conceptTranslator.toFhirResource(order.getConcept()));
 		
@@ -87,7 +91,7 @@ public class ServiceRequestTranslatorImpl extends BaseReferenceHandlingTranslato
 		
 		serviceRequest.setRequester(providerReferenceTranslator.toFhirResource(order.getOrderer()));
 		
-		serviceRequest.setPerformer(Collections.singletonList(determineServiceRequestPerformer(order.getUuid())));
+		serviceRequest.setPerformer(Collections.singletonList(determineServiceRequestPerformer(tasks)));
 		
 		serviceRequest
 		        .setOccurrence(new Period().setStart(order.getEffectiveStartDate()).setEnd(order.getEffectiveStopDate()));
@@ -110,57 +114,4 @@ public class ServiceRequestTranslatorImpl extends BaseReferenceHandlingTranslato
 	public TestOrder toOpenmrsType(@Nonnull ServiceRequest resource) {
 		throw new UnsupportedOperationException();
 	}
-	
-	private ServiceRequest.ServiceRequestStatus determineServiceRequestStatus(String orderUuid) {
-		IBundleProvider results = taskService.searchForTasks(
-		    new ReferenceAndListParam()
-		            .addAnd(new ReferenceOrListParam().add(new ReferenceParam("ServiceRequest", null, orderUuid))),
-		    null, null, null, null, null);
-		
-		Collection<Task> serviceRequestTasks = results.getResources(START_INDEX, END_INDEX).stream().map(p -> (Task) p)
-		        .collect(Collectors.toList());
-		
-		ServiceRequest.ServiceRequestStatus serviceRequestStatus = ServiceRequest.ServiceRequestStatus.UNKNOWN;
-		
-		if (serviceRequestTasks.size() != 1) {
-			return serviceRequestStatus;
-		}
-		
-		Task serviceRequestTask = serviceRequestTasks.iterator().next();
-		
-		if (serviceRequestTask.hasStatus()) {
-			switch (serviceRequestTask.getStatus()) {
-				case ACCEPTED:
-				
-				case REQUESTED:
-					serviceRequestStatus = ServiceRequest.ServiceRequestStatus.ACTIVE;
-					break;
-				
-				case REJECTED:
-					serviceRequestStatus = ServiceRequest.ServiceRequestStatus.REVOKED;
-					break;
-				
-				case COMPLETED:
-					serviceRequestStatus = ServiceRequest.ServiceRequestStatus.COMPLETED;
-					break;
-			}
-		}
-		return serviceRequestStatus;
-	}
-	
-	private Reference determineServiceRequestPerformer(String orderUuid) {
-		IBundleProvider results = taskService.searchForTasks(
-		    new ReferenceAndListParam()
-		            .addAnd(new ReferenceOrListParam().add(new ReferenceParam("ServiceRequest", null, orderUuid))),
-		    null, null, null, null, null);
-		
-		Collection<Task> serviceRequestTasks = results.getResources(START_INDEX, END_INDEX).stream().map(p -> (Task) p)
-		        .collect(Collectors.toList());
-		
-		if (serviceRequestTasks.size() != 1) {
-			return null;
-		}
-		
-		return serviceRequestTasks.iterator().next().getOwner();
-	}
 }
@@ -0,0 +1,71 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Base class for the Liquibase changes which fill the module's index tables from the rows already in
+ * the database, using the same class which keeps those tables up to date afterwards.
+ */
+public abstract class BaseIndexChangeSet implements CustomTaskChange {
+	
+	private final String tables;
+	
+	/**
+	 * @param tables a description of the tables filled by this change, used in its messages
+	 */
+	protected BaseIndexChangeSet(String tables) {
+		this.tables = tables;
+	}
+	
+	/**
+	 * Discards and regenerates the contents of the tables filled by this change
+	 *
+	 * @param connection the connection to use
+	 */
+	protected abstract void rebuild(Connection connection) throws SQLException;
+	
+	@Override
+	public void execute(Database database) throws CustomChangeException {
+		try {
+			rebuild(((JdbcConnection) database.getConnection()).getUnderlyingConnection());
+		}
+		catch (SQLException e) {
+			throw new CustomChangeException("Unable to populate " + tables, e);
+		}
+	}
+	
+	@Override
+	public String getConfirmationMessage() {
+		return "Populated " + tables;
+	}
+	
+	@Override
+	public void setUp() {
+	}
+	
+	@Override
+	public void setFileOpener(ResourceAccessor resourceAccessor) {
+	}
+	
+	@Override
+	public ValidationErrors validate(Database database) {
+		return null;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.io.Serializable;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.event.spi.AutoFlushEvent;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.FlushEvent;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.type.Type;
+
+/**
+ * Base class for the interceptors which keep the module's index tables in step with the tables they
+ * are built from. Changes are collected as Hibernate flushes them and written once the flush
+ * completes, on the connection of the session that flushed them, so they commit or roll back
+ * together with the change itself. A failure to write them fails the flush, as on some databases it
+ * has already aborted the transaction and on others it would leave the index silently out of step.
+ * <p/>
+ * Interceptors are not told which session is being flushed, so the writes are made by this class
+ * acting as a flush listener, which is registered by {@link FlushListenerRegistrar}.
+ *
+ * @param <C> the type holding the changes collected during a flush
+ */
+public abstract class BaseIndexInterceptor<C> extends EmptyInterceptor
+        implements FlushEventListener, AutoFlushEventListener {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final transient ThreadLocal<C> pendingChanges = new ThreadLocal<>();
+	
+	private final String tables;
+	
+	/**
+	 * @param tables a description of the tables kept up to date, used when they cannot be written
+	 */
+	protected BaseIndexInterceptor(String tables) {
+		this.tables = tables;
+	}
+	
+	/**
+	 * @return a new, empty holder for the changes collected during a flush
+	 */
+	protected abstract C newPendingChanges();
+	
+	/**
+	 * Records the entity in the pending changes if it affects the index tables
+	 *
+	 * @param entity an entity which is being saved or updated
+	 */
+	protected abstract void track(Object entity);
+	
+	/**
+	 * Writes the changes collected during a flush to the index tables
+	 *
+	 * @param session the session that was flushed
+	 * @param changes the changes collected
+	 */
+	protected abstract void write(Session session, C changes);
+	
+	@Override
+	public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity);
+		return false;
+	}
+	
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+	        String[] propertyNames, Type[] types) {
+		track(entity);
+		return false;
+	}
+	
+	@Override
+	public void onFlush(FlushEvent event) {
+		write(event.getSession());
+	}
+	
+	@Override
+	public void onAutoFlush(AutoFlushEvent event) {
+		if (event.isFlushRequired()) {
+			write(event.getSession());
+		}
+	}
+	
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		pendingChanges.remove();
+	}
+	
+	/**
+	 * @return the changes collected so far during the current flush
+	 */
+	protected C getPendingChanges() {
+		C changes = pendingChanges.get();
+		if (changes == null) {
+			changes = newPendingChanges();
+			pendingChanges.set(changes);
+		}
+		
+		return changes;
+	}
+	
+	private void write(Session session) {
+		C changes = pendingChanges.get();
+		if (changes == null) {
+			return;
+		}
+		
+		pendingChanges.remove();
+		
+		try {
+			write(session, changes);
+		}
+		catch (RuntimeException e) {
+			throw new HibernateException("Unable to update " + tables, e);
+		}
+	}
+}
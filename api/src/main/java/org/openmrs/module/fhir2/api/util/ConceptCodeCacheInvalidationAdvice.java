@@ -0,0 +1,66 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.lang.reflect.Method;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.api.dao.impl.ConceptCodeResolver;
+import org.openmrs.module.fhir2.api.translators.impl.ConceptTranslatorImpl;
+import org.openmrs.module.fhir2.api.translators.impl.ImmunizationObsGroupHelper;
+import org.springframework.aop.AfterReturningAdvice;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Clears the {@link ConceptCodeResolver} cache, the concepts resolved by
+ * {@link ImmunizationObsGroupHelper} and the concepts translated by {@link ConceptTranslatorImpl} after
+ * any {@link org.openmrs.api.ConceptService} method which may change which concepts a code is mapped
+ * to. This advice is registered in the module's config.xml.
+ * <p/>
+ * As the advice runs before the surrounding transaction commits, another thread may cache the old
+ * mappings in the meantime, so the caches are cleared again once the transaction completes.
+ */
+public class ConceptCodeCacheInvalidationAdvice implements AfterReturningAdvice {
+	
+	@Override
+	public void afterReturning(Object returnValue, Method method, Object[] args, Object target) {
+		if (isModifyingMethod(method.getName())) {
+			invalidateCaches();
+			
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+					
+					@Override
+					public void afterCompletion(int status) {
+						invalidateCaches();
+					}
+				});
+			}
+		}
+	}
+	
+	private static void invalidateCaches() {
+		Context.getRegisteredComponents(ConceptCodeResolver.class).forEach(ConceptCodeResolver::invalidateAll);
+		Context.getRegisteredComponents(ConceptTranslatorImpl.class).forEach(ConceptTranslatorImpl::invalidateAll);
+		Context.getRegisteredComponents(ImmunizationObsGroupHelper.class)
+		        .forEach(ImmunizationObsGroupHelper::invalidateConcepts);
+	}
+	
+	static boolean isModifyingMethod(String methodName) {
+		if (!methodName.startsWith("save") && !methodName.startsWith("purge") && !methodName.startsWith("retire")
+		        && !methodName.startsWith("unretire")) {
+			return false;
+		}
+		
+		return methodName.endsWith("Concept") || methodName.endsWith("ConceptReferenceTerm")
+		        || methodName.endsWith("ConceptSource");
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.io.Serializable;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.type.Type;
+import org.openmrs.module.fhir2.api.dao.impl.ConceptCodeResolver;
+import org.openmrs.module.fhir2.api.translators.impl.ConceptTranslatorImpl;
+import org.openmrs.module.fhir2.model.FhirConceptSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clears the {@link ConceptCodeResolver} cache and the concepts translated by
+ * {@link ConceptTranslatorImpl} once a transaction which created, changed or deleted a
+ * {@link FhirConceptSource} has committed, as both depend on the url of each concept source. Such
+ * changes are not made through {@link org.openmrs.api.ConceptService}, so they are not seen by
+ * {@link ConceptCodeCacheInvalidationAdvice}.
+ */
+@Component("fhir2ConceptSourceCacheInvalidationInterceptor")
+@Setter(AccessLevel.PACKAGE)
+public class ConceptSourceCacheInvalidationInterceptor extends EmptyInterceptor {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final ThreadLocal<Boolean> CHANGED = new ThreadLocal<>();
+	
+	// both depend on services built on the session factory, which is built with this interceptor
+	@Lazy
+	@Autowired
+	private transient ConceptCodeResolver conceptCodeResolver;
+	
+	@Lazy
+	@Autowired
+	private transient ConceptTranslatorImpl conceptTranslator;
+	
+	@Override
+	public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity);
+		return false;
+	}
+	
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+	        String[] propertyNames, Type[] types) {
+		track(entity);
+		return false;
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity);
+	}
+	
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		boolean changed = Boolean.TRUE.equals(CHANGED.get());
+		CHANGED.remove();
+		
+		if (changed && tx.wasCommitted()) {
+			conceptCodeResolver.invalidateAll();
+			conceptTranslator.invalidateAll();
+		}
+	}
+	
+	private static void track(Object entity) {
+		if (entity instanceof FhirConceptSource) {
+			CHANGED.set(Boolean.TRUE);
+		}
+	}
+}
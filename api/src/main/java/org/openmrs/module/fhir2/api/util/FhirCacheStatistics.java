@@ -0,0 +1,65 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the hit, miss and put counts of the second-level and query cache regions defined by this
+ * module, alongside the statistics of the module's other caches. Counts are only collected while
+ * Hibernate statistics are enabled, i.e. when the {@code hibernate.generate_statistics} runtime
+ * property is {@code true}, and a region is only reported once it has been used.
+ */
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class FhirCacheStatistics {
+	
+	private static final String[] CACHE_REGIONS = { FhirConstants.CONCEPT_SOURCE_CACHE_REGION,
+	        FhirConstants.OBSERVATION_CATEGORY_MAP_CACHE_REGION, FhirConstants.ENCOUNTER_CLASS_MAP_CACHE_REGION,
+	        FhirConstants.METADATA_QUERY_CACHE_REGION };
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	/**
+	 * @return the hit, miss and put counts, the hit ratio and the number of cached entries of each
+	 *         cache region, keyed by the region name followed by the name of the count
+	 */
+	public Map<String, Number> getStatistics() {
+		Map<String, Number> result = new LinkedHashMap<>();
+		
+		for (String region : CACHE_REGIONS) {
+			SecondLevelCacheStatistics statistics = sessionFactory.getStatistics().getSecondLevelCacheStatistics(region);
+			if (statistics == null) {
+				continue;
+			}
+			
+			long requests = statistics.getHitCount() + statistics.getMissCount();
+			result.put(region + ".hits", statistics.getHitCount());
+			result.put(region + ".misses", statistics.getMissCount());
+			result.put(region + ".puts", statistics.getPutCount());
+			result.put(region + ".hitRatio", requests == 0 ? 1.0 : (double) statistics.getHitCount() / requests);
+			result.put(region + ".entries", statistics.getElementCountInMemory());
+		}
+		
+		return result;
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.type.Type;
+import org.openmrs.Allergy;
+import org.openmrs.Drug;
+import org.openmrs.DrugOrder;
+import org.openmrs.Encounter;
+import org.openmrs.Location;
+import org.openmrs.Obs;
+import org.openmrs.OpenmrsObject;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.Person;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonAttribute;
+import org.openmrs.PersonName;
+import org.openmrs.Provider;
+import org.openmrs.Relationship;
+import org.openmrs.Retireable;
+import org.openmrs.TestOrder;
+import org.openmrs.Voidable;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirChangeLogResourceType;
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry.Operation;
+import org.openmrs.module.fhir2.model.FhirDiagnosticReport;
+import org.openmrs.module.fhir2.model.FhirTask;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the FHIR resources created, updated and deleted by each transaction and, once it has
+ * committed, appends them to the change log. Changes to the names, addresses, attributes and
+ * identifiers of a person are recorded as updates to that person, and voiding or retiring an object
+ * is recorded as a delete, as that is what a FHIR delete does in this module. Resource types backed
+ * by objects which only exist on later platform versions are added by
+ * {@link FhirChangeLogResourceType} beans.
+ * <p/>
+ * Entries are written in their own short transaction, one committing transaction at a time, so that
+ * sequence numbers become visible in the order they were assigned and a client reading the log after
+ * a given sequence number never skips an entry committed later. Nothing is written unless
+ * {@link FhirConstants#OPENMRS_FHIR_CHANGE_LOG} is {@code true}.
+ */
+@Slf4j
+@Component("fhir2ChangeLogInterceptor")
+@Setter(AccessLevel.PACKAGE)
+public class FhirChangeLogInterceptor extends EmptyInterceptor {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final ThreadLocal<Map<String, FhirChangeLogEntry>> CHANGES = new ThreadLocal<>();
+	
+	// both depend on the session factory, which is built with this interceptor
+	@Lazy
+	@Autowired
+	@Qualifier("sessionFactory")
+	private transient SessionFactory sessionFactory;
+	
+	@Lazy
+	@Autowired
+	private transient FhirChangeLogNotifier notifier;
+	
+	@Autowired(required = false)
+	private transient List<FhirChangeLogResourceType> resourceTypes = Collections.emptyList();
+	
+	@Override
+	public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity, Operation.CREATE);
+		return false;
+	}
+	
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+	        String[] propertyNames, Type[] types) {
+		track(entity, isRemoved(entity) ? Operation.DELETE : Operation.UPDATE);
+		return false;
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity, Operation.DELETE);
+	}
+	
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		Map<String, FhirChangeLogEntry> changes = CHANGES.get();
+		CHANGES.remove();
+		
+		if (changes == null || !tx.wasCommitted()) {
+			return;
+		}
+		
+		try {
+			List<FhirChangeLogEntry> entries = append(changes.values());
+			notifier.publish(entries);
+		}
+		catch (RuntimeException e) {
+			log.error("Unable to record {} changes in the FHIR change log", changes.size(), e);
+		}
+	}
+	
+	private synchronized List<FhirChangeLogEntry> append(Iterable<FhirChangeLogEntry> changes) {
+		List<FhirChangeLogEntry> entries = new ArrayList<>();
+		
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			if (!isEnabled(session)) {
+				return entries;
+			}
+			
+			Transaction transaction = session.beginTransaction();
+			try {
+				Date now = new Date();
+				for (FhirChangeLogEntry entry : changes) {
+					entry.setDateChanged(now);
+					session.insert(entry);
+					entries.add(entry);
+				}
+				
+				transaction.commit();
+			}
+			catch (RuntimeException e) {
+				transaction.rollback();
+				throw e;
+			}
+		}
+		finally {
+			session.close();
+		}
+		
+		return entries;
+	}
+	
+	// this runs after the OpenMRS transaction has completed, so the global property is read directly
+	private boolean isEnabled(StatelessSession session) {
+		Object value = session
+		        .createQuery("select gp.propertyValue from GlobalProperty gp where gp.property = :property")
+		        .setParameter("property", FhirConstants.OPENMRS_FHIR_CHANGE_LOG).uniqueResult();
+		return Boolean.parseBoolean((String) value);
+	}
+	
+	private static boolean isRemoved(Object entity) {
+		if (entity instanceof Voidable) {
+			return Boolean.TRUE.equals(((Voidable) entity).getVoided());
+		} else if (entity instanceof Retireable) {
+			return Boolean.TRUE.equals(((Retireable) entity).getRetired());
+		}
+		
+		return false;
+	}
+	
+	private void track(Object entity, Operation operation) {
+		if (entity instanceof Person) {
+			trackPerson((Person) entity, operation);
+		} else if (entity instanceof PersonName) {
+			trackPerson(((PersonName) entity).getPerson(), Operation.UPDATE);
+		} else if (entity instanceof PersonAddress) {
+			trackPerson(((PersonAddress) entity).getPerson(), Operation.UPDATE);
+		} else if (entity instanceof PersonAttribute) {
+			trackPerson(((PersonAttribute) entity).getPerson(), Operation.UPDATE);
+		} else if (entity instanceof PatientIdentifier) {
+			Patient patient = ((PatientIdentifier) entity).getPatient();
+			if (patient != null) {
+				add("Patient", patient.getUuid(), Operation.UPDATE);
+			}
+		} else if (entity instanceof Obs) {
+			add("Observation", ((Obs) entity).getUuid(), operation);
+		} else if (entity instanceof Encounter) {
+			add("Encounter", ((Encounter) entity).getUuid(), operation);
+		} else if (entity instanceof Location) {
+			add("Location", ((Location) entity).getUuid(), operation);
+		} else if (entity instanceof Provider) {
+			add("Practitioner", ((Provider) entity).getUuid(), operation);
+		} else if (entity instanceof DrugOrder) {
+			add("MedicationRequest", ((DrugOrder) entity).getUuid(), operation);
+		} else if (entity instanceof TestOrder) {
+			add("ServiceRequest", ((TestOrder) entity).getUuid(), operation);
+		} else if (entity instanceof Drug) {
+			add("Medication", ((Drug) entity).getUuid(), operation);
+		} else if (entity instanceof Allergy) {
+			add("AllergyIntolerance", ((Allergy) entity).getUuid(), operation);
+		} else if (entity instanceof Relationship) {
+			add("RelatedPerson", ((Relationship) entity).getUuid(), operation);
+		} else if (entity instanceof FhirTask) {
+			add("Task", ((FhirTask) entity).getUuid(), operation);
+		} else if (entity instanceof FhirDiagnosticReport) {
+			add("DiagnosticReport", ((FhirDiagnosticReport) entity).getUuid(), operation);
+		} else {
+			for (FhirChangeLogResourceType resourceType : resourceTypes) {
+				if (resourceType.getEntityType().isInstance(entity)) {
+					add(resourceType.getResourceType(), ((OpenmrsObject) entity).getUuid(), operation);
+				}
+			}
+		}
+	}
+	
+	private void trackPerson(Person person, Operation operation) {
+		if (person == null) {
+			return;
+		}
+		
+		add("Person", person.getUuid(), operation);
+		if (person instanceof Patient || Boolean.TRUE.equals(person.getIsPatient())) {
+			add("Patient", person.getUuid(), operation);
+		}
+	}
+	
+	private void add(String resourceType, String uuid, Operation operation) {
+		if (uuid == null) {
+			return;
+		}
+		
+		Map<String, FhirChangeLogEntry> changes = CHANGES.get();
+		if (changes == null) {
+			changes = new LinkedHashMap<>();
+			CHANGES.set(changes);
+		}
+		
+		String key = resourceType + "/" + uuid;
+		FhirChangeLogEntry previous = changes.get(key);
+		
+		// a resource created in this transaction is still reported as created, however often it was flushed
+		if (previous != null && previous.getOperation() == Operation.CREATE && operation == Operation.UPDATE) {
+			return;
+		}
+		
+		changes.put(key, new FhirChangeLogEntry(resourceType, uuid, operation, null));
+	}
+}
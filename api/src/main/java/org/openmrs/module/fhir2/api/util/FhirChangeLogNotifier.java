@@ -0,0 +1,84 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.util.Collections;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.openmrs.module.fhir2.api.FhirChangeListener;
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Passes newly recorded changes on to every {@link FhirChangeListener} and wakes up any requests
+ * waiting for a change to be recorded.
+ */
+@Slf4j
+@Component("fhir2ChangeLogNotifier")
+@Setter(AccessLevel.PACKAGE)
+public class FhirChangeLogNotifier {
+	
+	@Autowired(required = false)
+	private List<FhirChangeListener> listeners = Collections.emptyList();
+	
+	private final Object lock = new Object();
+	
+	private long latestSequence;
+	
+	/**
+	 * Called once changes have been written to the change log
+	 *
+	 * @param changes the recorded changes, in the order of their sequence numbers
+	 */
+	public void publish(List<FhirChangeLogEntry> changes) {
+		if (changes.isEmpty()) {
+			return;
+		}
+		
+		synchronized (lock) {
+			latestSequence = Math.max(latestSequence, changes.get(changes.size() - 1).getChangeLogId());
+			lock.notifyAll();
+		}
+		
+		for (FhirChangeListener listener : listeners) {
+			try {
+				listener.onChanges(changes);
+			}
+			catch (RuntimeException e) {
+				log.error("Change listener {} failed", listener, e);
+			}
+		}
+	}
+	
+	/**
+	 * Waits until a change with a sequence number after {@code since} has been recorded by this
+	 * server, or until the timeout expires
+	 *
+	 * @param since the sequence number of the last change the caller has seen
+	 * @param timeoutMillis the longest time to wait
+	 * @return true if a later change has been recorded
+	 */
+	public boolean awaitChangeAfter(long since, long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		synchronized (lock) {
+			long remaining = timeoutMillis;
+			while (latestSequence <= since && remaining > 0) {
+				lock.wait(remaining);
+				remaining = deadline - System.currentTimeMillis();
+			}
+			
+			return latestSequence > since;
+		}
+	}
+}
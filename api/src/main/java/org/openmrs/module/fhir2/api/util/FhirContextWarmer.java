@@ -0,0 +1,96 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import javax.annotation.PreDestroy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.parser.IParser;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.ResourceType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the R4 {@link FhirContext}'s model of every resource type and exercises its parsers in the
+ * background, so that HAPI's reflection over the model classes, which it otherwise does on demand,
+ * is not paid for by the first requests served after the module starts.
+ */
+@Slf4j
+@Component("fhir2ContextWarmer")
+@Setter(AccessLevel.PACKAGE)
+public class FhirContextWarmer {
+	
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "fhir2-context-warmer");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
+	
+	@Autowired
+	@Qualifier("fhirR4")
+	private FhirContext fhirContext;
+	
+	/**
+	 * Warms up the R4 context on a background thread
+	 */
+	public void warmUpAsync() {
+		executor.submit(() -> {
+			try {
+				warmUp();
+			}
+			catch (RuntimeException e) {
+				log.warn("Unable to pre-warm the FHIR R4 context", e);
+			}
+		});
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+	
+	void warmUp() {
+		long start = System.nanoTime();
+		
+		IParser jsonParser = fhirContext.newJsonParser();
+		IParser xmlParser = fhirContext.newXmlParser();
+		
+		int count = 0;
+		for (ResourceType resourceType : ResourceType.values()) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			
+			RuntimeResourceDefinition definition = fhirContext.getResourceDefinition(resourceType.name());
+			IBaseResource resource = definition.newInstance();
+			resource.setId(resourceType.name() + "/1");
+			
+			jsonParser.parseResource(definition.getImplementingClass(), jsonParser.encodeResourceToString(resource));
+			xmlParser.parseResource(definition.getImplementingClass(), xmlParser.encodeResourceToString(resource));
+			count++;
+		}
+		
+		fhirContext.newValidator();
+		
+		log.info("Pre-warmed the FHIR R4 context for {} resource types in {} ms", count,
+		    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import javax.annotation.PostConstruct;
+
+import java.util.Collections;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the module's {@link FlushEventListener} beans with the session factory. They are added
+ * after Hibernate's own listeners, so they are called once each flush has been carried out, with the
+ * session that was flushed. Beans which are also {@link AutoFlushEventListener}s are registered for
+ * the flushes Hibernate makes before running a query as well.
+ */
+@Component("fhir2FlushListenerRegistrar")
+@Setter(AccessLevel.PACKAGE)
+public class FlushListenerRegistrar {
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	@Autowired(required = false)
+	private List<FlushEventListener> flushEventListeners = Collections.emptyList();
+	
+	@PostConstruct
+	public void registerListeners() {
+		EventListenerRegistry registry = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+		        .getService(EventListenerRegistry.class);
+		
+		for (FlushEventListener listener : flushEventListeners) {
+			registry.appendListeners(EventType.FLUSH, listener);
+			
+			if (listener instanceof AutoFlushEventListener) {
+				registry.appendListeners(EventType.AUTO_FLUSH, (AutoFlushEventListener) listener);
+			}
+		}
+	}
+}
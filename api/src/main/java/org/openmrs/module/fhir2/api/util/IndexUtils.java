@@ -0,0 +1,71 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Batched statements shared by the classes maintaining the module's index tables
+ */
+final class IndexUtils {
+	
+	static final int BATCH_SIZE = 1000;
+	
+	private IndexUtils() {
+	}
+	
+	/**
+	 * Runs a statement once for each of the given items, sending the statements to the database in
+	 * batches of {@link #BATCH_SIZE}
+	 *
+	 * @param connection the connection to use
+	 * @param sql the statement to run
+	 * @param items the items to run the statement for
+	 * @param parameters sets the parameters of the statement for an item
+	 */
+	static <T> void executeBatch(Connection connection, String sql, Iterable<T> items, StatementParameters<T> parameters)
+	        throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			int count = 0;
+			for (T item : items) {
+				parameters.set(statement, item);
+				statement.addBatch();
+				
+				if (++count % BATCH_SIZE == 0) {
+					statement.executeBatch();
+				}
+			}
+			
+			if (count % BATCH_SIZE != 0) {
+				statement.executeBatch();
+			}
+		}
+	}
+	
+	/**
+	 * Runs a statement whose only parameter is an id once for each of the given ids
+	 *
+	 * @param connection the connection to use
+	 * @param sql the statement to run
+	 * @param ids the ids to run the statement for
+	 */
+	static void executeBatch(Connection connection, String sql, Collection<Integer> ids) throws SQLException {
+		executeBatch(connection, sql, ids, (statement, id) -> statement.setInt(1, id));
+	}
+	
+	@FunctionalInterface
+	interface StatementParameters<T> {
+		
+		void set(PreparedStatement statement, T item) throws SQLException;
+	}
+}
@@ -0,0 +1,29 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Liquibase change which fills the {@code fhir_last_updated} table from the existing rows of the
+ * tables it covers.
+ */
+public class LastUpdatedIndexChangeSet extends BaseIndexChangeSet {
+	
+	public LastUpdatedIndexChangeSet() {
+		super("the last updated table");
+	}
+	
+	@Override
+	protected void rebuild(Connection connection) throws SQLException {
+		LastUpdatedIndexUtils.rebuild(connection);
+	}
+}
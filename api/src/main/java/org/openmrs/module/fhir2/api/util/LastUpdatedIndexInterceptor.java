@@ -0,0 +1,240 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import javax.annotation.PreDestroy;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.openmrs.Auditable;
+import org.openmrs.GlobalProperty;
+import org.openmrs.Person;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.GlobalPropertyListener;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@code fhir_last_updated} table in step with the tables it covers. A {@link Person} that
+ * is also a patient is recorded against both the {@code person} and the {@code patient} table, each
+ * with its own audit dates. Nothing is collected or written unless
+ * {@link FhirConstants#OPENMRS_FHIR_LAST_UPDATED_INDEX} is {@code true}. The global property is read
+ * once and then kept up to date by listening for changes to it, rather than on every flush.
+ */
+@Component("fhir2LastUpdatedIndexInterceptor")
+@Setter(AccessLevel.PACKAGE)
+public class LastUpdatedIndexInterceptor extends BaseIndexInterceptor<LastUpdatedIndexInterceptor.PendingChanges>
+        implements GlobalPropertyListener {
+	
+	private static final long serialVersionUID = 1L;
+	
+	// the session factory is built with this interceptor, so it can only be injected lazily
+	@Lazy
+	@Autowired
+	@Qualifier("sessionFactory")
+	private transient SessionFactory sessionFactory;
+	
+	@Lazy
+	@Autowired
+	private transient AdministrationService adminService;
+	
+	private transient volatile Boolean enabled;
+	
+	private transient boolean listening;
+	
+	public LastUpdatedIndexInterceptor() {
+		super("the last updated table");
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		if (id instanceof Integer && !isDisabled()) {
+			for (String table : getTables(entity)) {
+				getPendingChanges().deleted.computeIfAbsent(table, k -> new HashSet<>()).add((Integer) id);
+			}
+		}
+	}
+	
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		super.afterTransactionCompletion(tx);
+		
+		// a change to the global property which was rolled back has already been passed to the listener
+		if (!tx.wasCommitted()) {
+			enabled = null;
+		}
+	}
+	
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return FhirConstants.OPENMRS_FHIR_LAST_UPDATED_INDEX.equals(propertyName);
+	}
+	
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		enabled = null;
+	}
+	
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		enabled = null;
+	}
+	
+	@PreDestroy
+	public synchronized void unregisterGlobalPropertyListener() {
+		if (listening) {
+			adminService.removeGlobalPropertyListener(this);
+			listening = false;
+		}
+	}
+	
+	@Override
+	protected PendingChanges newPendingChanges() {
+		return new PendingChanges();
+	}
+	
+	@Override
+	protected void write(Session session, PendingChanges changes) {
+		if (!isEnabled(session)) {
+			return;
+		}
+		
+		// ids and audit dates are read here because both may only be assigned as the entity is inserted
+		Map<String, Map<Integer, Date>> updated = new HashMap<>();
+		for (Auditable entity : changes.changed) {
+			Serializable id = session.contains(entity) ? session.getIdentifier(entity) : null;
+			if (!(id instanceof Integer)) {
+				continue;
+			}
+			
+			for (String table : getTables(entity)) {
+				if (!changes.deleted.getOrDefault(table, Collections.emptySet()).contains(id)) {
+					updated.computeIfAbsent(table, k -> new HashMap<>()).put((Integer) id,
+					    getLastUpdated(entity, table));
+				}
+			}
+		}
+		
+		session.doWork(connection -> {
+			for (Map.Entry<String, Set<Integer>> entry : changes.deleted.entrySet()) {
+				LastUpdatedIndexUtils.delete(connection, entry.getKey(), entry.getValue());
+			}
+			
+			for (Map.Entry<String, Map<Integer, Date>> entry : updated.entrySet()) {
+				LastUpdatedIndexUtils.update(connection, entry.getKey(), entry.getValue());
+			}
+		});
+	}
+	
+	@Override
+	protected void track(Object entity) {
+		if (entity instanceof Auditable && !isDisabled() && !getTables(entity).isEmpty()) {
+			getPendingChanges().changed.add((Auditable) entity);
+		}
+	}
+	
+	private Set<String> getTables(Object entity) {
+		Set<String> tables = new HashSet<>();
+		
+		ClassMetadata metadata = sessionFactory.getClassMetadata(Hibernate.getClass(entity));
+		if (metadata instanceof AbstractEntityPersister) {
+			String table = ((AbstractEntityPersister) metadata).getTableName();
+			if (LastUpdatedIndexUtils.TABLES.containsKey(table)) {
+				tables.add(table);
+			}
+		}
+		
+		if (entity instanceof Person) {
+			tables.add("person");
+		}
+		
+		return tables;
+	}
+	
+	// until the global property has first been read, changes are collected in case it is enabled
+	private boolean isDisabled() {
+		return Boolean.FALSE.equals(enabled);
+	}
+	
+	private boolean isEnabled(Session session) {
+		Boolean enabled = this.enabled;
+		if (enabled == null) {
+			registerGlobalPropertyListener();
+			enabled = session.doReturningWork(LastUpdatedIndexInterceptor::readEnabled);
+			this.enabled = enabled;
+		}
+		
+		return enabled;
+	}
+	
+	// the administration service is built after the session factory, so the listener is registered on first use
+	private synchronized void registerGlobalPropertyListener() {
+		if (!listening) {
+			adminService.addGlobalPropertyListener(this);
+			listening = true;
+		}
+	}
+	
+	// this runs while Hibernate is flushing, so the global property is read directly rather than through a query
+	private static boolean readEnabled(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection
+		        .prepareStatement("select property_value from global_property where property = ?")) {
+			statement.setString(1, FhirConstants.OPENMRS_FHIR_LAST_UPDATED_INDEX);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return resultSet.next() && Boolean.parseBoolean(resultSet.getString(1));
+			}
+		}
+	}
+	
+	private static Date getLastUpdated(Auditable entity, String table) {
+		Date dateChanged = entity.getDateChanged();
+		Date dateCreated = entity.getDateCreated();
+		if ("person".equals(table) && entity instanceof Person) {
+			dateChanged = ((Person) entity).getPersonDateChanged();
+			dateCreated = ((Person) entity).getPersonDateCreated();
+		}
+		
+		if (dateChanged != null) {
+			return dateChanged;
+		}
+		
+		return dateCreated == null ? new Date() : dateCreated;
+	}
+	
+	static class PendingChanges {
+		
+		private final Set<Auditable> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+		
+		private final Map<String, Set<Integer>> deleted = new HashMap<>();
+	}
+}
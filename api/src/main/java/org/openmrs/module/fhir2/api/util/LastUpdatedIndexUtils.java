@@ -0,0 +1,107 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maintains the {@code fhir_last_updated} table, which holds the time each row of the tables in
+ * {@link #TABLES} was last changed so that {@code _lastUpdated} searches and sorts can use an index
+ * instead of {@code coalesce(date_changed, date_created)}.
+ */
+public class LastUpdatedIndexUtils {
+	
+	/**
+	 * The tables of the mutable resources whose last changes are kept, each with its primary key column
+	 */
+	public static final Map<String, String> TABLES;
+	
+	static {
+		Map<String, String> tables = new LinkedHashMap<>();
+		tables.put("person", "person_id");
+		tables.put("patient", "patient_id");
+		tables.put("provider", "provider_id");
+		tables.put("relationship", "relationship_id");
+		tables.put("encounter", "encounter_id");
+		tables.put("visit", "visit_id");
+		tables.put("location", "location_id");
+		tables.put("drug", "drug_id");
+		tables.put("allergy", "allergy_id");
+		tables.put("fhir_task", "task_id");
+		tables.put("fhir_diagnostic_report", "diagnostic_report_id");
+		TABLES = Collections.unmodifiableMap(tables);
+	}
+	
+	private static final String DELETE = "delete from fhir_last_updated where resource_table = ? and resource_id = ?";
+	
+	private static final String INSERT = "insert into fhir_last_updated (resource_table, resource_id, last_updated) "
+	        + "values (?, ?, ?)";
+	
+	private LastUpdatedIndexUtils() {
+	}
+	
+	/**
+	 * Replaces the last updated times of the given rows of a table
+	 *
+	 * @param connection the connection to use
+	 * @param table the table the rows belong to
+	 * @param lastUpdated the last updated time of each row, by primary key
+	 */
+	public static void update(Connection connection, String table, Map<Integer, Date> lastUpdated)
+	        throws SQLException {
+		delete(connection, table, lastUpdated.keySet());
+		IndexUtils.executeBatch(connection, INSERT, lastUpdated.entrySet(), (insert, entry) -> {
+			insert.setString(1, table);
+			insert.setInt(2, entry.getKey());
+			insert.setTimestamp(3, new Timestamp(entry.getValue().getTime()));
+		});
+	}
+	
+	/**
+	 * Removes the last updated times of the given rows of a table
+	 *
+	 * @param connection the connection to use
+	 * @param table the table the rows belong to
+	 * @param ids the primary keys of the rows
+	 */
+	public static void delete(Connection connection, String table, Collection<Integer> ids) throws SQLException {
+		IndexUtils.executeBatch(connection, DELETE, ids, (delete, id) -> {
+			delete.setString(1, table);
+			delete.setInt(2, id);
+		});
+	}
+	
+	/**
+	 * Discards and regenerates the last updated time of every row of the tables in {@link #TABLES}
+	 *
+	 * @param connection the connection to use
+	 */
+	public static void rebuild(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("delete from fhir_last_updated");
+			
+			for (Map.Entry<String, String> table : TABLES.entrySet()) {
+				statement.executeUpdate(String.format(
+				    "insert into fhir_last_updated (resource_table, resource_id, last_updated) "
+				            + "select '%1$s', %2$s, coalesce(date_changed, date_created) from %1$s "
+				            + "where coalesce(date_changed, date_created) is not null",
+				    table.getKey(), table.getValue()));
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.hibernate.type.Type;
+import org.openmrs.Person;
+import org.openmrs.PersonName;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the person display name table in step with {@link PersonName}. The display names of the
+ * people whose names are saved, voided or deleted are chosen again once the flush completes.
+ */
+@Component("fhir2PersonDisplayNameInterceptor")
+public class PersonDisplayNameInterceptor extends BaseIndexInterceptor<Set<Person>> {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public PersonDisplayNameInterceptor() {
+		super("the person display name table");
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		if (entity instanceof Person) {
+			getPendingChanges().add((Person) entity);
+		} else {
+			track(entity);
+		}
+	}
+	
+	@Override
+	protected Set<Person> newPendingChanges() {
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+	
+	@Override
+	protected void track(Object entity) {
+		if (entity instanceof PersonName && ((PersonName) entity).getPerson() != null) {
+			getPendingChanges().add(((PersonName) entity).getPerson());
+		}
+	}
+	
+	@Override
+	protected void write(Session session, Set<Person> people) {
+		// ids are read here because new people are only assigned one when they are inserted
+		Set<Integer> personIds = people.stream().map(Person::getPersonId).filter(Objects::nonNull)
+		        .collect(Collectors.toSet());
+		if (!personIds.isEmpty()) {
+			session.doWork(connection -> PersonDisplayNameUtils.update(connection, personIds));
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+
+/**
+ * Maintains the {@code fhir_person_display_name} table, which holds the id of the name each person
+ * is sorted by, so that sorting people by name needs a single join to the names recorded there rather
+ * than a search through every name of every person for the preferred one.
+ */
+public class PersonDisplayNameUtils {
+	
+	// the lowest-numbered preferred name or, failing that, the lowest-numbered name, ignoring voided names
+	private static final String INSERT = "insert into fhir_person_display_name (person_id, person_name_id) "
+	        + "select person_id, coalesce(min(case when preferred = true then person_name_id end), min(person_name_id)) "
+	        + "from person_name where voided = false";
+	
+	private static final String DELETE = "delete from fhir_person_display_name where person_id = ?";
+	
+	private PersonDisplayNameUtils() {
+	}
+	
+	/**
+	 * Replaces the display names of the people with the given ids with the name each of them is
+	 * currently sorted by
+	 *
+	 * @param connection the connection to use
+	 * @param personIds the ids of the people whose names changed
+	 */
+	public static void update(Connection connection, Collection<Integer> personIds) throws SQLException {
+		IndexUtils.executeBatch(connection, DELETE, personIds);
+		IndexUtils.executeBatch(connection, INSERT + " and person_id = ? group by person_id", personIds);
+	}
+	
+	/**
+	 * Discards and regenerates the display name of every person
+	 *
+	 * @param connection the connection to use
+	 */
+	public static void rebuild(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("delete from fhir_person_display_name");
+			statement.executeUpdate(INSERT + " group by person_id");
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.document.Document;
+import org.hibernate.search.bridge.FieldBridge;
+import org.hibernate.search.bridge.LuceneOptions;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
+import org.openmrs.module.fhir2.model.FhirIndexedPerson;
+
+/**
+ * Builds the Lucene document for a {@link FhirIndexedPerson}. Names and addresses are normalized
+ * with {@link PersonSearchIndexUtils#normalize(String)} and split into tokens, each of which is
+ * indexed as-is, so that queries can match them with term, prefix and wildcard queries without
+ * relying on any analyzer. Name tokens are also indexed by their Double Metaphone codes, under the
+ * name of the field followed by {@link #PHONETIC_SUFFIX}. Voided names, addresses and identifiers are
+ * not indexed.
+ */
+public class PersonFullTextIndexBridge implements FieldBridge {
+	
+	public static final String NAME = "name";
+	
+	public static final String GIVEN = "given";
+	
+	public static final String FAMILY = "family";
+	
+	public static final String CITY = "address.city";
+	
+	public static final String STATE = "address.state";
+	
+	public static final String POSTAL_CODE = "address.postalCode";
+	
+	public static final String COUNTRY = "address.country";
+	
+	public static final String IDENTIFIER = "identifier";
+	
+	public static final String TYPED_IDENTIFIER = "identifier.typed";
+	
+	public static final String PHONETIC_SUFFIX = ".phonetic";
+	
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+	
+	private static final DoubleMetaphone DOUBLE_METAPHONE = new DoubleMetaphone();
+	
+	@Override
+	public void set(String name, Object value, Document document, LuceneOptions luceneOptions) {
+		FhirIndexedPerson person = (FhirIndexedPerson) value;
+		
+		for (PersonName personName : person.getNames()) {
+			if (personName.getVoided()) {
+				continue;
+			}
+			
+			addNameTokens(GIVEN, personName.getGivenName(), document, luceneOptions);
+			addNameTokens(FAMILY, personName.getFamilyName(), document, luceneOptions);
+			
+			for (String namePart : Arrays.asList(personName.getGivenName(), personName.getMiddleName(),
+			    personName.getFamilyName())) {
+				addNameTokens(NAME, namePart, document, luceneOptions);
+			}
+		}
+		
+		for (PersonAddress address : person.getAddresses()) {
+			if (address.getVoided()) {
+				continue;
+			}
+			
+			addTokens(CITY, address.getCityVillage(), document, luceneOptions);
+			addTokens(STATE, address.getStateProvince(), document, luceneOptions);
+			addTokens(POSTAL_CODE, address.getPostalCode(), document, luceneOptions);
+			addTokens(COUNTRY, address.getCountry(), document, luceneOptions);
+		}
+		
+		for (PatientIdentifier identifier : person.getIdentifiers()) {
+			if (identifier.getVoided() || identifier.getIdentifier() == null) {
+				continue;
+			}
+			
+			luceneOptions.addFieldToDocument(IDENTIFIER, identifier.getIdentifier(), document);
+			if (identifier.getIdentifierType() != null) {
+				luceneOptions.addFieldToDocument(TYPED_IDENTIFIER,
+				    typedIdentifier(identifier.getIdentifierType().getUuid(), identifier.getIdentifier()), document);
+			}
+		}
+	}
+	
+	/**
+	 * Splits a value into the normalized tokens stored in the index
+	 *
+	 * @param value the value to split
+	 * @return the tokens in the order they appear in the value
+	 */
+	public static List<String> tokenize(String value) {
+		String normalized = PersonSearchIndexUtils.normalize(value);
+		if (StringUtils.isBlank(normalized)) {
+			return Collections.emptyList();
+		}
+		
+		return Arrays.stream(TOKEN_SEPARATOR.split(normalized)).filter(StringUtils::isNotEmpty)
+		        .collect(Collectors.toList());
+	}
+	
+	/**
+	 * @param token a normalized token
+	 * @return the primary and alternate Double Metaphone codes for the token, if any
+	 */
+	public static Set<String> phoneticCodes(String token) {
+		Set<String> codes = new LinkedHashSet<>();
+		
+		String primary = DOUBLE_METAPHONE.doubleMetaphone(token);
+		if (StringUtils.isNotEmpty(primary)) {
+			codes.add(primary);
+		}
+		
+		String alternate = DOUBLE_METAPHONE.doubleMetaphone(token, true);
+		if (StringUtils.isNotEmpty(alternate)) {
+			codes.add(alternate);
+		}
+		
+		return codes;
+	}
+	
+	/**
+	 * @return the value stored in {@link #TYPED_IDENTIFIER} for an identifier of the given type; the
+	 *         type is identified by its uuid so that renaming it does not leave the index stale
+	 */
+	public static String typedIdentifier(String identifierTypeUuid, String identifier) {
+		return identifierTypeUuid + "|" + identifier;
+	}
+	
+	private static void addNameTokens(String field, String value, Document document, LuceneOptions luceneOptions) {
+		for (String token : tokenize(value)) {
+			luceneOptions.addFieldToDocument(field, token, document);
+			
+			for (String code : phoneticCodes(token)) {
+				luceneOptions.addFieldToDocument(field + PHONETIC_SUFFIX, code, document);
+			}
+		}
+	}
+	
+	private static void addTokens(String field, String value, Document document, LuceneOptions luceneOptions) {
+		for (String token : tokenize(value)) {
+			luceneOptions.addFieldToDocument(field, token, document);
+		}
+	}
+}
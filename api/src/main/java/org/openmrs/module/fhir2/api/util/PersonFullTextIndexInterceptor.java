@@ -0,0 +1,109 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.type.Type;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.Person;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the full-text person index in step with people, their names, addresses and identifiers. The
+ * people affected by each transaction are collected as Hibernate flushes them and, only once the
+ * transaction has committed, handed to {@link PersonFullTextIndexer} to be re-indexed.
+ */
+@Component("fhir2PersonFullTextIndexInterceptor")
+@Setter(AccessLevel.PACKAGE)
+public class PersonFullTextIndexInterceptor extends EmptyInterceptor {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final ThreadLocal<Set<Person>> CHANGED_PEOPLE = new ThreadLocal<>();
+	
+	// the indexer depends on the session factory, which is built with this interceptor
+	@Lazy
+	@Autowired
+	private transient PersonFullTextIndexer indexer;
+	
+	@Override
+	public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity);
+		return false;
+	}
+	
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+	        String[] propertyNames, Type[] types) {
+		track(entity);
+		return false;
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity);
+	}
+	
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		Set<Person> people = CHANGED_PEOPLE.get();
+		CHANGED_PEOPLE.remove();
+		
+		if (people == null || !tx.wasCommitted()) {
+			return;
+		}
+		
+		// ids are read here because new people are only assigned one when they are inserted
+		Set<Integer> personIds = people.stream().map(Person::getPersonId).filter(Objects::nonNull)
+		        .collect(Collectors.toSet());
+		if (!personIds.isEmpty()) {
+			indexer.reindexAsync(personIds);
+		}
+	}
+	
+	private void track(Object entity) {
+		Person person = null;
+		if (entity instanceof Person) {
+			person = (Person) entity;
+		} else if (entity instanceof PersonName) {
+			person = ((PersonName) entity).getPerson();
+		} else if (entity instanceof PersonAddress) {
+			person = ((PersonAddress) entity).getPerson();
+		} else if (entity instanceof PatientIdentifier) {
+			person = ((PatientIdentifier) entity).getPatient();
+		}
+		
+		if (person == null) {
+			return;
+		}
+		
+		Set<Person> people = CHANGED_PEOPLE.get();
+		if (people == null) {
+			people = Collections.newSetFromMap(new IdentityHashMap<>());
+			CHANGED_PEOPLE.set(people);
+		}
+		
+		people.add(person);
+	}
+}
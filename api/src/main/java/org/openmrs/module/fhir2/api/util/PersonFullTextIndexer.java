@@ -0,0 +1,158 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import javax.annotation.PreDestroy;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.search.FullTextSession;
+import org.hibernate.search.Search;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.model.FhirIndexedPerson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes {@link FhirIndexedPerson} documents to the full-text person index. Incremental updates are
+ * applied on a single background thread, each in its own session, so they never hold up the
+ * transaction that triggered them; the index itself is written by Hibernate Search once that
+ * session's transaction commits.
+ */
+@Slf4j
+@Component("fhir2PersonFullTextIndexer")
+@Setter(AccessLevel.PACKAGE)
+public class PersonFullTextIndexer {
+	
+	private static final int BATCH_SIZE = 500;
+	
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "fhir2-person-full-text-indexer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	/**
+	 * Re-indexes the given people in the background, removing any that no longer exist from the
+	 * index. Nothing is done if the full-text person search is disabled.
+	 *
+	 * @param personIds the ids of the people to re-index
+	 */
+	public void reindexAsync(Collection<Integer> personIds) {
+		executor.submit(() -> {
+			try {
+				reindex(personIds);
+			}
+			catch (RuntimeException e) {
+				log.error("Unable to update the full-text person index for people {}", personIds, e);
+			}
+		});
+	}
+	
+	/**
+	 * Discards the full-text person index and rebuilds it from every person in the database
+	 */
+	@Transactional
+	public void rebuild() {
+		FullTextSession fullTextSession = Search.getFullTextSession(sessionFactory.getCurrentSession());
+		fullTextSession.flush();
+		fullTextSession.purgeAll(FhirIndexedPerson.class);
+		fullTextSession.flushToIndexes();
+		
+		FlushMode flushMode = fullTextSession.getFlushMode();
+		CacheMode cacheMode = fullTextSession.getCacheMode();
+		fullTextSession.setFlushMode(FlushMode.MANUAL);
+		fullTextSession.setCacheMode(CacheMode.IGNORE);
+		
+		ScrollableResults results = fullTextSession.createCriteria(FhirIndexedPerson.class).setFetchSize(BATCH_SIZE)
+		        .scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			int count = 0;
+			while (results.next()) {
+				fullTextSession.index(results.get(0));
+				
+				if (++count % BATCH_SIZE == 0) {
+					fullTextSession.flushToIndexes();
+					fullTextSession.clear();
+				}
+			}
+			
+			fullTextSession.flushToIndexes();
+			log.info("Rebuilt the full-text person index with {} people", count);
+		}
+		finally {
+			results.close();
+			fullTextSession.setFlushMode(flushMode);
+			fullTextSession.setCacheMode(cacheMode);
+		}
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	void reindex(Collection<Integer> personIds) {
+		Session session = sessionFactory.openSession();
+		try {
+			if (!isEnabled(session)) {
+				return;
+			}
+			
+			FullTextSession fullTextSession = Search.getFullTextSession(session);
+			Transaction transaction = fullTextSession.beginTransaction();
+			try {
+				for (Integer personId : personIds) {
+					FhirIndexedPerson person = (FhirIndexedPerson) fullTextSession.get(FhirIndexedPerson.class, personId);
+					if (person == null) {
+						fullTextSession.purge(FhirIndexedPerson.class, personId);
+					} else {
+						fullTextSession.index(person);
+					}
+				}
+				
+				transaction.commit();
+			}
+			catch (RuntimeException e) {
+				transaction.rollback();
+				throw e;
+			}
+		}
+		finally {
+			session.close();
+		}
+	}
+	
+	// this runs outside of any OpenMRS context, so the global property is read directly
+	private boolean isEnabled(Session session) {
+		Object value = session
+		        .createQuery("select gp.propertyValue from GlobalProperty gp where gp.property = :property")
+		        .setParameter("property", FhirConstants.OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH).uniqueResult();
+		return Boolean.parseBoolean((String) value);
+	}
+}
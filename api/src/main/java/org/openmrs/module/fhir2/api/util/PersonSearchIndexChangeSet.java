@@ -0,0 +1,30 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Liquibase change which fills the normalized person name and address search tables from the
+ * existing person names and addresses. The normalization is done in Java so that it is identical
+ * to the one applied by {@link PersonSearchIndexInterceptor} on every supported database.
+ */
+public class PersonSearchIndexChangeSet extends BaseIndexChangeSet {
+	
+	public PersonSearchIndexChangeSet() {
+		super("the person name and address search tables");
+	}
+	
+	@Override
+	protected void rebuild(Connection connection) throws SQLException {
+		PersonSearchIndexUtils.rebuild(connection);
+	}
+}
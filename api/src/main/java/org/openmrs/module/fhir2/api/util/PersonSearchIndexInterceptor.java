@@ -0,0 +1,84 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.hibernate.type.Type;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the normalized name and address search tables in step with {@link PersonName} and
+ * {@link PersonAddress}.
+ */
+@Component("fhir2PersonSearchIndexInterceptor")
+public class PersonSearchIndexInterceptor extends BaseIndexInterceptor<PersonSearchIndexInterceptor.PendingChanges> {
+	
+	private static final long serialVersionUID = 1L;
+	
+	public PersonSearchIndexInterceptor() {
+		super("the person name and address search tables");
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		if (entity instanceof PersonName) {
+			getPendingChanges().deletedNames.add((Integer) id);
+		} else if (entity instanceof PersonAddress) {
+			getPendingChanges().deletedAddresses.add((Integer) id);
+		}
+	}
+	
+	@Override
+	protected PendingChanges newPendingChanges() {
+		return new PendingChanges();
+	}
+	
+	@Override
+	protected void track(Object entity) {
+		if (entity instanceof PersonName) {
+			getPendingChanges().names.add((PersonName) entity);
+		} else if (entity instanceof PersonAddress) {
+			getPendingChanges().addresses.add((PersonAddress) entity);
+		}
+	}
+	
+	@Override
+	protected void write(Session session, PendingChanges changes) {
+		changes.names.removeIf(name -> changes.deletedNames.contains(name.getPersonNameId()));
+		changes.addresses.removeIf(address -> changes.deletedAddresses.contains(address.getPersonAddressId()));
+		
+		session.doWork(connection -> {
+			PersonSearchIndexUtils.deleteNames(connection, changes.deletedNames);
+			PersonSearchIndexUtils.deleteAddresses(connection, changes.deletedAddresses);
+			PersonSearchIndexUtils.updateNames(connection, changes.names);
+			PersonSearchIndexUtils.updateAddresses(connection, changes.addresses);
+		});
+	}
+	
+	static class PendingChanges {
+		
+		private final Set<PersonName> names = Collections.newSetFromMap(new IdentityHashMap<>());
+		
+		private final Set<PersonAddress> addresses = Collections.newSetFromMap(new IdentityHashMap<>());
+		
+		private final List<Integer> deletedNames = new ArrayList<>();
+		
+		private final List<Integer> deletedAddresses = new ArrayList<>();
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
+
+/**
+ * Maintains the {@code fhir_person_name_search} and {@code fhir_person_address_search} tables, which
+ * hold normalized copies of person names and addresses so that name and address searches can use
+ * plain, index-friendly {@code LIKE 'prefix%'} comparisons instead of {@code lower(column) LIKE ?}.
+ */
+public class PersonSearchIndexUtils {
+	
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+	
+	private static final String DELETE_NAME = "delete from fhir_person_name_search where person_name_id = ?";
+	
+	private static final String INSERT_NAME = "insert into fhir_person_name_search "
+	        + "(person_name_id, given_name, middle_name, family_name) values (?, ?, ?, ?)";
+	
+	private static final String DELETE_ADDRESS = "delete from fhir_person_address_search where person_address_id = ?";
+	
+	private static final String INSERT_ADDRESS = "insert into fhir_person_address_search "
+	        + "(person_address_id, city_village, state_province, postal_code, country) values (?, ?, ?, ?, ?)";
+	
+	private PersonSearchIndexUtils() {
+	}
+	
+	/**
+	 * Lower-cases the value and strips any accents from it, so that, for instance, "José" and "JOSE"
+	 * are both normalized to "jose"
+	 *
+	 * @param value the value to normalize
+	 * @return the normalized value or null if the value is null
+	 */
+	public static String normalize(String value) {
+		if (value == null) {
+			return null;
+		}
+		
+		return COMBINING_MARKS.matcher(Normalizer.normalize(value.trim(), Normalizer.Form.NFD)).replaceAll("")
+		        .toLowerCase(Locale.ROOT);
+	}
+	
+	/**
+	 * Replaces the normalized copies of the given names, dropping those of voided names
+	 */
+	public static void updateNames(Connection connection, Collection<PersonName> names) throws SQLException {
+		List<PersonName> saved = names.stream().filter(name -> name.getPersonNameId() != null)
+		        .collect(Collectors.toList());
+		
+		IndexUtils.executeBatch(connection, DELETE_NAME,
+		    saved.stream().map(PersonName::getPersonNameId).collect(Collectors.toList()));
+		IndexUtils.executeBatch(connection, INSERT_NAME,
+		    saved.stream().filter(name -> !Boolean.TRUE.equals(name.getVoided())).collect(Collectors.toList()),
+		    (insert, name) -> {
+			    insert.setInt(1, name.getPersonNameId());
+			    insert.setString(2, normalize(name.getGivenName()));
+			    insert.setString(3, normalize(name.getMiddleName()));
+			    insert.setString(4, normalize(name.getFamilyName()));
+		    });
+	}
+	
+	/**
+	 * Replaces the normalized copies of the given addresses, dropping those of voided addresses
+	 */
+	public static void updateAddresses(Connection connection, Collection<PersonAddress> addresses) throws SQLException {
+		List<PersonAddress> saved = addresses.stream().filter(address -> address.getPersonAddressId() != null)
+		        .collect(Collectors.toList());
+		
+		IndexUtils.executeBatch(connection, DELETE_ADDRESS,
+		    saved.stream().map(PersonAddress::getPersonAddressId).collect(Collectors.toList()));
+		IndexUtils.executeBatch(connection, INSERT_ADDRESS,
+		    saved.stream().filter(address -> !Boolean.TRUE.equals(address.getVoided())).collect(Collectors.toList()),
+		    (insert, address) -> {
+			    insert.setInt(1, address.getPersonAddressId());
+			    insert.setString(2, normalize(address.getCityVillage()));
+			    insert.setString(3, normalize(address.getStateProvince()));
+			    insert.setString(4, normalize(address.getPostalCode()));
+			    insert.setString(5, normalize(address.getCountry()));
+		    });
+	}
+	
+	/**
+	 * Removes the normalized copies of the names with the given ids
+	 */
+	public static void deleteNames(Connection connection, Collection<Integer> personNameIds) throws SQLException {
+		IndexUtils.executeBatch(connection, DELETE_NAME, personNameIds);
+	}
+	
+	/**
+	 * Removes the normalized copies of the addresses with the given ids
+	 */
+	public static void deleteAddresses(Connection connection, Collection<Integer> personAddressIds) throws SQLException {
+		IndexUtils.executeBatch(connection, DELETE_ADDRESS, personAddressIds);
+	}
+	
+	/**
+	 * Discards and regenerates the normalized copies of every non-voided person name and address
+	 *
+	 * @param connection the connection to use
+	 */
+	public static void rebuild(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("delete from fhir_person_name_search");
+			statement.executeUpdate("delete from fhir_person_address_search");
+		}
+		
+		try (Statement select = connection.createStatement();
+		        ResultSet names = select.executeQuery(
+		            "select person_name_id, given_name, middle_name, family_name from person_name where voided = false");
+		        PreparedStatement insert = connection.prepareStatement(INSERT_NAME)) {
+			int count = 0;
+			while (names.next()) {
+				insert.setInt(1, names.getInt(1));
+				for (int i = 2; i <= 4; i++) {
+					insert.setString(i, normalize(names.getString(i)));
+				}
+				insert.addBatch();
+				
+				if (++count % IndexUtils.BATCH_SIZE == 0) {
+					insert.executeBatch();
+				}
+			}
+			
+			insert.executeBatch();
+		}
+		
+		try (Statement select = connection.createStatement();
+		        ResultSet addresses = select.executeQuery(
+		            "select person_address_id, city_village, state_province, postal_code, country from person_address "
+		                    + "where voided = false");
+		        PreparedStatement insert = connection.prepareStatement(INSERT_ADDRESS)) {
+			int count = 0;
+			while (addresses.next()) {
+				insert.setInt(1, addresses.getInt(1));
+				for (int i = 2; i <= 5; i++) {
+					insert.setString(i, normalize(addresses.getString(i)));
+				}
+				insert.addBatch();
+				
+				if (++count % IndexUtils.BATCH_SIZE == 0) {
+					insert.executeBatch();
+				}
+			}
+			
+			insert.executeBatch();
+		}
+	}
+}
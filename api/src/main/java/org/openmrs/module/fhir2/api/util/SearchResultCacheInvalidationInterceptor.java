@@ -0,0 +1,172 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Transaction;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.type.Type;
+import org.openmrs.Allergy;
+import org.openmrs.Encounter;
+import org.openmrs.Obs;
+import org.openmrs.Order;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.Person;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonAttribute;
+import org.openmrs.PersonName;
+import org.openmrs.Visit;
+import org.openmrs.module.fhir2.api.dao.impl.SearchResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects the entities changed by each transaction and, once it has committed, discards the cached
+ * search results that may be affected by those changes. Where a changed entity belongs to a single
+ * patient, that patient's uuid is passed along so that cached searches restricted to other patients
+ * are kept.
+ */
+@Component("fhir2SearchResultCacheInvalidationInterceptor")
+@Setter(AccessLevel.PACKAGE)
+public class SearchResultCacheInvalidationInterceptor extends EmptyInterceptor {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final ThreadLocal<Map<Class<?>, Set<String>>> CHANGES = new ThreadLocal<>();
+	
+	// the cache depends on services built on the session factory, which is built with this interceptor
+	@Lazy
+	@Autowired
+	private transient SearchResultCache searchResultCache;
+	
+	/**
+	 * @return true if the current transaction has flushed changes which it has not yet committed, in
+	 *         which case the searches it runs may see results that other transactions cannot
+	 */
+	public static boolean hasUncommittedChanges() {
+		return CHANGES.get() != null;
+	}
+	
+	@Override
+	public boolean onSave(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity);
+		return false;
+	}
+	
+	@Override
+	public boolean onFlushDirty(Object entity, Serializable id, Object[] currentState, Object[] previousState,
+	        String[] propertyNames, Type[] types) {
+		track(entity);
+		
+		// an entity moved to another patient also changes the searches restricted to the patient it was moved from
+		if (previousState != null) {
+			for (int i = 0; i < previousState.length; i++) {
+				if (previousState[i] instanceof Person && previousState[i] != currentState[i]) {
+					track(entity.getClass(), ((Person) previousState[i]).getUuid());
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	@Override
+	public void onDelete(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		track(entity);
+	}
+	
+	@Override
+	public void onCollectionRecreate(Object collection, Serializable key) {
+		trackOwner(collection);
+	}
+	
+	@Override
+	public void onCollectionRemove(Object collection, Serializable key) {
+		trackOwner(collection);
+	}
+	
+	@Override
+	public void onCollectionUpdate(Object collection, Serializable key) {
+		trackOwner(collection);
+	}
+	
+	@Override
+	public void afterTransactionCompletion(Transaction tx) {
+		Map<Class<?>, Set<String>> changes = CHANGES.get();
+		CHANGES.remove();
+		
+		if (changes == null || !tx.wasCommitted()) {
+			return;
+		}
+		
+		changes.forEach((entityType, patientUuids) -> patientUuids
+		        .forEach(patientUuid -> searchResultCache.invalidate(entityType, patientUuid)));
+	}
+	
+	private void trackOwner(Object collection) {
+		if (collection instanceof PersistentCollection) {
+			track(((PersistentCollection) collection).getOwner());
+		}
+	}
+	
+	private void track(Object entity) {
+		if (entity == null) {
+			return;
+		}
+		
+		track(entity.getClass(), getPatientUuid(entity));
+	}
+	
+	private void track(Class<?> entityType, String patientUuid) {
+		Map<Class<?>, Set<String>> changes = CHANGES.get();
+		if (changes == null) {
+			changes = new HashMap<>();
+			CHANGES.set(changes);
+		}
+		
+		changes.computeIfAbsent(entityType, k -> new HashSet<>()).add(patientUuid);
+	}
+	
+	private static String getPatientUuid(Object entity) {
+		Person person = null;
+		if (entity instanceof Person) {
+			person = (Person) entity;
+		} else if (entity instanceof Obs) {
+			person = ((Obs) entity).getPerson();
+		} else if (entity instanceof Encounter) {
+			person = ((Encounter) entity).getPatient();
+		} else if (entity instanceof Order) {
+			person = ((Order) entity).getPatient();
+		} else if (entity instanceof Visit) {
+			person = ((Visit) entity).getPatient();
+		} else if (entity instanceof Allergy) {
+			person = ((Allergy) entity).getPatient();
+		} else if (entity instanceof PatientIdentifier) {
+			person = ((PatientIdentifier) entity).getPatient();
+		} else if (entity instanceof PersonName) {
+			person = ((PersonName) entity).getPerson();
+		} else if (entity instanceof PersonAddress) {
+			person = ((PersonAddress) entity).getPerson();
+		} else if (entity instanceof PersonAttribute) {
+			person = ((PersonAttribute) entity).getPerson();
+		}
+		
+		return person == null ? null : person.getUuid();
+	}
+}
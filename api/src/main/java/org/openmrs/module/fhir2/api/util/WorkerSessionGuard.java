@@ -0,0 +1,100 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import javax.annotation.PostConstruct;
+
+import java.util.function.Supplier;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.orm.hibernate4.SessionHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Fails fast when work handed to another thread, such as a parallel translation, loads data through
+ * a session which that thread does not own, usually by reaching a lazy association of an entity
+ * loaded by the request. A session must not be used by two threads at once, so such a load would
+ * otherwise race with the request's own use of its session. Loads through the sessions of services
+ * called by the worker are not affected.
+ */
+@Component("fhir2WorkerSessionGuard")
+@Setter(AccessLevel.PACKAGE)
+public class WorkerSessionGuard implements LoadEventListener, InitializeCollectionEventListener {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final ThreadLocal<Boolean> WORKER = new ThreadLocal<>();
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private transient SessionFactory sessionFactory;
+	
+	/**
+	 * Runs work on the current thread on behalf of another thread. Until it returns, any load through
+	 * a session not bound to the current thread fails with a {@link LazyInitializationException}.
+	 *
+	 * @param work the work to run
+	 * @return the result of the work
+	 */
+	public static <T> T runAsWorker(Supplier<T> work) {
+		WORKER.set(Boolean.TRUE);
+		try {
+			return work.get();
+		}
+		finally {
+			WORKER.remove();
+		}
+	}
+	
+	@PostConstruct
+	public void registerListeners() {
+		EventListenerRegistry registry = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+		        .getService(EventListenerRegistry.class);
+		registry.prependListeners(EventType.LOAD, this);
+		registry.prependListeners(EventType.INIT_COLLECTION, this);
+	}
+	
+	@Override
+	public void onLoad(LoadEvent event, LoadType loadType) {
+		checkSession(event.getSession());
+	}
+	
+	@Override
+	public void onInitializeCollection(InitializeCollectionEvent event) {
+		checkSession(event.getSession());
+	}
+	
+	private void checkSession(EventSource session) {
+		if (WORKER.get() == null) {
+			return;
+		}
+		
+		SessionHolder sessionHolder = (SessionHolder) TransactionSynchronizationManager.getResource(sessionFactory);
+		if (sessionHolder == null || sessionHolder.getSession() != session) {
+			throw new LazyInitializationException("Worker thread " + Thread.currentThread().getName()
+			        + " tried to load data through a session it does not own; the data should be initialized "
+			        + "before it is handed to other threads");
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import org.openmrs.User;
+import org.openmrs.api.context.UserContext;
+
+/**
+ * A {@link UserContext} for work done on another thread on behalf of a user, such as asynchronous
+ * requests and parallel translations. It holds the user and a copy of the locale and location of
+ * the context it was made from, so that the worker does not share that {@link UserContext}, which
+ * may be changed or logged out while the work runs.
+ */
+public final class WorkerUserContext extends UserContext {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final User user;
+	
+	public WorkerUserContext(User user, UserContext source) {
+		this.user = user;
+		setLocale(source.getLocale());
+		setLocationId(source.getLocationId());
+	}
+	
+	@Override
+	public User getAuthenticatedUser() {
+		return user;
+	}
+	
+	@Override
+	public boolean isAuthenticated() {
+		return user != null;
+	}
+	
+	@Override
+	public boolean hasPrivilege(String privilege) {
+		return (user != null && user.hasPrivilege(privilege)) || super.hasPrivilege(privilege);
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import java.util.Date;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * A single committed change to a FHIR resource. Entries are appended by
+ * {@link org.openmrs.module.fhir2.api.util.FhirChangeLogInterceptor} once the transaction making the
+ * change has committed and are never modified afterwards, so the {@link #getChangeLogId() id} can be
+ * used as a sequence number by clients following the log.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Immutable
+@Table(name = "fhir_change_log")
+public class FhirChangeLogEntry {
+	
+	public enum Operation {
+		CREATE,
+		UPDATE,
+		DELETE
+	}
+	
+	@EqualsAndHashCode.Include
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "change_log_id")
+	private Long changeLogId;
+	
+	@Column(name = "resource_type", nullable = false, length = 50)
+	private String resourceType;
+	
+	@Column(name = "resource_uuid", nullable = false, length = 38)
+	private String resourceUuid;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(name = "operation", nullable = false, length = 10)
+	private Operation operation;
+	
+	@Column(name = "date_changed", nullable = false)
+	private Date dateChanged;
+	
+	public FhirChangeLogEntry(String resourceType, String resourceUuid, Operation operation, Date dateChanged) {
+		this.resourceType = resourceType;
+		this.resourceUuid = resourceUuid;
+		this.operation = operation;
+		this.dateChanged = dateChanged;
+	}
+}
@@ -21,13 +21,17 @@ import javax.persistence.Table;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.openmrs.BaseOpenmrsMetadata;
 import org.openmrs.ConceptSource;
+import org.openmrs.module.fhir2.FhirConstants;
 
 @Data
 @NoArgsConstructor
 @EqualsAndHashCode(onlyExplicitlyIncluded = true, callSuper = false)
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = FhirConstants.CONCEPT_SOURCE_CACHE_REGION)
 @Table(name = "fhir_concept_source")
 public class FhirConceptSource extends BaseOpenmrsMetadata {
 	
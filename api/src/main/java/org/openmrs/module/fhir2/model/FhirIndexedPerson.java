@@ -0,0 +1,70 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OneToMany;
+import javax.persistence.Table;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.search.annotations.Analyze;
+import org.hibernate.search.annotations.ClassBridge;
+import org.hibernate.search.annotations.DocumentId;
+import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.annotations.Norms;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
+import org.openmrs.module.fhir2.api.util.PersonFullTextIndexBridge;
+
+/**
+ * A read-only view of a {@link org.openmrs.Person} used to build the optional full-text person
+ * index. The Lucene document for each person is produced by {@link PersonFullTextIndexBridge} from
+ * the person's names, addresses and identifiers. This entity is never modified through Hibernate;
+ * the index is kept up-to-date by
+ * {@link org.openmrs.module.fhir2.api.util.PersonFullTextIndexInterceptor}.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Immutable
+@Indexed(index = "fhir2_person")
+@ClassBridge(name = "person", impl = PersonFullTextIndexBridge.class, analyze = Analyze.NO, norms = Norms.NO)
+@Table(name = "person")
+public class FhirIndexedPerson {
+	
+	@EqualsAndHashCode.Include
+	@Id
+	@DocumentId
+	@Column(name = "person_id")
+	private Integer personId;
+	
+	@OneToMany
+	@JoinColumn(name = "person_id", insertable = false, updatable = false)
+	private Set<PersonName> names = new HashSet<>();
+	
+	@OneToMany
+	@JoinColumn(name = "person_id", insertable = false, updatable = false)
+	private Set<PersonAddress> addresses = new HashSet<>();
+	
+	@OneToMany
+	@JoinColumn(name = "patient_id", insertable = false, updatable = false)
+	private Set<PatientIdentifier> identifiers = new HashSet<>();
+}
@@ -0,0 +1,67 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * The time a row of one of the tables listed in
+ * {@link org.openmrs.module.fhir2.api.util.LastUpdatedIndexUtils#TABLES} was last changed, that is,
+ * its {@code date_changed} or, if it has never been changed, its {@code date_created}. Keeping this
+ * single, indexed value lets {@code _lastUpdated} searches use an index range instead of comparing
+ * both columns of every row. Rows are written directly by
+ * {@link org.openmrs.module.fhir2.api.util.LastUpdatedIndexInterceptor} and are never modified
+ * through Hibernate.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Immutable
+@IdClass(FhirLastUpdated.Key.class)
+@Table(name = "fhir_last_updated")
+public class FhirLastUpdated {
+	
+	@EqualsAndHashCode.Include
+	@Id
+	@Column(name = "resource_table", length = 50)
+	private String resourceTable;
+	
+	@EqualsAndHashCode.Include
+	@Id
+	@Column(name = "resource_id")
+	private Integer resourceId;
+	
+	@Column(name = "last_updated", nullable = false)
+	private Date lastUpdated;
+	
+	@Data
+	@NoArgsConstructor
+	public static class Key implements Serializable {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private String resourceTable;
+		
+		private Integer resourceId;
+	}
+}
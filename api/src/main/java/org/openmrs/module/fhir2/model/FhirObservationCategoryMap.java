@@ -23,15 +23,19 @@ import java.util.UUID;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.search.annotations.Field;
 import org.openmrs.Auditable;
 import org.openmrs.ConceptClass;
 import org.openmrs.Retireable;
 import org.openmrs.User;
+import org.openmrs.module.fhir2.FhirConstants;
 
 @Data
 @EqualsAndHashCode(onlyExplicitlyIncluded = true, callSuper = false)
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = FhirConstants.OBSERVATION_CATEGORY_MAP_CACHE_REGION)
 @Table(name = "fhir_observation_category_map")
 public class FhirObservationCategoryMap implements Auditable, Retireable {
 	
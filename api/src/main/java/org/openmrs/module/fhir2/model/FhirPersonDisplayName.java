@@ -0,0 +1,45 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * The name a person is sorted by, that is, their lowest-numbered preferred name or, if they have no
+ * preferred name, their lowest-numbered name, ignoring voided names. Keeping one row per person lets
+ * name sorts join just that name instead of working out which name to use for every person in the
+ * search. Rows are written directly by
+ * {@link org.openmrs.module.fhir2.api.util.PersonDisplayNameUtils} and are never modified through
+ * Hibernate.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Immutable
+@Table(name = "fhir_person_display_name")
+public class FhirPersonDisplayName {
+	
+	@EqualsAndHashCode.Include
+	@Id
+	@Column(name = "person_id")
+	private Integer personId;
+	
+	@Column(name = "person_name_id", nullable = false, unique = true)
+	private Integer personNameId;
+}
@@ -0,0 +1,49 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * A lower-cased, accent-folded copy of a {@link org.openmrs.PersonName}, used to search for names
+ * using the indexes on this table. Rows are written directly by
+ * {@link org.openmrs.module.fhir2.api.util.PersonSearchIndexUtils} and are never modified through
+ * Hibernate.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Immutable
+@Table(name = "fhir_person_name_search")
+public class FhirPersonNameSearch {
+	
+	@EqualsAndHashCode.Include
+	@Id
+	@Column(name = "person_name_id")
+	private Integer personNameId;
+	
+	@Column(name = "given_name", length = 50)
+	private String givenName;
+	
+	@Column(name = "middle_name", length = 50)
+	private String middleName;
+	
+	@Column(name = "family_name", length = 50)
+	private String familyName;
+}
@@ -0,0 +1,134 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.providers.r4;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import ca.uhn.fhir.rest.annotation.Operation;
+import ca.uhn.fhir.rest.annotation.OperationParam;
+import ca.uhn.fhir.rest.param.NumberParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import ca.uhn.fhir.rest.server.exceptions.UnclassifiedServerFailureException;
+import lombok.AccessLevel;
+import lombok.Setter;
+import org.hl7.fhir.r4.model.CodeType;
+import org.hl7.fhir.r4.model.InstantType;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
+import org.openmrs.module.fhir2.api.FhirChangeLogService;
+import org.openmrs.module.fhir2.api.util.FhirChangeLogNotifier;
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Provides the server-level {@code $changes} operation, which returns the changes recorded in the
+ * change log after a given sequence number. A client follows the log by passing the {@code latest}
+ * value of each response as {@code since} in its next request. With {@code _wait}, a request that
+ * finds no changes waits up to that many seconds for one to be committed, so that clients can
+ * long-poll for changes instead of repeating searches on {@code _lastUpdated}. Each waiting request
+ * holds a server thread, so only {@link #MAXIMUM_WAITERS} may wait at once and any more fail with
+ * {@code 429 Too Many Requests}.
+ * <p/>
+ * Each response also includes the {@code highWaterMark}, the latest sequence number recorded, so a
+ * client can tell whether it has caught up. Changes are purged from the log after a retention
+ * period, and a request for the changes after a sequence number that has since been purged fails
+ * with {@code 410 Gone}, as some of the changes it asked for are no longer available and the client
+ * has to resynchronize. Sequence numbers are not guaranteed to be contiguous, so a gap between them
+ * does not mean a change was missed.
+ */
+@Component("changesFhirR4OperationProvider")
+@Qualifier("fhirOperations")
+@Setter(AccessLevel.PACKAGE)
+public class ChangesFhirOperationProvider {
+	
+	private static final int DEFAULT_COUNT = 100;
+	
+	private static final int MAXIMUM_COUNT = 1000;
+	
+	private static final int MAXIMUM_WAIT_SECONDS = 30;
+	
+	private static final int MAXIMUM_WAITERS = 20;
+	
+	private static final int TOO_MANY_REQUESTS = 429;
+	
+	@Autowired
+	private FhirChangeLogService changeLogService;
+	
+	@Autowired
+	private FhirChangeLogNotifier notifier;
+	
+	private Semaphore waiters = new Semaphore(MAXIMUM_WAITERS);
+	
+	@Operation(name = "changes", idempotent = true)
+	public Parameters getChanges(@OperationParam(name = "since") NumberParam since,
+	        @OperationParam(name = "_count") NumberParam count, @OperationParam(name = "_wait") NumberParam wait) {
+		long sinceSequence = since == null ? 0L : since.getValue().longValue();
+		int maxResults = count == null ? DEFAULT_COUNT : Math.min(count.getValue().intValue(), MAXIMUM_COUNT);
+		int waitSeconds = wait == null ? 0 : Math.min(wait.getValue().intValue(), MAXIMUM_WAIT_SECONDS);
+		
+		if (sinceSequence < 0 || maxResults < 1 || waitSeconds < 0) {
+			throw new InvalidRequestException("since and _wait must not be negative and _count must be positive");
+		}
+		
+		long purgedThrough = changeLogService.getPurgedThrough();
+		if (sinceSequence > 0 && sinceSequence < purgedThrough) {
+			throw new ResourceGoneException("The changes after " + sinceSequence + " up to " + purgedThrough
+			        + " have been purged from the change log, so the client has to resynchronize");
+		}
+		
+		List<FhirChangeLogEntry> changes = changeLogService.getChangesSince(sinceSequence, maxResults);
+		if (changes.isEmpty() && waitSeconds > 0) {
+			if (!waiters.tryAcquire()) {
+				throw new UnclassifiedServerFailureException(TOO_MANY_REQUESTS,
+				        "Too many requests are already waiting for changes, retry later or without _wait");
+			}
+			
+			try {
+				if (notifier.awaitChangeAfter(sinceSequence, waitSeconds * 1000L)) {
+					changes = changeLogService.getChangesSince(sinceSequence, maxResults);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				waiters.release();
+			}
+		}
+		
+		return toParameters(sinceSequence, changes, changeLogService.getLatestSequence());
+	}
+	
+	private static Parameters toParameters(long since, List<FhirChangeLogEntry> changes, long highWaterMark) {
+		Parameters parameters = new Parameters();
+		
+		long latest = since;
+		for (FhirChangeLogEntry change : changes) {
+			Parameters.ParametersParameterComponent parameter = parameters.addParameter().setName("change");
+			parameter.addPart().setName("sequence").setValue(new StringType(change.getChangeLogId().toString()));
+			parameter.addPart().setName("resource")
+			        .setValue(new Reference(change.getResourceType() + "/" + change.getResourceUuid()));
+			parameter.addPart().setName("operation")
+			        .setValue(new CodeType(change.getOperation().name().toLowerCase()));
+			parameter.addPart().setName("timestamp").setValue(new InstantType(change.getDateChanged()));
+			latest = change.getChangeLogId();
+		}
+		
+		parameters.addParameter().setName("latest").setValue(new StringType(Long.toString(latest)));
+		parameters.addParameter().setName("highWaterMark")
+		        .setValue(new StringType(Long.toString(Math.max(latest, highWaterMark))));
+		return parameters;
+	}
+}
@@ -99,7 +99,7 @@ public class DiagnosticReportFhirResourceProvider implements IResourceProvider {
 	@Search
 	public IBundleProvider searchForDiagnosticReports(
 	        @OptionalParam(name = DiagnosticReport.SP_ENCOUNTER, chainWhitelist = {
-	                "" }, targetTypes = Encounter.class) ReferenceAndListParam encounterReference,
+	                "", Encounter.SP_LOCATION }, targetTypes = Encounter.class) ReferenceAndListParam encounterReference,
 	        @OptionalParam(name = DiagnosticReport.SP_PATIENT, chainWhitelist = { "", Patient.SP_IDENTIFIER,
 	                Patient.SP_GIVEN, Patient.SP_FAMILY,
 	                Patient.SP_NAME }, targetTypes = Patient.class) ReferenceAndListParam patientReference,
@@ -107,7 +107,7 @@ public class MedicationRequestFhirResourceProvider implements IResourceProvider
 	                Patient.SP_GIVEN, Patient.SP_FAMILY,
 	                Patient.SP_NAME }, targetTypes = Patient.class) ReferenceAndListParam subjectReference,
 	        @OptionalParam(name = MedicationRequest.SP_ENCOUNTER, chainWhitelist = {
-	                "" }, targetTypes = Encounter.class) ReferenceAndListParam encounterReference,
+	                "", Encounter.SP_LOCATION }, targetTypes = Encounter.class) ReferenceAndListParam encounterReference,
 	        @OptionalParam(name = MedicationRequest.SP_CODE) TokenAndListParam code,
 	        @OptionalParam(name = MedicationRequest.SP_REQUESTER, chainWhitelist = { "", Practitioner.SP_IDENTIFIER,
 	                Practitioner.SP_GIVEN, Practitioner.SP_FAMILY,
@@ -0,0 +1,102 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.FhirTestConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class ConceptCodeResolverTest extends BaseModuleContextSensitiveTest {
+	
+	private static final String OBS_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirObservationDaoImplTest_initial_data_suppl.xml";
+	
+	private static final String CIEL_CODE = "5085";
+	
+	private static final String OTHER_CIEL_CODE = "5086";
+	
+	private static final String LOINC_SYSTOLIC_BP = "8480-6";
+	
+	private ConceptCodeResolver resolver;
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	@Before
+	public void setup() throws Exception {
+		resolver = new ConceptCodeResolver();
+		resolver.setSessionFactory(sessionFactory);
+		resolver.setGlobalPropertyService(globalPropertyService);
+		executeDataSet(OBS_DATA_XML);
+	}
+	
+	@Test
+	public void resolveConceptIds_shouldReturnConceptsMappedToCodes() {
+		assertThat(resolver.resolveConceptIds(FhirTestConstants.CIEL_SYSTEM_URN, Arrays.asList(CIEL_CODE, OTHER_CIEL_CODE)),
+		    containsInAnyOrder(5085, 5086));
+	}
+	
+	@Test
+	public void resolveConceptIds_shouldReturnEmptySetForUnmappedCode() {
+		assertThat(resolver.resolveConceptIds(FhirTestConstants.CIEL_SYSTEM_URN, Collections.singletonList("0000")),
+		    empty());
+	}
+	
+	@Test
+	public void resolveConceptIds_shouldOnlyMatchCodesInTheGivenSystem() {
+		assertThat(resolver.resolveConceptIds(FhirTestConstants.LOINC_SYSTEM_URL, Collections.singletonList(CIEL_CODE)),
+		    empty());
+	}
+	
+	@Test
+	public void resolveConceptIds_shouldServeCachedCodesUntilInvalidated() {
+		Context.getAdministrationService()
+		        .saveGlobalProperty(new GlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "true"));
+		
+		assertThat(resolver.resolveConceptIds(FhirTestConstants.CIEL_SYSTEM_URN, Collections.singletonList(CIEL_CODE)),
+		    containsInAnyOrder(5085));
+		
+		sessionFactory.getCurrentSession().createQuery("delete from ConceptMap where conceptMapId = 11").executeUpdate();
+		
+		assertThat(resolver.resolveConceptIds(FhirTestConstants.CIEL_SYSTEM_URN, Collections.singletonList(CIEL_CODE)),
+		    containsInAnyOrder(5085));
+		
+		resolver.invalidateAll();
+		
+		assertThat(resolver.resolveConceptIds(FhirTestConstants.CIEL_SYSTEM_URN, Collections.singletonList(CIEL_CODE)),
+		    empty());
+	}
+	
+	@Test
+	public void resolveConceptIds_shouldResolveLoincCodes() {
+		assertThat(
+		    resolver.resolveConceptIds(FhirTestConstants.LOINC_SYSTEM_URL, Collections.singletonList(LOINC_SYSTOLIC_BP)),
+		    containsInAnyOrder(5085));
+	}
+}
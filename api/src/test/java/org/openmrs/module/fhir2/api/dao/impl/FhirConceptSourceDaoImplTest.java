@@ -17,13 +17,17 @@ import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assume.assumeTrue;
 
 import java.util.Collection;
 import java.util.Optional;
 
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.FhirTestConstants;
 import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
 import org.openmrs.module.fhir2.model.FhirConceptSource;
@@ -90,4 +94,38 @@ public class FhirConceptSourceDaoImplTest extends BaseModuleContextSensitiveTest
 		
 		assertThat(result.isPresent(), is(false));
 	}
+	
+	@Test
+	public void getFhirConceptSourceByUrl_shouldAnswerRepeatedLookupsFromTheQueryCache() {
+		assumeTrue(((SessionFactoryImplementor) sessionFactory).getSettings().isQueryCacheEnabled());
+		sessionFactory.getCache().evictQueryRegion(FhirConstants.METADATA_QUERY_CACHE_REGION);
+		
+		Statistics statistics = sessionFactory.getStatistics();
+		boolean statisticsEnabled = statistics.isStatisticsEnabled();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		try {
+			fhirConceptSourceDao.getFhirConceptSourceByUrl(FhirTestConstants.LOINC_SYSTEM_URL);
+			fhirConceptSourceDao.getFhirConceptSourceByUrl(FhirTestConstants.LOINC_SYSTEM_URL);
+			
+			assertThat(statistics.getQueryCachePutCount(), equalTo(1L));
+			assertThat(statistics.getQueryCacheHitCount(), equalTo(1L));
+		}
+		finally {
+			statistics.setStatisticsEnabled(statisticsEnabled);
+		}
+	}
+	
+	@Test
+	public void getFhirConceptSourceByUrl_shouldNotReturnSourceRetiredAfterTheLookupWasCached() {
+		FhirConceptSource source = fhirConceptSourceDao.getFhirConceptSourceByUrl(FhirTestConstants.LOINC_SYSTEM_URL)
+		        .orElse(null);
+		assertThat(source, notNullValue());
+		
+		source.setRetired(true);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(fhirConceptSourceDao.getFhirConceptSourceByUrl(FhirTestConstants.LOINC_SYSTEM_URL).isPresent(),
+		    is(false));
+	}
 }
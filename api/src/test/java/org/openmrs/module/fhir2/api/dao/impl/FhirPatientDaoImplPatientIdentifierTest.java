@@ -13,12 +13,19 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.when;
 
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.PatientIdentifierType;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -41,13 +48,23 @@ public class FhirPatientDaoImplPatientIdentifierTest extends BaseModuleContextSe
 	@Autowired
 	private SessionFactory sessionFactory;
 	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
 	@Before
 	public void setup() throws Exception {
 		dao = new FhirPatientDaoImpl();
 		dao.setSessionFactory(sessionFactory);
+		dao.setGlobalPropertyService(globalPropertyService);
 		executeDataSet(PATIENT_IDENTIFIER_DATA_XML);
 	}
 	
+	@After
+	public void resetMocks() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false"))
+		        .thenReturn("false");
+	}
+	
 	@Test
 	public void shouldRetrievePatientIdentifierTypeByName() {
 		PatientIdentifierType result = dao.getPatientIdentifierTypeByNameOrUuid(PATIENT_IDENTIFIER_TYPE_NAME, null);
@@ -106,4 +123,44 @@ public class FhirPatientDaoImplPatientIdentifierTest extends BaseModuleContextSe
 		PatientIdentifierType result = dao.getPatientIdentifierTypeByNameOrUuid(null, null);
 		assertThat(result, nullValue());
 	}
+	
+	@Test
+	public void shouldAnswerRepeatedLookupsFromTheQueryCacheWhenCoreMetadataIsCached() {
+		assumeTrue(((SessionFactoryImplementor) sessionFactory).getSettings().isQueryCacheEnabled());
+		enableCoreMetadataCache();
+		
+		Statistics statistics = sessionFactory.getStatistics();
+		boolean statisticsEnabled = statistics.isStatisticsEnabled();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		try {
+			dao.getPatientIdentifierTypeByNameOrUuid(PATIENT_IDENTIFIER_TYPE_NAME, null);
+			dao.getPatientIdentifierTypeByNameOrUuid(PATIENT_IDENTIFIER_TYPE_NAME, null);
+			
+			assertThat(statistics.getQueryCachePutCount(), equalTo(1L));
+			assertThat(statistics.getQueryCacheHitCount(), equalTo(1L));
+		}
+		finally {
+			statistics.setStatisticsEnabled(statisticsEnabled);
+		}
+	}
+	
+	@Test
+	public void shouldNotReturnIdentifierTypeRenamedAfterTheLookupWasCached() {
+		enableCoreMetadataCache();
+		
+		PatientIdentifierType result = dao.getPatientIdentifierTypeByNameOrUuid(PATIENT_IDENTIFIER_TYPE_NAME, null);
+		assertThat(result, notNullValue());
+		
+		result.setName("Renamed Identifier Type");
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(dao.getPatientIdentifierTypeByNameOrUuid(PATIENT_IDENTIFIER_TYPE_NAME, null), nullValue());
+	}
+	
+	private void enableCoreMetadataCache() {
+		sessionFactory.getCache().evictQueryRegion(FhirConstants.METADATA_QUERY_CACHE_REGION);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false"))
+		        .thenReturn("true");
+	}
 }
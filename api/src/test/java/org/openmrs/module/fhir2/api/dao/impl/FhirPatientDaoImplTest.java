@@ -19,6 +19,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.Patient;
 import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -39,10 +40,14 @@ public class FhirPatientDaoImplTest extends BaseModuleContextSensitiveTest {
 	@Autowired
 	private SessionFactory sessionFactory;
 	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
 	@Before
 	public void setup() throws Exception {
 		dao = new FhirPatientDaoImpl();
 		dao.setSessionFactory(sessionFactory);
+		dao.setGlobalPropertyService(globalPropertyService);
 		for (String search_data : PATIENT_SEARCH_DATA_FILES) {
 			executeDataSet(search_data);
 		}
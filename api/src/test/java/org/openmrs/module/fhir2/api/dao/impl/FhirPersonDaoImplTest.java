@@ -11,10 +11,14 @@ package org.openmrs.module.fhir2.api.dao.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.hibernate.SessionFactory;
 import org.junit.Before;
@@ -32,6 +36,8 @@ public class FhirPersonDaoImplTest extends BaseModuleContextSensitiveTest {
 	
 	private static final String PERSON_UUID = "61b38324-e2fd-4feb-95b7-9e9a2a4400df";
 	
+	private static final String OTHER_PERSON_UUID = "256ccf6d-6b41-455c-9be2-51ff4386ae76";
+	
 	private static final String WRONG_PERSON_UUID = "wrong_person_uuid";
 	
 	private static final String PERSON_INITIAL_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirPersonDaoImplTest_initial_data.xml";
@@ -79,4 +85,24 @@ public class FhirPersonDaoImplTest extends BaseModuleContextSensitiveTest {
 		assertThat(attributeList, notNullValue());
 	}
 	
+	@Test
+	public void getActiveAttributesByPersonsAndAttributeTypeUuid_shouldReturnAttributesKeyedByPersonId() {
+		List<Person> persons = Arrays.asList(fhirPersonDao.get(PERSON_UUID), fhirPersonDao.get(OTHER_PERSON_UUID));
+		
+		Map<Integer, List<PersonAttribute>> attributes = fhirPersonDao
+		        .getActiveAttributesByPersonsAndAttributeTypeUuid(persons, PERSON_ATTRIBUTE_TYPE_UUID);
+		
+		assertThat(attributes, notNullValue());
+		attributes.forEach((personId, personAttributes) -> personAttributes.forEach(attribute -> {
+			assertThat(attribute.getPerson().getId(), equalTo(personId));
+			assertThat(attribute.getAttributeType().getUuid(), equalTo(PERSON_ATTRIBUTE_TYPE_UUID));
+			assertThat(attribute.getVoided(), is(false));
+		}));
+	}
+	
+	@Test
+	public void getActiveAttributesByPersonsAndAttributeTypeUuid_shouldReturnEmptyMapForNoPersons() {
+		assertThat(fhirPersonDao.getActiveAttributesByPersonsAndAttributeTypeUuid(Collections.emptyList(),
+		    PERSON_ATTRIBUTE_TYPE_UUID).isEmpty(), is(true));
+	}
 }
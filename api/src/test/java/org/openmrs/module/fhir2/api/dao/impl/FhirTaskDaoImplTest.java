@@ -10,15 +10,21 @@
 package org.openmrs.module.fhir2.api.dao.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.hibernate.SessionFactory;
 import org.junit.Before;
@@ -46,6 +52,8 @@ public class FhirTaskDaoImplTest extends BaseModuleContextSensitiveTest {
 	
 	private static final String BASED_ON_ORDER_UUID = "7d96f25c-4949-4f72-9931-d808fbc226de";
 	
+	private static final String OTHER_ORDER_UUID = "cbcb84f3-4576-452f-ba74-7cdeaa9aa602";
+	
 	private static final FhirTask.TaskStatus NEW_STATUS = FhirTask.TaskStatus.ACCEPTED;
 	
 	private static final FhirTask.TaskIntent TASK_INTENT = FhirTask.TaskIntent.ORDER;
@@ -280,4 +288,18 @@ public class FhirTaskDaoImplTest extends BaseModuleContextSensitiveTest {
 		assertThat(result.getBasedOnReferences().size(), greaterThan(0));
 	}
 	
+	@Test
+	public void getTaskStatesByBasedOn_shouldReturnTaskStatusGroupedByBasedOnReference() {
+		Map<String, List<FhirTask>> result = dao.getTaskStatesByBasedOn(FhirConstants.SERVICE_REQUEST,
+		    Arrays.asList(BASED_ON_ORDER_UUID, OTHER_ORDER_UUID));
+		
+		assertThat(result.keySet(), contains(BASED_ON_ORDER_UUID));
+		assertThat(result.get(BASED_ON_ORDER_UUID), hasSize(1));
+		assertThat(result.get(BASED_ON_ORDER_UUID).get(0).getStatus(), equalTo(FhirTask.TaskStatus.REQUESTED));
+	}
+	
+	@Test
+	public void getTaskStatesByBasedOn_shouldReturnEmptyMapForNoReferences() {
+		assertThat(dao.getTaskStatesByBasedOn(FhirConstants.SERVICE_REQUEST, Collections.emptyList()), anEmptyMap());
+	}
 }
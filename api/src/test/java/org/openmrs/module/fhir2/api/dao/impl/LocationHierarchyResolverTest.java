@@ -0,0 +1,86 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.api.LocationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class LocationHierarchyResolverTest extends BaseModuleContextSensitiveTest {
+	
+	private static final int DEPTH = 12;
+	
+	private LocationHierarchyResolver resolver;
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	private final List<Location> chain = new ArrayList<>();
+	
+	@Before
+	public void setup() {
+		resolver = new LocationHierarchyResolver();
+		resolver.setSessionFactory(sessionFactory);
+		
+		LocationService locationService = Context.getLocationService();
+		Location parent = null;
+		for (int depth = 0; depth < DEPTH; depth++) {
+			Location location = new Location();
+			location.setName("Hierarchy Location " + depth);
+			location.setParentLocation(parent);
+			parent = locationService.saveLocation(location);
+			chain.add(parent);
+		}
+	}
+	
+	@Test
+	public void getDescendantIds_shouldReturnTheLocationAndAllItsDescendants() {
+		assertThat(resolver.getDescendantIds(chain.get(0).getUuid()),
+		    containsInAnyOrder(chain.stream().map(Location::getLocationId).toArray()));
+	}
+	
+	@Test
+	public void getAncestorIds_shouldReturnTheLocationAndAllItsAncestors() {
+		assertThat(resolver.getAncestorIds(chain.get(DEPTH - 1).getUuid()),
+		    contains(chain.stream().map(Location::getLocationId).sorted((a, b) -> b - a).toArray()));
+	}
+	
+	@Test
+	public void getDescendantIds_shouldStopAtCycles() {
+		Location top = chain.get(0);
+		// the location service would reject this, so the cycle is flushed directly
+		top.setParentLocation(chain.get(DEPTH - 1));
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(resolver.getDescendantIds(top.getUuid()),
+		    containsInAnyOrder(chain.stream().map(Location::getLocationId).toArray()));
+	}
+	
+	@Test
+	public void getDescendantIds_shouldReturnEmptySetForUnknownLocation() {
+		assertThat(resolver.getDescendantIds("unknown-location-uuid"), empty());
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.when;
+
+import javax.sql.DataSource;
+
+import java.sql.Timestamp;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class ReadReplicaRouterTest extends BaseModuleContextSensitiveTest {
+	
+	private static final String REPLICA_DATABASE = "fhir2_replica";
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	private JdbcTemplate replica;
+	
+	private ReadReplicaRouter router;
+	
+	@Before
+	public void setup() {
+		DataSource replicaDataSource = new DriverManagerDataSource("jdbc:h2:mem:" + REPLICA_DATABASE + ";DB_CLOSE_DELAY=-1",
+		        "sa", "");
+		replica = new JdbcTemplate(replicaDataSource);
+		replica.execute(
+		    "create table if not exists fhir_replica_heartbeat (heartbeat_id int primary key, heartbeat timestamp)");
+		setReplicaHeartbeat(System.currentTimeMillis());
+		
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_REPLICA_MAXIMUM_LAG, 5)).thenReturn(5);
+		
+		router = new ReadReplicaRouter();
+		router.setSessionFactory(sessionFactory);
+		router.setGlobalPropertyService(globalPropertyService);
+		router.setReplicaDataSource(replicaDataSource);
+		router.checkReplicaLag();
+	}
+	
+	@Test
+	@Transactional(readOnly = true)
+	public void getSearchSession_shouldUseReplicaInReadOnlyTransactions() {
+		assertThat(getDatabaseUrl(router.getSearchSession()), containsString(REPLICA_DATABASE));
+	}
+	
+	@Test
+	public void getSearchSession_shouldUsePrimaryInReadWriteTransactions() {
+		assertThat(getDatabaseUrl(router.getSearchSession()), not(containsString(REPLICA_DATABASE)));
+	}
+	
+	@Test
+	@Transactional(readOnly = true)
+	public void getSearchSession_shouldUsePrimaryWhenReplicaLags() {
+		setReplicaHeartbeat(System.currentTimeMillis() - 60_000);
+		router.checkReplicaLag();
+		
+		assertThat(getDatabaseUrl(router.getSearchSession()), not(containsString(REPLICA_DATABASE)));
+	}
+	
+	@Test
+	@Transactional(readOnly = true)
+	public void getSearchSession_shouldUsePrimaryAfterAWriteByTheSameUser() {
+		router.recordWrite();
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		
+		assertThat(getDatabaseUrl(router.getSearchSession()), not(containsString(REPLICA_DATABASE)));
+	}
+	
+	@Test
+	@Transactional(readOnly = true)
+	public void getSearchSession_shouldKeepUsingReplicaUntilAWriteIsCommitted() {
+		router.recordWrite();
+		
+		assertThat(getDatabaseUrl(router.getSearchSession()), containsString(REPLICA_DATABASE));
+	}
+	
+	private void setReplicaHeartbeat(long heartbeat) {
+		replica.update("merge into fhir_replica_heartbeat key (heartbeat_id) values (1, ?)", new Timestamp(heartbeat));
+	}
+	
+	private static String getDatabaseUrl(Session session) {
+		return session.doReturningWork(connection -> connection.getMetaData().getURL());
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import ca.uhn.fhir.rest.param.ReferenceAndListParam;
+import ca.uhn.fhir.rest.param.ReferenceOrListParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenAndListParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.Obs;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchGovernorTest {
+	
+	private static final String PATIENT_UUID = "da7f524f-27ce-4bb2-86d6-6d1d05312bd5";
+	
+	@Mock
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	private SearchGovernor searchGovernor;
+	
+	@Before
+	public void setup() {
+		searchGovernor = new SearchGovernor();
+		searchGovernor.setGlobalPropertyService(globalPropertyService);
+	}
+	
+	@Test
+	public void isSelective_shouldReturnTrueForSearchesRestrictedToPatients() {
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(
+		    FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER,
+		    new ReferenceAndListParam().addAnd(new ReferenceOrListParam().add(new ReferenceParam(PATIENT_UUID))));
+		
+		assertThat(searchGovernor.isSelective(theParams), equalTo(true));
+	}
+	
+	@Test
+	public void isSelective_shouldReturnFalseForChainedPatientReferences() {
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(
+		    FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER, new ReferenceAndListParam()
+		            .addAnd(new ReferenceOrListParam().add(new ReferenceParam("name", "smith"))));
+		
+		assertThat(searchGovernor.isSelective(theParams), equalTo(false));
+	}
+	
+	@Test
+	public void isSelective_shouldReturnFalseIfAReferenceIsOnlyPartlyRestrictedById() {
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(
+		    FhirConstants.ENCOUNTER_REFERENCE_SEARCH_HANDLER,
+		    new ReferenceAndListParam().addAnd(new ReferenceOrListParam().add(new ReferenceParam(PATIENT_UUID))
+		            .add(new ReferenceParam("subject.name", "smith"))));
+		
+		assertThat(searchGovernor.isSelective(theParams), equalTo(false));
+	}
+	
+	@Test
+	public void isSelective_shouldReturnTrueForSearchesRestrictedToIds() {
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.COMMON_SEARCH_HANDLER,
+		    FhirConstants.ID_PROPERTY, new TokenAndListParam().addAnd(new TokenParam(PATIENT_UUID)));
+		
+		assertThat(searchGovernor.isSelective(theParams), equalTo(true));
+	}
+	
+	@Test
+	public void getMaximumResults_shouldOnlyLimitUnselectiveSearches() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_SEARCH_MAXIMUM_RESULTS, 0))
+		        .thenReturn(500);
+		
+		SearchParameterMap unselective = new SearchParameterMap().addParameter(FhirConstants.CATEGORY_SEARCH_HANDLER,
+		    new TokenAndListParam().addAnd(new TokenParam("laboratory")));
+		SearchParameterMap selective = new SearchParameterMap().addParameter(
+		    FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER,
+		    new ReferenceAndListParam().addAnd(new ReferenceOrListParam().add(new ReferenceParam(PATIENT_UUID))));
+		
+		assertThat(searchGovernor.getMaximumResults(unselective), equalTo(500));
+		assertThat(searchGovernor.getMaximumResults(selective), equalTo(0));
+	}
+	
+	@Test
+	public void shouldNotLimitSearchesUnlessConfigured() {
+		when(globalPropertyService.getGlobalProperty(anyString(), anyInt()))
+		        .thenAnswer(invocation -> invocation.getArgument(1));
+		
+		SearchParameterMap unselective = new SearchParameterMap().addParameter(FhirConstants.CATEGORY_SEARCH_HANDLER,
+		    new TokenAndListParam().addAnd(new TokenParam("laboratory")));
+		
+		assertThat(searchGovernor.getMaximumResults(unselective), equalTo(0));
+		assertThat(searchGovernor.getTimeout(Obs.class), equalTo(0));
+	}
+	
+	@Test
+	public void getTimeout_shouldPreferTheTimeoutForTheSearchedType() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_SEARCH_TIMEOUT, 0)).thenReturn(30);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_SEARCH_TIMEOUT + ".Obs", 30))
+		        .thenReturn(10);
+		
+		assertThat(searchGovernor.getTimeout(Obs.class), equalTo(10));
+	}
+}
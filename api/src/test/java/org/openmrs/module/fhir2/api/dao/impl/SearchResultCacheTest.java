@@ -0,0 +1,182 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.rest.param.ReferenceAndListParam;
+import ca.uhn.fhir.rest.param.ReferenceOrListParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenAndListParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.ConceptMap;
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.Encounter;
+import org.openmrs.EncounterProvider;
+import org.openmrs.EncounterType;
+import org.openmrs.Location;
+import org.openmrs.Obs;
+import org.openmrs.Provider;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.openmrs.module.fhir2.model.FhirConceptSource;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class SearchResultCacheTest extends BaseModuleContextSensitiveTest {
+	
+	private static final String PATIENT_UUID = "da7f524f-27ce-4bb2-86d6-6d1d05312bd5";
+	
+	private static final String OTHER_PATIENT_UUID = "5946f880-b197-400b-9caa-a3c661d23041";
+	
+	private static final Set<Class<?>> OBS_DEPENDENCIES = Collections.singleton(Obs.class);
+	
+	private static final List<String> UUIDS = Arrays.asList("uuid-1", "uuid-2");
+	
+	@Autowired
+	@Qualifier("fhirR4")
+	private FhirContext fhirContext;
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	private SearchResultCache cache;
+	
+	private AtomicInteger loads;
+	
+	private Supplier<List<String>> loader;
+	
+	@Before
+	public void setup() {
+		cache = new SearchResultCache();
+		cache.setFhirContext(fhirContext);
+		loads = new AtomicInteger();
+		loader = () -> {
+			loads.incrementAndGet();
+			return UUIDS;
+		};
+	}
+	
+	@Test
+	public void getSearchResultUuids_shouldOnlyLoadIdenticalSearchesOnce() {
+		assertThat(search(observationsFor(PATIENT_UUID, "1", "2")), contains(UUIDS.toArray()));
+		assertThat(search(observationsFor(PATIENT_UUID, "2", "1")), contains(UUIDS.toArray()));
+		
+		assertThat(loads.get(), equalTo(1));
+		assertThat(cache.getStatistics().get("hits"), equalTo(1L));
+	}
+	
+	@Test
+	public void getSearchResultUuids_shouldLoadDifferentSearchesSeparately() {
+		search(observationsFor(PATIENT_UUID, "1"));
+		search(observationsFor(PATIENT_UUID, "2"));
+		
+		assertThat(loads.get(), equalTo(2));
+	}
+	
+	@Test
+	public void invalidate_shouldDiscardSearchesDependingOnTheChangedType() {
+		search(observationsFor(PATIENT_UUID, "1"));
+		
+		cache.invalidate(Location.class, null);
+		search(observationsFor(PATIENT_UUID, "1"));
+		assertThat(loads.get(), equalTo(1));
+		
+		cache.invalidate(Obs.class, null);
+		search(observationsFor(PATIENT_UUID, "1"));
+		assertThat(loads.get(), equalTo(2));
+	}
+	
+	@Test
+	public void invalidate_shouldKeepSearchesRestrictedToOtherPatients() {
+		search(observationsFor(PATIENT_UUID, "1"));
+		
+		cache.invalidate(Obs.class, OTHER_PATIENT_UUID);
+		search(observationsFor(PATIENT_UUID, "1"));
+		assertThat(loads.get(), equalTo(1));
+		
+		cache.invalidate(Obs.class, PATIENT_UUID);
+		search(observationsFor(PATIENT_UUID, "1"));
+		assertThat(loads.get(), equalTo(2));
+	}
+	
+	@Test
+	public void getSearchResultUuids_shouldNotCacheResultsLoadedWhileAChangeWasCommitted() {
+		SearchParameterMap theParams = observationsFor(PATIENT_UUID, "1");
+		
+		cache.getSearchResultUuids(Obs.class, OBS_DEPENDENCIES, theParams, () -> {
+			cache.invalidate(Obs.class, PATIENT_UUID);
+			return UUIDS;
+		});
+		search(theParams);
+		
+		assertThat(loads.get(), equalTo(1));
+	}
+	
+	@Test
+	public void getSearchResultUuids_shouldNotCacheResultsLoadedByATransactionWithUncommittedChanges() {
+		Location location = new Location();
+		location.setName("Uncommitted Location");
+		Context.getLocationService().saveLocation(location);
+		sessionFactory.getCurrentSession().flush();
+		
+		search(observationsFor(PATIENT_UUID, "1"));
+		search(observationsFor(PATIENT_UUID, "1"));
+		
+		assertThat(loads.get(), equalTo(2));
+	}
+	
+	@Test
+	public void getSearchResultDependencies_shouldIncludeConceptMappingsForSearchesByCode() {
+		assertThat(new FhirObservationDaoImpl().getSearchResultDependencies(),
+		    hasItems(Obs.class, Concept.class, ConceptMap.class, ConceptReferenceTerm.class, FhirConceptSource.class));
+	}
+	
+	@Test
+	public void getSearchResultDependencies_shouldIncludeJoinedEntitiesForEncounterSearches() {
+		assertThat(new FhirEncounterDaoImpl().getSearchResultDependencies(), hasItems(Encounter.class, EncounterType.class,
+		    EncounterProvider.class, Provider.class, Location.class));
+	}
+	
+	private List<String> search(SearchParameterMap theParams) {
+		return cache.getSearchResultUuids(Obs.class, OBS_DEPENDENCIES, theParams, loader);
+	}
+	
+	private static SearchParameterMap observationsFor(String patientUuid, String... codes) {
+		TokenAndListParam code = new TokenAndListParam();
+		Arrays.stream(codes).forEach(c -> code.addAnd(new TokenParam(c)));
+		
+		return new SearchParameterMap()
+		        .addParameter(FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER,
+		            new ReferenceAndListParam().addAnd(new ReferenceOrListParam().add(new ReferenceParam(patientUuid))))
+		        .addParameter(FhirConstants.CODED_SEARCH_HANDLER, code);
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.dao.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Encounter;
+import org.openmrs.Provider;
+import org.openmrs.Visit;
+import org.openmrs.api.APIAuthenticationException;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.openmrs.util.PrivilegeConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class UuidTypeResolverTest extends BaseModuleContextSensitiveTest {
+	
+	private static final String ENCOUNTER_INITIAL_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirEncounterDaoImplTest_initial_data.xml";
+	
+	private static final String VISIT_INITIAL_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirVisitDaoImplTest_initial_data.xml";
+	
+	private static final String PRACTITIONER_INITIAL_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirPractitionerDaoImplTest_initial_data.xml";
+	
+	private static final String ENCOUNTER_UUID = "430bbb70-6a9c-4e1e-badb-9d1034b1b5e9";
+	
+	private static final String VISIT_UUID = "65aefd46-973d-4526-89de-93842c80ad11";
+	
+	private static final String PRACTITIONER_UUID = "f9badd80-ab76-11e2-9e96-0800200c9a66";
+	
+	private static final String UNKNOWN_UUID = "2ea4d48f-7fd7-4a1b-9d7c-4cb7c4b5f58c";
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	private UuidTypeResolver resolver;
+	
+	@Before
+	public void setup() throws Exception {
+		resolver = new UuidTypeResolver();
+		resolver.setSessionFactory(sessionFactory);
+		executeDataSet(ENCOUNTER_INITIAL_DATA_XML);
+		executeDataSet(VISIT_INITIAL_DATA_XML);
+		executeDataSet(PRACTITIONER_INITIAL_DATA_XML);
+	}
+	
+	@Test
+	public void resolve_shouldFindTheTableHoldingEachUuid() {
+		Map<String, Class<?>> types = resolver.resolve(FhirConstants.ENCOUNTER,
+		    Arrays.asList(ENCOUNTER_UUID, VISIT_UUID, UNKNOWN_UUID));
+		
+		assertThat(types.size(), equalTo(2));
+		assertThat(types.get(ENCOUNTER_UUID), equalTo(Encounter.class));
+		assertThat(types.get(VISIT_UUID), equalTo(Visit.class));
+	}
+	
+	@Test
+	public void resolve_shouldResolvePractitioners() {
+		assertThat(resolver.resolve(FhirConstants.PRACTITIONER, PRACTITIONER_UUID), equalTo(Optional.of(Provider.class)));
+		assertThat(resolver.resolve(FhirConstants.PRACTITIONER, UNKNOWN_UUID).isPresent(), is(false));
+	}
+	
+	@Test
+	public void resolve_shouldNotQueryResolvedUuidsAgain() {
+		resolver.resolve(FhirConstants.ENCOUNTER, VISIT_UUID);
+		
+		sessionFactory.getCurrentSession().createSQLQuery("update visit set uuid = :newUuid where uuid = :uuid")
+		        .setParameter("newUuid", UNKNOWN_UUID).setParameter("uuid", VISIT_UUID).executeUpdate();
+		
+		assertThat(resolver.resolve(FhirConstants.ENCOUNTER, VISIT_UUID), equalTo(Optional.of(Visit.class)));
+	}
+	
+	@Test
+	public void resolve_shouldOnlySearchTablesTheUserMayRead() {
+		resolver.resolve(FhirConstants.ENCOUNTER, Arrays.asList(ENCOUNTER_UUID, VISIT_UUID));
+		
+		Context.logout();
+		try {
+			Context.addProxyPrivilege(PrivilegeConstants.GET_ENCOUNTERS);
+			
+			Map<String, Class<?>> types = resolver.resolve(FhirConstants.ENCOUNTER,
+			    Arrays.asList(ENCOUNTER_UUID, VISIT_UUID));
+			
+			assertThat(types.size(), equalTo(1));
+			assertThat(types.get(ENCOUNTER_UUID), equalTo(Encounter.class));
+		}
+		finally {
+			Context.removeProxyPrivilege(PrivilegeConstants.GET_ENCOUNTERS);
+		}
+	}
+	
+	@Test(expected = APIAuthenticationException.class)
+	public void resolve_shouldRefuseUsersWhoMayReadNoTable() {
+		Context.logout();
+		
+		resolver.resolve(FhirConstants.PRACTITIONER, PRACTITIONER_UUID);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void resolve_shouldRejectTypesBackedByASingleTable() {
+		resolver.resolve(FhirConstants.PATIENT, ENCOUNTER_UUID);
+	}
+}
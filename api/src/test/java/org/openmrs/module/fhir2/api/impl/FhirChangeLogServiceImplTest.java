@@ -0,0 +1,85 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.dao.FhirChangeLogDao;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FhirChangeLogServiceImplTest {
+	
+	@Mock
+	private FhirChangeLogDao dao;
+	
+	@Mock
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	@Mock
+	private AdministrationService adminService;
+	
+	private FhirChangeLogServiceImpl changeLogService;
+	
+	@Before
+	public void setup() {
+		changeLogService = new FhirChangeLogServiceImpl();
+		changeLogService.setDao(dao);
+		changeLogService.setGlobalPropertyService(globalPropertyService);
+		changeLogService.setAdminService(adminService);
+	}
+	
+	@Test
+	public void purgeExpiredChanges_shouldDeleteExpiredChangesAndRecordTheLatestOfThem() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CHANGE_LOG_RETENTION_DAYS, 30))
+		        .thenReturn(30);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CHANGE_LOG_PURGED_THROUGH, "0"))
+		        .thenReturn("10");
+		when(dao.getLatestSequenceBefore(any(Date.class))).thenReturn(42L);
+		when(dao.deleteChangesThrough(42L)).thenReturn(32);
+		
+		assertThat(changeLogService.purgeExpiredChanges(), equalTo(32));
+		verify(adminService).setGlobalProperty(FhirConstants.OPENMRS_FHIR_CHANGE_LOG_PURGED_THROUGH, "42");
+	}
+	
+	@Test
+	public void purgeExpiredChanges_shouldKeepChangesForeverWhenRetentionIsZero() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CHANGE_LOG_RETENTION_DAYS, 30))
+		        .thenReturn(0);
+		
+		assertThat(changeLogService.purgeExpiredChanges(), equalTo(0));
+		verify(dao, never()).deleteChangesThrough(anyLong());
+		verify(adminService, never()).setGlobalProperty(anyString(), anyString());
+	}
+	
+	@Test
+	public void getPurgedThrough_shouldReturnZeroWhenNothingHasBeenPurged() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CHANGE_LOG_PURGED_THROUGH, "0"))
+		        .thenReturn("0");
+		
+		assertThat(changeLogService.getPurgedThrough(), equalTo(0L));
+	}
+}
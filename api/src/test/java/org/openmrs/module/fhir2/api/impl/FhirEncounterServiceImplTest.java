@@ -21,12 +21,18 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
@@ -37,6 +43,7 @@ import ca.uhn.fhir.rest.param.ReferenceOrListParam;
 import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import org.hamcrest.Matchers;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Location;
@@ -49,9 +56,11 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.openmrs.Encounter;
+import org.openmrs.Visit;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirEncounterDao;
+import org.openmrs.module.fhir2.api.dao.impl.UuidTypeResolver;
 import org.openmrs.module.fhir2.api.search.SearchQuery;
 import org.openmrs.module.fhir2.api.search.SearchQueryBundleProvider;
 import org.openmrs.module.fhir2.api.search.SearchQueryInclude;
@@ -63,6 +72,8 @@ public class FhirEncounterServiceImplTest {
 	
 	private static final String ENCOUNTER_UUID = "344kk343-45hj45-34jk34-34ui33";
 	
+	private static final String VISIT_UUID = "65aefd46-973d-4526-89de-93842c80ad11";
+	
 	private static final String ENCOUNTER_DATETIME = "2005-01-01T00:00:00.0";
 	
 	private static final String PATIENT_FAMILY_NAME = "Doe";
@@ -89,6 +100,9 @@ public class FhirEncounterServiceImplTest {
 	@Mock
 	private FhirGlobalPropertyService globalPropertyService;
 	
+	@Mock
+	private UuidTypeResolver uuidTypeResolver;
+	
 	@Mock
 	private SearchQueryInclude<org.hl7.fhir.r4.model.Encounter> searchQueryInclude;
 	
@@ -109,6 +123,7 @@ public class FhirEncounterServiceImplTest {
 		encounterService.setVisitService(visitService);
 		encounterService.setSearchQuery(searchQuery);
 		encounterService.setSearchQueryInclude(searchQueryInclude);
+		encounterService.setUuidTypeResolver(uuidTypeResolver);
 		
 		openMrsEncounter = new Encounter();
 		openMrsEncounter.setUuid(ENCOUNTER_UUID);
@@ -123,6 +138,7 @@ public class FhirEncounterServiceImplTest {
 	
 	@Test
 	public void get_shouldGetEncounterByUuid() {
+		when(uuidTypeResolver.resolve(FhirConstants.ENCOUNTER, ENCOUNTER_UUID)).thenReturn(Optional.of(Encounter.class));
 		when(dao.get(ENCOUNTER_UUID)).thenReturn(openMrsEncounter);
 		when(encounterTranslator.toFhirResource(openMrsEncounter)).thenReturn(fhirEncounter);
 		org.hl7.fhir.r4.model.Encounter fhirEncounter = encounterService.get(ENCOUNTER_UUID);
@@ -133,12 +149,39 @@ public class FhirEncounterServiceImplTest {
 	
 	@Test
 	public void get_shouldGetEncounterByUuidFromOpenMrsVisit() {
-		when(dao.get(ENCOUNTER_UUID)).thenReturn(openMrsEncounter);
-		when(encounterTranslator.toFhirResource(openMrsEncounter)).thenReturn(fhirEncounter);
+		when(uuidTypeResolver.resolve(FhirConstants.ENCOUNTER, ENCOUNTER_UUID)).thenReturn(Optional.of(Visit.class));
+		when(visitService.get(ENCOUNTER_UUID)).thenReturn(fhirEncounter);
 		org.hl7.fhir.r4.model.Encounter fhirEncounter = encounterService.get(ENCOUNTER_UUID);
 		assertThat(fhirEncounter, notNullValue());
 		assertThat(fhirEncounter.getId(), notNullValue());
 		assertThat(fhirEncounter.getId(), equalTo(ENCOUNTER_UUID));
+		verify(dao, never()).get(ENCOUNTER_UUID);
+	}
+	
+	@Test(expected = ResourceNotFoundException.class)
+	public void get_shouldThrowResourceNotFoundForUnknownUuid() {
+		when(uuidTypeResolver.resolve(FhirConstants.ENCOUNTER, ENCOUNTER_UUID)).thenReturn(Optional.empty());
+		encounterService.get(ENCOUNTER_UUID);
+	}
+	
+	@Test
+	public void get_shouldGetEncountersAndVisitsByUuidsInTheRequestedOrder() {
+		Map<String, Class<?>> types = new HashMap<>();
+		types.put(ENCOUNTER_UUID, Encounter.class);
+		types.put(VISIT_UUID, Visit.class);
+		
+		org.hl7.fhir.r4.model.Encounter visitEncounter = new org.hl7.fhir.r4.model.Encounter();
+		visitEncounter.setId(VISIT_UUID);
+		
+		when(uuidTypeResolver.resolve(FhirConstants.ENCOUNTER, Arrays.asList(VISIT_UUID, ENCOUNTER_UUID)))
+		        .thenReturn(types);
+		when(dao.get(Collections.singletonList(ENCOUNTER_UUID))).thenReturn(Collections.singletonList(openMrsEncounter));
+		when(encounterTranslator.toFhirResource(openMrsEncounter)).thenReturn(fhirEncounter);
+		when(visitService.get(Collections.singletonList(VISIT_UUID))).thenReturn(Collections.singletonList(visitEncounter));
+		
+		List<org.hl7.fhir.r4.model.Encounter> results = encounterService.get(Arrays.asList(VISIT_UUID, ENCOUNTER_UUID));
+		
+		assertThat(results, Matchers.contains(visitEncounter, fhirEncounter));
 	}
 	
 	@Test
@@ -18,21 +18,27 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 import java.util.List;
 
+import ca.uhn.fhir.rest.api.SortOrderEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.ReferenceOrListParam;
 import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenAndListParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.openmrs.Obs;
@@ -42,6 +48,7 @@ import org.openmrs.module.fhir2.api.dao.FhirObservationDao;
 import org.openmrs.module.fhir2.api.search.SearchQuery;
 import org.openmrs.module.fhir2.api.search.SearchQueryBundleProvider;
 import org.openmrs.module.fhir2.api.search.SearchQueryInclude;
+import org.openmrs.module.fhir2.api.search.param.PropParam;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
 import org.openmrs.module.fhir2.api.translators.ObservationTranslator;
 
@@ -137,4 +144,33 @@ public class FhirObservationServiceImplTest {
 		assertThat(resultList, not(empty()));
 		assertThat(resultList, hasSize(equalTo(1)));
 	}
+	
+	@Test
+	public void getLastnObservations_shouldSearchForMostRecentObservationsByDefault() {
+		ReferenceAndListParam patientReference = new ReferenceAndListParam();
+		patientReference.addValue(new ReferenceOrListParam().add(new ReferenceParam(Patient.SP_RES_ID, OBS_UUID)));
+		
+		fhirObservationService.getLastnObservations(null, patientReference, null, null);
+		
+		ArgumentCaptor<SearchParameterMap> captor = ArgumentCaptor.forClass(SearchParameterMap.class);
+		verify(searchQuery).getQueryResults(captor.capture(), any(), any(), any());
+		
+		List<PropParam<?>> lastn = captor.getValue().getParameters(FhirConstants.LASTN_OBSERVATION_SEARCH_HANDLER);
+		assertThat(lastn, hasSize(1));
+		assertThat(lastn.get(0).getParam(), equalTo(1));
+		assertThat(captor.getValue().getParameters(FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER), hasSize(1));
+		assertThat(captor.getValue().getSortSpec().getParamName(), equalTo(Observation.SP_DATE));
+		assertThat(captor.getValue().getSortSpec().getOrder(), equalTo(SortOrderEnum.DESC));
+	}
+	
+	@Test(expected = InvalidRequestException.class)
+	public void getLastnObservations_shouldRejectNonPositiveMax() {
+		fhirObservationService.getLastnObservations(0, null, null, null);
+	}
+	
+	@Test(expected = InvalidRequestException.class)
+	public void getLastnObservations_shouldRejectSearchesWithoutPatientOrCode() {
+		fhirObservationService.getLastnObservations(1, null, new TokenAndListParam().addAnd(new TokenParam("laboratory")),
+		    null);
+	}
 }
@@ -33,6 +33,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
@@ -60,6 +61,7 @@ import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.FhirUserService;
 import org.openmrs.module.fhir2.api.dao.FhirPractitionerDao;
+import org.openmrs.module.fhir2.api.dao.impl.UuidTypeResolver;
 import org.openmrs.module.fhir2.api.search.SearchQuery;
 import org.openmrs.module.fhir2.api.search.SearchQueryBundleProvider;
 import org.openmrs.module.fhir2.api.search.SearchQueryInclude;
@@ -148,6 +150,9 @@ public class FhirPractitionerServiceImplTest {
 	
 	private Practitioner practitioner2;
 	
+	@Mock
+	private UuidTypeResolver uuidTypeResolver;
+	
 	@Before
 	public void setUp() {
 		when(userService.searchForUsers(any())).thenReturn(new SimpleBundleProvider());
@@ -159,6 +164,7 @@ public class FhirPractitionerServiceImplTest {
 		practitionerService.setUserService(userService);
 		practitionerService.setSearchQueryInclude(searchQueryInclude);
 		practitionerService.setGlobalPropertyService(globalPropertyService);
+		practitionerService.setUuidTypeResolver(uuidTypeResolver);
 		
 		provider = new Provider();
 		provider.setUuid(UUID);
@@ -183,6 +189,7 @@ public class FhirPractitionerServiceImplTest {
 	
 	@Test
 	public void shouldRetrievePractitionerByUuidWhoIsProvider() {
+		when(uuidTypeResolver.resolve(FhirConstants.PRACTITIONER, UUID)).thenReturn(Optional.of(Provider.class));
 		when(practitionerDao.get(UUID)).thenReturn(provider);
 		when(practitionerTranslator.toFhirResource(provider)).thenReturn(practitioner);
 		
@@ -194,8 +201,7 @@ public class FhirPractitionerServiceImplTest {
 	
 	@Test
 	public void shouldRetrievePractitionerByUuidWhoIsUser() {
-		when(practitionerDao.get(UUID2)).thenReturn(null);
-		
+		when(uuidTypeResolver.resolve(FhirConstants.PRACTITIONER, UUID2)).thenReturn(Optional.of(User.class));
 		when(userService.get(UUID2)).thenReturn(practitioner2);
 		
 		Practitioner result = practitionerService.get(UUID2);
@@ -33,11 +33,15 @@ import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.HasAndListParam;
+import ca.uhn.fhir.rest.param.HasOrListParam;
+import ca.uhn.fhir.rest.param.HasParam;
 import ca.uhn.fhir.rest.param.ReferenceAndListParam;
 import ca.uhn.fhir.rest.param.ReferenceOrListParam;
 import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.Encounter;
 import org.hl7.fhir.r4.model.Location;
@@ -47,6 +51,8 @@ import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Practitioner;
 import org.hl7.fhir.r4.model.ServiceRequest;
 import org.junit.Test;
+import org.openmrs.api.LocationService;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
 import org.openmrs.module.fhir2.api.dao.FhirEncounterDao;
@@ -111,6 +117,10 @@ public class EncounterSearchQueryTest extends BaseModuleContextSensitiveTest {
 	
 	private static final String WRONG_DATE_CREATED = "2008-08-18";
 	
+	private static final String OBS_ENCOUNTER_UUID = "6519d653-393b-4118-9c83-a3715b82d4ac";
+	
+	private static final String OBS_CONCEPT_ID = "5089";
+	
 	private static final int START_INDEX = 0;
 	
 	private static final int END_INDEX = 10;
@@ -1065,6 +1075,80 @@ public class EncounterSearchQueryTest extends BaseModuleContextSensitiveTest {
 		    equalTo(ENCOUNTER_LOCATION_UUID));
 	}
 	
+	@Test
+	public void searchForEncounters_shouldReturnEncountersWithMatchingObservations() {
+		HasAndListParam has = new HasAndListParam().addAnd(new HasOrListParam().add(
+		    new HasParam(FhirConstants.OBSERVATION, Observation.SP_ENCOUNTER, Observation.SP_CODE, OBS_CONCEPT_ID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, has);
+		
+		List<IBaseResource> resultList = get(search(theParams));
+		
+		assertThat(resultList, hasItem(hasProperty("id", endsWith(OBS_ENCOUNTER_UUID))));
+	}
+	
+	@Test(expected = InvalidRequestException.class)
+	public void searchForEncounters_shouldRejectReverseChainsOnPatients() {
+		HasAndListParam has = new HasAndListParam().addAnd(new HasOrListParam()
+		        .add(new HasParam(FhirConstants.OBSERVATION, Observation.SP_PATIENT, Observation.SP_CODE, OBS_CONCEPT_ID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, has);
+		
+		search(theParams).size();
+	}
+	
+	@Test
+	public void searchForEncounters_shouldIncludeEncountersAtTheLocationItselfForLocationBelow() {
+		ReferenceAndListParam locationReference = new ReferenceAndListParam()
+		        .addAnd(new ReferenceOrListParam().add(new ReferenceParam("below", null, ENCOUNTER_LOCATION_UUID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.LOCATION_REFERENCE_SEARCH_HANDLER,
+		    locationReference);
+		IBundleProvider results = search(theParams);
+		
+		List<IBaseResource> resultList = get(results);
+		
+		assertThat(results, notNullValue());
+		assertThat(resultList, hasSize(greaterThanOrEqualTo(1)));
+		assertThat(
+		    ((Encounter) resultList.iterator().next()).getLocationFirstRep().getLocation().getReferenceElement().getIdPart(),
+		    equalTo(ENCOUNTER_LOCATION_UUID));
+	}
+	
+	@Test
+	public void searchForEncounters_shouldIncludeEncountersAtDeeplyNestedLocationsForLocationBelow() {
+		LocationService locationService = Context.getLocationService();
+		
+		org.openmrs.Location top = null;
+		org.openmrs.Location parent = null;
+		for (int depth = 0; depth < 12; depth++) {
+			org.openmrs.Location location = new org.openmrs.Location();
+			location.setName("Nested Location " + depth);
+			location.setParentLocation(parent);
+			parent = locationService.saveLocation(location);
+			if (top == null) {
+				top = parent;
+			}
+		}
+		
+		org.openmrs.Location encounterLocation = locationService.getLocationByUuid(ENCOUNTER_LOCATION_UUID);
+		encounterLocation.setParentLocation(parent);
+		locationService.saveLocation(encounterLocation);
+		
+		ReferenceAndListParam locationReference = new ReferenceAndListParam()
+		        .addAnd(new ReferenceOrListParam().add(new ReferenceParam("below", null, top.getUuid())));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.LOCATION_REFERENCE_SEARCH_HANDLER,
+		    locationReference);
+		
+		List<IBaseResource> resultList = get(search(theParams));
+		
+		assertThat(resultList, hasSize(greaterThanOrEqualTo(1)));
+		assertThat(
+		    ((Encounter) resultList.iterator().next()).getLocationFirstRep().getLocation().getReferenceElement().getIdPart(),
+		    equalTo(ENCOUNTER_LOCATION_UUID));
+	}
+	
 	@Test
 	public void searchForEncounters_shouldSearchForEncountersBySubjectIdentifierAndGivenName() {
 		ReferenceAndListParam subjectReference = new ReferenceAndListParam();
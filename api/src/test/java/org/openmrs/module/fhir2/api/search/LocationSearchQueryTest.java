@@ -11,6 +11,7 @@ package org.openmrs.module.fhir2.api.search;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
@@ -106,6 +107,16 @@ public class LocationSearchQueryTest extends BaseModuleContextSensitiveTest {
 	
 	private static final String LOCATION_INITIAL_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirLocationDaoImplTest_initial_data.xml";
 	
+	private static final String LOCATION_HIERARCHY_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirLocationDaoImplTest_hierarchy_data.xml";
+	
+	private static final String DISTRICT_UUID = "a6a2f9a4-7a0c-4e8e-9d0c-1b0e7d5b1a01";
+	
+	private static final String SUBCOUNTY_UUID = "a6a2f9a4-7a0c-4e8e-9d0c-1b0e7d5b1a02";
+	
+	private static final String FACILITY_UUID = "a6a2f9a4-7a0c-4e8e-9d0c-1b0e7d5b1a03";
+	
+	private static final String WARD_UUID = "a6a2f9a4-7a0c-4e8e-9d0c-1b0e7d5b1a04";
+	
 	private static final int START_INDEX = 0;
 	
 	private static final int END_INDEX = 10;
@@ -309,6 +320,48 @@ public class LocationSearchQueryTest extends BaseModuleContextSensitiveTest {
 		assertThat(resultList.get(0).getMeta().getTag().iterator().next().getCode(), equalTo(LOGIN_LOCATION_TAG_NAME));
 	}
 	
+	@Test
+	public void searchForLocations_shouldReturnAllDescendantsForPartOfBelow() throws Exception {
+		executeDataSet(LOCATION_HIERARCHY_DATA_XML);
+		
+		ReferenceAndListParam parentLocation = new ReferenceAndListParam()
+		        .addAnd(new ReferenceOrListParam().add(new ReferenceParam("below", null, DISTRICT_UUID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.LOCATION_REFERENCE_SEARCH_HANDLER,
+		    parentLocation);
+		
+		IBundleProvider locations = search(theParams);
+		
+		assertThat(locations, notNullValue());
+		assertThat(locations.size(), equalTo(3));
+		
+		List<Location> resultList = get(locations);
+		
+		assertThat(resultList.stream().map(l -> l.getIdElement().getIdPart()).collect(Collectors.toList()),
+		    containsInAnyOrder(SUBCOUNTY_UUID, FACILITY_UUID, WARD_UUID));
+	}
+	
+	@Test
+	public void searchForLocations_shouldReturnLocationsWhoseParentIsAnAncestorForPartOfAbove() throws Exception {
+		executeDataSet(LOCATION_HIERARCHY_DATA_XML);
+		
+		ReferenceAndListParam parentLocation = new ReferenceAndListParam()
+		        .addAnd(new ReferenceOrListParam().add(new ReferenceParam("above", null, SUBCOUNTY_UUID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.LOCATION_REFERENCE_SEARCH_HANDLER,
+		    parentLocation);
+		
+		IBundleProvider locations = search(theParams);
+		
+		assertThat(locations, notNullValue());
+		assertThat(locations.size(), equalTo(2));
+		
+		List<Location> resultList = get(locations);
+		
+		assertThat(resultList.stream().map(l -> l.getIdElement().getIdPart()).collect(Collectors.toList()),
+		    containsInAnyOrder(SUBCOUNTY_UUID, FACILITY_UUID));
+	}
+	
 	@Test
 	public void searchForLocations_shouldReturnCorrectLocationByParentUUID() {
 		ReferenceAndListParam parentLocation = new ReferenceAndListParam()
@@ -52,6 +52,7 @@ import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import ca.uhn.fhir.rest.param.TokenOrListParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import org.hibernate.SessionFactory;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.DiagnosticReport;
@@ -61,14 +62,17 @@ import org.hl7.fhir.r4.model.Patient;
 import org.junit.Before;
 import org.junit.Test;
 import org.openmrs.Obs;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.FhirTestConstants;
 import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
 import org.openmrs.module.fhir2.api.dao.FhirObservationDao;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
 import org.openmrs.module.fhir2.api.translators.ObservationTranslator;
+import org.openmrs.module.fhir2.api.translators.ParallelToFhirTranslator;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.test.context.ContextConfiguration;
 
 @ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
@@ -122,6 +126,8 @@ public class ObservationSearchQueryTest extends BaseModuleContextSensitiveTest {
 	
 	private static final String ENCOUNTER_UUID_TWO = "6519d653-393b-4118-9c83-a3715b82d4ac";
 	
+	private static final String WRONG_LOCATION_UUID = "c2299800-cca9-11e0-9572-abcdef0c9a66";
+	
 	private static final String MEMBER_UUID = "744b91f8-bdbc-4950-833b-002244e9fa2b";
 	
 	private static final String SNOMED_SYSTEM_URI = "http://snomed.info/sct";
@@ -155,6 +161,10 @@ public class ObservationSearchQueryTest extends BaseModuleContextSensitiveTest {
 	@Autowired
 	private SearchQuery<Obs, Observation, FhirObservationDao, ObservationTranslator, SearchQueryInclude<Observation>> searchQuery;
 	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
 	@Before
 	public void setup() throws Exception {
 		executeDataSet(OBS_DATA_XML);
@@ -657,6 +667,35 @@ public class ObservationSearchQueryTest extends BaseModuleContextSensitiveTest {
 		assertThat(resultList.size(), equalTo(10));
 	}
 	
+	@Test
+	public void searchForObs_shouldReturnObsByEncounterLocation() {
+		String locationUuid = Context.getEncounterService().getEncounterByUuid(ENCOUNTER_UUID).getLocation().getUuid();
+		ReferenceAndListParam encounterReference = new ReferenceAndListParam().addAnd(
+		    new ReferenceOrListParam().add(new ReferenceParam().setChain(Encounter.SP_LOCATION).setValue(locationUuid)));
+		
+		SearchParameterMap theParams = new SearchParameterMap();
+		theParams.addParameter(FhirConstants.ENCOUNTER_REFERENCE_SEARCH_HANDLER, encounterReference);
+		
+		IBundleProvider results = search(theParams);
+		
+		assertThat(results, notNullValue());
+		assertThat(results.size(), greaterThanOrEqualTo(14));
+	}
+	
+	@Test
+	public void searchForObs_shouldReturnEmptyListOfObsByWrongEncounterLocation() {
+		ReferenceAndListParam encounterReference = new ReferenceAndListParam().addAnd(new ReferenceOrListParam()
+		        .add(new ReferenceParam().setChain(Encounter.SP_LOCATION).setValue(WRONG_LOCATION_UUID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap();
+		theParams.addParameter(FhirConstants.ENCOUNTER_REFERENCE_SEARCH_HANDLER, encounterReference);
+		
+		IBundleProvider results = search(theParams);
+		
+		assertThat(results, notNullValue());
+		assertThat(get(results), empty());
+	}
+	
 	@Test
 	public void searchForObs_shouldReturnObsByCategory() {
 		TokenAndListParam categories = new TokenAndListParam().addAnd(new TokenParam().setValue("laboratory"));
@@ -1478,6 +1517,47 @@ public class ObservationSearchQueryTest extends BaseModuleContextSensitiveTest {
 		            hasItem(hasProperty("referenceElement", hasProperty("idPart", equalTo(MEMBER_UUID)))))))));
 	}
 	
+	@Test
+	public void searchForObs_shouldReturnOnlyMostRecentObsPerCodeForLastn() {
+		ReferenceAndListParam patientReference = new ReferenceAndListParam()
+		        .addAnd(new ReferenceOrListParam().add(new ReferenceParam().setValue(PATIENT_UUID)));
+		TokenAndListParam code = new TokenAndListParam().addAnd(new TokenParam("5242"));
+		
+		SearchParameterMap theParams = new SearchParameterMap()
+		        .addParameter(FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER, patientReference)
+		        .addParameter(FhirConstants.CODED_SEARCH_HANDLER, code)
+		        .addParameter(FhirConstants.LASTN_OBSERVATION_SEARCH_HANDLER, 2)
+		        .setSortSpec(new SortSpec(Observation.SP_DATE, SortOrderEnum.DESC));
+		
+		IBundleProvider results = search(theParams);
+		
+		assertThat(results, notNullValue());
+		assertThat(results.size(), equalTo(2));
+		
+		List<IBaseResource> resultList = get(results);
+		
+		assertThat(resultList, hasSize(2));
+		// the voided obs at the same time as the most recent one is not counted
+		assertThat(resultList.get(0).getIdElement().getIdPart(), equalTo("942ec003-a55d-43c4-ac7a-bd6d1ba63381"));
+		assertThat(resultList.get(1).getIdElement().getIdPart(), equalTo("86sgf-1f7d-4394-a316-0a458edf28c3"));
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void initialize_shouldLoadEverythingTheTranslationReads() {
+		SearchParameterMap theParams = new SearchParameterMap();
+		List<Obs> observations = dao.getSearchResults(theParams, dao.getSearchResultUuids(theParams));
+		
+		((ParallelToFhirTranslator<Obs, Observation>) translator).initialize(observations);
+		// detaches the observations, so any association the translation still needs fails to load
+		sessionFactory.getCurrentSession().clear();
+		
+		List<Observation> resources = observations.stream().map(translator::toFhirResource).collect(Collectors.toList());
+		
+		assertThat(resources, not(empty()));
+		assertThat(resources, hasSize(observations.size()));
+	}
+	
 	private IBundleProvider search(SearchParameterMap theParams) {
 		return searchQuery.getQueryResults(theParams, dao, translator, searchQueryInclude);
 	}
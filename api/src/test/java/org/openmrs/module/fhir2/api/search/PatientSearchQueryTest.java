@@ -12,6 +12,8 @@ package org.openmrs.module.fhir2.api.search;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.everyItem;
@@ -30,6 +32,7 @@ import static org.hl7.fhir.r4.model.Patient.SP_FAMILY;
 import static org.hl7.fhir.r4.model.Patient.SP_GIVEN;
 import static org.mockito.Mockito.when;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -42,10 +45,15 @@ import ca.uhn.fhir.rest.api.SortSpec;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.DateParam;
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.param.HasAndListParam;
+import ca.uhn.fhir.rest.param.HasOrListParam;
+import ca.uhn.fhir.rest.param.HasParam;
 import ca.uhn.fhir.rest.param.StringAndListParam;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenAndListParam;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.hibernate.SessionFactory;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.AllergyIntolerance;
 import org.hl7.fhir.r4.model.DiagnosticReport;
@@ -55,14 +63,23 @@ import org.hl7.fhir.r4.model.MedicationRequest;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.ServiceRequest;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.openmrs.Person;
+import org.openmrs.PersonName;
+import org.openmrs.api.PersonService;
+import org.openmrs.api.context.Context;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirPatientDao;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
 import org.openmrs.module.fhir2.api.translators.PatientTranslator;
+import org.openmrs.module.fhir2.api.util.PersonFullTextIndexer;
+import org.openmrs.module.fhir2.api.util.LastUpdatedIndexUtils;
+import org.openmrs.module.fhir2.api.util.PersonDisplayNameUtils;
+import org.openmrs.module.fhir2.api.util.PersonSearchIndexUtils;
 import org.openmrs.test.BaseModuleContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
@@ -128,6 +145,14 @@ public class PatientSearchQueryTest extends BaseModuleContextSensitiveTest {
 	
 	private static final String DATE_CHANGED = "2008-08-18";
 	
+	private static final String OBS_PATIENT_UUID = "5946f880-b197-400b-9caa-a3c661d23041";
+	
+	private static final String OBS_CONCEPT_ID = "5089";
+	
+	private static final String WRONG_OBS_CONCEPT_ID = "999999";
+	
+	private static final String OBS_CONCEPT_UUID = "c607c80f-1ea9-4da3-bb88-6276ce8868dd";
+	
 	private static final int START_INDEX = 0;
 	
 	private static final int END_INDEX = 10;
@@ -146,6 +171,12 @@ public class PatientSearchQueryTest extends BaseModuleContextSensitiveTest {
 	@Autowired
 	private FhirGlobalPropertyService globalPropertyService;
 	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private PersonFullTextIndexer personFullTextIndexer;
+	
 	@Autowired
 	private SearchQuery<org.openmrs.Patient, Patient, FhirPatientDao, PatientTranslator, SearchQueryInclude<Patient>> searchQuery;
 	
@@ -156,6 +187,22 @@ public class PatientSearchQueryTest extends BaseModuleContextSensitiveTest {
 		}
 	}
 	
+	@After
+	public void resetMocks() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_NORMALIZED_PERSON_SEARCH, "false"))
+		        .thenReturn("false");
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH, "false"))
+		        .thenReturn("false");
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH_PHONETIC,
+		    "false")).thenReturn("false");
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_LAST_UPDATED_INDEX, "false"))
+		        .thenReturn("false");
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_DISPLAY_NAME_SORT, "false"))
+		        .thenReturn("false");
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_SEARCH_MAXIMUM_RESULTS, 0))
+		        .thenReturn(0);
+	}
+	
 	@Before
 	public void setupMocks() {
 		SEVERITY_CONCEPT_UUIDS.put(FhirConstants.GLOBAL_PROPERTY_SEVERE, SEVERITY_SEVERE_CONCEPT_UUID);
@@ -631,6 +678,70 @@ public class PatientSearchQueryTest extends BaseModuleContextSensitiveTest {
 		assertThat(resultList, empty());
 	}
 	
+	@Test
+	public void searchForPatients_shouldSearchForPatientsByLastUpdatedThroughIndex() {
+		DateRangeParam lastUpdated = new DateRangeParam().setUpperBound(DATE_CHANGED).setLowerBound(DATE_CHANGED);
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.COMMON_SEARCH_HANDLER,
+		    FhirConstants.LAST_UPDATED_PROPERTY, lastUpdated);
+		
+		List<String> expectedUuids = getUuids(get(search(theParams)));
+		
+		enableLastUpdatedIndex();
+		
+		List<String> resultUuids = getUuids(get(search(theParams)));
+		
+		assertThat(resultUuids, not(empty()));
+		assertThat(resultUuids, containsInAnyOrder(expectedUuids.toArray()));
+	}
+	
+	@Test
+	public void searchForPatients_shouldSortPatientsByLastUpdatedWhenIndexIsEnabled() {
+		SortSpec sort = new SortSpec();
+		sort.setParamName(FhirConstants.SP_LAST_UPDATED);
+		sort.setOrder(SortOrderEnum.DESC);
+		
+		SearchParameterMap theParams = new SearchParameterMap().setSortSpec(sort);
+		
+		enableLastUpdatedIndex();
+		
+		List<Patient> resultList = get(search(theParams));
+		
+		assertThat(resultList, hasSize(greaterThan(1)));
+		
+		List<Date> lastUpdated = getUuids(resultList).stream().map(dao::get)
+		        .map(patient -> patient.getDateChanged() != null ? patient.getDateChanged() : patient.getDateCreated())
+		        .collect(Collectors.toList());
+		for (int i = 1; i < lastUpdated.size(); i++) {
+			assertThat(lastUpdated.get(i - 1), greaterThanOrEqualTo(lastUpdated.get(i)));
+		}
+	}
+	
+	@Test
+	public void searchForPatients_shouldOnlySortMatchingPatientsByLastUpdatedWhenIndexIsEnabled() {
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.FAMILY_PROPERTY, new StringAndListParam().addAnd(new StringParam(PATIENT_PARTIAL_FAMILY_NAME)));
+		List<String> unsorted = getUuids(get(search(theParams)));
+		
+		SortSpec sort = new SortSpec();
+		sort.setParamName(FhirConstants.SP_LAST_UPDATED);
+		sort.setOrder(SortOrderEnum.ASC);
+		theParams.setSortSpec(sort);
+		
+		enableLastUpdatedIndex();
+		
+		List<String> sorted = getUuids(get(search(theParams)));
+		
+		assertThat(sorted, containsInAnyOrder(unsorted.toArray()));
+		
+		List<Date> lastUpdated = sorted.stream().map(dao::get)
+		        .map(patient -> patient.getDateChanged() != null ? patient.getDateChanged() : patient.getDateCreated())
+		        .collect(Collectors.toList());
+		for (int i = 1; i < lastUpdated.size(); i++) {
+			assertThat(lastUpdated.get(i - 1), lessThanOrEqualTo(lastUpdated.get(i)));
+		}
+	}
+	
 	@Test
 	public void searchForPatients_shouldReverseIncludeAllergiesWithReturnedResults() {
 		TokenAndListParam uuid = new TokenAndListParam().addAnd(new TokenParam(PATIENT_OTHER1_UUID));
@@ -860,6 +971,41 @@ public class PatientSearchQueryTest extends BaseModuleContextSensitiveTest {
 		}
 	}
 	
+	@Test
+	public void shouldReturnCollectionOfPatientsSortedByNameUsingDisplayNames() {
+		enableDisplayNameSort();
+		
+		SortSpec sort = new SortSpec();
+		sort.setParamName("name");
+		sort.setOrder(SortOrderEnum.ASC);
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.FAMILY_PROPERTY, new StringAndListParam().addAnd(new StringParam(PATIENT_PARTIAL_FAMILY_NAME)))
+		        .setSortSpec(sort);
+		
+		List<Patient> resultList = get(search(theParams));
+		
+		assertThat(resultList, hasSize(greaterThan(1)));
+		
+		for (int i = 1; i < resultList.size(); i++) {
+			assertThat(resultList.get(i - 1).getName().get(0).getNameAsSingleString(),
+			    lessThanOrEqualTo(resultList.get(i).getName().get(0).getNameAsSingleString()));
+		}
+		
+		sort.setOrder(SortOrderEnum.DESC);
+		
+		theParams.setSortSpec(sort);
+		
+		resultList = get(search(theParams));
+		
+		assertThat(resultList, hasSize(greaterThan(1)));
+		
+		for (int i = 1; i < resultList.size(); i++) {
+			assertThat(resultList.get(i - 1).getName().get(0).getNameAsSingleString(),
+			    greaterThanOrEqualTo(resultList.get(i).getName().get(0).getNameAsSingleString()));
+		}
+	}
+	
 	@Test
 	public void shouldReturnCollectionOfPatientsSortedByGivenName() {
 		SortSpec sort = new SortSpec();
@@ -1154,4 +1300,310 @@ public class PatientSearchQueryTest extends BaseModuleContextSensitiveTest {
 		}
 	}
 	
+	@Test
+	public void searchForPatients_shouldSearchNormalizedNamesIgnoringCaseAndAccents() {
+		int expectedCount = search(new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER, "name",
+		    new StringAndListParam().addAnd(new StringParam(PATIENT_PARTIAL_GIVEN_NAME)))).size();
+		
+		enableNormalizedPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER, "name",
+		    new StringAndListParam().addAnd(new StringParam("JÉAN")));
+		
+		IBundleProvider results = search(theParams);
+		
+		assertThat(results.size(), greaterThan(1));
+		assertThat(results.size(), equalTo(expectedCount));
+	}
+	
+	@Test
+	public void searchForPatients_shouldSearchNormalizedFamilyNamesExactly() {
+		enableNormalizedPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.FAMILY_PROPERTY,
+		    new StringAndListParam().addAnd(new StringParam(PATIENT_PARTIAL_FAMILY_NAME).setExact(true)));
+		
+		assertThat(search(theParams).size(), equalTo(0));
+		
+		theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.FAMILY_PROPERTY,
+		    new StringAndListParam().addAnd(new StringParam(PATIENT_FAMILY_NAME).setExact(true)));
+		
+		assertThat(search(theParams).size(), greaterThanOrEqualTo(1));
+	}
+	
+	@Test
+	public void searchForPatients_shouldKeepNormalizedNamesInStepWithSavedNames() {
+		enableNormalizedPersonSearch();
+		
+		PersonService personService = Context.getPersonService();
+		Person person = personService.getPersonByUuid(PATIENT_UUID);
+		PersonName personName = new PersonName("Zoë", null, "Ångström");
+		person.addName(personName);
+		personService.savePerson(person);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(searchByFamilyName("angstrom"), contains(PATIENT_UUID));
+		
+		personName.setFamilyName("Celsius");
+		personService.savePerson(person);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(searchByFamilyName("angstrom"), empty());
+		assertThat(searchByFamilyName("CELSIUS"), contains(PATIENT_UUID));
+		
+		personService.voidPersonName(personName, "test");
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(searchByFamilyName("celsius"), empty());
+	}
+	
+	@Test
+	public void searchForPatients_shouldMatchExactNamesAgainstOriginalValues() {
+		PersonService personService = Context.getPersonService();
+		Person person = personService.getPersonByUuid(PATIENT_UUID);
+		person.addName(new PersonName("Zoë", null, "Ångström"));
+		personService.savePerson(person);
+		sessionFactory.getCurrentSession().flush();
+		
+		enableNormalizedPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.FAMILY_PROPERTY, new StringAndListParam().addAnd(new StringParam("angstrom").setExact(true)));
+		
+		assertThat(search(theParams).size(), equalTo(0));
+		
+		theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER, FhirConstants.FAMILY_PROPERTY,
+		    new StringAndListParam().addAnd(new StringParam("Ångström").setExact(true)));
+		
+		assertThat(get(search(theParams)).stream().map(p -> p.getIdElement().getIdPart()).collect(Collectors.toList()),
+		    contains(PATIENT_UUID));
+	}
+	
+	@Test
+	public void searchForPatients_shouldApplyMaximumResultsToDistinctPatients() {
+		PersonService personService = Context.getPersonService();
+		Person person = personService.getPersonByUuid(PATIENT_UUID);
+		person.addName(new PersonName("Zoë", null, "Ångström"));
+		person.addName(new PersonName("Anders", null, "Ångström"));
+		personService.savePerson(person);
+		sessionFactory.getCurrentSession().flush();
+		
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_SEARCH_MAXIMUM_RESULTS, 0))
+		        .thenReturn(1);
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.FAMILY_PROPERTY, new StringAndListParam().addAnd(new StringParam("Ångström")));
+		
+		List<String> uuids = dao.getSearchResultUuids(theParams);
+		
+		assertThat(uuids, contains(PATIENT_UUID));
+		assertThat(uuids, not(instanceOf(TruncatedSearchResultUuids.class)));
+	}
+	
+	@Test
+	public void searchForPatients_shouldSearchNormalizedAddresses() {
+		enableNormalizedPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.ADDRESS_SEARCH_HANDLER,
+		    FhirConstants.CITY_PROPERTY,
+		    new StringAndListParam().addAnd(new StringParam(PATIENT_ADDRESS_CITY.toUpperCase())));
+		
+		List<Patient> resultList = get(search(theParams));
+		
+		assertThat(resultList, not(empty()));
+		assertThat(resultList.get(0).getIdElement().getIdPart(), equalTo(PATIENT_ADDRESS_PATIENT_UUID));
+	}
+	
+	@Test
+	public void searchForPatients_shouldSearchNamesThroughFullTextIndex() {
+		int expectedCount = search(new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER, "name",
+		    new StringAndListParam().addAnd(new StringParam(PATIENT_PARTIAL_GIVEN_NAME)))).size();
+		
+		enableFullTextPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER, "name",
+		    new StringAndListParam().addAnd(new StringParam("JÉAN")));
+		
+		IBundleProvider results = search(theParams);
+		
+		assertThat(results.size(), greaterThan(1));
+		assertThat(results.size(), equalTo(expectedCount));
+	}
+	
+	@Test
+	public void searchForPatients_shouldReturnNoPatientsForUnmatchedNameInFullTextIndex() {
+		enableFullTextPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER, "name",
+		    new StringAndListParam().addAnd(new StringParam(PATIENT_NOT_FOUND_NAME)));
+		
+		assertThat(search(theParams).size(), equalTo(0));
+	}
+	
+	@Test
+	public void searchForPatients_shouldMatchSimilarSoundingNamesThroughFullTextIndex() {
+		enableFullTextPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.FAMILY_PROPERTY, new StringAndListParam().addAnd(new StringParam("Klodent")));
+		
+		assertThat(search(theParams).size(), equalTo(0));
+		
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH_PHONETIC,
+		    "false")).thenReturn("true");
+		
+		assertThat(search(theParams).size(), greaterThanOrEqualTo(1));
+	}
+	
+	@Test
+	public void searchForPatients_shouldNotMatchVoidedNamesThroughFullTextIndex() {
+		PersonService personService = Context.getPersonService();
+		Person person = personService.getPersonByUuid(PATIENT_UUID);
+		PersonName personName = new PersonName("Zoë", null, "Ångström");
+		person.addName(personName);
+		personService.savePerson(person);
+		personService.voidPersonName(personName, "test");
+		sessionFactory.getCurrentSession().flush();
+		
+		enableFullTextPersonSearch();
+		
+		assertThat(searchByFamilyName("angstrom"), empty());
+	}
+	
+	@Test
+	public void searchForPatients_shouldMatchGivenAndFamilyNameAgainstTheSameNameThroughFullTextIndex() {
+		PersonService personService = Context.getPersonService();
+		Person person = personService.getPersonByUuid(PATIENT_UUID);
+		String givenName = person.getGivenName();
+		person.addName(new PersonName("Zoë", null, "Ångström"));
+		personService.savePerson(person);
+		sessionFactory.getCurrentSession().flush();
+		
+		enableFullTextPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap()
+		        .addParameter(FhirConstants.NAME_SEARCH_HANDLER, FhirConstants.GIVEN_PROPERTY,
+		            new StringAndListParam().addAnd(new StringParam(givenName)))
+		        .addParameter(FhirConstants.NAME_SEARCH_HANDLER, FhirConstants.FAMILY_PROPERTY,
+		            new StringAndListParam().addAnd(new StringParam("Ångström")));
+		
+		assertThat(getUuids(get(search(theParams))), not(hasItem(PATIENT_UUID)));
+		
+		theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.GIVEN_PROPERTY, new StringAndListParam().addAnd(new StringParam(givenName)));
+		
+		assertThat(getUuids(get(search(theParams))), hasItem(PATIENT_UUID));
+	}
+	
+	@Test
+	public void searchForPatients_shouldSearchIdentifiersThroughFullTextIndex() {
+		enableFullTextPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.IDENTIFIER_SEARCH_HANDLER,
+		    new TokenAndListParam().addAnd(new TokenParam(PATIENT_IDENTIFIER_TYPE, PATIENT_IDENTIFIER)));
+		
+		List<Patient> resultList = get(search(theParams));
+		
+		assertThat(resultList, hasSize(1));
+		assertThat(resultList.get(0).getIdentifierFirstRep().getValue(), equalTo(PATIENT_IDENTIFIER));
+	}
+	
+	@Test
+	public void searchForPatients_shouldSearchAddressesThroughFullTextIndex() {
+		enableFullTextPersonSearch();
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.ADDRESS_SEARCH_HANDLER,
+		    FhirConstants.CITY_PROPERTY,
+		    new StringAndListParam().addAnd(new StringParam(PATIENT_ADDRESS_CITY.toUpperCase())));
+		
+		List<Patient> resultList = get(search(theParams));
+		
+		assertThat(resultList, not(empty()));
+		assertThat(resultList.get(0).getIdElement().getIdPart(), equalTo(PATIENT_ADDRESS_PATIENT_UUID));
+	}
+	
+	@Test
+	public void searchForPatients_shouldReturnPatientsWithMatchingObservations() {
+		HasAndListParam has = new HasAndListParam().addAnd(new HasOrListParam()
+		        .add(new HasParam(FhirConstants.OBSERVATION, Observation.SP_PATIENT, Observation.SP_CODE, OBS_CONCEPT_ID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, has);
+		
+		List<Patient> resultList = get(search(theParams));
+		
+		assertThat(getUuids(resultList), hasItem(OBS_PATIENT_UUID));
+	}
+	
+	@Test
+	public void searchForPatients_shouldReturnEmptyCollectionWhenNoObservationsMatch() {
+		HasAndListParam has = new HasAndListParam().addAnd(new HasOrListParam().add(
+		    new HasParam(FhirConstants.OBSERVATION, Observation.SP_SUBJECT, Observation.SP_CODE, WRONG_OBS_CONCEPT_ID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, has);
+		
+		assertThat(get(search(theParams)), empty());
+	}
+	
+	@Test
+	public void searchForPatients_shouldMatchObservationsByConceptUuid() {
+		HasAndListParam has = new HasAndListParam().addAnd(new HasOrListParam().add(
+		    new HasParam(FhirConstants.OBSERVATION, Observation.SP_PATIENT, Observation.SP_CODE, OBS_CONCEPT_UUID)));
+		
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, has);
+		
+		assertThat(getUuids(get(search(theParams))), hasItem(OBS_PATIENT_UUID));
+	}
+	
+	@Test(expected = InvalidRequestException.class)
+	public void searchForPatients_shouldRejectReverseChainsFromUnsupportedResourceTypes() {
+		HasAndListParam has = new HasAndListParam().addAnd(new HasOrListParam().add(new HasParam(
+		        FhirConstants.DIAGNOSTIC_REPORT, DiagnosticReport.SP_PATIENT, DiagnosticReport.SP_CODE, OBS_CONCEPT_ID)));
+		
+		search(new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, has)).size();
+	}
+	
+	@Test(expected = InvalidRequestException.class)
+	public void searchForPatients_shouldRejectReverseChainsOnUnsupportedSearchParameters() {
+		HasAndListParam has = new HasAndListParam().addAnd(new HasOrListParam().add(
+		    new HasParam(FhirConstants.OBSERVATION, Observation.SP_PATIENT, Observation.SP_VALUE_STRING, "positive")));
+		
+		search(new SearchParameterMap().addParameter(FhirConstants.HAS_SEARCH_HANDLER, has)).size();
+	}
+	
+	private void enableFullTextPersonSearch() {
+		personFullTextIndexer.rebuild();
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_FULL_TEXT_PERSON_SEARCH, "false"))
+		        .thenReturn("true");
+	}
+	
+	private void enableLastUpdatedIndex() {
+		sessionFactory.getCurrentSession().doWork(LastUpdatedIndexUtils::rebuild);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_LAST_UPDATED_INDEX, "false"))
+		        .thenReturn("true");
+	}
+	
+	private void enableDisplayNameSort() {
+		sessionFactory.getCurrentSession().doWork(PersonDisplayNameUtils::rebuild);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_DISPLAY_NAME_SORT, "false"))
+		        .thenReturn("true");
+	}
+	
+	private static List<String> getUuids(List<Patient> patients) {
+		return patients.stream().map(patient -> patient.getIdElement().getIdPart()).collect(Collectors.toList());
+	}
+	
+	private List<String> searchByFamilyName(String familyName) {
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(FhirConstants.NAME_SEARCH_HANDLER,
+		    FhirConstants.FAMILY_PROPERTY, new StringAndListParam().addAnd(new StringParam(familyName)));
+		
+		return getUuids(get(search(theParams)));
+	}
+	
+	private void enableNormalizedPersonSearch() {
+		sessionFactory.getCurrentSession().doWork(PersonSearchIndexUtils::rebuild);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_NORMALIZED_PERSON_SEARCH, "false"))
+		        .thenReturn("true");
+	}
 }
@@ -10,27 +10,47 @@
 package org.openmrs.module.fhir2.api.search;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 
+import ca.uhn.fhir.model.api.Include;
 import org.exparity.hamcrest.date.DateMatchers;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.openmrs.Obs;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirObservationDao;
 import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
 import org.openmrs.module.fhir2.api.translators.ObservationTranslator;
+import org.openmrs.module.fhir2.api.translators.ParallelToFhirTranslator;
 
 @RunWith(MockitoJUnitRunner.class)
 public class SearchQueryBundleProviderTest {
@@ -38,6 +58,9 @@ public class SearchQueryBundleProviderTest {
 	@Mock
 	private ObservationTranslator translator;
 	
+	@Mock
+	private ParallelToFhirTranslator<Obs, Observation> parallelTranslator;
+	
 	@Mock
 	private FhirObservationDao observationDao;
 	
@@ -49,13 +72,20 @@ public class SearchQueryBundleProviderTest {
 	
 	private SearchQueryBundleProvider<Obs, Observation> searchQueryBundleProvider;
 	
+	private SearchParameterMap theParams;
+	
 	@Before
 	public void setup() {
-		SearchParameterMap theParams = new SearchParameterMap();
+		theParams = new SearchParameterMap();
 		searchQueryBundleProvider = new SearchQueryBundleProvider<>(theParams, observationDao, translator,
 		        globalPropertyService, searchQueryInclude);
 	}
 	
+	@After
+	public void tearDown() {
+		StreamingSearchContext.cancel();
+	}
+	
 	@Test
 	public void shouldReturnPreferredPageSize() {
 		when(globalPropertyService.getGlobalProperty(anyString(), anyInt())).thenReturn(10);
@@ -75,4 +105,144 @@ public class SearchQueryBundleProviderTest {
 	public void shouldReturnRandomUuid() {
 		assertThat(searchQueryBundleProvider.getUuid(), notNullValue());
 	}
+	
+	@Test
+	public void shouldOfferCursorInsteadOfTranslatingWhenStreamingRequested() {
+		List<String> uuids = Arrays.asList("uuid1", "uuid2", "uuid3");
+		Obs obs1 = new Obs();
+		Obs obs2 = new Obs();
+		Obs obs3 = new Obs();
+		Observation observation1 = new Observation();
+		Observation observation2 = new Observation();
+		Observation observation3 = new Observation();
+		when(observationDao.getSearchResultUuids(theParams)).thenReturn(uuids);
+		when(observationDao.getSearchResults(theParams, uuids, 0, 2)).thenReturn(Arrays.asList(obs1, obs2));
+		when(observationDao.getSearchResults(theParams, uuids, 2, 3)).thenReturn(Collections.singletonList(obs3));
+		when(translator.toFhirResource(obs1)).thenReturn(observation1);
+		when(translator.toFhirResource(obs2)).thenReturn(observation2);
+		when(translator.toFhirResource(obs3)).thenReturn(observation3);
+		
+		StreamingSearchContext.request(2);
+		List<IBaseResource> resources = searchQueryBundleProvider.getResources(0, 10);
+		
+		assertThat(resources, empty());
+		verify(observationDao, never()).getSearchResults(eq(theParams), eq(uuids), anyInt(), anyInt());
+		assertThat(StreamingSearchContext.getCursor().isPresent(), equalTo(true));
+		
+		List<IBaseResource> streamed = new ArrayList<>();
+		StreamingSearchContext.getCursor().get().forEachResource(StreamingSearchContext.getBatchSize(), streamed::add);
+		
+		assertThat(streamed, contains(observation1, observation2, observation3));
+	}
+	
+	@Test
+	public void shouldNotOfferCursorWhenStreamingNotRequested() {
+		List<String> uuids = Collections.singletonList("uuid1");
+		Obs obs = new Obs();
+		Observation observation = new Observation();
+		when(observationDao.getSearchResultUuids(theParams)).thenReturn(uuids);
+		when(observationDao.getSearchResults(theParams, uuids, 0, 1)).thenReturn(Collections.singletonList(obs));
+		when(translator.toFhirResource(obs)).thenReturn(observation);
+		
+		List<IBaseResource> resources = searchQueryBundleProvider.getResources(0, 10);
+		
+		assertThat(resources, contains(observation));
+		assertThat(StreamingSearchContext.getCursor().isPresent(), equalTo(false));
+	}
+	
+	@Test
+	public void shouldNotOfferCursorWhenSearchHasIncludes() {
+		HashSet<Include> includes = new HashSet<>(Collections.singleton(new Include("Observation:patient")));
+		theParams.addParameter(FhirConstants.INCLUDE_SEARCH_HANDLER, includes);
+		List<String> uuids = Collections.singletonList("uuid1");
+		Obs obs = new Obs();
+		Observation observation = new Observation();
+		Patient patient = new Patient();
+		when(observationDao.getSearchResultUuids(theParams)).thenReturn(uuids);
+		when(observationDao.getSearchResults(theParams, uuids, 0, 1)).thenReturn(Collections.singletonList(obs));
+		when(translator.toFhirResource(obs)).thenReturn(observation);
+		when(searchQueryInclude.getIncludedResources(Collections.singletonList(observation), theParams))
+		        .thenReturn(Collections.singleton(patient));
+		
+		StreamingSearchContext.request(2);
+		List<IBaseResource> resources = searchQueryBundleProvider.getResources(0, 10);
+		
+		assertThat(resources, contains(observation, patient));
+		assertThat(StreamingSearchContext.getCursor().isPresent(), equalTo(false));
+	}
+	
+	@Test
+	public void shouldNotOfferCursorWhenResultsWereTruncated() {
+		List<String> uuids = new TruncatedSearchResultUuids(Arrays.asList("uuid1", "uuid2"), 1);
+		Obs obs = new Obs();
+		Observation observation = new Observation();
+		when(observationDao.getSearchResultUuids(theParams)).thenReturn(uuids);
+		when(observationDao.getSearchResults(theParams, uuids, 0, 1)).thenReturn(Collections.singletonList(obs));
+		when(translator.toFhirResource(obs)).thenReturn(observation);
+		
+		StreamingSearchContext.request(2);
+		List<IBaseResource> resources = searchQueryBundleProvider.getResources(0, 10);
+		
+		assertThat(resources, hasSize(2));
+		assertThat(resources.get(1), instanceOf(OperationOutcome.class));
+		assertThat(StreamingSearchContext.getCursor().isPresent(), equalTo(false));
+	}
+	
+	@Test
+	public void shouldAddOperationOutcomeToFirstPageWhenResultsWereTruncated() {
+		List<String> uuids = new TruncatedSearchResultUuids(Arrays.asList("uuid1", "uuid2", "uuid3"), 2);
+		Obs obs = new Obs();
+		Observation observation = new Observation();
+		when(observationDao.getSearchResultUuids(theParams)).thenReturn(uuids);
+		when(observationDao.getSearchResults(theParams, uuids, 0, 1)).thenReturn(Collections.singletonList(obs));
+		when(observationDao.getSearchResults(theParams, uuids, 1, 2)).thenReturn(Collections.singletonList(obs));
+		when(translator.toFhirResource(obs)).thenReturn(observation);
+		
+		List<IBaseResource> resources = searchQueryBundleProvider.getResources(0, 1);
+		
+		assertThat(searchQueryBundleProvider.size(), nullValue());
+		assertThat(resources, hasSize(2));
+		assertThat(resources.get(1), instanceOf(OperationOutcome.class));
+		assertThat(((OperationOutcome) resources.get(1)).getIssueFirstRep().getCode(),
+		    equalTo(OperationOutcome.IssueType.TOOCOSTLY));
+		
+		assertThat(searchQueryBundleProvider.getResources(1, 2), contains(observation));
+	}
+	
+	@Test
+	public void shouldAddR3OperationOutcomeWhenTruncatedResultsAreServedAsR3() {
+		List<String> uuids = new TruncatedSearchResultUuids(Arrays.asList("uuid1", "uuid2", "uuid3"), 2);
+		Obs obs = new Obs();
+		when(observationDao.getSearchResultUuids(theParams)).thenReturn(uuids);
+		when(observationDao.getSearchResults(theParams, uuids, 0, 1)).thenReturn(Collections.singletonList(obs));
+		when(translator.toFhirResource(obs)).thenReturn(new Observation());
+		
+		List<IBaseResource> resources = new SearchQueryBundleProviderR3Wrapper(searchQueryBundleProvider).getResources(0,
+		    1);
+		
+		assertThat(resources, hasSize(2));
+		assertThat(resources.get(1), instanceOf(org.hl7.fhir.dstu3.model.OperationOutcome.class));
+		assertThat(((org.hl7.fhir.dstu3.model.OperationOutcome) resources.get(1)).getIssueFirstRep().getCode(),
+		    equalTo(org.hl7.fhir.dstu3.model.OperationOutcome.IssueType.TOOCOSTLY));
+	}
+	
+	@Test
+	public void shouldInitializeAndTranslateInParallelPagesAboveTheThreshold() {
+		List<String> uuids = Arrays.asList("uuid1", "uuid2", "uuid3");
+		List<Obs> observations = Arrays.asList(new Obs(), new Obs(), new Obs());
+		List<Observation> translated = Arrays.asList(new Observation(), new Observation(), new Observation());
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_PARALLEL_TRANSLATION_THRESHOLD, 0))
+		        .thenReturn(2);
+		when(observationDao.getSearchResultUuids(theParams)).thenReturn(uuids);
+		when(observationDao.getSearchResults(theParams, uuids, 0, 3)).thenReturn(observations);
+		for (int i = 0; i < observations.size(); i++) {
+			when(parallelTranslator.toFhirResource(observations.get(i))).thenReturn(translated.get(i));
+		}
+		
+		List<IBaseResource> resources = new SearchQueryBundleProvider<>(theParams, observationDao, parallelTranslator,
+		        globalPropertyService, searchQueryInclude).getResources(0, 10);
+		
+		verify(parallelTranslator).initialize(observations);
+		assertThat(resources, contains(translated.toArray()));
+	}
 }
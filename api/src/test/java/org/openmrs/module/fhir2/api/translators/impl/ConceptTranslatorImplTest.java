@@ -17,8 +17,11 @@ import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -39,9 +42,12 @@ import org.openmrs.ConceptMapType;
 import org.openmrs.ConceptName;
 import org.openmrs.ConceptReferenceTerm;
 import org.openmrs.ConceptSource;
+import org.openmrs.GlobalProperty;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.FhirTestConstants;
 import org.openmrs.module.fhir2.api.FhirConceptService;
 import org.openmrs.module.fhir2.api.FhirConceptSourceService;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.FhirUserDefaultProperties;
 import org.openmrs.module.fhir2.api.util.FhirUtils;
 import org.openmrs.module.fhir2.model.FhirConceptSource;
@@ -62,6 +68,9 @@ public class ConceptTranslatorImplTest {
 	@Mock
 	private FhirUserDefaultProperties userDefaultProperties;
 	
+	@Mock
+	private FhirGlobalPropertyService globalPropertyService;
+	
 	@Mock
 	private Concept concept;
 	
@@ -73,6 +82,7 @@ public class ConceptTranslatorImplTest {
 		conceptTranslator.setConceptService(conceptService);
 		conceptTranslator.setConceptSourceService(conceptSourceService);
 		conceptTranslator.setUserDefaultProperties(userDefaultProperties);
+		conceptTranslator.setGlobalPropertyService(globalPropertyService);
 	}
 	
 	@Before
@@ -96,6 +106,46 @@ public class ConceptTranslatorImplTest {
 		assertThat(result.getCoding().get(0).getDisplay(), equalTo(CONCEPT_NAME));
 	}
 	
+	@Test
+	public void shouldOnlyTranslateConceptOnceWhenCachingIsEnabled() {
+		when(concept.getConceptId()).thenReturn(1);
+		when(concept.getUuid()).thenReturn(CONCEPT_UUID);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false"))
+		        .thenReturn("true");
+		
+		CodeableConcept first = conceptTranslator.toFhirResource(concept);
+		CodeableConcept second = conceptTranslator.toFhirResource(concept);
+		
+		assertThat(second.getCoding().get(0).getCode(), equalTo(CONCEPT_UUID));
+		assertThat(second.getCoding().get(0).getDisplay(), equalTo(CONCEPT_NAME));
+		assertThat(second.getCoding().get(0), not(sameInstance(first.getCoding().get(0))));
+		verify(concept, times(1)).getName(any(Locale.class));
+		
+		conceptTranslator.invalidateAll();
+		conceptTranslator.toFhirResource(concept);
+		verify(concept, times(2)).getName(any(Locale.class));
+	}
+	
+	@Test
+	public void shouldOnlyReadCachingGlobalPropertyAgainAfterItChanges() {
+		when(concept.getConceptId()).thenReturn(1);
+		when(concept.getUuid()).thenReturn(CONCEPT_UUID);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false"))
+		        .thenReturn("true", "false");
+		
+		conceptTranslator.toFhirResource(concept);
+		conceptTranslator.toFhirResource(concept);
+		verify(globalPropertyService, times(1)).getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false");
+		verify(concept, times(1)).getName(any(Locale.class));
+		
+		conceptTranslator.globalPropertyChanged(
+		    new GlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false"));
+		conceptTranslator.toFhirResource(concept);
+		conceptTranslator.toFhirResource(concept);
+		verify(globalPropertyService, times(2)).getGlobalProperty(FhirConstants.OPENMRS_FHIR_CACHE_CORE_METADATA, "false");
+		verify(concept, times(3)).getName(any(Locale.class));
+	}
+	
 	@Test
 	public void shouldTranslateLOINCMappingForLOINCMappedConcept() {
 		Collection<ConceptMap> conceptMaps = new ArrayList<>();
@@ -0,0 +1,129 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.translators.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openmrs.module.fhir2.api.translators.impl.ImmunizationTranslatorImpl.ciel1410;
+import static org.openmrs.module.fhir2.api.translators.impl.ImmunizationTranslatorImpl.ciel984;
+import static org.openmrs.module.fhir2.api.translators.impl.ImmunizationTranslatorImpl.immunizationConcepts;
+import static org.openmrs.module.fhir2.api.translators.impl.ImmunizationTranslatorImpl.immunizationGroupingConcept;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.Concept;
+import org.openmrs.EncounterType;
+import org.openmrs.GlobalProperty;
+import org.openmrs.Obs;
+import org.openmrs.api.AdministrationService;
+import org.openmrs.api.ConceptService;
+import org.openmrs.api.EncounterService;
+import org.openmrs.module.fhir2.FhirConstants;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImmunizationObsGroupHelperTest {
+	
+	private static final String ENCOUNTER_TYPE_UUID = "29c02aff-9a93-46c9-bf6f-48b552fcb1fa";
+	
+	@Mock
+	private ConceptService conceptService;
+	
+	@Mock
+	private EncounterService encounterService;
+	
+	@Mock
+	private AdministrationService adminService;
+	
+	private ImmunizationObsGroupHelper helper;
+	
+	private Map<String, Concept> concepts;
+	
+	@Before
+	public void setup() {
+		helper = new ImmunizationObsGroupHelper();
+		helper.setConceptService(conceptService);
+		helper.setEncounterService(encounterService);
+		helper.setAdminService(adminService);
+		
+		concepts = new HashMap<>();
+		int conceptId = 1;
+		concepts.put(immunizationGroupingConcept, new Concept(conceptId++));
+		for (String refTerm : immunizationConcepts) {
+			concepts.put(refTerm, new Concept(conceptId++));
+		}
+	}
+	
+	@Test
+	public void getObsMembersMap_shouldOnlyResolveConceptMappingsOnce() {
+		stubConceptMappings();
+		
+		Obs group = new Obs();
+		Obs member = new Obs();
+		member.setConcept(new Concept(concepts.get(ciel1410).getConceptId()));
+		group.addGroupMember(member);
+		
+		for (int i = 0; i < 3; i++) {
+			assertThat(helper.getObsMembersMap(group), hasEntry(ciel1410, member));
+		}
+		
+		verify(conceptService, times(immunizationConcepts.size() + 1)).getConceptByMapping(anyString(), anyString());
+	}
+	
+	@Test
+	public void invalidateConcepts_shouldResolveConceptMappingsAgain() {
+		stubConceptMappings();
+		when(conceptService.getConcept(concepts.get(ciel984).getConceptId())).thenReturn(concepts.get(ciel984));
+		
+		assertThat(helper.concept(ciel984), is(concepts.get(ciel984)));
+		helper.invalidateConcepts();
+		assertThat(helper.concept(ciel984), is(concepts.get(ciel984)));
+		
+		verify(conceptService, times(2 * (immunizationConcepts.size() + 1))).getConceptByMapping(anyString(),
+		    anyString());
+	}
+	
+	@Test
+	public void getImmunizationsEncounterType_shouldReadGlobalPropertyOnlyUntilItChanges() {
+		EncounterType encounterType = new EncounterType(7);
+		encounterType.setUuid(ENCOUNTER_TYPE_UUID);
+		when(adminService.getGlobalProperty(FhirConstants.IMMUNIZATIONS_ENCOUNTER_TYPE_PROPERTY))
+		        .thenReturn(ENCOUNTER_TYPE_UUID);
+		when(encounterService.getEncounterTypeByUuid(ENCOUNTER_TYPE_UUID)).thenReturn(encounterType);
+		when(encounterService.getEncounterType(7)).thenReturn(encounterType);
+		
+		assertThat(helper.getImmunizationsEncounterType(), equalTo(encounterType));
+		assertThat(helper.getImmunizationsEncounterType(), equalTo(encounterType));
+		verify(adminService, times(1)).getGlobalProperty(FhirConstants.IMMUNIZATIONS_ENCOUNTER_TYPE_PROPERTY);
+		
+		helper.globalPropertyChanged(
+		    new GlobalProperty(FhirConstants.IMMUNIZATIONS_ENCOUNTER_TYPE_PROPERTY, ENCOUNTER_TYPE_UUID));
+		assertThat(helper.getImmunizationsEncounterType(), equalTo(encounterType));
+		verify(adminService, times(2)).getGlobalProperty(FhirConstants.IMMUNIZATIONS_ENCOUNTER_TYPE_PROPERTY);
+	}
+	
+	private void stubConceptMappings() {
+		concepts.forEach((refTerm, concept) -> {
+			String[] mapping = refTerm.split(":");
+			when(conceptService.getConceptByMapping(mapping[1], mapping[0])).thenReturn(concept);
+		});
+	}
+}
@@ -11,20 +11,26 @@ package org.openmrs.module.fhir2.api.translators.impl;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.hamcrest.MockitoHamcrest.argThat;
 
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -53,6 +59,7 @@ import org.openmrs.PersonAddress;
 import org.openmrs.PersonAttribute;
 import org.openmrs.PersonAttributeType;
 import org.openmrs.PersonName;
+import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.dao.FhirPersonDao;
 import org.openmrs.module.fhir2.api.translators.GenderTranslator;
@@ -369,6 +376,31 @@ public class PatientTranslatorImplTest {
 		assertThat(contactPoints, notNullValue());
 	}
 	
+	@Test
+	public void toFhirResources_shouldLoadContactPointsForAllPatientsAtOnce() {
+		PersonAttribute personAttribute = new PersonAttribute();
+		personAttribute.setUuid(PERSON_ATTRIBUTE_UUID);
+		personAttribute.setValue(PERSON_ATTRIBUTE_VALUE);
+		
+		org.openmrs.Patient patient = new org.openmrs.Patient(1);
+		org.openmrs.Patient otherPatient = new org.openmrs.Patient(2);
+		List<org.openmrs.Patient> patients = Arrays.asList(patient, otherPatient);
+		
+		ContactPoint contactPoint = new ContactPoint().setValue(PERSON_ATTRIBUTE_VALUE);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.PERSON_CONTACT_POINT_ATTRIBUTE_TYPE))
+		        .thenReturn(PERSON_ATTRIBUTE_TYPE_UUID);
+		when(fhirPersonDao.getActiveAttributesByPersonsAndAttributeTypeUuid(patients, PERSON_ATTRIBUTE_TYPE_UUID))
+		        .thenReturn(Collections.singletonMap(1, Collections.singletonList(personAttribute)));
+		when(telecomTranslator.toFhirResource(personAttribute)).thenReturn(contactPoint);
+		
+		List<Patient> result = patientTranslator.toFhirResources(patients);
+		
+		assertThat(result, hasSize(2));
+		assertThat(result.get(0).getTelecom(), contains(contactPoint));
+		assertThat(result.get(1).getTelecom(), empty());
+		verify(fhirPersonDao, never()).getActiveAttributesByPersonAndAttributeTypeUuid(any(), any());
+	}
+	
 	@Test
 	public void shouldTranslateOpenMrsDateChangedToLastUpdatedDate() {
 		org.openmrs.Patient patient = new org.openmrs.Patient();
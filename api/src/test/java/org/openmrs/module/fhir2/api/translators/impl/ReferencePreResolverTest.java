@@ -0,0 +1,190 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.translators.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.Concept;
+import org.openmrs.ConceptSource;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirConceptService;
+import org.openmrs.module.fhir2.api.FhirConceptSourceService;
+import org.openmrs.module.fhir2.api.dao.FhirObservationDao;
+import org.openmrs.module.fhir2.api.dao.FhirPatientDao;
+import org.openmrs.module.fhir2.model.FhirConceptSource;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReferencePreResolverTest {
+	
+	private static final String PATIENT_UUID = "a7e04421-525f-442f-8138-05b619d16def";
+	
+	private static final String CONCEPT_UUID = "5085AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+	
+	private static final String LOINC_URL = "http://loinc.org";
+	
+	private static final String LOINC_CODE = "85354-9";
+	
+	private static final List<String> MEMBER_UUIDS = Arrays.asList("39fb7f47-e80a-4056-9285-bd798be13c63",
+	    "37f6bd8d-586a-4169-95fa-5781f987fe62", "ad5c8a8b-1c1e-4d6c-a3ea-fbd2bb6ef6d4");
+	
+	@Mock
+	private FhirPatientDao patientDao;
+	
+	@Mock
+	private FhirObservationDao observationDao;
+	
+	@Mock
+	private FhirConceptService conceptService;
+	
+	@Mock
+	private FhirConceptSourceService conceptSourceService;
+	
+	private ReferencePreResolver preResolver;
+	
+	private PatientReferenceTranslatorImpl patientReferenceTranslator;
+	
+	private ObservationReferenceTranslatorImpl observationReferenceTranslator;
+	
+	private ConceptTranslatorImpl conceptTranslator;
+	
+	@Before
+	public void setup() {
+		preResolver = new ReferencePreResolver();
+		preResolver.setPatientDao(patientDao);
+		preResolver.setObservationDao(observationDao);
+		preResolver.setConceptService(conceptService);
+		preResolver.setConceptSourceService(conceptSourceService);
+		
+		patientReferenceTranslator = new PatientReferenceTranslatorImpl();
+		patientReferenceTranslator.setPatientDao(patientDao);
+		
+		observationReferenceTranslator = new ObservationReferenceTranslatorImpl();
+		observationReferenceTranslator.setObservationDao(observationDao);
+		
+		conceptTranslator = new ConceptTranslatorImpl();
+		conceptTranslator.setConceptService(conceptService);
+		conceptTranslator.setConceptSourceService(conceptSourceService);
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void withPreResolvedReferences_shouldLoadEachReferencedTypeInOneQuery() {
+		Observation observation = new Observation();
+		observation.setSubject(new Reference(FhirConstants.PATIENT + "/" + PATIENT_UUID));
+		MEMBER_UUIDS.forEach(uuid -> observation.addHasMember(new Reference(FhirConstants.OBSERVATION + "/" + uuid)));
+		
+		Patient patient = new Patient();
+		patient.setUuid(PATIENT_UUID);
+		List<Obs> members = MEMBER_UUIDS.stream().map(uuid -> {
+			Obs obs = new Obs();
+			obs.setUuid(uuid);
+			return obs;
+		}).collect(Collectors.toList());
+		
+		when(patientDao.get(anyCollection())).thenReturn(Collections.singletonList(patient));
+		when(observationDao.get(anyCollection())).thenReturn(members);
+		
+		List<Object> resolved = preResolver.withPreResolvedReferences(observation, () -> {
+			List<Object> result = observation.getHasMember().stream().map(observationReferenceTranslator::toOpenmrsType)
+			        .collect(Collectors.toList());
+			result.add(patientReferenceTranslator.toOpenmrsType(observation.getSubject()));
+			return result;
+		});
+		
+		assertThat(resolved.size(), equalTo(4));
+		assertThat(resolved.get(3), equalTo(patient));
+		verify(patientDao, never()).get(anyString());
+		verify(observationDao, never()).get(anyString());
+		
+		ArgumentCaptor<Collection<String>> uuids = ArgumentCaptor.forClass(Collection.class);
+		verify(observationDao).get(uuids.capture());
+		assertThat(uuids.getValue(), containsInAnyOrder(MEMBER_UUIDS.toArray()));
+	}
+	
+	@Test
+	public void withPreResolvedReferences_shouldResolveCodingsInBulk() {
+		Concept concept = new Concept();
+		concept.setUuid(CONCEPT_UUID);
+		
+		ConceptSource loinc = new ConceptSource();
+		loinc.setName("LOINC");
+		FhirConceptSource fhirLoinc = new FhirConceptSource();
+		fhirLoinc.setConceptSource(loinc);
+		fhirLoinc.setUrl(LOINC_URL);
+		
+		Observation observation = new Observation();
+		observation.setCode(new CodeableConcept().addCoding(new Coding().setCode(CONCEPT_UUID)));
+		observation.setValue(new CodeableConcept().addCoding(new Coding(LOINC_URL, LOINC_CODE, null)));
+		
+		when(conceptService.get(new HashSet<>(Collections.singletonList(CONCEPT_UUID))))
+		        .thenReturn(Collections.singletonList(concept));
+		when(conceptSourceService.getFhirConceptSourceByUrl(LOINC_URL)).thenReturn(Optional.of(fhirLoinc));
+		when(conceptService.getConceptsBySourceNameAndCodes("LOINC", new HashSet<>(Collections.singletonList(LOINC_CODE))))
+		        .thenReturn(Collections.singletonMap(LOINC_CODE, concept));
+		
+		List<Concept> resolved = preResolver.withPreResolvedReferences(observation,
+		    () -> Arrays.asList(conceptTranslator.toOpenmrsType(observation.getCode()),
+		        conceptTranslator.toOpenmrsType(observation.getValueCodeableConcept())));
+		
+		assertThat(resolved, contains(concept, concept));
+		verify(conceptService, never()).get(anyString());
+		verify(conceptService, never()).getConceptBySourceNameAndCode(anyString(), anyString());
+	}
+	
+	@Test
+	public void withPreResolvedReferences_shouldOnlyLoadElementsTheTranslatorReads() {
+		Observation observation = new Observation();
+		observation.addPerformer(new Reference(FhirConstants.PATIENT + "/" + PATIENT_UUID));
+		observation.addComponent().setCode(new CodeableConcept().addCoding(new Coding().setCode(CONCEPT_UUID)));
+		
+		preResolver.withPreResolvedReferences(observation, () -> null);
+		
+		verify(patientDao, never()).get(anyCollection());
+		verify(conceptService, never()).get(anyCollection());
+	}
+	
+	@Test
+	public void toOpenmrsType_shouldQueryDirectlyOutsideOfPreResolution() {
+		Patient patient = new Patient();
+		patient.setUuid(PATIENT_UUID);
+		when(patientDao.get(PATIENT_UUID)).thenReturn(patient);
+		
+		assertThat(patientReferenceTranslator.toOpenmrsType(new Reference(FhirConstants.PATIENT + "/" + PATIENT_UUID)),
+		    equalTo(patient));
+	}
+}
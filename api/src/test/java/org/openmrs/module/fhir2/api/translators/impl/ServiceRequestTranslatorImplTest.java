@@ -18,6 +18,8 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.lang.reflect.Field;
@@ -26,6 +28,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.exparity.hamcrest.date.DateMatchers;
 import org.hl7.fhir.r4.model.CodeableConcept;
@@ -33,7 +36,6 @@ import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Period;
 import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.ServiceRequest;
-import org.hl7.fhir.r4.model.Task;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -53,7 +55,8 @@ import org.openmrs.module.fhir2.api.translators.ConceptTranslator;
 import org.openmrs.module.fhir2.api.translators.EncounterReferenceTranslator;
 import org.openmrs.module.fhir2.api.translators.PatientReferenceTranslator;
 import org.openmrs.module.fhir2.api.translators.PractitionerReferenceTranslator;
-import org.openmrs.module.fhir2.providers.r4.MockIBundleProvider;
+import org.openmrs.module.fhir2.model.FhirReference;
+import org.openmrs.module.fhir2.model.FhirTask;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ServiceRequestTranslatorImplTest {
@@ -80,10 +83,6 @@ public class ServiceRequestTranslatorImplTest {
 	
 	private static final String ORGANIZATION_UUID = "44f7a79e-1de6-4b0b-9daf-bbcb7ed18b7e";
 	
-	private static final int PREFERRED_PAGE_SIZE = 10;
-	
-	private static final int COUNT = 1;
-	
 	private ServiceRequestTranslatorImpl translator;
 	
 	@Mock
@@ -133,10 +132,9 @@ public class ServiceRequestTranslatorImplTest {
 	public void toFhirResource_shouldTranslateToFhirResourceWithReplacesFieldGivenDiscontinuedOrder() {
 		discontinuedTestOrder.setAction(Order.Action.DISCONTINUE);
 		
-		List<Task> tasks = setUpBasedOnScenario(Task.TaskStatus.REJECTED);
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.REJECTED);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(discontinuedTestOrder);
 		
@@ -151,10 +149,9 @@ public class ServiceRequestTranslatorImplTest {
 	public void toFhirResource_shouldTranslateToFhirResourceWithReplacesFieldGivenRevisedOrder() {
 		discontinuedTestOrder.setAction(Order.Action.REVISE);
 		
-		List<Task> tasks = setUpBasedOnScenario(Task.TaskStatus.ACCEPTED);
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.ACCEPTED);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(discontinuedTestOrder);
 		
@@ -169,10 +166,9 @@ public class ServiceRequestTranslatorImplTest {
 	public void toFhirResource_shouldTranslateToFhirResourceWithBasedOnFieldGivenRenewedOrder() {
 		discontinuedTestOrder.setAction(Order.Action.RENEW);
 		
-		List<Task> tasks = setUpBasedOnScenario(Task.TaskStatus.ACCEPTED);
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.ACCEPTED);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(discontinuedTestOrder);
 		
@@ -187,8 +183,7 @@ public class ServiceRequestTranslatorImplTest {
 	public void toFhirResource_shouldTranslateOpenmrsTestOrderToFhirServiceRequest() {
 		TestOrder order = new TestOrder();
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		
 		ServiceRequest result = translator.toFhirResource(order);
 		
@@ -201,10 +196,9 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder newOrder = new TestOrder();
 		newOrder.setUuid(SERVICE_REQUEST_UUID);
 		
-		List<Task> tasks = setUpBasedOnScenario(Task.TaskStatus.REQUESTED);
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.REQUESTED);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(newOrder);
 		
@@ -217,10 +211,9 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder newOrder = new TestOrder();
 		newOrder.setUuid(SERVICE_REQUEST_UUID);
 		
-		List<Task> tasks = setUpBasedOnScenario(Task.TaskStatus.REJECTED);
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.REJECTED);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(newOrder);
 		
@@ -233,10 +226,9 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder newOrder = new TestOrder();
 		newOrder.setUuid(SERVICE_REQUEST_UUID);
 		
-		List<Task> tasks = setUpBasedOnScenario(Task.TaskStatus.ACCEPTED);
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.ACCEPTED);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(newOrder);
 		
@@ -249,10 +241,9 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder newOrder = new TestOrder();
 		newOrder.setUuid(SERVICE_REQUEST_UUID);
 		
-		List<Task> tasks = setUpBasedOnScenario(Task.TaskStatus.COMPLETED);
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.COMPLETED);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(newOrder);
 		
@@ -265,10 +256,9 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder newOrder = new TestOrder();
 		newOrder.setUuid(SERVICE_REQUEST_UUID);
 		
-		List<Task> tasks = setUpBasedOnScenario(Task.TaskStatus.DRAFT);
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.UNKNOWN);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(newOrder);
 		
@@ -281,8 +271,7 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder newOrder = new TestOrder();
 		newOrder.setUuid(SERVICE_REQUEST_UUID);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		
 		ServiceRequest result = translator.toFhirResource(newOrder);
 		
@@ -295,20 +284,10 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder newOrder = new TestOrder();
 		newOrder.setUuid(SERVICE_REQUEST_UUID);
 		
-		Task firstTask = new Task();
-		Task secondTask = new Task();
-		
-		Reference basedOnRef = new Reference();
-		basedOnRef.setReference("ServiceRequest/" + SERVICE_REQUEST_UUID);
-		basedOnRef.setType("ServiceRequest");
+		Map<String, List<FhirTask>> tasks = Collections.singletonMap(SERVICE_REQUEST_UUID,
+		    Arrays.asList(new FhirTask(), new FhirTask()));
 		
-		firstTask.addBasedOn(basedOnRef);
-		secondTask.addBasedOn(basedOnRef);
-		
-		List<Task> tasks = Arrays.asList(firstTask, secondTask);
-		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(tasks, PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(tasks);
 		
 		ServiceRequest result = translator.toFhirResource(newOrder);
 		
@@ -316,6 +295,21 @@ public class ServiceRequestTranslatorImplTest {
 		assertThat(result.getStatus(), equalTo(ServiceRequest.ServiceRequestStatus.UNKNOWN));
 	}
 	
+	@Test
+	public void toFhirResources_shouldLookUpTasksForAllOrdersAtOnce() {
+		Map<String, List<FhirTask>> tasks = setUpBasedOnScenario(FhirTask.TaskStatus.ACCEPTED);
+		
+		when(taskService.getTaskStatesByBasedOn(FhirConstants.SERVICE_REQUEST,
+		    Arrays.asList(SERVICE_REQUEST_UUID, DISCONTINUED_TEST_ORDER_UUID))).thenReturn(tasks);
+		
+		List<ServiceRequest> result = translator.toFhirResources(Arrays.asList(order, discontinuedTestOrder));
+		
+		assertThat(result, hasSize(2));
+		assertThat(result.get(0).getStatus(), equalTo(ServiceRequest.ServiceRequestStatus.ACTIVE));
+		assertThat(result.get(1).getStatus(), equalTo(ServiceRequest.ServiceRequestStatus.UNKNOWN));
+		verify(taskService, times(1)).getTaskStatesByBasedOn(any(), any());
+	}
+	
 	@Test
 	public void toFhirResource_shouldTranslateCode() {
 		Concept openmrsConcept = new Concept();
@@ -323,8 +317,7 @@ public class ServiceRequestTranslatorImplTest {
 		
 		testOrder.setConcept(openmrsConcept);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		
 		CodeableConcept codeableConcept = new CodeableConcept();
 		Coding loincCoding = codeableConcept.addCoding();
@@ -350,8 +343,7 @@ public class ServiceRequestTranslatorImplTest {
 		testOrder.setDateActivated(fromDate);
 		testOrder.setAutoExpireDate(toDate);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		
 		Period result = translator.toFhirResource(testOrder).getOccurrencePeriod();
 		
@@ -367,8 +359,7 @@ public class ServiceRequestTranslatorImplTest {
 		
 		testOrder.setAutoExpireDate(toDate);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		
 		Period result = translator.toFhirResource(testOrder).getOccurrencePeriod();
 		
@@ -384,8 +375,7 @@ public class ServiceRequestTranslatorImplTest {
 		
 		testOrder.setDateActivated(fromDate);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		
 		Period result = translator.toFhirResource(testOrder).getOccurrencePeriod();
 		
@@ -404,8 +394,7 @@ public class ServiceRequestTranslatorImplTest {
 		testOrder.setScheduledDate(fromDate);
 		testOrder.setAutoExpireDate(toDate);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		
 		Period result = translator.toFhirResource(testOrder).getOccurrencePeriod();
 		
@@ -425,8 +414,7 @@ public class ServiceRequestTranslatorImplTest {
 		order.setPatient(subject);
 		subjectReference.setType(FhirConstants.PATIENT).setReference(FhirConstants.PATIENT + "/" + PATIENT_UUID);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		when(patientReferenceTranslator.toFhirResource(subject)).thenReturn(subjectReference);
 		
 		Reference result = translator.toFhirResource(order).getSubject();
@@ -446,8 +434,7 @@ public class ServiceRequestTranslatorImplTest {
 		order.setEncounter(encounter);
 		encounterReference.setType(FhirConstants.ENCOUNTER).setReference(FhirConstants.ENCOUNTER + "/" + ENCOUNTER_UUID);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		when(encounterReferenceTranslator.toFhirResource(encounter)).thenReturn(encounterReference);
 		
 		Reference result = translator.toFhirResource(order).getEncounter();
@@ -461,8 +448,7 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder order = new TestOrder();
 		order.setUuid(SERVICE_REQUEST_UUID);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any())).thenReturn(
-		    new MockIBundleProvider<>(setUpPerformerScenario(ORGANIZATION_UUID), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(setUpPerformerScenario(ORGANIZATION_UUID));
 		
 		Collection<Reference> result = translator.toFhirResource(order).getPerformer();
 		
@@ -484,8 +470,7 @@ public class ServiceRequestTranslatorImplTest {
 		requesterReference.setType(FhirConstants.PRACTITIONER)
 		        .setReference(FhirConstants.PRACTITIONER + "/" + PRACTITIONER_UUID);
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		when(practitionerReferenceTranslator.toFhirResource(requester)).thenReturn(requesterReference);
 		
 		Reference result = translator.toFhirResource(order).getRequester();
@@ -494,27 +479,23 @@ public class ServiceRequestTranslatorImplTest {
 		assertThat(result.getReference(), containsString(PRACTITIONER_UUID));
 	}
 	
-	private List<Task> setUpBasedOnScenario(Task.TaskStatus status) {
-		Reference basedOnRef = new Reference();
-		Task task = new Task();
+	private Map<String, List<FhirTask>> setUpBasedOnScenario(FhirTask.TaskStatus status) {
+		FhirTask task = new FhirTask();
 		task.setStatus(status);
-		basedOnRef.setReference("ServiceRequest/" + SERVICE_REQUEST_UUID);
-		basedOnRef.setType("ServiceRequest");
-		task.addBasedOn(basedOnRef);
 		
-		return Collections.singletonList(task);
+		return Collections.singletonMap(SERVICE_REQUEST_UUID, Collections.singletonList(task));
 	}
 	
-	private List<Task> setUpPerformerScenario(String performerUuid) {
-		Reference performerRef = new Reference();
-		Task task = new Task();
+	private Map<String, List<FhirTask>> setUpPerformerScenario(String performerUuid) {
+		FhirReference performerRef = new FhirReference();
+		FhirTask task = new FhirTask();
 		
 		performerRef.setReference(FhirConstants.ORGANIZATION + "/" + performerUuid);
 		performerRef.setType(FhirConstants.ORGANIZATION);
 		
-		task.setOwner(performerRef);
+		task.setOwnerReference(performerRef);
 		
-		return Collections.singletonList(task);
+		return Collections.singletonMap(SERVICE_REQUEST_UUID, Collections.singletonList(task));
 	}
 	
 	@Test
@@ -522,8 +503,7 @@ public class ServiceRequestTranslatorImplTest {
 		TestOrder order = new TestOrder();
 		order.setDateChanged(new Date());
 		
-		when(taskService.searchForTasks(any(), any(), any(), any(), any(), any()))
-		        .thenReturn(new MockIBundleProvider<>(Collections.emptyList(), PREFERRED_PAGE_SIZE, COUNT));
+		when(taskService.getTaskStatesByBasedOn(any(), any())).thenReturn(Collections.emptyMap());
 		
 		ServiceRequest result = translator.toFhirResource(order);
 		assertThat(result, notNullValue());
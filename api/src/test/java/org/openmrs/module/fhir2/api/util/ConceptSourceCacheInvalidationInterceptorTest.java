@@ -0,0 +1,84 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.ConceptSource;
+import org.openmrs.module.fhir2.api.dao.impl.ConceptCodeResolver;
+import org.openmrs.module.fhir2.api.translators.impl.ConceptTranslatorImpl;
+import org.openmrs.module.fhir2.model.FhirConceptSource;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConceptSourceCacheInvalidationInterceptorTest {
+	
+	@Mock
+	private ConceptCodeResolver conceptCodeResolver;
+	
+	@Mock
+	private ConceptTranslatorImpl conceptTranslator;
+	
+	@Mock
+	private Transaction transaction;
+	
+	private ConceptSourceCacheInvalidationInterceptor interceptor;
+	
+	@Before
+	public void setup() {
+		interceptor = new ConceptSourceCacheInvalidationInterceptor();
+		interceptor.setConceptCodeResolver(conceptCodeResolver);
+		interceptor.setConceptTranslator(conceptTranslator);
+	}
+	
+	@After
+	public void clearPendingChanges() {
+		interceptor.afterTransactionCompletion(transaction);
+	}
+	
+	@Test
+	public void shouldClearConceptCachesWhenAConceptSourceUrlChangeCommits() {
+		when(transaction.wasCommitted()).thenReturn(true);
+		
+		interceptor.onFlushDirty(new FhirConceptSource(), 1, null, null, null, null);
+		interceptor.afterTransactionCompletion(transaction);
+		
+		verify(conceptCodeResolver).invalidateAll();
+		verify(conceptTranslator).invalidateAll();
+	}
+	
+	@Test
+	public void shouldNotClearConceptCachesWhenTheTransactionRollsBack() {
+		when(transaction.wasCommitted()).thenReturn(false);
+		
+		interceptor.onSave(new FhirConceptSource(), 1, null, null, null);
+		interceptor.afterTransactionCompletion(transaction);
+		
+		verify(conceptCodeResolver, never()).invalidateAll();
+		verify(conceptTranslator, never()).invalidateAll();
+	}
+	
+	@Test
+	public void shouldIgnoreOtherEntities() {
+		interceptor.onSave(new ConceptSource(), 1, null, null, null);
+		interceptor.afterTransactionCompletion(transaction);
+		
+		verify(conceptCodeResolver, never()).invalidateAll();
+		verify(conceptTranslator, never()).invalidateAll();
+	}
+}
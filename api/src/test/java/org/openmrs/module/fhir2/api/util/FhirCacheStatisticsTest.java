@@ -0,0 +1,75 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.FhirTestConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.dao.FhirConceptSourceDao;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class FhirCacheStatisticsTest extends BaseModuleContextSensitiveTest {
+	
+	private static final String CONCEPT_SOURCE_FHIR_DATA = "org/openmrs/module/fhir2/api/dao/impl/FhirConceptSourceDaoImplTest_initial_data.xml";
+	
+	@Autowired
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private FhirConceptSourceDao fhirConceptSourceDao;
+	
+	private FhirCacheStatistics cacheStatistics;
+	
+	@Before
+	public void setup() throws Exception {
+		executeDataSet(CONCEPT_SOURCE_FHIR_DATA);
+		
+		cacheStatistics = new FhirCacheStatistics();
+		cacheStatistics.setSessionFactory(sessionFactory);
+	}
+	
+	@Test
+	public void getStatistics_shouldReportHitsAndMissesOfTheMetadataQueryCache() {
+		assumeTrue(((SessionFactoryImplementor) sessionFactory).getSettings().isQueryCacheEnabled());
+		sessionFactory.getCache().evictQueryRegion(FhirConstants.METADATA_QUERY_CACHE_REGION);
+		
+		Statistics statistics = sessionFactory.getStatistics();
+		boolean statisticsEnabled = statistics.isStatisticsEnabled();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		try {
+			fhirConceptSourceDao.getFhirConceptSourceByUrl(FhirTestConstants.LOINC_SYSTEM_URL);
+			fhirConceptSourceDao.getFhirConceptSourceByUrl(FhirTestConstants.LOINC_SYSTEM_URL);
+			
+			Map<String, Number> result = cacheStatistics.getStatistics();
+			
+			assertThat(result.get(FhirConstants.METADATA_QUERY_CACHE_REGION + ".hits"), equalTo(1L));
+			assertThat(result.get(FhirConstants.METADATA_QUERY_CACHE_REGION + ".misses"), equalTo(1L));
+			assertThat(result.get(FhirConstants.METADATA_QUERY_CACHE_REGION + ".hitRatio"), equalTo(0.5));
+		}
+		finally {
+			statistics.setStatisticsEnabled(statisticsEnabled);
+		}
+	}
+}
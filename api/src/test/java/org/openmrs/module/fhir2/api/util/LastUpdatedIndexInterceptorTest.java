@@ -0,0 +1,134 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Date;
+
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.openmrs.Location;
+import org.openmrs.api.LocationService;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class LastUpdatedIndexInterceptorTest extends BaseModuleContextSensitiveTest {
+	
+	private static final String LOCATION_TABLE = "location";
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	@Test
+	public void shouldRecordTheLastUpdatedTimeOfChangedRowsWhenEnabled() {
+		enableLastUpdatedIndex();
+		
+		Location location = saveNewLocation();
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getLastUpdated(location), equalTo(location.getDateCreated()));
+		
+		location.setDescription("Changed");
+		Context.getLocationService().saveLocation(location);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(location.getDateChanged(), notNullValue());
+		assertThat(getLastUpdated(location), equalTo(location.getDateChanged()));
+	}
+	
+	@Test
+	public void shouldRecordChangesFlushedBeforeAQuery() {
+		enableLastUpdatedIndex();
+		
+		Location location = saveNewLocation();
+		Context.getLocationService().getAllLocations();
+		
+		assertThat(getLastUpdated(location), equalTo(location.getDateCreated()));
+	}
+	
+	@Test
+	public void shouldRemoveTheLastUpdatedTimeOfDeletedRows() {
+		enableLastUpdatedIndex();
+		
+		Location location = saveNewLocation();
+		sessionFactory.getCurrentSession().flush();
+		assertThat(getLastUpdated(location), notNullValue());
+		
+		Context.getLocationService().purgeLocation(location);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getLastUpdated(location), nullValue());
+	}
+	
+	@Test
+	public void shouldNotWriteAnythingWhenDisabled() {
+		Location location = saveNewLocation();
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getLastUpdated(location), nullValue());
+	}
+	
+	@Test
+	public void shouldStopWritingOnceDisabled() {
+		enableLastUpdatedIndex();
+		
+		Location location = saveNewLocation();
+		sessionFactory.getCurrentSession().flush();
+		assertThat(getLastUpdated(location), equalTo(location.getDateCreated()));
+		
+		Context.getAdministrationService().setGlobalProperty(FhirConstants.OPENMRS_FHIR_LAST_UPDATED_INDEX, "false");
+		sessionFactory.getCurrentSession().flush();
+		
+		location.setDescription("Changed");
+		Context.getLocationService().saveLocation(location);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getLastUpdated(location), equalTo(location.getDateCreated()));
+	}
+	
+	private void enableLastUpdatedIndex() {
+		Context.getAdministrationService().setGlobalProperty(FhirConstants.OPENMRS_FHIR_LAST_UPDATED_INDEX, "true");
+		sessionFactory.getCurrentSession().flush();
+	}
+	
+	private Location saveNewLocation() {
+		LocationService locationService = Context.getLocationService();
+		
+		Location location = new Location();
+		location.setName("Last Updated Test Location");
+		return locationService.saveLocation(location);
+	}
+	
+	private Date getLastUpdated(Location location) {
+		return sessionFactory.getCurrentSession().doReturningWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+			    "select last_updated from fhir_last_updated where resource_table = ? and resource_id = ?")) {
+				statement.setString(1, LOCATION_TABLE);
+				statement.setInt(2, location.getLocationId());
+				try (ResultSet resultSet = statement.executeQuery()) {
+					return resultSet.next() ? new Date(resultSet.getTimestamp(1).getTime()) : null;
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Person;
+import org.openmrs.PersonName;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.dao.FhirPersonDao;
+import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class PersonDisplayNameInterceptorTest extends BaseModuleContextSensitiveTest {
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	@Autowired
+	private FhirPersonDao personDao;
+	
+	@Before
+	public void setup() {
+		sessionFactory.getCurrentSession().doWork(PersonDisplayNameUtils::rebuild);
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_DISPLAY_NAME_SORT, "false"))
+		        .thenReturn("true");
+	}
+	
+	@Test
+	public void shouldSortByTheNewPreferredNameOfAPerson() {
+		Person renamed = savePerson("Zzdisplay");
+		Person other = savePerson("Mmdisplay");
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getDisplayNameId(renamed), equalTo(renamed.getPersonName().getPersonNameId()));
+		assertThat(getSortPosition(renamed), greaterThan(getSortPosition(other)));
+		
+		renamed.getPersonName().setPreferred(false);
+		PersonName newName = new PersonName("Given", null, "Aadisplay");
+		newName.setPreferred(true);
+		renamed.addName(newName);
+		Context.getPersonService().savePerson(renamed);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getDisplayNameId(renamed), equalTo(newName.getPersonNameId()));
+		assertThat(getSortPosition(renamed), lessThan(getSortPosition(other)));
+	}
+	
+	@Test
+	public void shouldSortByTheRemainingNameWhenThePreferredNameIsVoided() {
+		Person renamed = savePerson("Zzdisplay");
+		renamed.getPersonName().setPreferred(false);
+		PersonName preferredName = new PersonName("Given", null, "Aadisplay");
+		preferredName.setPreferred(true);
+		renamed.addName(preferredName);
+		Context.getPersonService().savePerson(renamed);
+		Person other = savePerson("Mmdisplay");
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getDisplayNameId(renamed), equalTo(preferredName.getPersonNameId()));
+		assertThat(getSortPosition(renamed), lessThan(getSortPosition(other)));
+		
+		Context.getPersonService().voidPersonName(preferredName, "Test");
+		Context.getPersonService().savePerson(renamed);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getSortPosition(renamed), greaterThan(getSortPosition(other)));
+	}
+	
+	@Test
+	public void shouldRemoveTheDisplayNameOfADeletedPerson() {
+		Person person = savePerson("Zzdisplay");
+		sessionFactory.getCurrentSession().flush();
+		
+		Context.getPersonService().purgePerson(person);
+		sessionFactory.getCurrentSession().flush();
+		
+		assertThat(getDisplayNameId(person), nullValue());
+	}
+	
+	private Person savePerson(String familyName) {
+		Person person = new Person();
+		person.setGender("F");
+		person.addName(new PersonName("Given", null, familyName));
+		return Context.getPersonService().savePerson(person);
+	}
+	
+	private int getSortPosition(Person person) {
+		SortSpec sort = new SortSpec();
+		sort.setParamName("name");
+		sort.setOrder(SortOrderEnum.ASC);
+		
+		List<String> uuids = personDao.getSearchResultUuids(new SearchParameterMap().setSortSpec(sort));
+		return uuids.indexOf(person.getUuid());
+	}
+	
+	private Integer getDisplayNameId(Person person) {
+		return sessionFactory.getCurrentSession().doReturningWork(connection -> {
+			try (PreparedStatement statement = connection
+			        .prepareStatement("select person_name_id from fhir_person_display_name where person_id = ?")) {
+				statement.setInt(1, person.getPersonId());
+				try (ResultSet resultSet = statement.executeQuery()) {
+					return resultSet.next() ? resultSet.getInt(1) : null;
+				}
+			}
+		});
+	}
+}
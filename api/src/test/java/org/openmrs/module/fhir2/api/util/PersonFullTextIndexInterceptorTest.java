@@ -0,0 +1,113 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.Patient;
+import org.openmrs.PatientIdentifier;
+import org.openmrs.Person;
+import org.openmrs.PersonAddress;
+import org.openmrs.PersonName;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PersonFullTextIndexInterceptorTest {
+	
+	@Mock
+	private PersonFullTextIndexer indexer;
+	
+	@Mock
+	private Transaction transaction;
+	
+	private PersonFullTextIndexInterceptor interceptor;
+	
+	@Before
+	public void setup() {
+		interceptor = new PersonFullTextIndexInterceptor();
+		interceptor.setIndexer(indexer);
+	}
+	
+	@After
+	public void clearPendingChanges() {
+		interceptor.afterTransactionCompletion(transaction);
+	}
+	
+	@Test
+	public void shouldReindexPeopleWithChangedNamesAddressesAndIdentifiersOnCommit() {
+		PersonName name = new PersonName("Jean", null, "Claudent");
+		name.setPerson(new Person(1));
+		PersonAddress address = new PersonAddress();
+		address.setPerson(new Person(2));
+		PatientIdentifier identifier = new PatientIdentifier();
+		identifier.setPatient(new Patient(3));
+		
+		interceptor.onSave(name, 1, null, null, null);
+		interceptor.onFlushDirty(address, 2, null, null, null, null);
+		interceptor.onDelete(identifier, 3, null, null, null);
+		
+		when(transaction.wasCommitted()).thenReturn(true);
+		interceptor.afterTransactionCompletion(transaction);
+		
+		verify(indexer).reindexAsync(new HashSet<>(Arrays.asList(1, 2, 3)));
+	}
+	
+	@Test
+	public void shouldReindexVoidedNames() {
+		PersonName name = new PersonName("Jean", null, "Claudent");
+		name.setPerson(new Person(1));
+		name.setVoided(true);
+		
+		interceptor.onFlushDirty(name, 1, null, null, null, null);
+		
+		when(transaction.wasCommitted()).thenReturn(true);
+		interceptor.afterTransactionCompletion(transaction);
+		
+		verify(indexer).reindexAsync(Collections.singleton(1));
+	}
+	
+	@Test
+	public void shouldNotReindexPeopleWhenTheTransactionRollsBack() {
+		PersonName name = new PersonName("Jean", null, "Claudent");
+		name.setPerson(new Person(1));
+		
+		interceptor.onSave(name, 1, null, null, null);
+		
+		when(transaction.wasCommitted()).thenReturn(false);
+		interceptor.afterTransactionCompletion(transaction);
+		
+		verify(indexer, never()).reindexAsync(any());
+	}
+	
+	@Test
+	public void shouldNotReindexPeopleChangedInAnEarlierTransaction() {
+		PersonName name = new PersonName("Jean", null, "Claudent");
+		name.setPerson(new Person(1));
+		
+		interceptor.onSave(name, 1, null, null, null);
+		interceptor.afterTransactionCompletion(transaction);
+		interceptor.afterTransactionCompletion(transaction);
+		
+		verify(indexer, never()).reindexAsync(any());
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ca.uhn.fhir.rest.param.ReferenceAndListParam;
+import ca.uhn.fhir.rest.param.ReferenceOrListParam;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Obs;
+import org.openmrs.Patient;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.module.fhir2.api.dao.impl.SearchResultCache;
+import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class SearchResultCacheInvalidationInterceptorTest extends BaseModuleContextSensitiveTest {
+	
+	private static final int OBS_ID = 7;
+	
+	private static final int OTHER_PATIENT_ID = 2;
+	
+	private static final Set<Class<?>> OBS_DEPENDENCIES = Collections.singleton(Obs.class);
+	
+	private static final List<String> UUIDS = Arrays.asList("uuid-1", "uuid-2");
+	
+	@Autowired
+	private SearchResultCacheInvalidationInterceptor interceptor;
+	
+	@Autowired
+	private SearchResultCache searchResultCache;
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	private AtomicInteger loads;
+	
+	@Before
+	public void setup() {
+		searchResultCache.invalidateAll();
+		loads = new AtomicInteger();
+	}
+	
+	@Test
+	public void shouldDiscardSearchesForThePatientOfACommittedChange() {
+		Obs obs = Context.getObsService().getObs(OBS_ID);
+		String patientUuid = obs.getPerson().getUuid();
+		String otherPatientUuid = Context.getPatientService().getPatient(OTHER_PATIENT_ID).getUuid();
+		
+		search(patientUuid);
+		search(otherPatientUuid);
+		
+		obs.setComment("changed");
+		sessionFactory.getCurrentSession().flush();
+		commit();
+		
+		search(patientUuid);
+		search(otherPatientUuid);
+		
+		assertThat(loads.get(), equalTo(3));
+	}
+	
+	@Test
+	public void shouldDiscardSearchesForBothPatientsWhenAChangeMovesAnEntityBetweenThem() {
+		Obs obs = Context.getObsService().getObs(OBS_ID);
+		String patientUuid = obs.getPerson().getUuid();
+		Patient otherPatient = Context.getPatientService().getPatient(OTHER_PATIENT_ID);
+		assertThat(otherPatient.getUuid(), not(equalTo(patientUuid)));
+		
+		search(patientUuid);
+		search(otherPatient.getUuid());
+		
+		obs.setPerson(otherPatient);
+		sessionFactory.getCurrentSession().flush();
+		commit();
+		
+		search(patientUuid);
+		search(otherPatient.getUuid());
+		
+		assertThat(loads.get(), equalTo(4));
+	}
+	
+	@Test
+	public void shouldKeepSearchesWhenTheChangeIsRolledBack() {
+		Obs obs = Context.getObsService().getObs(OBS_ID);
+		String patientUuid = obs.getPerson().getUuid();
+		
+		search(patientUuid);
+		
+		obs.setComment("changed");
+		sessionFactory.getCurrentSession().flush();
+		interceptor.afterTransactionCompletion(mock(Transaction.class));
+		
+		search(patientUuid);
+		
+		assertThat(loads.get(), equalTo(1));
+	}
+	
+	// the test transaction is never committed, so the commit is reported to the interceptor directly
+	private void commit() {
+		Transaction transaction = mock(Transaction.class);
+		when(transaction.wasCommitted()).thenReturn(true);
+		interceptor.afterTransactionCompletion(transaction);
+	}
+	
+	private void search(String patientUuid) {
+		SearchParameterMap theParams = new SearchParameterMap().addParameter(
+		    FhirConstants.PATIENT_REFERENCE_SEARCH_HANDLER,
+		    new ReferenceAndListParam().addAnd(new ReferenceOrListParam().add(new ReferenceParam(patientUuid))));
+		
+		searchResultCache.getSearchResultUuids(Obs.class, OBS_DEPENDENCIES, theParams, () -> {
+			loads.incrementAndGet();
+			return UUIDS;
+		});
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.api.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.Concept;
+import org.openmrs.module.fhir2.TestFhirSpringConfiguration;
+import org.openmrs.test.BaseModuleContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(classes = TestFhirSpringConfiguration.class, inheritLocations = false)
+public class WorkerSessionGuardTest extends BaseModuleContextSensitiveTest {
+	
+	private static final int CONCEPT_ID = 5089;
+	
+	private static final String CONCEPT_UUID = "c607c80f-1ea9-4da3-bb88-6276ce8868dd";
+	
+	@Autowired
+	@Qualifier("sessionFactory")
+	private SessionFactory sessionFactory;
+	
+	private ExecutorService executor;
+	
+	@Before
+	public void setup() {
+		executor = Executors.newSingleThreadExecutor();
+		sessionFactory.getCurrentSession().clear();
+	}
+	
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+	
+	@Test
+	public void shouldAllowLoadsThroughTheSessionOfTheCurrentThread() {
+		Concept concept = (Concept) sessionFactory.getCurrentSession().load(Concept.class, CONCEPT_ID);
+		
+		assertThat(WorkerSessionGuard.runAsWorker(concept::getUuid), equalTo(CONCEPT_UUID));
+	}
+	
+	@Test
+	public void shouldFailToInitializeAProxyThroughTheSessionOfAnotherThread() throws Exception {
+		Concept concept = (Concept) sessionFactory.getCurrentSession().load(Concept.class, CONCEPT_ID);
+		
+		assertFailsToLoad(executor.submit(() -> WorkerSessionGuard.runAsWorker(concept::getUuid)));
+	}
+	
+	@Test
+	public void shouldFailToInitializeACollectionThroughTheSessionOfAnotherThread() throws Exception {
+		Concept concept = (Concept) sessionFactory.getCurrentSession().get(Concept.class, CONCEPT_ID);
+		
+		assertFailsToLoad(executor.submit(() -> WorkerSessionGuard.runAsWorker(() -> concept.getNames().size())));
+	}
+	
+	private static void assertFailsToLoad(Future<?> work) throws InterruptedException {
+		try {
+			work.get();
+			fail("Expected the load to fail");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause(), instanceOf(LazyInitializationException.class));
+			assertThat(e.getCause().getMessage(), containsString("does not own"));
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.providers.r4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+import ca.uhn.fhir.rest.param.NumberParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import ca.uhn.fhir.rest.server.exceptions.UnclassifiedServerFailureException;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Type;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.module.fhir2.api.FhirChangeLogService;
+import org.openmrs.module.fhir2.api.util.FhirChangeLogNotifier;
+import org.openmrs.module.fhir2.model.FhirChangeLogEntry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangesFhirOperationProviderTest {
+	
+	private static final String PATIENT_UUID = "da7f524f-27ce-4bb2-86d6-6d1d05312bd5";
+	
+	@Mock
+	private FhirChangeLogService changeLogService;
+	
+	@Mock
+	private FhirChangeLogNotifier notifier;
+	
+	private ChangesFhirOperationProvider operationProvider;
+	
+	private FhirChangeLogEntry change;
+	
+	@Before
+	public void setup() {
+		operationProvider = new ChangesFhirOperationProvider();
+		operationProvider.setChangeLogService(changeLogService);
+		operationProvider.setNotifier(notifier);
+		
+		change = new FhirChangeLogEntry("Patient", PATIENT_UUID, FhirChangeLogEntry.Operation.UPDATE, new Date());
+		change.setChangeLogId(43L);
+	}
+	
+	@Test
+	public void getChanges_shouldReturnChangesAfterTheGivenSequence() {
+		when(changeLogService.getChangesSince(42L, 100)).thenReturn(Collections.singletonList(change));
+		
+		Parameters result = operationProvider.getChanges(new NumberParam(42), null, null);
+		
+		List<Parameters.ParametersParameterComponent> changes = getChanges(result);
+		assertThat(changes, hasSize(1));
+		assertThat(getPart(changes.get(0), "sequence").primitiveValue(), equalTo("43"));
+		assertThat(((Reference) getPart(changes.get(0), "resource")).getReference(), equalTo("Patient/" + PATIENT_UUID));
+		assertThat(getPart(changes.get(0), "operation").primitiveValue(), equalTo("update"));
+		assertThat(result.getParameter("latest").primitiveValue(), equalTo("43"));
+	}
+	
+	@Test
+	public void getChanges_shouldReturnTheGivenSequenceAsLatestWhenThereAreNoChanges() {
+		when(changeLogService.getChangesSince(42L, 100)).thenReturn(Collections.emptyList());
+		
+		Parameters result = operationProvider.getChanges(new NumberParam(42), null, null);
+		
+		assertThat(getChanges(result), hasSize(0));
+		assertThat(result.getParameter("latest").primitiveValue(), equalTo("42"));
+	}
+	
+	@Test
+	public void getChanges_shouldWaitForChangesWhenAskedTo() throws InterruptedException {
+		when(changeLogService.getChangesSince(42L, 10)).thenReturn(Collections.emptyList())
+		        .thenReturn(Collections.singletonList(change));
+		when(notifier.awaitChangeAfter(42L, 5000L)).thenReturn(true);
+		
+		Parameters result = operationProvider.getChanges(new NumberParam(42), new NumberParam(10), new NumberParam(5));
+		
+		assertThat(getChanges(result), hasSize(1));
+	}
+	
+	@Test
+	public void getChanges_shouldNotWaitWhenThereAreAlreadyChanges() throws InterruptedException {
+		when(changeLogService.getChangesSince(42L, 100)).thenReturn(Collections.singletonList(change));
+		
+		operationProvider.getChanges(new NumberParam(42), null, new NumberParam(5));
+		
+		verify(notifier, never()).awaitChangeAfter(anyLong(), anyLong());
+	}
+	
+	@Test
+	public void getChanges_shouldRejectWaitingWhenTooManyRequestsAreWaiting() throws InterruptedException {
+		when(changeLogService.getChangesSince(42L, 100)).thenReturn(Collections.emptyList());
+		operationProvider.setWaiters(new Semaphore(0));
+		
+		try {
+			operationProvider.getChanges(new NumberParam(42), null, new NumberParam(5));
+			fail("Expected the request to be rejected");
+		}
+		catch (UnclassifiedServerFailureException e) {
+			assertThat(e.getStatusCode(), equalTo(429));
+		}
+		
+		verify(notifier, never()).awaitChangeAfter(anyLong(), anyLong());
+	}
+	
+	@Test
+	public void getChanges_shouldReturnTheHighWaterMark() {
+		when(changeLogService.getChangesSince(42L, 1)).thenReturn(Collections.singletonList(change));
+		when(changeLogService.getLatestSequence()).thenReturn(50L);
+		
+		Parameters result = operationProvider.getChanges(new NumberParam(42), new NumberParam(1), null);
+		
+		assertThat(result.getParameter("latest").primitiveValue(), equalTo("43"));
+		assertThat(result.getParameter("highWaterMark").primitiveValue(), equalTo("50"));
+	}
+	
+	@Test(expected = ResourceGoneException.class)
+	public void getChanges_shouldFailWhenChangesAfterTheGivenSequenceHaveBeenPurged() {
+		when(changeLogService.getPurgedThrough()).thenReturn(50L);
+		
+		operationProvider.getChanges(new NumberParam(42), null, null);
+	}
+	
+	@Test
+	public void getChanges_shouldReturnTheRemainingChangesToNewClientsAfterAPurge() {
+		when(changeLogService.getPurgedThrough()).thenReturn(42L);
+		when(changeLogService.getChangesSince(0L, 100)).thenReturn(Collections.singletonList(change));
+		
+		Parameters result = operationProvider.getChanges(null, null, null);
+		
+		assertThat(getChanges(result), hasSize(1));
+	}
+	
+	@Test(expected = InvalidRequestException.class)
+	public void getChanges_shouldRejectNegativeSequence() {
+		operationProvider.getChanges(new NumberParam(-1), null, null);
+	}
+	
+	private static List<Parameters.ParametersParameterComponent> getChanges(Parameters parameters) {
+		return parameters.getParameter().stream().filter(p -> "change".equals(p.getName())).collect(Collectors.toList());
+	}
+	
+	private static Type getPart(Parameters.ParametersParameterComponent parameter, String name) {
+		return parameter.getPart().stream().filter(p -> name.equals(p.getName())).findFirst()
+		        .orElseThrow(IllegalStateException::new).getValue();
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.load;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replays a weighted mix of FHIR reads and searches, as described by a {@link LoadTestProfile},
+ * against data produced by {@link SyntheticDataGenerator} and reports latency percentiles,
+ * throughput and heap usage.
+ * <p/>
+ * The harness does not know how requests are executed; callers supply a {@link RequestExecutor},
+ * usually one that dispatches to an in-process {@code FhirRestServlet}.
+ */
+@Slf4j
+public class LoadTestHarness {
+	
+	private final LoadTestProfile profile;
+	
+	private final RequestExecutor executor;
+	
+	private final Random random;
+	
+	private final int totalWeight;
+	
+	public LoadTestHarness(LoadTestProfile profile, RequestExecutor executor) {
+		this.profile = profile;
+		this.executor = executor;
+		// use a different stream from the generator so that the request sequence does not depend on volumes
+		this.random = new Random(profile.getSeed() * 31);
+		this.totalWeight = profile.getRequestMix().stream().mapToInt(LoadTestProfile.WeightedRequest::getWeight).sum();
+	}
+	
+	/**
+	 * Runs the warmup requests, followed by the measured requests
+	 *
+	 * @return the report for the measured requests
+	 */
+	public Report run() throws Exception {
+		for (int i = 0; i < profile.getWarmupRequests(); i++) {
+			executor.execute(nextUri());
+		}
+		
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+		long peakHeap = heapBefore;
+		
+		long[] latencies = new long[profile.getRequests()];
+		Map<String, Integer> failures = new LinkedHashMap<>();
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < latencies.length; i++) {
+			String uri = nextUri();
+			
+			long requestStart = System.nanoTime();
+			int status = executor.execute(uri);
+			latencies[i] = System.nanoTime() - requestStart;
+			
+			if (status >= 400) {
+				failures.merge(status + " " + uri.replaceAll("\\?.*", ""), 1, Integer::sum);
+			}
+			
+			peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory());
+		}
+		long elapsed = System.nanoTime() - start;
+		
+		Report report = new Report(latencies, elapsed, heapBefore, peakHeap, failures);
+		log.info("{}", report);
+		return report;
+	}
+	
+	protected String nextUri() {
+		int choice = random.nextInt(totalWeight);
+		String template = null;
+		for (LoadTestProfile.WeightedRequest request : profile.getRequestMix()) {
+			choice -= request.getWeight();
+			if (choice < 0) {
+				template = request.getUriTemplate();
+				break;
+			}
+		}
+		
+		int patientIndex = random.nextInt(profile.getPatients());
+		
+		// @formatter:off
+		return template
+				.replace("{patientIndex}", String.valueOf(patientIndex))
+				.replace("{patient}", SyntheticDataGenerator.uuid("patient", patientIndex))
+				.replace("{visit}", SyntheticDataGenerator.uuid("visit", random.nextInt(profile.getTotalVisits())))
+				.replace("{encounter}", SyntheticDataGenerator.uuid("encounter", random.nextInt(profile.getTotalEncounters())))
+				.replace("{obs}", SyntheticDataGenerator.uuid("obs", (long) (random.nextDouble() * profile.getTotalObs())))
+				.replace("{provider}", SyntheticDataGenerator.uuid("provider", random.nextInt(Math.max(1, profile.getProviders()))));
+		// @formatter:on
+	}
+	
+	/**
+	 * Executes a single request against the server under test
+	 */
+	@FunctionalInterface
+	public interface RequestExecutor {
+		
+		/**
+		 * @param uri the request uri, relative to the FHIR base, e.g. {@code /Patient?name=John}
+		 * @return the HTTP status code of the response
+		 */
+		int execute(String uri) throws Exception;
+	}
+	
+	@Getter
+	public static class Report {
+		
+		private final int requests;
+		
+		private final long p50Micros;
+		
+		private final long p95Micros;
+		
+		private final long p99Micros;
+		
+		private final long maxMicros;
+		
+		private final double requestsPerSecond;
+		
+		private final long heapBeforeBytes;
+		
+		private final long peakHeapBytes;
+		
+		private final Map<String, Integer> failures;
+		
+		Report(long[] latencies, long elapsedNanos, long heapBeforeBytes, long peakHeapBytes,
+		    Map<String, Integer> failures) {
+			long[] sorted = Arrays.copyOf(latencies, latencies.length);
+			Arrays.sort(sorted);
+			
+			this.requests = sorted.length;
+			this.p50Micros = percentile(sorted, 50);
+			this.p95Micros = percentile(sorted, 95);
+			this.p99Micros = percentile(sorted, 99);
+			this.maxMicros = sorted.length == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sorted[sorted.length - 1]);
+			this.requestsPerSecond = elapsedNanos == 0 ? 0 : sorted.length / (elapsedNanos / 1_000_000_000.0);
+			this.heapBeforeBytes = heapBeforeBytes;
+			this.peakHeapBytes = peakHeapBytes;
+			this.failures = failures;
+		}
+		
+		private static long percentile(long[] sorted, int percentile) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			
+			int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+			return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+		}
+		
+		@Override
+		public String toString() {
+			return String.format(
+			    "%d requests: p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms throughput=%.1f req/s heap=%dMB (peak %dMB) failures=%s",
+			    requests, p50Micros / 1000.0, p95Micros / 1000.0, p99Micros / 1000.0, maxMicros / 1000.0, requestsPerSecond,
+			    heapBeforeBytes / (1024 * 1024), peakHeapBytes / (1024 * 1024), failures);
+		}
+	}
+}
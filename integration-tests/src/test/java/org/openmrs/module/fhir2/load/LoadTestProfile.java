@@ -0,0 +1,162 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The volumes, metadata ids and request mix used by {@link SyntheticDataGenerator} and
+ * {@link LoadTestHarness}. Defaults are read from {@value #DEFAULT_PROFILE} in the test-data module
+ * and any value can be overridden by a system property prefixed with "fhir2.", e.g.
+ * {@code -Dfhir2.load.patients=100000}
+ */
+@Getter
+public class LoadTestProfile {
+	
+	public static final String DEFAULT_PROFILE = "org/openmrs/module/fhir2/load/load-test.properties";
+	
+	private static final String SYSTEM_PROPERTY_PREFIX = "fhir2.";
+	
+	private final long seed;
+	
+	private final int patients;
+	
+	private final int providers;
+	
+	private final int visitsPerPatient;
+	
+	private final int encountersPerVisit;
+	
+	private final int obsPerEncounter;
+	
+	private final int conceptMappings;
+	
+	private final int userId;
+	
+	private final int locationId;
+	
+	private final int identifierTypeId;
+	
+	private final int encounterTypeId;
+	
+	private final int visitTypeId;
+	
+	private final int conceptSourceId;
+	
+	private final int conceptMapTypeId;
+	
+	private final List<Integer> obsConceptIds;
+	
+	private final int warmupRequests;
+	
+	private final int requests;
+	
+	private final List<WeightedRequest> requestMix;
+	
+	private LoadTestProfile(Properties properties) {
+		seed = getLong(properties, "load.seed");
+		patients = getInt(properties, "load.patients");
+		providers = getInt(properties, "load.providers");
+		visitsPerPatient = getInt(properties, "load.visitsPerPatient");
+		encountersPerVisit = getInt(properties, "load.encountersPerVisit");
+		obsPerEncounter = getInt(properties, "load.obsPerEncounter");
+		conceptMappings = getInt(properties, "load.conceptMappings");
+		userId = getInt(properties, "load.userId");
+		locationId = getInt(properties, "load.locationId");
+		identifierTypeId = getInt(properties, "load.identifierTypeId");
+		encounterTypeId = getInt(properties, "load.encounterTypeId");
+		visitTypeId = getInt(properties, "load.visitTypeId");
+		conceptSourceId = getInt(properties, "load.conceptSourceId");
+		conceptMapTypeId = getInt(properties, "load.conceptMapTypeId");
+		obsConceptIds = Arrays.stream(get(properties, "load.obsConceptIds").split(",")).map(String::trim)
+		        .map(Integer::valueOf).collect(Collectors.toList());
+		warmupRequests = getInt(properties, "load.warmupRequests");
+		requests = getInt(properties, "load.requests");
+		
+		requestMix = new ArrayList<>();
+		for (int i = 1; get(properties, "load.mix." + i) != null; i++) {
+			String[] parts = get(properties, "load.mix." + i).split("\\|", 2);
+			requestMix.add(new WeightedRequest(Integer.parseInt(parts[0].trim()), parts[1].trim()));
+		}
+	}
+	
+	/**
+	 * Loads the default profile, applying any system property overrides
+	 *
+	 * @return the load test profile
+	 */
+	public static LoadTestProfile load() {
+		return load(DEFAULT_PROFILE);
+	}
+	
+	/**
+	 * Loads the profile from the given classpath resource, applying any system property overrides
+	 *
+	 * @param resource the classpath resource to read the profile from
+	 * @return the load test profile
+	 */
+	public static LoadTestProfile load(String resource) {
+		Properties properties = new Properties();
+		try (InputStream is = LoadTestProfile.class.getClassLoader().getResourceAsStream(resource)) {
+			if (is == null) {
+				throw new IllegalArgumentException("Could not find load test profile " + resource);
+			}
+			
+			properties.load(is);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not read load test profile " + resource, e);
+		}
+		
+		return new LoadTestProfile(properties);
+	}
+	
+	public int getTotalVisits() {
+		return patients * visitsPerPatient;
+	}
+	
+	public int getTotalEncounters() {
+		return getTotalVisits() * encountersPerVisit;
+	}
+	
+	public long getTotalObs() {
+		return (long) getTotalEncounters() * obsPerEncounter;
+	}
+	
+	private static String get(Properties properties, String key) {
+		return System.getProperty(SYSTEM_PROPERTY_PREFIX + key, properties.getProperty(key));
+	}
+	
+	private static int getInt(Properties properties, String key) {
+		return Integer.parseInt(get(properties, key).trim());
+	}
+	
+	private static long getLong(Properties properties, String key) {
+		return Long.parseLong(get(properties, key).trim());
+	}
+	
+	@Getter
+	@AllArgsConstructor
+	public static class WeightedRequest {
+		
+		private final int weight;
+		
+		private final String uriTemplate;
+	}
+}
@@ -0,0 +1,322 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.load;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates a deterministic, configurable volume of patients, providers, visits, encounters,
+ * observations and concept mappings directly into the test database using batched JDBC inserts.
+ * <p/>
+ * All identifiers are allocated from {@link #ID_OFFSET} upwards so the generated rows never collide
+ * with the standard test dataset, and all uuids are name-based so that the same profile always
+ * produces the same uuids. This allows a load test to be re-run against the same data and results
+ * compared between runs.
+ */
+@Slf4j
+public class SyntheticDataGenerator {
+	
+	public static final int ID_OFFSET = 1_000_000;
+	
+	private static final int BATCH_SIZE = 1000;
+	
+	private static final long BASE_DATE = Timestamp.valueOf("2015-01-01 00:00:00").getTime();
+	
+	private static final String[] GIVEN_NAMES = { "Synthetic", "Amara", "Baraka", "Chidi", "Dalia", "Emeka", "Fatuma",
+	        "Grace", "Hassan", "Imani", "Jabari", "Kamau", "Lulu", "Moses", "Nia", "Omari" };
+	
+	private static final String[] FAMILY_NAMES = { "Achieng", "Banda", "Chege", "Diallo", "Eze", "Fofana", "Gatete",
+	        "Hakizimana", "Igwe", "Juma", "Kariuki", "Lukwago", "Mensah", "Njoroge", "Okafor", "Phiri" };
+	
+	private final Connection connection;
+	
+	private final LoadTestProfile profile;
+	
+	private final Random random;
+	
+	public SyntheticDataGenerator(Connection connection, LoadTestProfile profile) {
+		this.connection = connection;
+		this.profile = profile;
+		this.random = new Random(profile.getSeed());
+	}
+	
+	/**
+	 * Returns the uuid that the generator assigns to the given row, so that callers can reference
+	 * generated data without querying for it
+	 *
+	 * @param table the table the row belongs to
+	 * @param index the zero-based index of the generated row
+	 * @return the deterministic uuid of that row
+	 */
+	public static String uuid(String table, long index) {
+		return UUID.nameUUIDFromBytes((table + "-" + index).getBytes(StandardCharsets.UTF_8)).toString();
+	}
+	
+	/**
+	 * Generates all data described by the profile
+	 */
+	public void generate() throws SQLException {
+		long start = System.nanoTime();
+		
+		generateProviders();
+		generatePatients();
+		generateVisitsEncountersAndObs();
+		generateConceptMappings();
+		
+		log.info("Generated {} patients, {} providers, {} visits, {} encounters, {} obs and {} concept mappings in {}s",
+		    profile.getPatients(), profile.getProviders(), profile.getTotalVisits(), profile.getTotalEncounters(),
+		    profile.getTotalObs(), profile.getConceptMappings(),
+		    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+	}
+	
+	protected void generateProviders() throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(
+		    "insert into provider (provider_id, name, identifier, creator, date_created, retired, uuid) values (?, ?, ?, ?, ?, ?, ?)")) {
+			for (int i = 0; i < profile.getProviders(); i++) {
+				ps.setInt(1, ID_OFFSET + i);
+				ps.setString(2, "Synthetic Provider " + i);
+				ps.setString(3, "LOAD-PROV-" + i);
+				ps.setInt(4, profile.getUserId());
+				ps.setTimestamp(5, new Timestamp(BASE_DATE));
+				ps.setBoolean(6, false);
+				ps.setString(7, uuid("provider", i));
+				addToBatch(ps, i);
+			}
+			
+			ps.executeBatch();
+		}
+	}
+	
+	protected void generatePatients() throws SQLException {
+		try (PreparedStatement person = connection.prepareStatement(
+		    "insert into person (person_id, gender, birthdate, birthdate_estimated, dead, deathdate_estimated, creator, date_created, voided, uuid) "
+		            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		        PreparedStatement personName = connection.prepareStatement(
+		            "insert into person_name (person_name_id, preferred, person_id, given_name, family_name, creator, date_created, voided, uuid) "
+		                    + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		        PreparedStatement patient = connection
+		                .prepareStatement("insert into patient (patient_id, creator, date_created, voided) values (?, ?, ?, ?)");
+		        PreparedStatement identifier = connection.prepareStatement(
+		            "insert into patient_identifier (patient_identifier_id, patient_id, identifier, identifier_type, preferred, location_id, creator, date_created, voided, uuid) "
+		                    + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+			for (int i = 0; i < profile.getPatients(); i++) {
+				int personId = ID_OFFSET + i;
+				Timestamp dateCreated = randomTimestamp();
+				
+				person.setInt(1, personId);
+				person.setString(2, random.nextBoolean() ? "M" : "F");
+				person.setDate(3, new java.sql.Date(BASE_DATE - TimeUnit.DAYS.toMillis(365L * (1 + random.nextInt(90)))));
+				person.setBoolean(4, false);
+				person.setBoolean(5, false);
+				person.setBoolean(6, false);
+				person.setInt(7, profile.getUserId());
+				person.setTimestamp(8, dateCreated);
+				person.setBoolean(9, false);
+				person.setString(10, uuid("patient", i));
+				person.addBatch();
+				
+				personName.setInt(1, personId);
+				personName.setBoolean(2, true);
+				personName.setInt(3, personId);
+				personName.setString(4, GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)]);
+				personName.setString(5, FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)]);
+				personName.setInt(6, profile.getUserId());
+				personName.setTimestamp(7, dateCreated);
+				personName.setBoolean(8, false);
+				personName.setString(9, uuid("person_name", i));
+				personName.addBatch();
+				
+				patient.setInt(1, personId);
+				patient.setInt(2, profile.getUserId());
+				patient.setTimestamp(3, dateCreated);
+				patient.setBoolean(4, false);
+				patient.addBatch();
+				
+				identifier.setInt(1, personId);
+				identifier.setInt(2, personId);
+				identifier.setString(3, "LOAD-" + i);
+				identifier.setInt(4, profile.getIdentifierTypeId());
+				identifier.setBoolean(5, true);
+				identifier.setInt(6, profile.getLocationId());
+				identifier.setInt(7, profile.getUserId());
+				identifier.setTimestamp(8, dateCreated);
+				identifier.setBoolean(9, false);
+				identifier.setString(10, uuid("patient_identifier", i));
+				identifier.addBatch();
+				
+				if ((i + 1) % BATCH_SIZE == 0) {
+					person.executeBatch();
+					personName.executeBatch();
+					patient.executeBatch();
+					identifier.executeBatch();
+				}
+			}
+			
+			person.executeBatch();
+			personName.executeBatch();
+			patient.executeBatch();
+			identifier.executeBatch();
+		}
+	}
+	
+	protected void generateVisitsEncountersAndObs() throws SQLException {
+		try (PreparedStatement visit = connection.prepareStatement(
+		    "insert into visit (visit_id, patient_id, visit_type_id, date_started, date_stopped, location_id, creator, date_created, voided, uuid) "
+		            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		        PreparedStatement encounter = connection.prepareStatement(
+		            "insert into encounter (encounter_id, encounter_type, patient_id, location_id, visit_id, encounter_datetime, creator, date_created, voided, uuid) "
+		                    + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		        PreparedStatement encounterProvider = connection.prepareStatement(
+		            "insert into encounter_provider (encounter_provider_id, encounter_id, provider_id, encounter_role_id, creator, date_created, voided, uuid) "
+		                    + "values (?, ?, ?, ?, ?, ?, ?, ?)");
+		        PreparedStatement obs = connection.prepareStatement(
+		            "insert into obs (obs_id, person_id, concept_id, encounter_id, obs_datetime, location_id, value_numeric, creator, date_created, voided, uuid) "
+		                    + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+			int visitIndex = 0;
+			int encounterIndex = 0;
+			long obsIndex = 0;
+			
+			for (int p = 0; p < profile.getPatients(); p++) {
+				int patientId = ID_OFFSET + p;
+				
+				for (int v = 0; v < profile.getVisitsPerPatient(); v++, visitIndex++) {
+					Timestamp visitStart = randomTimestamp();
+					
+					visit.setInt(1, ID_OFFSET + visitIndex);
+					visit.setInt(2, patientId);
+					visit.setInt(3, profile.getVisitTypeId());
+					visit.setTimestamp(4, visitStart);
+					visit.setTimestamp(5, new Timestamp(visitStart.getTime() + TimeUnit.HOURS.toMillis(4)));
+					visit.setInt(6, profile.getLocationId());
+					visit.setInt(7, profile.getUserId());
+					visit.setTimestamp(8, visitStart);
+					visit.setBoolean(9, false);
+					visit.setString(10, uuid("visit", visitIndex));
+					visit.addBatch();
+					
+					for (int e = 0; e < profile.getEncountersPerVisit(); e++, encounterIndex++) {
+						int encounterId = ID_OFFSET + encounterIndex;
+						Timestamp encounterDatetime = new Timestamp(visitStart.getTime() + TimeUnit.MINUTES.toMillis(30L * e));
+						
+						encounter.setInt(1, encounterId);
+						encounter.setInt(2, profile.getEncounterTypeId());
+						encounter.setInt(3, patientId);
+						encounter.setInt(4, profile.getLocationId());
+						encounter.setInt(5, ID_OFFSET + visitIndex);
+						encounter.setTimestamp(6, encounterDatetime);
+						encounter.setInt(7, profile.getUserId());
+						encounter.setTimestamp(8, encounterDatetime);
+						encounter.setBoolean(9, false);
+						encounter.setString(10, uuid("encounter", encounterIndex));
+						encounter.addBatch();
+						
+						if (profile.getProviders() > 0) {
+							encounterProvider.setInt(1, encounterId);
+							encounterProvider.setInt(2, encounterId);
+							encounterProvider.setInt(3, ID_OFFSET + random.nextInt(profile.getProviders()));
+							encounterProvider.setInt(4, 1);
+							encounterProvider.setInt(5, profile.getUserId());
+							encounterProvider.setTimestamp(6, encounterDatetime);
+							encounterProvider.setBoolean(7, false);
+							encounterProvider.setString(8, uuid("encounter_provider", encounterIndex));
+							encounterProvider.addBatch();
+						}
+						
+						for (int o = 0; o < profile.getObsPerEncounter(); o++, obsIndex++) {
+							obs.setLong(1, ID_OFFSET + obsIndex);
+							obs.setInt(2, patientId);
+							obs.setInt(3, profile.getObsConceptIds().get(o % profile.getObsConceptIds().size()));
+							obs.setInt(4, encounterId);
+							obs.setTimestamp(5, encounterDatetime);
+							obs.setInt(6, profile.getLocationId());
+							obs.setDouble(7, 20 + random.nextInt(18000) / 100.0);
+							obs.setInt(8, profile.getUserId());
+							obs.setTimestamp(9, encounterDatetime);
+							obs.setBoolean(10, false);
+							obs.setString(11, uuid("obs", obsIndex));
+							obs.addBatch();
+							
+							if ((obsIndex + 1) % BATCH_SIZE == 0) {
+								// parents must be flushed before their children
+								visit.executeBatch();
+								encounter.executeBatch();
+								encounterProvider.executeBatch();
+								obs.executeBatch();
+							}
+						}
+					}
+				}
+			}
+			
+			visit.executeBatch();
+			encounter.executeBatch();
+			encounterProvider.executeBatch();
+			obs.executeBatch();
+		}
+	}
+	
+	protected void generateConceptMappings() throws SQLException {
+		try (PreparedStatement term = connection.prepareStatement(
+		    "insert into concept_reference_term (concept_reference_term_id, concept_source_id, code, name, retired, creator, date_created, uuid) "
+		            + "values (?, ?, ?, ?, ?, ?, ?, ?)");
+		        PreparedStatement map = connection.prepareStatement(
+		            "insert into concept_reference_map (concept_map_id, concept_id, concept_reference_term_id, concept_map_type_id, creator, date_created, uuid) "
+		                    + "values (?, ?, ?, ?, ?, ?, ?)")) {
+			for (int i = 0; i < profile.getConceptMappings(); i++) {
+				term.setInt(1, ID_OFFSET + i);
+				term.setInt(2, profile.getConceptSourceId());
+				term.setString(3, "LOAD-" + i);
+				term.setString(4, "");
+				term.setBoolean(5, false);
+				term.setInt(6, profile.getUserId());
+				term.setTimestamp(7, new Timestamp(BASE_DATE));
+				term.setString(8, uuid("concept_reference_term", i));
+				term.addBatch();
+				
+				map.setInt(1, ID_OFFSET + i);
+				map.setInt(2, profile.getObsConceptIds().get(i % profile.getObsConceptIds().size()));
+				map.setInt(3, ID_OFFSET + i);
+				map.setInt(4, profile.getConceptMapTypeId());
+				map.setInt(5, profile.getUserId());
+				map.setTimestamp(6, new Timestamp(BASE_DATE));
+				map.setString(7, uuid("concept_reference_map", i));
+				map.addBatch();
+				
+				if ((i + 1) % BATCH_SIZE == 0) {
+					term.executeBatch();
+					map.executeBatch();
+				}
+			}
+			
+			term.executeBatch();
+			map.executeBatch();
+		}
+	}
+	
+	private void addToBatch(PreparedStatement ps, int index) throws SQLException {
+		ps.addBatch();
+		if ((index + 1) % BATCH_SIZE == 0) {
+			ps.executeBatch();
+		}
+	}
+	
+	private Timestamp randomTimestamp() {
+		return new Timestamp(BASE_DATE + (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(365L * 5)));
+	}
+}
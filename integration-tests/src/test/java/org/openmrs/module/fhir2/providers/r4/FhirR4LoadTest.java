@@ -0,0 +1,63 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.providers.r4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assume.assumeTrue;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.hl7.fhir.r4.model.Observation;
+import org.junit.Before;
+import org.junit.Test;
+import org.openmrs.module.fhir2.load.LoadTestHarness;
+import org.openmrs.module.fhir2.load.LoadTestProfile;
+import org.openmrs.module.fhir2.load.SyntheticDataGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Replays the request mix from {@link LoadTestProfile#DEFAULT_PROFILE} against synthetic data.
+ * Because generating production-scale data takes a long time, this only runs when the
+ * {@code fhir2.loadTest} system property is set, e.g.
+ * {@code mvn test -pl integration-tests -Dtest=FhirR4LoadTest -Dfhir2.loadTest=true -Dfhir2.load.patients=100000}
+ */
+public class FhirR4LoadTest extends BaseFhirR4IntegrationTest<ObservationFhirResourceProvider, Observation> {
+	
+	private static final String OBS_DATA_XML = "org/openmrs/module/fhir2/api/dao/impl/FhirObservationDaoImplTest_initial_data_suppl.xml";
+	
+	@Autowired
+	@Getter(AccessLevel.PUBLIC)
+	private ObservationFhirResourceProvider resourceProvider;
+	
+	private LoadTestProfile profile;
+	
+	@Before
+	@Override
+	public void setup() throws Exception {
+		assumeTrue("Load tests are only run when -Dfhir2.loadTest=true", Boolean.getBoolean("fhir2.loadTest"));
+		
+		super.setup();
+		
+		executeDataSet(OBS_DATA_XML);
+		
+		profile = LoadTestProfile.load();
+		new SyntheticDataGenerator(getConnection(), profile).generate();
+	}
+	
+	@Test
+	public void shouldServeRequestMixWithoutErrors() throws Exception {
+		LoadTestHarness.Report report = new LoadTestHarness(profile, uri -> get(uri).go().getStatus()).run();
+		
+		assertThat(report.getRequests(), equalTo(profile.getRequests()));
+		assertThat(report.getFailures(), anEmptyMap());
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.web.async;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.openmrs.api.context.UserContext;
+
+/**
+ * A request accepted with {@code Prefer: respond-async}, from the time it is queued until its
+ * response has been collected or has expired
+ */
+@Getter(AccessLevel.PACKAGE)
+final class AsyncRequest implements Runnable, Comparable<AsyncRequest> {
+	
+	enum State {
+		QUEUED,
+		RUNNING,
+		COMPLETED,
+		FAILED,
+		CANCELLED
+	}
+	
+	private final String id;
+	
+	private final long sequence;
+	
+	// lower values run first
+	private final int priority;
+	
+	private final Servlet servlet;
+	
+	private final HttpServletRequest request;
+	
+	private final UserContext userContext;
+	
+	private final String userUuid;
+	
+	private final File file;
+	
+	private final long submitted = System.currentTimeMillis();
+	
+	private final AsyncRequestManager manager;
+	
+	private volatile State state = State.QUEUED;
+	
+	private volatile long started;
+	
+	private volatile long finished;
+	
+	private volatile int status;
+	
+	private volatile String contentType;
+	
+	private volatile Map<String, List<String>> headers = Collections.emptyMap();
+	
+	AsyncRequest(String id, long sequence, int priority, Servlet servlet, HttpServletRequest request,
+	    UserContext userContext, String userUuid, File file, AsyncRequestManager manager) {
+		this.id = id;
+		this.sequence = sequence;
+		this.priority = priority;
+		this.servlet = servlet;
+		this.request = request;
+		this.userContext = userContext;
+		this.userUuid = userUuid;
+		this.file = file;
+		this.manager = manager;
+	}
+	
+	@Override
+	public void run() {
+		manager.execute(this);
+	}
+	
+	@Override
+	public int compareTo(AsyncRequest other) {
+		if (priority != other.priority) {
+			return Integer.compare(priority, other.priority);
+		}
+		
+		return Long.compare(sequence, other.sequence);
+	}
+	
+	synchronized boolean start() {
+		if (state != State.QUEUED) {
+			return false;
+		}
+		
+		state = State.RUNNING;
+		started = System.currentTimeMillis();
+		return true;
+	}
+	
+	synchronized boolean complete(SpilledHttpServletResponse response) {
+		finished = System.currentTimeMillis();
+		if (state != State.RUNNING) {
+			return false;
+		}
+		
+		status = response.getStatus();
+		contentType = response.getContentType();
+		headers = response.getHeaders();
+		state = State.COMPLETED;
+		return true;
+	}
+	
+	synchronized void fail() {
+		if (state == State.RUNNING) {
+			state = State.FAILED;
+		}
+		finished = System.currentTimeMillis();
+	}
+	
+	synchronized State cancel() {
+		State previous = state;
+		if (state == State.QUEUED || state == State.RUNNING) {
+			state = State.CANCELLED;
+		}
+		if (finished == 0) {
+			finished = System.currentTimeMillis();
+		}
+		return previous;
+	}
+	
+	boolean isDone() {
+		return state != State.QUEUED && state != State.RUNNING;
+	}
+}
@@ -0,0 +1,474 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.web.async;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.util.WorkerUserContext;
+import org.openmrs.util.OpenmrsUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Implements the FHIR asynchronous request pattern. A search or operation sent with
+ * {@code Prefer: respond-async} is copied and queued, and the client is immediately answered with
+ * {@code 202 Accepted} and a {@code Content-Location} at which the result can be collected, so that
+ * long-running requests do not hold a container thread.
+ * <p/>
+ * Queued requests are run by a fixed pool of {@link FhirConstants#OPENMRS_FHIR_ASYNC_THREADS}
+ * workers, each of which opens its own OpenMRS session as the user who made the request and replays
+ * it through the servlet that received it. Searches are run before operations, which tend to be the
+ * more expensive; otherwise requests run in the order they were received. Once
+ * {@link FhirConstants#OPENMRS_FHIR_ASYNC_QUEUE_CAPACITY} requests are waiting, further requests are
+ * refused with {@code 429 Too Many Requests}.
+ * <p/>
+ * Responses are written to files under the application data directory, readable only by the account
+ * the server runs as, and are kept for {@link FhirConstants#OPENMRS_FHIR_ASYNC_RETENTION} minutes
+ * after they complete, unless the client deletes them first. Only the user who made a request can
+ * see or delete its result. Asynchronous handling can be turned off with
+ * {@link FhirConstants#OPENMRS_FHIR_ASYNC_ENABLED}.
+ */
+@Slf4j
+@Component
+@Setter(AccessLevel.PACKAGE)
+public class AsyncRequestManager {
+	
+	/**
+	 * The path, relative to the server base, under which the status of asynchronous requests is found
+	 */
+	public static final String STATUS_PATH = "$async";
+	
+	private static final String PREFER_HEADER = "Prefer";
+	
+	private static final String RESPOND_ASYNC = "respond-async";
+	
+	private static final int DEFAULT_THREADS = 2;
+	
+	private static final int DEFAULT_QUEUE_CAPACITY = 50;
+	
+	private static final int DEFAULT_RETENTION_MINUTES = 60;
+	
+	private static final int RETRY_AFTER_SECONDS = 5;
+	
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+	
+	@Autowired
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	private final Map<String, AsyncRequest> requests = new ConcurrentHashMap<>();
+	
+	private final AtomicLong sequence = new AtomicLong();
+	
+	private final AtomicLong accepted = new AtomicLong();
+	
+	private final AtomicLong rejected = new AtomicLong();
+	
+	private final AtomicLong completed = new AtomicLong();
+	
+	private final AtomicLong failed = new AtomicLong();
+	
+	private final AtomicLong cancelled = new AtomicLong();
+	
+	private final AtomicLong totalQueueMillis = new AtomicLong();
+	
+	private final AtomicLong totalRunMillis = new AtomicLong();
+	
+	private volatile ThreadPoolExecutor executor;
+	
+	private ScheduledExecutorService cleaner;
+	
+	private File spillDirectory;
+	
+	/**
+	 * @param request the request received
+	 * @return true if the request asks to be handled asynchronously and can be
+	 */
+	public boolean isAsyncRequest(HttpServletRequest request) {
+		if (!"GET".equals(request.getMethod()) && !"POST".equals(request.getMethod())) {
+			return false;
+		}
+		
+		Enumeration<String> preferences = request.getHeaders(PREFER_HEADER);
+		if (preferences == null) {
+			return false;
+		}
+		
+		for (String preference : Collections.list(preferences)) {
+			for (String token : StringUtils.split(preference, ",;")) {
+				if (RESPOND_ASYNC.equalsIgnoreCase(token.trim())) {
+					return Boolean.parseBoolean(
+					    globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_ASYNC_ENABLED, "true"));
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @param requestPath the path of the request, relative to the server base
+	 * @return true if the request is for the status of an asynchronous request
+	 */
+	public boolean isStatusRequest(String requestPath) {
+		return StringUtils.removeStart(requestPath, "/").startsWith(STATUS_PATH + "/");
+	}
+	
+	/**
+	 * Queues a request to be handled asynchronously and answers the client with the location at which
+	 * the result can be collected, or refuses the request if the queue is full
+	 *
+	 * @param servlet the servlet the request should be replayed through
+	 * @param requestPath the path of the request, relative to the server base
+	 * @param request the request
+	 * @param response the response to the client
+	 * @param serverBase the base URL of the server the request was made to
+	 * @throws IOException if the request cannot be read or the response cannot be written
+	 */
+	public void submit(Servlet servlet, String requestPath, HttpServletRequest request, HttpServletResponse response,
+	        String serverBase) throws IOException {
+		expireRequests();
+		
+		User user = Context.getAuthenticatedUser();
+		if (user == null) {
+			response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Not authenticated");
+			return;
+		}
+		
+		HttpServletRequest detachedRequest = DetachedHttpServletRequest.copyOf(request,
+		    Collections.singleton(PREFER_HEADER));
+		int priority = StringUtils.contains(requestPath, '$') ? 1 : 0;
+		
+		String id = UUID.randomUUID().toString();
+		synchronized (this) {
+			ThreadPoolExecutor executor = getExecutor();
+			if (executor.getQueue().size() >= getQueueCapacity()) {
+				rejected.incrementAndGet();
+				log.warn("Refused asynchronous request {} as {} requests are already queued", detachedRequest,
+				    executor.getQueue().size());
+				
+				response.setIntHeader("Retry-After", RETRY_AFTER_SECONDS);
+				response.sendError(SC_TOO_MANY_REQUESTS, "Too many asynchronous requests are queued");
+				return;
+			}
+			
+			AsyncRequest asyncRequest = new AsyncRequest(id, sequence.incrementAndGet(), priority, servlet,
+			        detachedRequest, new WorkerUserContext(user, Context.getUserContext()), user.getUuid(),
+			        new File(getSpillDirectory(), id), this);
+			requests.put(id, asyncRequest);
+			executor.execute(asyncRequest);
+		}
+		
+		accepted.incrementAndGet();
+		response.setStatus(HttpServletResponse.SC_ACCEPTED);
+		response.setHeader("Content-Location",
+		    StringUtils.removeEnd(serverBase, "/") + "/" + STATUS_PATH + "/" + id);
+	}
+	
+	/**
+	 * Answers a request for the status or the result of an asynchronous request. {@code GET} returns
+	 * {@code 202 Accepted} while the request is queued or running and its response once it has
+	 * completed; {@code DELETE} cancels the request or discards its result.
+	 *
+	 * @param requestPath the path of the request, relative to the server base
+	 * @param request the request for the status
+	 * @param response the response to the client
+	 * @throws IOException if the response cannot be written
+	 */
+	public void handleStatusRequest(String requestPath, HttpServletRequest request, HttpServletResponse response)
+	        throws IOException {
+		expireRequests();
+		
+		String id = StringUtils.substringAfter(requestPath, STATUS_PATH + "/");
+		AsyncRequest asyncRequest = requests.get(id);
+		User user = Context.getAuthenticatedUser();
+		if (asyncRequest == null || user == null || !asyncRequest.getUserUuid().equals(user.getUuid())
+		        || asyncRequest.getState() == AsyncRequest.State.CANCELLED) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND, "No asynchronous request found with id " + id);
+			return;
+		}
+		
+		if ("DELETE".equals(request.getMethod())) {
+			AsyncRequest.State previous = discard(asyncRequest);
+			if (previous == AsyncRequest.State.QUEUED || previous == AsyncRequest.State.RUNNING) {
+				cancelled.incrementAndGet();
+			}
+			response.setStatus(HttpServletResponse.SC_ACCEPTED);
+			return;
+		} else if (!"GET".equals(request.getMethod())) {
+			response.setHeader("Allow", "GET, DELETE");
+			response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+			return;
+		}
+		
+		switch (asyncRequest.getState()) {
+			case QUEUED:
+				response.setStatus(HttpServletResponse.SC_ACCEPTED);
+				response.setHeader("X-Progress", "queued at position " + getQueuePosition(asyncRequest));
+				response.setIntHeader("Retry-After", RETRY_AFTER_SECONDS);
+				break;
+			case RUNNING:
+				response.setStatus(HttpServletResponse.SC_ACCEPTED);
+				response.setHeader("X-Progress", "in progress");
+				response.setIntHeader("Retry-After", RETRY_AFTER_SECONDS);
+				break;
+			case COMPLETED:
+				writeResult(asyncRequest, response);
+				break;
+			default:
+				response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "The asynchronous request failed");
+				break;
+		}
+	}
+	
+	/**
+	 * @return the numbers of queued and running requests, the capacity of the queue, the counts of
+	 *         accepted, refused, completed, failed and cancelled requests and the average times
+	 *         requests spent queued and running
+	 */
+	public Map<String, Number> getStatistics() {
+		ThreadPoolExecutor executor = this.executor;
+		long started = completed.get() + failed.get();
+		
+		Map<String, Number> result = new LinkedHashMap<>();
+		result.put("queued", executor == null ? 0 : executor.getQueue().size());
+		result.put("running", executor == null ? 0 : executor.getActiveCount());
+		result.put("queueCapacity", getQueueCapacity());
+		result.put("accepted", accepted.get());
+		result.put("rejected", rejected.get());
+		result.put("completed", completed.get());
+		result.put("failed", failed.get());
+		result.put("cancelled", cancelled.get());
+		result.put("averageQueueMillis", started == 0 ? 0 : totalQueueMillis.get() / started);
+		result.put("averageRunMillis", started == 0 ? 0 : totalRunMillis.get() / started);
+		return result;
+	}
+	
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		
+		if (cleaner != null) {
+			cleaner.shutdownNow();
+			cleaner = null;
+		}
+		
+		requests.values().forEach(this::discard);
+		
+		if (spillDirectory != null) {
+			try {
+				FileUtils.cleanDirectory(spillDirectory);
+			}
+			catch (IOException | IllegalArgumentException e) {
+				log.warn("Could not delete the responses of asynchronous requests in {}", spillDirectory, e);
+			}
+		}
+	}
+	
+	void execute(AsyncRequest asyncRequest) {
+		if (!asyncRequest.start()) {
+			return;
+		}
+		
+		totalQueueMillis.addAndGet(asyncRequest.getStarted() - asyncRequest.getSubmitted());
+		
+		SpilledHttpServletResponse response = new SpilledHttpServletResponse(asyncRequest.getFile());
+		try {
+			Context.openSession();
+			// the worker acts as the user who made the request, with that user's privileges and locale
+			Context.setUserContext(asyncRequest.getUserContext());
+			
+			try {
+				asyncRequest.getServlet().service(asyncRequest.getRequest(), response.asResponse());
+			}
+			finally {
+				response.close();
+			}
+			
+			if (asyncRequest.complete(response)) {
+				completed.incrementAndGet();
+			}
+		}
+		catch (Exception e) {
+			log.error("Asynchronous request {} failed", asyncRequest.getRequest(), e);
+			asyncRequest.fail();
+			failed.incrementAndGet();
+		}
+		finally {
+			Context.closeSession();
+			Context.clearUserContext();
+			totalRunMillis.addAndGet(asyncRequest.getFinished() - asyncRequest.getStarted());
+		}
+		
+		if (asyncRequest.getState() != AsyncRequest.State.COMPLETED) {
+			FileUtils.deleteQuietly(asyncRequest.getFile());
+		}
+	}
+	
+	private void writeResult(AsyncRequest asyncRequest, HttpServletResponse response) throws IOException {
+		response.setStatus(asyncRequest.getStatus());
+		for (Map.Entry<String, List<String>> header : asyncRequest.getHeaders().entrySet()) {
+			header.getValue().forEach(value -> response.addHeader(header.getKey(), value));
+		}
+		
+		if (asyncRequest.getContentType() != null) {
+			response.setContentType(asyncRequest.getContentType());
+		}
+		
+		response.setHeader("Content-Length", Long.toString(asyncRequest.getFile().length()));
+		try (InputStream body = new FileInputStream(asyncRequest.getFile())) {
+			IOUtils.copy(body, response.getOutputStream());
+		}
+	}
+	
+	private long getQueuePosition(AsyncRequest asyncRequest) {
+		return requests.values().stream().filter(other -> other.getState() == AsyncRequest.State.QUEUED)
+		        .filter(other -> other.compareTo(asyncRequest) < 0).count() + 1;
+	}
+	
+	private void expireRequests() {
+		expireRequests(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Discards the results of requests which finished longer than the retention time before the given
+	 * time
+	 *
+	 * @param now the current time in milliseconds
+	 */
+	void expireRequests(long now) {
+		long expiredBefore = now - TimeUnit.MINUTES.toMillis(
+		    getIntProperty(FhirConstants.OPENMRS_FHIR_ASYNC_RETENTION, DEFAULT_RETENTION_MINUTES));
+		
+		requests.values().stream()
+		        .filter(asyncRequest -> asyncRequest.isDone() && asyncRequest.getFinished() < expiredBefore)
+		        .forEach(this::discard);
+	}
+	
+	private AsyncRequest.State discard(AsyncRequest asyncRequest) {
+		requests.remove(asyncRequest.getId());
+		
+		ThreadPoolExecutor executor = this.executor;
+		if (executor != null) {
+			executor.remove(asyncRequest);
+		}
+		
+		// a running request is cancelled and deletes its own file once it finishes
+		AsyncRequest.State previous = asyncRequest.cancel();
+		if (previous != AsyncRequest.State.RUNNING) {
+			FileUtils.deleteQuietly(asyncRequest.getFile());
+		}
+		
+		return previous;
+	}
+	
+	private ThreadPoolExecutor getExecutor() {
+		if (executor == null) {
+			int threads = getIntProperty(FhirConstants.OPENMRS_FHIR_ASYNC_THREADS, DEFAULT_THREADS);
+			executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+			        new PriorityBlockingQueue<>(), new WorkerThreadFactory("fhir2-async-request-"));
+			
+			// results are otherwise only expired when another asynchronous request is made
+			cleaner = Executors.newSingleThreadScheduledExecutor(new WorkerThreadFactory("fhir2-async-cleaner-"));
+			cleaner.scheduleWithFixedDelay(this::expireRequestsInSession, 1, 1, TimeUnit.MINUTES);
+		}
+		
+		return executor;
+	}
+	
+	private void expireRequestsInSession() {
+		try {
+			Context.openSession();
+			expireRequests();
+		}
+		catch (Exception e) {
+			log.warn("Could not expire the results of asynchronous requests", e);
+		}
+		finally {
+			Context.closeSession();
+		}
+	}
+	
+	private File getSpillDirectory() throws IOException {
+		if (spillDirectory == null) {
+			File directory = OpenmrsUtil.getDirectoryInApplicationDataDirectory("fhir2" + File.separator + "async");
+			// anything left here was written before the last restart and can no longer be collected
+			FileUtils.cleanDirectory(directory);
+			// the responses hold patient data, so only the account the server runs as may read them
+			SpilledHttpServletResponse.restrictToOwner(directory);
+			spillDirectory = directory;
+		}
+		
+		return spillDirectory;
+	}
+	
+	private int getQueueCapacity() {
+		return getIntProperty(FhirConstants.OPENMRS_FHIR_ASYNC_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+	}
+	
+	private int getIntProperty(String property, int defaultValue) {
+		int value = NumberUtils.toInt(globalPropertyService.getGlobalProperty(property), defaultValue);
+		return value > 0 ? value : defaultValue;
+	}
+	
+	private static class WorkerThreadFactory implements ThreadFactory {
+		
+		private final String namePrefix;
+		
+		private final AtomicInteger threadNumber = new AtomicInteger();
+		
+		private WorkerThreadFactory(String namePrefix) {
+			this.namePrefix = namePrefix;
+		}
+		
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
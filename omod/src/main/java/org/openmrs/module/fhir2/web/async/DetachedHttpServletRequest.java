@@ -0,0 +1,275 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.web.async;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A copy of an {@link HttpServletRequest} which no longer depends on the container, so that it can
+ * be replayed through the servlet by a worker thread after the original request has completed. The
+ * method, path, parameters, headers and body of the original request are copied; the session, the
+ * user principal and the request attributes are not.
+ */
+final class DetachedHttpServletRequest implements InvocationHandler {
+	
+	private final String method;
+	
+	private final String requestUri;
+	
+	private final String requestUrl;
+	
+	private final String contextPath;
+	
+	private final String servletPath;
+	
+	private final String pathInfo;
+	
+	private final String queryString;
+	
+	private final String scheme;
+	
+	private final String serverName;
+	
+	private final int serverPort;
+	
+	private final String protocol;
+	
+	private final String remoteAddr;
+	
+	private final String contentType;
+	
+	private final String characterEncoding;
+	
+	private final Locale locale;
+	
+	private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	
+	private final Map<String, String[]> parameters;
+	
+	private final Map<String, Object> attributes = new HashMap<>();
+	
+	private final byte[] body;
+	
+	private final ServletContext servletContext;
+	
+	private DetachedHttpServletRequest(HttpServletRequest request, Collection<String> excludedHeaders)
+	        throws IOException {
+		method = request.getMethod();
+		requestUri = request.getRequestURI();
+		requestUrl = request.getRequestURL() == null ? null : request.getRequestURL().toString();
+		contextPath = request.getContextPath();
+		servletPath = request.getServletPath();
+		pathInfo = request.getPathInfo();
+		queryString = request.getQueryString();
+		scheme = request.getScheme();
+		serverName = request.getServerName();
+		serverPort = request.getServerPort();
+		protocol = request.getProtocol();
+		remoteAddr = request.getRemoteAddr();
+		contentType = request.getContentType();
+		characterEncoding = request.getCharacterEncoding();
+		locale = request.getLocale();
+		servletContext = request.getServletContext();
+		
+		if (request.getHeaderNames() != null) {
+			for (String name : Collections.list(request.getHeaderNames())) {
+				if (excludedHeaders.stream().noneMatch(name::equalsIgnoreCase)) {
+					headers.put(name, Collections.list(request.getHeaders(name)));
+				}
+			}
+		}
+		
+		// parameters are read before the body, as the container may need the body to parse them
+		parameters = new LinkedHashMap<>(request.getParameterMap());
+		body = request.getInputStream() == null ? new byte[0] : IOUtils.toByteArray(request.getInputStream());
+	}
+	
+	/**
+	 * Copies a request so that it can be handled once the original request has completed
+	 *
+	 * @param request the request to copy
+	 * @param excludedHeaders the names of headers which should not be copied
+	 * @return a copy of the request
+	 * @throws IOException if the body of the request cannot be read
+	 */
+	static HttpServletRequest copyOf(HttpServletRequest request, Collection<String> excludedHeaders) throws IOException {
+		return (HttpServletRequest) Proxy.newProxyInstance(DetachedHttpServletRequest.class.getClassLoader(),
+		    new Class<?>[] { HttpServletRequest.class }, new DetachedHttpServletRequest(request, excludedHeaders));
+	}
+	
+	@Override
+	public Object invoke(Object proxy, Method invokedMethod, Object[] args) throws IOException {
+		switch (invokedMethod.getName()) {
+			case "getMethod":
+				return method;
+			case "getRequestURI":
+				return requestUri;
+			case "getRequestURL":
+				return requestUrl == null ? null : new StringBuffer(requestUrl);
+			case "getContextPath":
+				return contextPath;
+			case "getServletPath":
+				return servletPath;
+			case "getPathInfo":
+				return pathInfo;
+			case "getQueryString":
+				return queryString;
+			case "getScheme":
+				return scheme;
+			case "getServerName":
+				return serverName;
+			case "getServerPort":
+				return serverPort;
+			case "getProtocol":
+				return protocol;
+			case "getRemoteAddr":
+			case "getRemoteHost":
+				return remoteAddr;
+			case "isSecure":
+				return "https".equalsIgnoreCase(scheme);
+			case "getContentType":
+				return contentType;
+			case "getCharacterEncoding":
+				return characterEncoding;
+			case "getContentLength":
+				return body.length;
+			case "getContentLengthLong":
+				return (long) body.length;
+			case "getLocale":
+				return locale;
+			case "getLocales":
+				return Collections.enumeration(Collections.singletonList(locale));
+			case "getHeader":
+				return getHeader((String) args[0]);
+			case "getHeaders":
+				return Collections.enumeration(headers.getOrDefault((String) args[0], Collections.emptyList()));
+			case "getHeaderNames":
+				return Collections.enumeration(new ArrayList<>(headers.keySet()));
+			case "getIntHeader":
+				String intHeader = getHeader((String) args[0]);
+				return intHeader == null ? -1 : Integer.parseInt(intHeader);
+			case "getDateHeader":
+				return -1L;
+			case "getParameter":
+				String[] parameterValues = parameters.get((String) args[0]);
+				return parameterValues == null || parameterValues.length == 0 ? null : parameterValues[0];
+			case "getParameterValues":
+				return parameters.get((String) args[0]);
+			case "getParameterMap":
+				return Collections.unmodifiableMap(parameters);
+			case "getParameterNames":
+				return Collections.enumeration(new ArrayList<>(parameters.keySet()));
+			case "getInputStream":
+				return new BodyInputStream(body);
+			case "getReader":
+				Charset charset = StringUtils.isBlank(characterEncoding) ? StandardCharsets.UTF_8
+				        : Charset.forName(characterEncoding);
+				return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), charset));
+			case "getAttribute":
+				return attributes.get((String) args[0]);
+			case "getAttributeNames":
+				return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+			case "setAttribute":
+				attributes.put((String) args[0], args[1]);
+				return null;
+			case "removeAttribute":
+				attributes.remove((String) args[0]);
+				return null;
+			case "getServletContext":
+				return servletContext;
+			case "getDispatcherType":
+				return DispatcherType.REQUEST;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return method + " " + requestUri + (queryString == null ? "" : "?" + queryString);
+			default:
+				return defaultValue(invokedMethod.getReturnType());
+		}
+	}
+	
+	private String getHeader(String name) {
+		List<String> values = headers.get(name);
+		return values == null || values.isEmpty() ? null : values.get(0);
+	}
+	
+	static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return false;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		}
+		
+		return null;
+	}
+	
+	private static class BodyInputStream extends ServletInputStream {
+		
+		private final ByteArrayInputStream delegate;
+		
+		private BodyInputStream(byte[] body) {
+			delegate = new ByteArrayInputStream(body);
+		}
+		
+		@Override
+		public int read() {
+			return delegate.read();
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) {
+			return delegate.read(b, off, len);
+		}
+		
+		@Override
+		public boolean isFinished() {
+			return delegate.available() == 0;
+		}
+		
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+		
+		@Override
+		public void setReadListener(ReadListener readListener) {
+		}
+	}
+}
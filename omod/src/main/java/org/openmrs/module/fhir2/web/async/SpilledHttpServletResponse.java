@@ -0,0 +1,261 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.web.async;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * An {@link HttpServletResponse} which writes its body to a file rather than to a client, so that
+ * the response to an asynchronous request can be kept until the client asks for it. The file is
+ * created readable only by the account the server runs as. The status and headers are kept in
+ * memory.
+ */
+final class SpilledHttpServletResponse implements InvocationHandler {
+	
+	private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+	
+	private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+	
+	private final File file;
+	
+	@Getter
+	private int status = HttpServletResponse.SC_OK;
+	
+	@Getter
+	private String contentType;
+	
+	@Getter
+	private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	
+	private String characterEncoding;
+	
+	private SpillOutputStream outputStream;
+	
+	private PrintWriter writer;
+	
+	SpilledHttpServletResponse(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * @return an {@link HttpServletResponse} backed by this object
+	 */
+	HttpServletResponse asResponse() {
+		return (HttpServletResponse) Proxy.newProxyInstance(SpilledHttpServletResponse.class.getClassLoader(),
+		    new Class<?>[] { HttpServletResponse.class }, this);
+	}
+	
+	/**
+	 * Flushes and closes the file holding the body of the response, creating it if nothing was written
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	void close() throws IOException {
+		if (writer != null) {
+			writer.close();
+		} else {
+			getOutputStream().close();
+		}
+	}
+	
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+		switch (method.getName()) {
+			case "setStatus":
+				status = (Integer) args[0];
+				return null;
+			case "getStatus":
+				return status;
+			case "sendError":
+				status = (Integer) args[0];
+				contentType = "text/plain";
+				if (args.length > 1 && args[1] != null) {
+					getWriter().write((String) args[1]);
+				}
+				return null;
+			case "sendRedirect":
+				status = HttpServletResponse.SC_FOUND;
+				setHeader("Location", (String) args[0], true);
+				return null;
+			case "setHeader":
+			case "setIntHeader":
+			case "setDateHeader":
+				setHeader((String) args[0], String.valueOf(args[1]), true);
+				return null;
+			case "addHeader":
+			case "addIntHeader":
+			case "addDateHeader":
+				setHeader((String) args[0], String.valueOf(args[1]), false);
+				return null;
+			case "containsHeader":
+				return headers.containsKey((String) args[0]);
+			case "getHeader":
+				List<String> values = headers.get((String) args[0]);
+				return values == null || values.isEmpty() ? null : values.get(0);
+			case "getHeaders":
+				return new ArrayList<>(headers.getOrDefault((String) args[0], Collections.emptyList()));
+			case "getHeaderNames":
+				return new ArrayList<>(headers.keySet());
+			case "setContentType":
+				contentType = (String) args[0];
+				return null;
+			case "getContentType":
+				return contentType;
+			case "setCharacterEncoding":
+				characterEncoding = (String) args[0];
+				return null;
+			case "getCharacterEncoding":
+				return StringUtils.defaultIfBlank(characterEncoding, StandardCharsets.UTF_8.name());
+			case "getOutputStream":
+				return getOutputStream();
+			case "getWriter":
+				return getWriter();
+			case "flushBuffer":
+				if (writer != null) {
+					writer.flush();
+				} else if (outputStream != null) {
+					outputStream.flush();
+				}
+				return null;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "Response spilled to " + file;
+			default:
+				return DetachedHttpServletRequest.defaultValue(method.getReturnType());
+		}
+	}
+	
+	private void setHeader(String name, String value, boolean replace) {
+		if ("Content-Type".equalsIgnoreCase(name)) {
+			contentType = value;
+			return;
+		}
+		
+		List<String> values = headers.computeIfAbsent(name, k -> new ArrayList<>());
+		if (replace) {
+			values.clear();
+		}
+		values.add(value);
+	}
+	
+	private SpillOutputStream getOutputStream() throws IOException {
+		if (outputStream == null) {
+			Path path = file.toPath();
+			if (isPosix(path)) {
+				Files.createFile(path, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE));
+			} else {
+				Files.createFile(path);
+				restrictToOwner(file);
+			}
+			
+			outputStream = new SpillOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+		}
+		
+		return outputStream;
+	}
+	
+	/**
+	 * Makes a file or directory readable and writable only by the account the server runs as
+	 *
+	 * @param file the file or directory
+	 * @throws IOException if the permissions cannot be changed
+	 */
+	static void restrictToOwner(File file) throws IOException {
+		Path path = file.toPath();
+		if (isPosix(path)) {
+			Files.setPosixFilePermissions(path, file.isDirectory() ? OWNER_ONLY_DIRECTORY : OWNER_ONLY_FILE);
+		} else if (!(file.setReadable(false, false) && file.setReadable(true, true) && file.setWritable(false, false)
+		        && file.setWritable(true, true))) {
+			throw new IOException("Could not restrict access to " + file);
+		}
+	}
+	
+	private static boolean isPosix(Path path) {
+		return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+	}
+	
+	private PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			Charset charset = StringUtils.isBlank(characterEncoding) ? StandardCharsets.UTF_8
+			        : Charset.forName(characterEncoding);
+			writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+		}
+		
+		return writer;
+	}
+	
+	private static class SpillOutputStream extends ServletOutputStream {
+		
+		private final OutputStream delegate;
+		
+		private SpillOutputStream(OutputStream delegate) {
+			this.delegate = delegate;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			delegate.write(b);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			delegate.write(b, off, len);
+		}
+		
+		@Override
+		public void flush() throws IOException {
+			delegate.flush();
+		}
+		
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+		
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+		
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.web.interceptor;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Optional;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.ResponseDetails;
+import ca.uhn.fhir.rest.server.RestfulServerUtils;
+import lombok.AccessLevel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.openmrs.module.fhir2.api.search.StreamingSearchContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streams large R4 search pages directly to the servlet output stream.
+ * <p/>
+ * Ordinarily HAPI asks the bundle provider for the whole page, builds a {@link Bundle} containing
+ * every translated resource and only then encodes it, so peak memory grows with the page size.
+ * For plain JSON searches whose {@code _count} is at least
+ * {@link FhirConstants#OPENMRS_FHIR_STREAMING_PAGE_SIZE}, this interceptor instead lets HAPI build
+ * an empty envelope, writes that envelope and then loads, translates, encodes and flushes the
+ * entries a batch at a time using the cursor registered in {@link StreamingSearchContext}.
+ * <p/>
+ * Requests using {@code _include}, {@code _revinclude}, {@code _summary}, {@code _elements} or
+ * {@code _pretty} are never streamed, since these need the whole page to be available. Neither are
+ * later pages of searches using {@code _include} or {@code _revinclude}, nor searches whose results
+ * were truncated, since {@link org.openmrs.module.fhir2.api.search.SearchQueryBundleProvider} only
+ * adds included resources and the truncation warning to pages it builds in full.
+ */
+@Slf4j
+@Component
+@Interceptor
+@Setter(AccessLevel.PACKAGE)
+public class StreamingBundleInterceptor {
+	
+	private static final int DEFAULT_BATCH_SIZE = 50;
+	
+	@Autowired
+	@Setter(AccessLevel.PUBLIC)
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	@Hook(Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED)
+	public void incomingRequestPreHandled(RequestDetails requestDetails, RestOperationTypeEnum operation) {
+		StreamingSearchContext.cancel();
+		
+		if (shouldStream(requestDetails, operation)) {
+			StreamingSearchContext.request(globalPropertyService
+			        .getGlobalProperty(FhirConstants.OPENMRS_FHIR_STREAMING_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+		}
+	}
+	
+	@Hook(Pointcut.SERVER_OUTGOING_RESPONSE)
+	public boolean outgoingResponse(RequestDetails requestDetails, ResponseDetails responseDetails,
+	        HttpServletResponse servletResponse) throws IOException {
+		Optional<StreamingSearchContext.SearchResultCursor> cursor = StreamingSearchContext.getCursor();
+		if (!cursor.isPresent() || !(responseDetails.getResponseResource() instanceof Bundle)) {
+			return true;
+		}
+		
+		try {
+			writeBundle(requestDetails, (Bundle) responseDetails.getResponseResource(), cursor.get(), servletResponse);
+		}
+		finally {
+			StreamingSearchContext.cancel();
+		}
+		
+		return false;
+	}
+	
+	@Hook(Pointcut.SERVER_PROCESSING_COMPLETED)
+	public void processingCompleted() {
+		StreamingSearchContext.cancel();
+	}
+	
+	protected boolean shouldStream(RequestDetails requestDetails, RestOperationTypeEnum operation) {
+		if (operation != RestOperationTypeEnum.SEARCH_TYPE && operation != RestOperationTypeEnum.GET_PAGE) {
+			return false;
+		}
+		
+		// R3 results are converted from R4 resources after they are loaded, so they cannot be streamed
+		if (requestDetails.getFhirContext().getVersion().getVersion() != FhirVersionEnum.R4) {
+			return false;
+		}
+		
+		int threshold = globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_STREAMING_PAGE_SIZE, -1);
+		if (threshold <= 0) {
+			return false;
+		}
+		
+		String[] count = requestDetails.getParameters().get(Constants.PARAM_COUNT);
+		if (count == null || count.length == 0 || NumberUtils.toInt(count[0], 0) < threshold) {
+			return false;
+		}
+		
+		for (String parameter : new String[] { Constants.PARAM_INCLUDE, Constants.PARAM_REVINCLUDE,
+		        Constants.PARAM_SUMMARY, Constants.PARAM_ELEMENTS }) {
+			if (requestDetails.getParameters().containsKey(parameter)) {
+				return false;
+			}
+		}
+		
+		return RestfulServerUtils.determineResponseEncodingWithDefault(requestDetails).getEncoding() == EncodingEnum.JSON
+		        && !RestfulServerUtils.prettyPrintResponse(requestDetails.getServer(), requestDetails);
+	}
+	
+	protected void writeBundle(RequestDetails requestDetails, Bundle envelope,
+	        StreamingSearchContext.SearchResultCursor cursor, HttpServletResponse servletResponse) throws IOException {
+		FhirContext fhirContext = requestDetails.getFhirContext();
+		IParser parser = RestfulServerUtils.getNewParser(fhirContext, fhirContext.getVersion().getVersion(),
+		    requestDetails);
+		String serverBase = requestDetails.getFhirServerBase();
+		int batchSize = StreamingSearchContext.getBatchSize();
+		
+		// the envelope has no entries, so everything up to its closing brace can be written as-is
+		String encodedEnvelope = parser.encodeResourceToString(envelope);
+		
+		servletResponse.setStatus(HttpServletResponse.SC_OK);
+		servletResponse.setContentType(Constants.CT_FHIR_JSON_NEW);
+		servletResponse.setCharacterEncoding(Constants.CHARSET_NAME_UTF8);
+		
+		Writer writer = servletResponse.getWriter();
+		writer.write(encodedEnvelope, 0, encodedEnvelope.lastIndexOf('}'));
+		writer.write(",\"entry\":[");
+		
+		int[] written = { 0 };
+		try {
+			cursor.forEachResource(batchSize, resource -> {
+				try {
+					if (written[0] > 0) {
+						writer.write(',');
+					}
+					
+					writeEntry(writer, parser, fullUrl(fhirContext, serverBase, resource), resource);
+					
+					if (++written[0] % batchSize == 0) {
+						writer.flush();
+					}
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		catch (RuntimeException e) {
+			// the status line has already been sent, so the best we can do is log and truncate the response
+			log.error("Error while streaming search results after {} entries", written[0], e);
+			throw e;
+		}
+		
+		writer.write("]}");
+		writer.flush();
+	}
+	
+	private void writeEntry(Writer writer, IParser parser, String fullUrl, IBaseResource resource) throws IOException {
+		writer.write("{\"fullUrl\":\"");
+		writer.write(fullUrl.replace("\\", "\\\\").replace("\"", "\\\""));
+		writer.write("\",\"resource\":");
+		parser.encodeResourceToWriter(resource, writer);
+		writer.write(",\"search\":{\"mode\":\"match\"}}");
+	}
+	
+	private String fullUrl(FhirContext fhirContext, String serverBase, IBaseResource resource) {
+		return resource.getIdElement().withServerBase(serverBase, fhirContext.getResourceType(resource)).toVersionless()
+		        .getValue();
+	}
+}
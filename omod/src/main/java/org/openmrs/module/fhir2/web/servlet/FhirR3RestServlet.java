@@ -9,17 +9,67 @@
  */
 package org.openmrs.module.fhir2.web.servlet;
 
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
 import java.util.Collection;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.rest.server.IResourceProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+/**
+ * Serves the R3 API. As it is far less used than the R4 API, the R3 {@link FhirContext} and this
+ * servlet's resource bindings are only built once the first R3 request arrives rather than when the
+ * module starts.
+ */
+@Lazy
 @Component
 public class FhirR3RestServlet extends FhirRestServlet {
 	
+	private static final long serialVersionUID = 1L;
+	
+	private transient ServletConfig deferredConfig;
+	
+	private volatile boolean initialized;
+	
+	@Override
+	public void init(ServletConfig config) {
+		this.deferredConfig = config;
+	}
+	
+	@Override
+	public ServletConfig getServletConfig() {
+		return initialized ? super.getServletConfig() : deferredConfig;
+	}
+	
+	@Override
+	protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		if (!initialized) {
+			synchronized (this) {
+				if (!initialized) {
+					super.init(deferredConfig);
+					initialized = true;
+				}
+			}
+		}
+		
+		super.service(request, response);
+	}
+	
+	@Override
+	public void destroy() {
+		if (initialized) {
+			super.destroy();
+		}
+	}
+	
 	@Override
 	protected String getRequestPath(String requestFullPath, String servletContextPath, String servletPath) {
 		return requestFullPath.substring(
@@ -39,4 +89,11 @@ public class FhirR3RestServlet extends FhirRestServlet {
 	public void setResourceProviders(Collection<IResourceProvider> theProviders) {
 		super.setResourceProviders(theProviders);
 	}
+	
+	@Override
+	@Autowired(required = false)
+	@Qualifier("fhirR3Operations")
+	public void setOperationProviders(Collection<Object> operationProviders) {
+		super.setOperationProviders(operationProviders);
+	}
 }
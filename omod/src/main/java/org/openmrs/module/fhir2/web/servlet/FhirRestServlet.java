@@ -9,6 +9,11 @@
  */
 package org.openmrs.module.fhir2.web.servlet;
 
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
 import java.util.Collection;
 
 import ca.uhn.fhir.context.FhirContext;
@@ -24,6 +29,8 @@ import org.apache.commons.lang3.math.NumberUtils;
 import org.openmrs.module.fhir2.FhirConstants;
 import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.narrative.OpenMRSThymeleafNarrativeGenerator;
+import org.openmrs.module.fhir2.web.async.AsyncRequestManager;
+import org.openmrs.module.fhir2.web.interceptor.StreamingBundleInterceptor;
 import org.openmrs.module.fhir2.web.util.NarrativeUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -44,8 +51,16 @@ public class FhirRestServlet extends RestfulServer {
 	@Qualifier("hapiLoggingInterceptor")
 	private LoggingInterceptor loggingInterceptor;
 	
+	@Autowired
+	private StreamingBundleInterceptor streamingBundleInterceptor;
+	
+	@Autowired(required = false)
+	private AsyncRequestManager asyncRequestManager;
+	
 	private MessageSource messageSource;
 	
+	private Collection<Object> operationProviders;
+	
 	@Override
 	protected void initialize() {
 		// ensure properties for this class are properly injected
@@ -65,6 +80,10 @@ public class FhirRestServlet extends RestfulServer {
 		setPagingProvider(pp);
 		setDefaultResponseEncoding(EncodingEnum.JSON);
 		registerInterceptor(loggingInterceptor);
+		registerInterceptor(streamingBundleInterceptor);
+		if (operationProviders != null) {
+			registerProviders(operationProviders);
+		}
 		
 		String narrativesOverridePropertyFile = NarrativeUtils.getValidatedPropertiesFilePath(
 		    globalPropertyService.getGlobalProperty(FhirConstants.NARRATIVES_OVERRIDE_PROPERTY_FILE, ""));
@@ -82,6 +101,25 @@ public class FhirRestServlet extends RestfulServer {
 		        .setNarrativeGenerator(new OpenMRSThymeleafNarrativeGenerator(messageSource, narrativePropertiesFiles));
 	}
 	
+	@Override
+	protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		if (asyncRequestManager != null) {
+			String requestPath = getRequestPath(request.getRequestURI(), request.getContextPath(),
+			    request.getServletPath());
+			
+			if (asyncRequestManager.isStatusRequest(requestPath)) {
+				asyncRequestManager.handleStatusRequest(requestPath, request, response);
+				return;
+			} else if (asyncRequestManager.isAsyncRequest(request)) {
+				asyncRequestManager.submit(this, requestPath, request, response,
+				    getServerAddressStrategy().determineServerBase(getServletContext(), request));
+				return;
+			}
+		}
+		
+		super.service(request, response);
+	}
+	
 	@Override
 	protected String createPoweredByHeaderComponentName() {
 		return FhirConstants.OPENMRS_FHIR_SERVER_NAME;
@@ -107,6 +145,15 @@ public class FhirRestServlet extends RestfulServer {
 		super.setResourceProviders(theProviders);
 	}
 	
+	/**
+	 * Sets the providers for server-level operations, which do not belong to any resource type
+	 */
+	@Autowired(required = false)
+	@Qualifier("fhirOperations")
+	public void setOperationProviders(Collection<Object> operationProviders) {
+		this.operationProviders = operationProviders;
+	}
+	
 	@Override
 	@Autowired
 	public void setServerAddressStrategy(IServerAddressStrategy theServerAddressStrategy) {
@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.parser.IParser;
@@ -36,7 +38,9 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.junit.Before;
 import org.openmrs.api.APIException;
 import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
 import org.openmrs.module.fhir2.api.impl.FhirGlobalPropertyServiceImpl;
+import org.openmrs.module.fhir2.web.interceptor.StreamingBundleInterceptor;
 import org.openmrs.module.fhir2.web.servlet.FhirRestServlet;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.http.HttpStatus;
@@ -57,6 +61,8 @@ public abstract class BaseFhirResourceProviderWebTest<T extends IResourceProvide
 	
 	private FhirRestServlet servlet;
 	
+	private final Map<String, String> globalProperties = new HashMap<>();
+	
 	// This must be implemented by subclasses
 	public abstract T getResourceProvider();
 	
@@ -88,7 +94,7 @@ public abstract class BaseFhirResourceProviderWebTest<T extends IResourceProvide
 		servlet = getRestfulServer();
 		servlet.setFhirContext(getFhirContext());
 		servlet.setLoggingInterceptor(interceptor);
-		servlet.setGlobalPropertyService(new FhirGlobalPropertyServiceImpl() {
+		FhirGlobalPropertyService globalPropertyService = new FhirGlobalPropertyServiceImpl() {
 			
 			@Override
 			@Transactional(readOnly = true)
@@ -99,9 +105,14 @@ public abstract class BaseFhirResourceProviderWebTest<T extends IResourceProvide
 					case FhirConstants.OPENMRS_FHIR_MAXIMUM_PAGE_SIZE:
 						return "100";
 				}
-				return null;
+				return globalProperties.get(property);
 			}
-		});
+		};
+		servlet.setGlobalPropertyService(globalPropertyService);
+		
+		StreamingBundleInterceptor streamingBundleInterceptor = new StreamingBundleInterceptor();
+		streamingBundleInterceptor.setGlobalPropertyService(globalPropertyService);
+		servlet.setStreamingBundleInterceptor(streamingBundleInterceptor);
 		
 		servlet.setResourceProviders(getResourceProvider());
 		ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
@@ -110,6 +121,13 @@ public abstract class BaseFhirResourceProviderWebTest<T extends IResourceProvide
 		servlet.init(servletConfig);
 	}
 	
+	/**
+	 * Sets a global property seen by the servlet and its interceptors for the rest of the test
+	 */
+	public void setGlobalProperty(String property, String value) {
+		globalProperties.put(property, value);
+	}
+	
 	public Matcher<MockHttpServletResponse> isOk() {
 		return new IsOkMatcher();
 	}
@@ -0,0 +1,191 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.providers.r4;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.ServletException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import ca.uhn.fhir.model.api.Include;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openmrs.Obs;
+import org.openmrs.api.APIException;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirObservationService;
+import org.openmrs.module.fhir2.api.dao.FhirObservationDao;
+import org.openmrs.module.fhir2.api.impl.FhirGlobalPropertyServiceImpl;
+import org.openmrs.module.fhir2.api.search.SearchQueryBundleProvider;
+import org.openmrs.module.fhir2.api.search.SearchQueryInclude;
+import org.openmrs.module.fhir2.api.search.StreamingSearchContext;
+import org.openmrs.module.fhir2.api.search.param.SearchParameterMap;
+import org.openmrs.module.fhir2.api.translators.ObservationTranslator;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Checks that streamed search pages contain exactly what the same pages contain when HAPI builds
+ * them in full
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StreamingBundleInterceptorWebTest extends BaseFhirR4ResourceProviderWebTest<ObservationFhirResourceProvider, Observation> {
+	
+	private static final String PATIENT_UUID = "d9bc6c12-6adc-4ca6-8bde-441ec1a1c344";
+	
+	private static final int OBSERVATION_COUNT = 25;
+	
+	@Getter(AccessLevel.PUBLIC)
+	private ObservationFhirResourceProvider resourceProvider;
+	
+	@Mock
+	private FhirObservationService observationService;
+	
+	@Mock
+	private FhirObservationDao observationDao;
+	
+	@Mock
+	private ObservationTranslator translator;
+	
+	@Mock
+	private SearchQueryInclude<Observation> searchQueryInclude;
+	
+	private final List<Obs> observations = new ArrayList<>();
+	
+	@Before
+	@Override
+	public void setup() throws ServletException {
+		resourceProvider = new ObservationFhirResourceProvider();
+		resourceProvider.setObservationService(observationService);
+		super.setup();
+		
+		for (int i = 0; i < OBSERVATION_COUNT; i++) {
+			observations.add(new Obs());
+		}
+		
+		List<String> uuids = observations.stream().map(Obs::getUuid).collect(Collectors.toList());
+		when(observationDao.getSearchResultUuids(any())).thenReturn(uuids);
+		when(observationDao.getSearchResults(any(), any(), anyInt(), anyInt())).thenAnswer(
+		    invocation -> new ArrayList<>(observations.subList(invocation.getArgument(2), invocation.getArgument(3))));
+		when(translator.toFhirResource(any())).thenAnswer(invocation -> {
+			Observation observation = new Observation();
+			observation.setId(invocation.<Obs> getArgument(0).getUuid());
+			return observation;
+		});
+		
+		when(observationService.searchForObservations(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(),
+		    any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+			    HashSet<Include> includes = invocation.getArgument(13);
+			    SearchParameterMap theParams = new SearchParameterMap()
+			            .addParameter(FhirConstants.INCLUDE_SEARCH_HANDLER, includes);
+			    return new SearchQueryBundleProvider<>(theParams, observationDao, translator,
+			            new FhirGlobalPropertyServiceImpl() {
+				            
+				            @Override
+				            public String getGlobalProperty(String property) throws APIException {
+					            return null;
+				            }
+			            }, searchQueryInclude);
+		    });
+	}
+	
+	@After
+	public void tearDown() {
+		StreamingSearchContext.cancel();
+	}
+	
+	@Test
+	public void shouldStreamTheSameEntriesAsTheFullPage() throws Exception {
+		Bundle fullPage = search("/Observation?_count=20");
+		
+		enableStreaming();
+		Bundle streamedPage = search("/Observation?_count=20");
+		
+		assertThat(fullPage.getEntry(), hasSize(20));
+		assertThat(getEntries(streamedPage), equalTo(getEntries(fullPage)));
+		assertThat(streamedPage.getTotal(), equalTo(fullPage.getTotal()));
+		assertThat(getLinkRelations(streamedPage), equalTo(getLinkRelations(fullPage)));
+	}
+	
+	@Test
+	public void shouldStreamTheSameEntriesAsTheFullPageForLaterPages() throws Exception {
+		Bundle fullPage = search(getNextPage(search("/Observation?_count=20")));
+		
+		enableStreaming();
+		Bundle streamedPage = search(getNextPage(search("/Observation?_count=20")));
+		
+		assertThat(fullPage.getEntry(), hasSize(OBSERVATION_COUNT - 20));
+		assertThat(getEntries(streamedPage), equalTo(getEntries(fullPage)));
+	}
+	
+	@Test
+	public void shouldKeepIncludedResourcesOnLaterPagesWhenStreamingIsEnabled() throws Exception {
+		Patient patient = new Patient();
+		patient.setId(PATIENT_UUID);
+		when(searchQueryInclude.getIncludedResources(any(), any())).thenReturn(Collections.singleton(patient));
+		
+		Bundle fullPage = search(getNextPage(search("/Observation?_include=Observation:patient&_count=20")));
+		
+		enableStreaming();
+		Bundle streamedPage = search(getNextPage(search("/Observation?_include=Observation:patient&_count=20")));
+		
+		assertThat(fullPage.getEntry().stream().anyMatch(entry -> entry.getFullUrl().endsWith("/Patient/" + PATIENT_UUID)),
+		    is(true));
+		assertThat(getEntries(streamedPage), equalTo(getEntries(fullPage)));
+	}
+	
+	private void enableStreaming() {
+		setGlobalProperty(FhirConstants.OPENMRS_FHIR_STREAMING_PAGE_SIZE, "10");
+		setGlobalProperty(FhirConstants.OPENMRS_FHIR_STREAMING_BATCH_SIZE, "7");
+	}
+	
+	private Bundle search(String uri) throws Exception {
+		MockHttpServletResponse response = get(uri).accept(FhirMediaTypes.JSON).go();
+		
+		assertThat(response, isOk());
+		return readBundleResponse(response);
+	}
+	
+	private static String getNextPage(Bundle bundle) {
+		Bundle.BundleLinkComponent next = bundle.getLink(Bundle.LINK_NEXT);
+		assertThat(next, notNullValue());
+		return next.getUrl().substring(next.getUrl().indexOf('?'));
+	}
+	
+	private static List<String> getEntries(Bundle bundle) {
+		return bundle.getEntry().stream()
+		        .map(entry -> entry.getFullUrl() + " " + entry.getSearch().getMode().toCode())
+		        .collect(Collectors.toList());
+	}
+	
+	private static List<String> getLinkRelations(Bundle bundle) {
+		return bundle.getLink().stream().map(Bundle.BundleLinkComponent::getRelation).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,313 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.fhir2.web.async;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.UserContext;
+import org.openmrs.module.fhir2.FhirConstants;
+import org.openmrs.module.fhir2.api.FhirGlobalPropertyService;
+import org.powermock.core.classloader.annotations.PrepareOnlyThisForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+@RunWith(PowerMockRunner.class)
+@PrepareOnlyThisForTest({ Context.class })
+public class AsyncRequestManagerTest {
+	
+	private static final String SERVER_BASE = "http://localhost/openmrs/ws/fhir2/R4";
+	
+	private static final String BUNDLE = "{\"resourceType\":\"Bundle\"}";
+	
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	
+	@Mock
+	private FhirGlobalPropertyService globalPropertyService;
+	
+	@Mock
+	private Servlet servlet;
+	
+	@Mock
+	private UserContext userContext;
+	
+	private AsyncRequestManager asyncRequestManager;
+	
+	private MockHttpServletRequest request;
+	
+	private User user;
+	
+	private File spillDirectory;
+	
+	@Before
+	public void setup() throws IOException {
+		asyncRequestManager = new AsyncRequestManager();
+		asyncRequestManager.setGlobalPropertyService(globalPropertyService);
+		spillDirectory = temporaryFolder.newFolder();
+		asyncRequestManager.setSpillDirectory(spillDirectory);
+		
+		user = new User();
+		mockStatic(Context.class);
+		when(Context.getAuthenticatedUser()).thenAnswer(invocation -> user);
+		when(Context.getUserContext()).thenReturn(userContext);
+		
+		request = new MockHttpServletRequest("GET", "/openmrs/ms/fhir2Servlet/Observation");
+		request.setContextPath("/openmrs");
+		request.setServletPath("/ms");
+		request.setQueryString("code=5085AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA");
+		request.setParameter("code", "5085AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA");
+	}
+	
+	@After
+	public void shutdown() {
+		asyncRequestManager.shutdown();
+	}
+	
+	@Test
+	public void isAsyncRequest_shouldReturnTrueWhenRespondAsyncIsPreferred() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_ASYNC_ENABLED, "true"))
+		        .thenReturn("true");
+		request.addHeader("Prefer", "handling=lenient, respond-async");
+		
+		assertThat(asyncRequestManager.isAsyncRequest(request), is(true));
+	}
+	
+	@Test
+	public void isAsyncRequest_shouldReturnFalseWhenAsyncRequestsAreDisabled() {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_ASYNC_ENABLED, "true"))
+		        .thenReturn("false");
+		request.addHeader("Prefer", "respond-async");
+		
+		assertThat(asyncRequestManager.isAsyncRequest(request), is(false));
+	}
+	
+	@Test
+	public void isAsyncRequest_shouldReturnFalseWithoutPreferHeader() {
+		assertThat(asyncRequestManager.isAsyncRequest(request), is(false));
+	}
+	
+	@Test
+	public void isAsyncRequest_shouldReturnFalseForWrites() {
+		request.setMethod("PUT");
+		request.addHeader("Prefer", "respond-async");
+		
+		assertThat(asyncRequestManager.isAsyncRequest(request), is(false));
+	}
+	
+	@Test
+	public void isStatusRequest_shouldOnlyMatchStatusPaths() {
+		assertThat(asyncRequestManager.isStatusRequest("/$async/1234"), is(true));
+		assertThat(asyncRequestManager.isStatusRequest("/Patient/$everything"), is(false));
+	}
+	
+	@Test
+	public void copyOf_shouldKeepRequestWithoutExcludedHeaders() throws IOException {
+		request.addHeader("Prefer", "respond-async");
+		request.addHeader("Accept", "application/fhir+json");
+		request.setContent("{}".getBytes());
+		
+		HttpServletRequest copy = DetachedHttpServletRequest.copyOf(request, Collections.singleton("Prefer"));
+		
+		assertThat(copy.getMethod(), equalTo("GET"));
+		assertThat(copy.getRequestURI(), equalTo("/openmrs/ms/fhir2Servlet/Observation"));
+		assertThat(copy.getServletPath(), equalTo("/ms"));
+		assertThat(copy.getParameter("code"), equalTo("5085AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"));
+		assertThat(copy.getHeader("accept"), equalTo("application/fhir+json"));
+		assertThat(copy.getHeader("Prefer"), nullValue());
+		assertThat(IOUtils.toString(copy.getInputStream(), "UTF-8"), equalTo("{}"));
+	}
+	
+	@Test
+	public void submit_shouldRunTheRequestAndReturnItsResponseOnceComplete() throws Exception {
+		respondWith(BUNDLE);
+		
+		MockHttpServletResponse accepted = submit();
+		
+		assertThat(accepted.getStatus(), equalTo(HttpServletResponse.SC_ACCEPTED));
+		assertThat(accepted.getHeader("Content-Location"), startsWith(SERVER_BASE + "/$async/"));
+		
+		MockHttpServletResponse result = awaitResult(getStatusPath(accepted));
+		
+		assertThat(result.getStatus(), equalTo(HttpServletResponse.SC_OK));
+		assertThat(result.getContentType(), equalTo("application/fhir+json"));
+		assertThat(result.getContentAsString(), equalTo(BUNDLE));
+	}
+	
+	@Test
+	public void submit_shouldRunTheRequestWithAFreshUserContext() throws Exception {
+		respondWith(BUNDLE);
+		
+		awaitResult(getStatusPath(submit()));
+		
+		ArgumentCaptor<UserContext> workerContext = ArgumentCaptor.forClass(UserContext.class);
+		verifyStatic(Context.class);
+		Context.setUserContext(workerContext.capture());
+		
+		assertThat(workerContext.getValue(), not(sameInstance(userContext)));
+		assertThat(workerContext.getValue().getAuthenticatedUser(), sameInstance(user));
+	}
+	
+	@Test
+	public void submit_shouldRefuseRequestsOnceTheQueueIsFull() throws Exception {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_ASYNC_THREADS)).thenReturn("1");
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_ASYNC_QUEUE_CAPACITY)).thenReturn("1");
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> release.await(10, TimeUnit.SECONDS)).when(servlet).service(any(), any());
+		
+		try {
+			assertThat(submit().getStatus(), equalTo(HttpServletResponse.SC_ACCEPTED));
+			assertThat(submit().getStatus(), equalTo(HttpServletResponse.SC_ACCEPTED));
+			
+			MockHttpServletResponse refused = submit();
+			
+			assertThat(refused.getStatus(), equalTo(429));
+			assertThat(refused.getHeader("Retry-After"), notNullValue());
+			assertThat(asyncRequestManager.getStatistics().get("rejected"), equalTo((Number) 1L));
+		}
+		finally {
+			release.countDown();
+		}
+	}
+	
+	@Test
+	public void handleStatusRequest_shouldNotReturnTheResultToAnotherUser() throws Exception {
+		respondWith(BUNDLE);
+		String statusPath = getStatusPath(submit());
+		assertThat(awaitResult(statusPath).getStatus(), equalTo(HttpServletResponse.SC_OK));
+		
+		user = new User();
+		
+		assertThat(getStatus(statusPath).getStatus(), equalTo(HttpServletResponse.SC_NOT_FOUND));
+		assertThat(delete(statusPath).getStatus(), equalTo(HttpServletResponse.SC_NOT_FOUND));
+	}
+	
+	@Test
+	public void handleStatusRequest_shouldDeleteTheResultWhenTheClientDeletesIt() throws Exception {
+		respondWith(BUNDLE);
+		String statusPath = getStatusPath(submit());
+		awaitResult(statusPath);
+		
+		assertThat(delete(statusPath).getStatus(), equalTo(HttpServletResponse.SC_ACCEPTED));
+		
+		assertThat(getStatus(statusPath).getStatus(), equalTo(HttpServletResponse.SC_NOT_FOUND));
+		assertThat(spillDirectory.list(), emptyArray());
+	}
+	
+	@Test
+	public void expireRequests_shouldDeleteResultsOlderThanTheRetentionTime() throws Exception {
+		when(globalPropertyService.getGlobalProperty(FhirConstants.OPENMRS_FHIR_ASYNC_RETENTION)).thenReturn("5");
+		respondWith(BUNDLE);
+		String statusPath = getStatusPath(submit());
+		awaitResult(statusPath);
+		
+		asyncRequestManager.expireRequests(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+		
+		assertThat(spillDirectory.list(), arrayWithSize(1));
+		
+		asyncRequestManager.expireRequests(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(6));
+		
+		assertThat(getStatus(statusPath).getStatus(), equalTo(HttpServletResponse.SC_NOT_FOUND));
+		assertThat(spillDirectory.list(), emptyArray());
+	}
+	
+	@Test
+	public void submit_shouldWriteResultsReadableOnlyByTheServer() throws Exception {
+		assumeTrue(spillDirectory.toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+		respondWith(BUNDLE);
+		
+		awaitResult(getStatusPath(submit()));
+		
+		File[] files = spillDirectory.listFiles();
+		assertThat(files, arrayWithSize(1));
+		assertThat(Files.getPosixFilePermissions(files[0].toPath()), equalTo(PosixFilePermissions.fromString("rw-------")));
+	}
+	
+	private void respondWith(String body) throws Exception {
+		doAnswer(invocation -> {
+			HttpServletResponse response = invocation.getArgument(1);
+			response.setContentType("application/fhir+json");
+			response.getWriter().write(body);
+			return null;
+		}).when(servlet).service(any(), any());
+	}
+	
+	private MockHttpServletResponse submit() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		asyncRequestManager.submit(servlet, "/Observation", request, response, SERVER_BASE);
+		return response;
+	}
+	
+	private String getStatusPath(MockHttpServletResponse accepted) {
+		return StringUtils.removeStart(accepted.getHeader("Content-Location"), SERVER_BASE);
+	}
+	
+	private MockHttpServletResponse getStatus(String statusPath) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		asyncRequestManager.handleStatusRequest(statusPath, new MockHttpServletRequest("GET", statusPath), response);
+		return response;
+	}
+	
+	private MockHttpServletResponse delete(String statusPath) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		asyncRequestManager.handleStatusRequest(statusPath, new MockHttpServletRequest("DELETE", statusPath), response);
+		return response;
+	}
+	
+	private MockHttpServletResponse awaitResult(String statusPath) throws Exception {
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+		MockHttpServletResponse response = getStatus(statusPath);
+		while (response.getStatus() == HttpServletResponse.SC_ACCEPTED && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			response = getStatus(statusPath);
+		}
+		
+		return response;
+	}
+}